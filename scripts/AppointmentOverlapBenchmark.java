@@ -0,0 +1,178 @@
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Đo độ trễ kiểm tra chồng chéo lịch hẹn khi lịch sử của một bác sĩ tăng từ
+ * 100 lên 100.000 cuộc hẹn, so sánh cách cũ (tải mọi lịch "Scheduled" của bác
+ * sĩ rồi duyệt trong Java, như findByDoctor_DoctorIdAndStatus) với truy vấn theo
+ * cửa sổ thời gian mà AppointmentRepository.findConflictingAppointments dùng,
+ * trên index phức hợp (doctor_id, status, appointment_datetime).
+ * <p>
+ * Chạy với cơ sở dữ liệu SQL Server cục bộ dành riêng cho việc đo (bảng
+ * bench_appointments bị xóa và tạo lại):
+ * <pre>
+ * java -cp mssql-jdbc.jar scripts/AppointmentOverlapBenchmark.java \
+ *     "jdbc:sqlserver://localhost;databaseName=pma_bench;encrypt=false" user password [lookups=500]
+ * </pre>
+ * Với mỗi kích thước lịch sử, bảng được nạp lại cho một bác sĩ (một nửa
+ * "Completed" trong quá khứ, một nửa "Scheduled", mỗi giờ một cuộc hẹn) cùng
+ * lịch của 20 bác sĩ khác, rồi chạy {@code lookups} lần kiểm tra tại các thời
+ * điểm ngẫu nhiên. Cả hai cách chỉ đọc hai cột qua JDBC; cách cũ trong ứng dụng
+ * còn dựng entity (kèm bệnh nhân) cho từng dòng nên chênh lệch thực tế còn lớn
+ * hơn. Chương trình thoát với mã 1 nếu hai cách cho kết quả khác nhau.
+ */
+public class AppointmentOverlapBenchmark {
+
+    private static final int[] HISTORY_SIZES = {100, 1_000, 10_000, 100_000};
+    private static final int OTHER_DOCTORS = 20;
+    private static final int OTHER_DOCTOR_APPOINTMENTS = 1_000;
+    private static final long DURATION_MINUTES = 60; // AppointmentService.DEFAULT_APPOINTMENT_DURATION_MINUTES
+    private static final int BATCH_SIZE = 1_000;
+
+    public static void main(String[] args) throws SQLException {
+        if (args.length < 3) {
+            System.err.println("Usage: AppointmentOverlapBenchmark <jdbc-url> <user> <password> [lookups]");
+            System.exit(2);
+        }
+        int lookups = args.length > 3 ? Integer.parseInt(args[3]) : 500;
+        boolean mismatch = false;
+        try (Connection connection = DriverManager.getConnection(args[0], args[1], args[2])) {
+            System.out.printf("%10s %16s %16s %10s%n", "history", "full scan (us)", "windowed (us)", "speedup");
+            for (int history : HISTORY_SIZES) {
+                UUID doctorId = load(connection, history);
+                LocalDateTime first = LocalDateTime.of(2020, 1, 1, 8, 0);
+                Random random = new Random(42);
+                // Làm nóng kế hoạch thực thi và buffer pool cho cả hai cách
+                for (int i = 0; i < 20; i++) {
+                    LocalDateTime start = first.plusMinutes(15L * random.nextInt(history * 4));
+                    fullScan(connection, doctorId, start);
+                    windowed(connection, doctorId, start);
+                }
+                long fullScanNanos = 0;
+                long windowedNanos = 0;
+                for (int i = 0; i < lookups; i++) {
+                    LocalDateTime start = first.plusMinutes(15L * random.nextInt(history * 4));
+                    long t0 = System.nanoTime();
+                    boolean oldConflict = fullScan(connection, doctorId, start);
+                    long t1 = System.nanoTime();
+                    boolean newConflict = windowed(connection, doctorId, start);
+                    long t2 = System.nanoTime();
+                    fullScanNanos += t1 - t0;
+                    windowedNanos += t2 - t1;
+                    if (oldConflict != newConflict) {
+                        System.err.println("Mismatch at " + start + ": full scan=" + oldConflict + ", windowed=" + newConflict);
+                        mismatch = true;
+                    }
+                }
+                double fullScanMicros = fullScanNanos / 1e3 / lookups;
+                double windowedMicros = windowedNanos / 1e3 / lookups;
+                System.out.printf("%,10d %16.0f %16.0f %9.1fx%n", history, fullScanMicros, windowedMicros,
+                        fullScanMicros / windowedMicros);
+            }
+        }
+        if (mismatch) {
+            System.exit(1);
+        }
+    }
+
+    private static UUID load(Connection connection, int history) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bench_appointments");
+            statement.execute("CREATE TABLE bench_appointments ("
+                    + "appointment_id UNIQUEIDENTIFIER NOT NULL PRIMARY KEY, "
+                    + "doctor_id UNIQUEIDENTIFIER NOT NULL, "
+                    + "status NVARCHAR(15) NOT NULL, "
+                    + "appointment_datetime DATETIME2 NOT NULL)");
+            statement.execute("CREATE INDEX IX_bench_appointments_doctor_status_datetime "
+                    + "ON bench_appointments (doctor_id, status, appointment_datetime)");
+        }
+        UUID doctorId = UUID.randomUUID();
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO bench_appointments (appointment_id, doctor_id, status, appointment_datetime) VALUES (?, ?, ?, ?)")) {
+            LocalDateTime first = LocalDateTime.of(2020, 1, 1, 8, 0);
+            int pending = 0;
+            for (int i = 0; i < history; i++) {
+                pending = add(insert, doctorId, i < history / 2 ? "Completed" : "Scheduled", first.plusHours(i), pending);
+            }
+            for (int d = 0; d < OTHER_DOCTORS; d++) {
+                UUID otherDoctorId = UUID.randomUUID();
+                for (int i = 0; i < OTHER_DOCTOR_APPOINTMENTS; i++) {
+                    pending = add(insert, otherDoctorId, "Scheduled", first.plusHours(i), pending);
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("UPDATE STATISTICS bench_appointments");
+        }
+        return doctorId;
+    }
+
+    private static int add(PreparedStatement insert, UUID doctorId, String status, LocalDateTime start, int pending)
+            throws SQLException {
+        insert.setString(1, UUID.randomUUID().toString());
+        insert.setString(2, doctorId.toString());
+        insert.setString(3, status);
+        insert.setTimestamp(4, Timestamp.valueOf(start));
+        insert.addBatch();
+        if (++pending == BATCH_SIZE) {
+            insert.executeBatch();
+            return 0;
+        }
+        return pending;
+    }
+
+    /**
+     * Cách cũ: tải mọi lịch "Scheduled" của bác sĩ và kiểm tra giao nhau trong
+     * Java.
+     */
+    private static boolean fullScan(Connection connection, UUID doctorId, LocalDateTime start) throws SQLException {
+        LocalDateTime end = start.plusMinutes(DURATION_MINUTES);
+        try (PreparedStatement query = connection.prepareStatement(
+                "SELECT appointment_id, appointment_datetime FROM bench_appointments "
+                + "WHERE doctor_id = ? AND status = 'Scheduled'")) {
+            query.setString(1, doctorId.toString());
+            boolean conflict = false;
+            try (ResultSet rs = query.executeQuery()) {
+                while (rs.next()) {
+                    LocalDateTime existingStart = rs.getTimestamp(2).toLocalDateTime();
+                    LocalDateTime existingEnd = existingStart.plusMinutes(DURATION_MINUTES);
+                    if (start.isBefore(existingEnd) && end.isAfter(existingStart)) {
+                        conflict = true;
+                    }
+                }
+            }
+            return conflict;
+        }
+    }
+
+    /**
+     * Cách hiện tại: chỉ đọc các lịch có thời điểm bắt đầu trong khoảng
+     * (start - thời lượng, start + thời lượng).
+     */
+    private static boolean windowed(Connection connection, UUID doctorId, LocalDateTime start) throws SQLException {
+        try (PreparedStatement query = connection.prepareStatement(
+                "SELECT appointment_id, appointment_datetime FROM bench_appointments "
+                + "WHERE doctor_id = ? AND status = 'Scheduled' "
+                + "AND appointment_datetime > ? AND appointment_datetime < ?")) {
+            query.setString(1, doctorId.toString());
+            query.setTimestamp(2, Timestamp.valueOf(start.minusMinutes(DURATION_MINUTES)));
+            query.setTimestamp(3, Timestamp.valueOf(start.plusMinutes(DURATION_MINUTES)));
+            try (ResultSet rs = query.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+}
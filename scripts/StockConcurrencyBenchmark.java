@@ -0,0 +1,144 @@
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Kiểm tra việc trừ tồn kho đồng thời: nhiều luồng cùng trừ tồn kho của một
+ * loại thuốc, so sánh cách cũ (đọc, cộng trong Java, ghi lại ở READ_COMMITTED)
+ * với câu lệnh UPDATE có điều kiện mà MedicineRepository.adjustStock dùng.
+ * <p>
+ * Chạy với cơ sở dữ liệu SQL Server cục bộ dành riêng cho việc đo (bảng
+ * bench_stock bị xóa và tạo lại):
+ * <pre>
+ * java -cp mssql-jdbc.jar scripts/StockConcurrencyBenchmark.java \
+ *     "jdbc:sqlserver://localhost;databaseName=pma_bench;encrypt=false" user password [threads=64] [decrements=200]
+ * </pre>
+ * Mỗi luồng dùng một kết nối riêng và trừ 1 đơn vị {@code decrements} lần, mỗi
+ * lần một transaction. Tồn kho ban đầu bằng đúng tổng số lần trừ, nên tồn kho
+ * cuối cùng phải bằng 0; số dư khác 0 là số lượt trừ bị mất. Chương trình
+ * thoát với mã 1 nếu cách nguyên tử làm mất lượt trừ nào.
+ */
+public class StockConcurrencyBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: StockConcurrencyBenchmark <jdbc-url> <user> <password> [threads] [decrements]");
+            System.exit(2);
+        }
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+        int decrements = args.length > 4 ? Integer.parseInt(args[4]) : 200;
+
+        Result readModifyWrite = run(args, threads, decrements, false);
+        Result atomic = run(args, threads, decrements, true);
+        System.out.println(readModifyWrite);
+        System.out.println(atomic);
+        System.out.printf("atomic/read-modify-write throughput: %.2fx%n",
+                atomic.decrementsPerSecond() / readModifyWrite.decrementsPerSecond());
+        if (atomic.finalStock() != 0 || atomic.rejected() != 0) {
+            System.err.println("Atomic update lost or rejected decrements");
+            System.exit(1);
+        }
+    }
+
+    private record Result(String mode, int expected, int finalStock, int rejected, double seconds) {
+
+        double decrementsPerSecond() {
+            return expected / seconds;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-18s decrements=%d lost=%d rejected=%d time=%.2fs throughput=%.0f/s",
+                    mode, expected, finalStock, rejected, seconds, decrementsPerSecond());
+        }
+    }
+
+    private static Result run(String[] args, int threads, int decrements, boolean atomic) throws Exception {
+        int total = threads * decrements;
+        try (Connection connection = DriverManager.getConnection(args[0], args[1], args[2]);
+                Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bench_stock");
+            statement.execute("CREATE TABLE bench_stock (id INT NOT NULL PRIMARY KEY, "
+                    + "stock_quantity INT NOT NULL, status NVARCHAR(20) NOT NULL)");
+            statement.execute("INSERT INTO bench_stock VALUES (1, " + total + ", 'AVAILABLE')");
+        }
+
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch startSignal = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(pool.submit(() -> {
+                try (Connection connection = DriverManager.getConnection(args[0], args[1], args[2])) {
+                    connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+                    connection.setAutoCommit(false);
+                    startSignal.await();
+                    for (int i = 0; i < decrements; i++) {
+                        if (!(atomic ? decrementAtomically(connection) : decrementByReadModifyWrite(connection))) {
+                            rejected.incrementAndGet();
+                        }
+                        connection.commit();
+                    }
+                }
+                return null;
+            }));
+        }
+        long start = System.nanoTime();
+        startSignal.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        try (Connection connection = DriverManager.getConnection(args[0], args[1], args[2]);
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT stock_quantity FROM bench_stock WHERE id = 1")) {
+            rs.next();
+            return new Result(atomic ? "atomic-update" : "read-modify-write", total, rs.getInt(1), rejected.get(),
+                    seconds);
+        }
+    }
+
+    private static boolean decrementByReadModifyWrite(Connection connection) throws SQLException {
+        int stock;
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT stock_quantity FROM bench_stock WHERE id = 1");
+                ResultSet rs = select.executeQuery()) {
+            rs.next();
+            stock = rs.getInt(1);
+        }
+        if (stock - 1 < 0) {
+            return false;
+        }
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE bench_stock SET stock_quantity = ?, status = ? WHERE id = 1")) {
+            update.setInt(1, stock - 1);
+            update.setString(2, stock - 1 == 0 ? "OUT_OF_STOCK" : "AVAILABLE");
+            update.executeUpdate();
+        }
+        return true;
+    }
+
+    private static boolean decrementAtomically(Connection connection) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE bench_stock SET stock_quantity = stock_quantity + ?, "
+                + "status = CASE WHEN stock_quantity + ? = 0 AND status = 'AVAILABLE' THEN 'OUT_OF_STOCK' ELSE status END "
+                + "WHERE id = 1 AND stock_quantity + ? >= 0")) {
+            update.setInt(1, -1);
+            update.setInt(2, -1);
+            update.setInt(3, -1);
+            return update.executeUpdate() == 1;
+        }
+    }
+}
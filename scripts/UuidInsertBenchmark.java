@@ -0,0 +1,109 @@
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import com.pma.model.id.SequentialUuids;
+
+/**
+ * So sánh tốc độ chèn vào bảng có clustered primary key uniqueidentifier giữa
+ * UUID ngẫu nhiên (UUID.randomUUID, cách sinh khóa cũ) và UUID tăng dần theo
+ * thời gian (SequentialUuids, cách sinh khóa hiện tại của các entity).
+ * <p>
+ * Chạy với cơ sở dữ liệu SQL Server cục bộ dành riêng cho việc đo (bảng
+ * bench_uuid_* bị xóa và tạo lại), sau khi đã build (mvn compile):
+ * <pre>
+ * java -cp target/classes:mssql-jdbc.jar scripts/UuidInsertBenchmark.java \
+ *     "jdbc:sqlserver://localhost;databaseName=pma_bench;encrypt=false" user password [rows=1000000]
+ * </pre>
+ * Mỗi chế độ chèn số dòng như nhau theo lô 50 câu lệnh (bằng
+ * HibernateConfig.JDBC_BATCH_SIZE), commit sau mỗi lô, in tốc độ theo từng đoạn
+ * 100.000 dòng (để thấy tốc độ giảm dần khi bảng lớn) và độ phân mảnh của
+ * clustered index khi kết thúc.
+ */
+public class UuidInsertBenchmark {
+
+    private static final int BATCH_SIZE = 50;
+    private static final int REPORT_EVERY = 100_000;
+
+    public static void main(String[] args) throws SQLException {
+        if (args.length < 3) {
+            System.err.println("Usage: UuidInsertBenchmark <jdbc-url> <user> <password> [rows]");
+            System.exit(2);
+        }
+        int rows = args.length > 3 ? Integer.parseInt(args[3]) : 1_000_000;
+        try (Connection connection = DriverManager.getConnection(args[0], args[1], args[2])) {
+            Result random = run(connection, "bench_uuid_random", rows, UUID::randomUUID);
+            Result ordered = run(connection, "bench_uuid_ordered", rows, SequentialUuids::next);
+            System.out.println();
+            System.out.println(random);
+            System.out.println(ordered);
+            System.out.printf("ordered/random throughput: %.2fx%n", ordered.rowsPerSecond() / random.rowsPerSecond());
+        }
+    }
+
+    private record Result(String table, int rows, double seconds, double fragmentationPercent, long pages) {
+
+        double rowsPerSecond() {
+            return rows / seconds;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-20s rows=%d time=%.1fs throughput=%.0f rows/s fragmentation=%.1f%% pages=%d",
+                    table, rows, seconds, rowsPerSecond(), fragmentationPercent, pages);
+        }
+    }
+
+    private static Result run(Connection connection, String table, int rows, Supplier<UUID> ids) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + table);
+            // Dòng có kích thước gần với một bản ghi thông thường (khóa, thời điểm, vài cột chữ)
+            statement.execute("CREATE TABLE " + table + " ("
+                    + "id UNIQUEIDENTIFIER NOT NULL CONSTRAINT PK_" + table + " PRIMARY KEY CLUSTERED, "
+                    + "created_at DATETIME2 NOT NULL, "
+                    + "payload NVARCHAR(200) NOT NULL)");
+        }
+        System.out.println("Inserting " + rows + " rows into " + table + "...");
+        connection.setAutoCommit(false);
+        long start = System.nanoTime();
+        long sliceStart = start;
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO " + table + " (id, created_at, payload) VALUES (?, ?, ?)")) {
+            for (int i = 1; i <= rows; i++) {
+                insert.setString(1, ids.get().toString());
+                insert.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+                insert.setString(3, "Benchmark row " + i + " with some text similar to a note or an address");
+                insert.addBatch();
+                if (i % BATCH_SIZE == 0 || i == rows) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+                if (i % REPORT_EVERY == 0) {
+                    long now = System.nanoTime();
+                    System.out.printf("  %,10d rows: %,.0f rows/s%n", i, REPORT_EVERY / ((now - sliceStart) / 1e9));
+                    sliceStart = now;
+                }
+            }
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        try (PreparedStatement stats = connection.prepareStatement(
+                "SELECT avg_fragmentation_in_percent, page_count "
+                + "FROM sys.dm_db_index_physical_stats(DB_ID(), OBJECT_ID(?), 1, NULL, 'LIMITED')")) {
+            stats.setString(1, table);
+            try (ResultSet rs = stats.executeQuery()) {
+                rs.next();
+                return new Result(table, rows, seconds, rs.getDouble(1), rs.getLong(2));
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+@echo off
+rem Chay ung dung tu ban giai nen cua profile cds (mvn -Pcds verify) voi AppCDS va ma Spring AOT.
+rem Xem scripts/pma.sh de biet cac bien moi truong PMA_HOME, JAVA_HOME, JAVA_OPTS, PMA_AOT.
+setlocal
+
+if "%PMA_HOME%"=="" set "PMA_HOME=%~dp0..\target\app"
+if "%PMA_AOT%"=="" set "PMA_AOT=true"
+set "JAVA_CMD=java"
+if not "%JAVA_HOME%"=="" set "JAVA_CMD=%JAVA_HOME%\bin\java"
+
+set "APP_JAR="
+for %%f in ("%PMA_HOME%\pma-*.jar") do set "APP_JAR=%%~ff"
+if "%APP_JAR%"=="" (
+    echo No application jar in %PMA_HOME%. Build it with: mvn -Pcds verify 1>&2
+    exit /b 1
+)
+
+"%JAVA_CMD%" -XX:SharedArchiveFile="%PMA_HOME%\pma.jsa" -XX:+AutoCreateSharedArchive -Dspring.aot.enabled=%PMA_AOT% %JAVA_OPTS% -jar "%APP_JAR%" %*
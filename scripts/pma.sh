@@ -0,0 +1,29 @@
+#!/usr/bin/env bash
+# Chạy ứng dụng từ bản giải nén của profile cds (mvn -Pcds verify) với AppCDS và mã Spring AOT.
+#
+#   PMA_HOME   Thư mục ứng dụng đã giải nén (mặc định: target/app)
+#   JAVA_HOME  JDK dùng để chạy (mặc định: java trên PATH)
+#   JAVA_OPTS  Tham số JVM bổ sung
+#   PMA_AOT    Đặt false nếu jar không được build bằng profile cds
+#
+# Nếu archive chưa có hoặc không còn khớp (đổi JDK, đổi jar), JVM tự tạo lại khi thoát
+# (-XX:+AutoCreateSharedArchive), nên lần chạy sau lại nhanh.
+set -euo pipefail
+
+script_dir="$(cd "$(dirname "$0")" && pwd)"
+pma_home="$(cd "${PMA_HOME:-$script_dir/../target/app}" && pwd)"
+java_cmd="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+
+app_jar="$(ls "$pma_home"/pma-*.jar 2>/dev/null | head -n 1)"
+if [[ -z "$app_jar" ]]; then
+    echo "No application jar in $pma_home. Build it with: mvn -Pcds verify" >&2
+    exit 1
+fi
+
+# shellcheck disable=SC2086
+exec "$java_cmd" \
+    -XX:SharedArchiveFile="$pma_home/pma.jsa" \
+    -XX:+AutoCreateSharedArchive \
+    -Dspring.aot.enabled="${PMA_AOT:-true}" \
+    ${JAVA_OPTS:-} \
+    -jar "$app_jar" "$@"
@@ -0,0 +1,68 @@
+#!/usr/bin/env bash
+# So sánh thời gian khởi động nguội của jar thường và bản AppCDS + Spring AOT.
+#
+#   scripts/startup-benchmark.sh [số lần chạy, mặc định 5]
+#
+# Cần build trước bằng: mvn -Pcds verify (tạo cả target/pma-*.jar và target/app).
+# Mỗi lần chạy dùng -Dpma.startup.benchmark=true: App in dòng STARTUP-BENCHMARK rồi tự thoát
+# khi màn hình đăng nhập sẵn sàng. Cần kết nối CSDL như khi chạy thật. Lần chạy đầu của bản CDS
+# không được tính vì có thể đang tạo lại archive.
+set -euo pipefail
+
+runs="${1:-5}"
+script_dir="$(cd "$(dirname "$0")" && pwd)"
+project_dir="$(cd "$script_dir/.." && pwd)"
+java_cmd="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+
+plain_jar="$(ls "$project_dir"/target/pma-*.jar 2>/dev/null | grep -v original | head -n 1)"
+if [[ -z "$plain_jar" || ! -d "$project_dir/target/app" ]]; then
+    echo "Build first with: mvn -Pcds verify" >&2
+    exit 1
+fi
+
+# Lọc dòng STARTUP-BENCHMARK thành "first_pixel interactive" (ms)
+parse() {
+    sed -n 's/.*STARTUP-BENCHMARK time-to-first-pixel=\([0-9]*\) ms time-to-interactive-login=\([0-9]*\) ms.*/\1 \2/p'
+}
+
+plain() {
+    "$java_cmd" -Xshare:auto -Dspring.aot.enabled=false -Dpma.startup.benchmark=true -jar "$plain_jar" 2>/dev/null | parse
+}
+
+cds() {
+    JAVA_OPTS="${JAVA_OPTS:-} -Dpma.startup.benchmark=true" "$script_dir/pma.sh" 2>/dev/null | parse
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { if (NR == 0) print "n/a"; else print (NR % 2 ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2)) }'
+}
+
+report() {
+    local name="$1" results="$2"
+    if [[ -z "$results" ]]; then
+        echo "$name: no successful runs" >&2
+        return
+    fi
+    printf '%-8s runs=%d first-pixel median=%s ms interactive-login median=%s ms\n' "$name" \
+        "$(wc -l <<< "$results")" \
+        "$(cut -d' ' -f1 <<< "$results" | median)" \
+        "$(cut -d' ' -f2 <<< "$results" | median)"
+}
+
+echo "Warming up CDS archive..."
+cds > /dev/null || true
+
+plain_results=""
+cds_results=""
+for ((i = 1; i <= runs; i++)); do
+    # Xen kẽ hai cấu hình để nhiễu từ máy (cache đĩa, tải nền) chia đều
+    result="$(plain || true)"
+    echo "run $i plain: ${result:-failed}"
+    [[ -n "$result" ]] && plain_results+="$result"$'\n'
+    result="$(cds || true)"
+    echo "run $i cds:   ${result:-failed}"
+    [[ -n "$result" ]] && cds_results+="$result"$'\n'
+done
+
+report "plain" "${plain_results%$'\n'}"
+report "cds+aot" "${cds_results%$'\n'}"
@@ -0,0 +1,846 @@
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.ProcessingInstruction;
+
+/**
+ * Công cụ build: sinh mã Java (lớp triển khai com.pma.util.CompiledView) từ các
+ * file FXML. Chạy ở cuối pha compile khi build với profile fxml-views (xem
+ * pom.xml), với classpath biên dịch của dự án để có thể tra kiểu các lớp
+ * JavaFX và controller bằng reflection; chỉ mã sinh ra được biên dịch ở lần
+ * biên dịch thứ hai.
+ * <p>
+ * Chỉ hỗ trợ tập con FXML mà ứng dụng đang dùng (import, fx:id, fx:controller,
+ * fx:value, fx:constant, fx:factory, thuộc tính thường/tĩnh, event handler
+ * "#...", tham chiếu "$...", URL "@...", phần tử thuộc tính và thuộc tính mặc
+ * định, lớp dựng bằng @NamedArg). File FXML dùng cấu trúc khác bị bỏ qua kèm
+ * cảnh báo; UIManager khi đó vẫn dùng FXMLLoader cho màn hình đó.
+ * <p>
+ * Cách chạy: java -cp &lt;classpath&gt; FxmlCompiler.java &lt;thư mục fxml&gt;
+ * &lt;đường dẫn resource của thư mục, ví dụ /com/pma/fxml&gt; &lt;thư mục
+ * sinh mã&gt; &lt;package&gt;
+ */
+public final class FxmlCompiler {
+
+    private static final int STATEMENTS_PER_METHOD = 150;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            System.err.println("Usage: FxmlCompiler <fxmlDir> <resourceBase> <outputDir> <package>");
+            System.exit(2);
+        }
+        Path fxmlDir = Path.of(args[0]);
+        String resourceBase = args[1].endsWith("/") ? args[1].substring(0, args[1].length() - 1) : args[1];
+        Path outputDir = Path.of(args[2]);
+        String packageName = args[3];
+
+        Path packageDir = outputDir.resolve(packageName.replace('.', '/'));
+        if (Files.isDirectory(packageDir)) {
+            try (Stream<Path> stale = Files.list(packageDir)) {
+                for (Path file : stale.filter(p -> p.toString().endsWith(".java")).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+        Files.createDirectories(packageDir);
+
+        List<Path> fxmlFiles;
+        try (Stream<Path> files = Files.list(fxmlDir)) {
+            fxmlFiles = files.filter(p -> p.toString().endsWith(".fxml")).sorted().toList();
+        }
+        int generated = 0;
+        for (Path fxmlFile : fxmlFiles) {
+            String fileName = fxmlFile.getFileName().toString();
+            String className = className(fileName);
+            try {
+                String source = new ViewGenerator(resourceBase + "/" + fileName, resourceBase, packageName, className)
+                        .generate(fxmlFile);
+                Files.writeString(packageDir.resolve(className + ".java"), source, StandardCharsets.UTF_8);
+                generated++;
+            } catch (Exception | LinkageError e) {
+                System.err.println("[fxml-compiler] WARNING: skipping " + fileName + " (FXMLLoader will be used): " + e.getMessage());
+            }
+        }
+        System.out.println("[fxml-compiler] Generated " + generated + "/" + fxmlFiles.size() + " compiled views into " + packageDir);
+        if (generated == 0 && !fxmlFiles.isEmpty()) {
+            // Không sinh được màn hình nào: lỗi của trình sinh hoặc classpath, không phải FXML lẻ
+            System.err.println("[fxml-compiler] ERROR: no compiled view could be generated from " + fxmlDir);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Tên lớp sinh ra; phải khớp với com.pma.util.CompiledViews.className.
+     */
+    static String className(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        String baseName = dot >= 0 ? fileName.substring(0, dot) : fileName;
+        StringBuilder sb = new StringBuilder();
+        for (String part : baseName.split("[_\\-]")) {
+            if (!part.isEmpty()) {
+                sb.append(Character.toUpperCase(part.charAt(0))).append(part, 1, part.length());
+            }
+        }
+        return sb.append("Fxml").toString();
+    }
+
+    /**
+     * Lỗi khi gặp cấu trúc FXML không hỗ trợ.
+     */
+    static final class UnsupportedFxmlException extends Exception {
+
+        UnsupportedFxmlException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Giá trị của một phần tử đã sinh mã: biểu thức Java và kiểu tĩnh của nó.
+     */
+    record Value(String expression, Class<?> type) {
+    }
+
+    /**
+     * Sinh mã cho một file FXML.
+     */
+    static final class ViewGenerator {
+
+        private final String fxmlPath;
+        private final String resourceBase;
+        private final String packageName;
+        private final String className;
+        private final ClassLoader loader = FxmlCompiler.class.getClassLoader();
+
+        private final Map<String, String> imports = new HashMap<>();
+        private final List<String> wildcardImports = new ArrayList<>(List.of("java.lang"));
+        private final Map<String, String> staticHandles = new LinkedHashMap<>();
+        private final List<String> fields = new ArrayList<>();
+        private final List<String> statements = new ArrayList<>();
+        private final Map<String, Value> namespace = new HashMap<>();
+
+        private Class<?> controllerType;
+        private Class<? extends Annotation> fxmlAnnotation;
+        private Class<? extends Annotation> namedArgAnnotation;
+        private Class<? extends Annotation> defaultPropertyAnnotation;
+        private Class<?> eventType;
+        private int nextNode;
+
+        ViewGenerator(String fxmlPath, String resourceBase, String packageName, String className) {
+            this.fxmlPath = fxmlPath;
+            this.resourceBase = resourceBase;
+            this.packageName = packageName;
+            this.className = className;
+        }
+
+        String generate(Path fxmlFile) throws Exception {
+            fxmlAnnotation = loadClass("javafx.fxml.FXML").asSubclass(Annotation.class);
+            namedArgAnnotation = loadClass("javafx.beans.NamedArg").asSubclass(Annotation.class);
+            defaultPropertyAnnotation = loadClass("javafx.beans.DefaultProperty").asSubclass(Annotation.class);
+            eventType = loadClass("javafx.event.Event");
+
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(false);
+            factory.setCoalescing(true);
+            Document document = factory.newDocumentBuilder().parse(fxmlFile.toFile());
+            for (Node node = document.getFirstChild(); node != null; node = node.getNextSibling()) {
+                if (node instanceof ProcessingInstruction pi) {
+                    if (!"import".equals(pi.getTarget())) {
+                        throw new UnsupportedFxmlException("processing instruction <?" + pi.getTarget() + "?>");
+                    }
+                    String name = pi.getData().trim();
+                    if (name.endsWith(".*")) {
+                        wildcardImports.add(name.substring(0, name.length() - 2));
+                    } else {
+                        imports.put(name.substring(name.lastIndexOf('.') + 1), name);
+                    }
+                }
+            }
+
+            Element rootElement = document.getDocumentElement();
+            String controllerName = rootElement.getAttribute("fx:controller");
+            if (controllerName.isEmpty()) {
+                throw new UnsupportedFxmlException("root element has no fx:controller");
+            }
+            controllerType = loadClass(controllerName);
+
+            Value root = instance(rootElement);
+            if (!loadClass("javafx.scene.Parent").isAssignableFrom(root.type())) {
+                throw new UnsupportedFxmlException("root element is not a javafx.scene.Parent");
+            }
+            if (loadClass("javafx.fxml.Initializable").isAssignableFrom(controllerType)) {
+                statements.add("this.controller.initialize(location, null);");
+            } else if (findInitializeMethod() != null) {
+                staticHandles.put("H_initialize", "com.pma.util.CompiledViews.method(" + controllerName() + ".class, \"initialize\")");
+                statements.add("com.pma.util.CompiledViews.invoke(H_initialize, this.controller);");
+            }
+            return render(root);
+        }
+
+        private Method findInitializeMethod() {
+            for (Class<?> type = controllerType; type != null && type != Object.class; type = type.getSuperclass()) {
+                for (Method method : type.getDeclaredMethods()) {
+                    if (method.getName().equals("initialize") && method.getParameterCount() == 0
+                            && (Modifier.isPublic(method.getModifiers()) || method.isAnnotationPresent(fxmlAnnotation))) {
+                        return method;
+                    }
+                }
+            }
+            return null;
+        }
+
+        private String controllerName() {
+            return controllerType.getCanonicalName();
+        }
+
+        // ----- Phần tử đối tượng -----
+        private Value instance(Element element) throws Exception {
+            Class<?> type = resolveClass(element.getTagName());
+            Map<String, String> properties = new LinkedHashMap<>();
+            Map<String, String> staticProperties = new LinkedHashMap<>();
+            String fxId = null;
+            String fxValue = null;
+            String fxConstant = null;
+            String fxFactory = null;
+
+            NamedNodeMap attributes = element.getAttributes();
+            for (int i = 0; i < attributes.getLength(); i++) {
+                Attr attribute = (Attr) attributes.item(i);
+                String name = attribute.getName();
+                String value = attribute.getValue();
+                if (name.startsWith("xmlns")) {
+                    continue;
+                }
+                switch (name) {
+                    case "fx:id" -> fxId = value;
+                    case "fx:value" -> fxValue = value;
+                    case "fx:constant" -> fxConstant = value;
+                    case "fx:factory" -> fxFactory = value;
+                    case "fx:controller" -> {
+                        if (element != element.getOwnerDocument().getDocumentElement()) {
+                            throw new UnsupportedFxmlException("fx:controller on a non-root element");
+                        }
+                    }
+                    default -> {
+                        if (name.startsWith("fx:")) {
+                            throw new UnsupportedFxmlException("attribute " + name);
+                        }
+                        if (isStaticPropertyName(name)) {
+                            staticProperties.put(name, value);
+                        } else {
+                            properties.put(name, value);
+                        }
+                    }
+                }
+            }
+
+            String expression;
+            Class<?> valueType;
+            boolean constructorConsumesProperties = false;
+            if (fxValue != null) {
+                valueType = type;
+                expression = coerce(fxValue, type);
+            } else if (fxConstant != null) {
+                Field constant = type.getField(fxConstant);
+                if (!Modifier.isStatic(constant.getModifiers())) {
+                    throw new UnsupportedFxmlException(type.getName() + "." + fxConstant + " is not static");
+                }
+                valueType = constant.getType();
+                expression = type.getCanonicalName() + "." + fxConstant;
+            } else if (fxFactory != null) {
+                Method factoryMethod = type.getMethod(fxFactory);
+                if (!Modifier.isStatic(factoryMethod.getModifiers())) {
+                    throw new UnsupportedFxmlException(type.getName() + "." + fxFactory + "() is not static");
+                }
+                valueType = factoryMethod.getReturnType();
+                expression = type.getCanonicalName() + "." + fxFactory + "()";
+            } else if (hasPublicNoArgConstructor(type)) {
+                valueType = type;
+                expression = "new " + type.getCanonicalName() + "()";
+            } else {
+                valueType = type;
+                expression = namedArgConstruction(type, properties);
+                constructorConsumesProperties = true;
+            }
+
+            String field = declare(valueType);
+            statements.add(field + " = " + expression + ";");
+            Value value = new Value(field, valueType);
+
+            if (fxId != null) {
+                namespace.put(fxId, value);
+                if (hasPublicMethod(valueType, "setId", String.class)) {
+                    statements.add(field + ".setId(" + literal(fxId) + ");");
+                }
+                injectIntoController(fxId, field);
+            }
+
+            if (!constructorConsumesProperties) {
+                for (Map.Entry<String, String> property : properties.entrySet()) {
+                    applyAttribute(value, property.getKey(), property.getValue());
+                }
+            }
+
+            // Các phần tử con được xử lý theo đúng thứ tự trong tài liệu, giống FXMLLoader
+            String defaultProperty = null;
+            for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (child instanceof Element childElement) {
+                    String tag = childElement.getTagName();
+                    if (tag.startsWith("fx:")) {
+                        throw new UnsupportedFxmlException("element <" + tag + ">");
+                    } else if (isStaticPropertyName(tag)) {
+                        applyStaticPropertyElement(value, childElement);
+                    } else if (Character.isLowerCase(tag.charAt(0)) && !tag.contains(".")) {
+                        applyPropertyElement(value, tag, childElement);
+                    } else if (constructorConsumesProperties || fxValue != null || fxConstant != null) {
+                        throw new UnsupportedFxmlException("child elements in <" + element.getTagName() + ">");
+                    } else if (Collection.class.isAssignableFrom(valueType)) {
+                        statements.add(field + ".add(" + instance(childElement).expression() + ");");
+                    } else {
+                        if (defaultProperty == null) {
+                            defaultProperty = defaultProperty(valueType);
+                            if (defaultProperty == null) {
+                                throw new UnsupportedFxmlException(valueType.getName() + " has no default property");
+                            }
+                        }
+                        applyPropertyValues(value, defaultProperty, List.of(childElement));
+                    }
+                } else if (child.getNodeType() == Node.TEXT_NODE && !child.getNodeValue().isBlank()) {
+                    throw new UnsupportedFxmlException("text content in <" + element.getTagName() + ">");
+                }
+            }
+
+            for (Map.Entry<String, String> property : staticProperties.entrySet()) {
+                applyStaticAttribute(value, property.getKey(), property.getValue());
+            }
+            return value;
+        }
+
+        private String namedArgConstruction(Class<?> type, Map<String, String> properties) throws Exception {
+            Constructor<?> best = null;
+            String[] bestNames = null;
+            for (Constructor<?> constructor : type.getConstructors()) {
+                String[] names = namedArgs(constructor);
+                if (names == null || !List.of(names).containsAll(properties.keySet())) {
+                    continue;
+                }
+                if (best == null || constructor.getParameterCount() < best.getParameterCount()) {
+                    best = constructor;
+                    bestNames = names;
+                }
+            }
+            if (best == null) {
+                throw new UnsupportedFxmlException("no constructor of " + type.getName() + " matches attributes " + properties.keySet());
+            }
+            List<String> arguments = new ArrayList<>();
+            Class<?>[] parameterTypes = best.getParameterTypes();
+            Annotation[][] annotations = best.getParameterAnnotations();
+            for (int i = 0; i < parameterTypes.length; i++) {
+                String attributeValue = properties.get(bestNames[i]);
+                if (attributeValue == null) {
+                    attributeValue = namedArgDefault(annotations[i]);
+                }
+                arguments.add(attributeValue != null ? coerce(attributeValue, parameterTypes[i]) : defaultValue(parameterTypes[i]));
+            }
+            return "new " + type.getCanonicalName() + "(" + String.join(", ", arguments) + ")";
+        }
+
+        private String[] namedArgs(Constructor<?> constructor) throws ReflectiveOperationException {
+            Annotation[][] annotations = constructor.getParameterAnnotations();
+            String[] names = new String[annotations.length];
+            for (int i = 0; i < annotations.length; i++) {
+                for (Annotation annotation : annotations[i]) {
+                    if (namedArgAnnotation.isInstance(annotation)) {
+                        names[i] = (String) namedArgAnnotation.getMethod("value").invoke(annotation);
+                    }
+                }
+                if (names[i] == null) {
+                    return null;
+                }
+            }
+            return names;
+        }
+
+        private String namedArgDefault(Annotation[] annotations) throws ReflectiveOperationException {
+            for (Annotation annotation : annotations) {
+                if (namedArgAnnotation.isInstance(annotation)) {
+                    String defaultValue = (String) namedArgAnnotation.getMethod("defaultValue").invoke(annotation);
+                    return defaultValue.isEmpty() ? null : defaultValue;
+                }
+            }
+            return null;
+        }
+
+        private void injectIntoController(String fxId, String field) {
+            for (Class<?> type = controllerType; type != null && type != Object.class; type = type.getSuperclass()) {
+                try {
+                    Field controllerField = type.getDeclaredField(fxId);
+                    if (Modifier.isStatic(controllerField.getModifiers())) {
+                        return;
+                    }
+                    if (Modifier.isPublic(controllerField.getModifiers()) || controllerField.isAnnotationPresent(fxmlAnnotation)) {
+                        String handle = "F_" + fxId;
+                        staticHandles.put(handle, "com.pma.util.CompiledViews.field(" + controllerName() + ".class, " + literal(fxId) + ")");
+                        statements.add(handle + ".set(this.controller, " + field + ");");
+                    }
+                    return;
+                } catch (NoSuchFieldException e) {
+                    // Tìm tiếp ở lớp cha
+                }
+            }
+        }
+
+        // ----- Thuộc tính -----
+        private void applyAttribute(Value target, String name, String value) throws Exception {
+            if (name.startsWith("on") && value.startsWith("#")) {
+                String methodName = value.substring(1);
+                String setter = "set" + capitalize(name);
+                if (findSetter(target.type(), setter) == null) {
+                    throw new UnsupportedFxmlException(target.type().getName() + " has no event property " + name);
+                }
+                if (!controllerHasMethod(methodName)) {
+                    throw new UnsupportedFxmlException("controller has no handler method " + methodName);
+                }
+                String handle = "H_" + methodName;
+                staticHandles.put(handle, "com.pma.util.CompiledViews.method(" + controllerName() + ".class, " + literal(methodName) + ")");
+                statements.add(target.expression() + "." + setter + "(e -> com.pma.util.CompiledViews.invokeHandler(" + handle + ", this.controller, e));");
+                return;
+            }
+            Method setter = findSetter(target.type(), "set" + capitalize(name));
+            if (setter != null) {
+                statements.add(target.expression() + "." + setter.getName() + "(" + coerce(value, setter.getParameterTypes()[0]) + ");");
+                return;
+            }
+            Method getter = findGetter(target.type(), name);
+            if (getter != null && Collection.class.isAssignableFrom(getter.getReturnType())) {
+                // Thuộc tính danh sách chỉ đọc (styleClass, stylesheets...): các phần tử cách nhau bởi dấu phẩy
+                for (String item : value.split(",")) {
+                    statements.add(target.expression() + "." + getter.getName() + "().add(" + coerce(item.trim(), String.class) + ");");
+                }
+                return;
+            }
+            throw new UnsupportedFxmlException(target.type().getName() + " has no writable property " + name);
+        }
+
+        private void applyStaticAttribute(Value target, String name, String value) throws Exception {
+            int dot = name.lastIndexOf('.');
+            Class<?> owner = resolveClass(name.substring(0, dot));
+            Method setter = findStaticSetter(owner, "set" + capitalize(name.substring(dot + 1)), target.type());
+            statements.add(owner.getCanonicalName() + "." + setter.getName() + "(" + target.expression() + ", "
+                    + coerce(value, setter.getParameterTypes()[1]) + ");");
+        }
+
+        private void applyStaticPropertyElement(Value target, Element element) throws Exception {
+            List<Element> children = childElements(element);
+            if (children.size() != 1) {
+                throw new UnsupportedFxmlException("<" + element.getTagName() + "> must contain exactly one element");
+            }
+            String name = element.getTagName();
+            int dot = name.lastIndexOf('.');
+            Class<?> owner = resolveClass(name.substring(0, dot));
+            Method setter = findStaticSetter(owner, "set" + capitalize(name.substring(dot + 1)), target.type());
+            Value value = instance(children.get(0));
+            checkAssignable(setter.getParameterTypes()[1], value, name);
+            statements.add(owner.getCanonicalName() + "." + setter.getName() + "(" + target.expression() + ", " + value.expression() + ");");
+        }
+
+        private void applyPropertyElement(Value target, String name, Element element) throws Exception {
+            List<Element> children = childElements(element);
+            if (children.isEmpty()) {
+                String text = element.getTextContent();
+                if (text == null || text.isBlank()) {
+                    return;
+                }
+                applyAttribute(target, name, text.trim());
+                return;
+            }
+            applyPropertyValues(target, name, children);
+        }
+
+        private void applyPropertyValues(Value target, String name, List<Element> children) throws Exception {
+            Method setter = findSetter(target.type(), "set" + capitalize(name));
+            Method getter = findGetter(target.type(), name);
+            if (setter == null && getter != null && Collection.class.isAssignableFrom(getter.getReturnType())) {
+                for (Element child : children) {
+                    statements.add(target.expression() + "." + getter.getName() + "().add(" + instance(child).expression() + ");");
+                }
+                return;
+            }
+            if (setter == null) {
+                throw new UnsupportedFxmlException(target.type().getName() + " has no writable property " + name);
+            }
+            if (children.size() != 1) {
+                throw new UnsupportedFxmlException("property " + name + " of " + target.type().getName() + " takes a single value");
+            }
+            Value value = instance(children.get(0));
+            checkAssignable(setter.getParameterTypes()[0], value, name);
+            statements.add(target.expression() + "." + setter.getName() + "(" + value.expression() + ");");
+        }
+
+        private void checkAssignable(Class<?> parameterType, Value value, String property) throws UnsupportedFxmlException {
+            if (!box(parameterType).isAssignableFrom(box(value.type()))) {
+                throw new UnsupportedFxmlException("cannot assign " + value.type().getName() + " to " + property
+                        + " (" + parameterType.getName() + ")");
+            }
+        }
+
+        // ----- Chuyển đổi giá trị chuỗi -----
+        private String coerce(String value, Class<?> type) throws Exception {
+            if (value.startsWith("@")) {
+                if (!type.isAssignableFrom(String.class)) {
+                    throw new UnsupportedFxmlException("URL value for non-String type " + type.getName());
+                }
+                return "com.pma.util.CompiledViews.resource(" + className + ".class, " + literal(resolveResource(value.substring(1))) + ")";
+            }
+            if (value.startsWith("$")) {
+                if (value.startsWith("${")) {
+                    throw new UnsupportedFxmlException("binding expression " + value);
+                }
+                Value referenced = namespace.get(value.substring(1));
+                if (referenced == null) {
+                    throw new UnsupportedFxmlException("unknown reference " + value);
+                }
+                if (!box(type).isAssignableFrom(box(referenced.type()))) {
+                    throw new UnsupportedFxmlException("reference " + value + " is not a " + type.getName());
+                }
+                return referenced.expression();
+            }
+            if (value.startsWith("%")) {
+                throw new UnsupportedFxmlException("resource bundle value " + value);
+            }
+            if (value.startsWith("\\")) {
+                value = value.substring(1);
+            }
+
+            Class<?> boxed = box(type);
+            if (boxed == String.class || boxed == Object.class || boxed == CharSequence.class) {
+                return literal(value);
+            }
+            if (boxed == Boolean.class) {
+                return Boolean.toString(Boolean.parseBoolean(value));
+            }
+            if (boxed == Integer.class) {
+                return Integer.toString((int) Double.parseDouble(value));
+            }
+            if (boxed == Long.class) {
+                return (long) Double.parseDouble(value) + "L";
+            }
+            if (boxed == Short.class || boxed == Byte.class) {
+                return "(" + type.getName() + ") " + (int) Double.parseDouble(value);
+            }
+            if (boxed == Double.class) {
+                return doubleLiteral(Double.parseDouble(value), "");
+            }
+            if (boxed == Float.class) {
+                return doubleLiteral(Float.parseFloat(value), "f");
+            }
+            if (type.isEnum()) {
+                for (Object constant : type.getEnumConstants()) {
+                    String name = ((Enum<?>) constant).name();
+                    if (name.equals(value) || name.equals(value.toUpperCase(Locale.ROOT))) {
+                        return type.getCanonicalName() + "." + name;
+                    }
+                }
+                throw new UnsupportedFxmlException(value + " is not a constant of " + type.getName());
+            }
+            if (type.getName().equals("javafx.scene.paint.Color")) {
+                return "javafx.scene.paint.Color.web(" + literal(value) + ")";
+            }
+            if (type.getName().equals("javafx.scene.paint.Paint")) {
+                return "javafx.scene.paint.Paint.valueOf(" + literal(value) + ")";
+            }
+            try {
+                Method valueOf = type.getMethod("valueOf", String.class);
+                if (Modifier.isStatic(valueOf.getModifiers()) && type.isAssignableFrom(valueOf.getReturnType())) {
+                    return type.getCanonicalName() + ".valueOf(" + literal(value) + ")";
+                }
+            } catch (NoSuchMethodException e) {
+                // Không chuyển đổi được, báo lỗi bên dưới
+            }
+            throw new UnsupportedFxmlException("cannot convert \"" + value + "\" to " + type.getName());
+        }
+
+        private static String doubleLiteral(double value, String suffix) {
+            if (Double.isNaN(value)) {
+                return suffix.isEmpty() ? "Double.NaN" : "Float.NaN";
+            }
+            if (Double.isInfinite(value)) {
+                String owner = suffix.isEmpty() ? "Double" : "Float";
+                return owner + (value > 0 ? ".POSITIVE_INFINITY" : ".NEGATIVE_INFINITY");
+            }
+            return suffix.isEmpty() ? Double.toString(value) : Float.toString((float) value) + suffix;
+        }
+
+        private static String defaultValue(Class<?> type) {
+            if (!type.isPrimitive()) {
+                return "null";
+            }
+            if (type == boolean.class) {
+                return "false";
+            }
+            if (type == double.class) {
+                return "0.0";
+            }
+            if (type == float.class) {
+                return "0.0f";
+            }
+            if (type == long.class) {
+                return "0L";
+            }
+            return "(" + type.getName() + ") 0";
+        }
+
+        private String resolveResource(String relative) {
+            if (relative.startsWith("/")) {
+                return relative;
+            }
+            List<String> segments = new ArrayList<>(List.of(resourceBase.substring(1).split("/")));
+            for (String segment : relative.split("/")) {
+                if (segment.equals("..")) {
+                    segments.remove(segments.size() - 1);
+                } else if (!segment.equals(".") && !segment.isEmpty()) {
+                    segments.add(segment);
+                }
+            }
+            return "/" + String.join("/", segments);
+        }
+
+        // ----- Tra cứu reflection -----
+        private Class<?> resolveClass(String name) throws Exception {
+            String simpleName = name;
+            if (name.contains(".")) {
+                int dot = name.lastIndexOf('.');
+                if (Character.isUpperCase(name.charAt(0))) {
+                    // Lớp lồng nhau qua tên đã import, ví dụ Outer.Inner
+                    return loadClass(resolveClass(name.substring(0, dot)).getName() + "$" + name.substring(dot + 1));
+                }
+                return loadClass(name);
+            }
+            String imported = imports.get(simpleName);
+            if (imported != null) {
+                return loadClass(imported);
+            }
+            for (String packageName : wildcardImports) {
+                try {
+                    return loadClass(packageName + "." + simpleName);
+                } catch (ClassNotFoundException e) {
+                    // Thử package tiếp theo
+                }
+            }
+            throw new UnsupportedFxmlException("cannot resolve class " + name);
+        }
+
+        private Class<?> loadClass(String name) throws ClassNotFoundException {
+            return Class.forName(name, false, loader);
+        }
+
+        private boolean isStaticPropertyName(String name) {
+            int dot = name.lastIndexOf('.');
+            return dot > 0 && Character.isUpperCase(name.charAt(0)) && Character.isLowerCase(name.charAt(dot + 1));
+        }
+
+        private static boolean hasPublicNoArgConstructor(Class<?> type) {
+            if (Modifier.isAbstract(type.getModifiers()) || type.isInterface()) {
+                return false;
+            }
+            try {
+                type.getConstructor();
+                return true;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+
+        private static boolean hasPublicMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+            try {
+                type.getMethod(name, parameterTypes);
+                return true;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+
+        private static Method findSetter(Class<?> type, String name) {
+            Method found = null;
+            for (Method method : type.getMethods()) {
+                if (method.getName().equals(name) && method.getParameterCount() == 1 && !Modifier.isStatic(method.getModifiers())) {
+                    // Ưu tiên setter nhận String khi có nhiều overload
+                    if (found == null || method.getParameterTypes()[0] == String.class) {
+                        found = method;
+                    }
+                }
+            }
+            return found;
+        }
+
+        private static Method findGetter(Class<?> type, String property) {
+            for (String prefix : List.of("get", "is")) {
+                try {
+                    Method method = type.getMethod(prefix + capitalize(property));
+                    if (!Modifier.isStatic(method.getModifiers())) {
+                        return method;
+                    }
+                } catch (NoSuchMethodException e) {
+                    // Thử tiền tố tiếp theo
+                }
+            }
+            return null;
+        }
+
+        private static Method findStaticSetter(Class<?> owner, String name, Class<?> targetType) throws UnsupportedFxmlException {
+            for (Method method : owner.getMethods()) {
+                if (method.getName().equals(name) && Modifier.isStatic(method.getModifiers()) && method.getParameterCount() == 2
+                        && method.getParameterTypes()[0].isAssignableFrom(targetType)) {
+                    return method;
+                }
+            }
+            throw new UnsupportedFxmlException(owner.getName() + " has no static property setter " + name);
+        }
+
+        private boolean controllerHasMethod(String name) {
+            for (Class<?> type = controllerType; type != null && type != Object.class; type = type.getSuperclass()) {
+                for (Method method : type.getDeclaredMethods()) {
+                    if (method.getName().equals(name) && (method.getParameterCount() == 0
+                            || (method.getParameterCount() == 1 && eventType.isAssignableFrom(method.getParameterTypes()[0])))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private String defaultProperty(Class<?> type) throws ReflectiveOperationException {
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                Annotation annotation = current.getAnnotation(defaultPropertyAnnotation);
+                if (annotation != null) {
+                    return (String) defaultPropertyAnnotation.getMethod("value").invoke(annotation);
+                }
+            }
+            return null;
+        }
+
+        private static List<Element> childElements(Element element) throws UnsupportedFxmlException {
+            List<Element> children = new ArrayList<>();
+            for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (child instanceof Element childElement) {
+                    children.add(childElement);
+                } else if (child.getNodeType() == Node.TEXT_NODE && !child.getNodeValue().isBlank() && !children.isEmpty()) {
+                    throw new UnsupportedFxmlException("mixed content in <" + element.getTagName() + ">");
+                }
+            }
+            return children;
+        }
+
+        private static Class<?> box(Class<?> type) {
+            if (!type.isPrimitive()) {
+                return type;
+            }
+            return switch (type.getName()) {
+                case "boolean" -> Boolean.class;
+                case "int" -> Integer.class;
+                case "long" -> Long.class;
+                case "double" -> Double.class;
+                case "float" -> Float.class;
+                case "short" -> Short.class;
+                case "byte" -> Byte.class;
+                case "char" -> Character.class;
+                default -> Void.class;
+            };
+        }
+
+        private static String capitalize(String name) {
+            return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        }
+
+        // ----- Xuất mã nguồn -----
+        private String declare(Class<?> type) {
+            String field = "n" + nextNode++;
+            fields.add("    private " + type.getCanonicalName() + " " + field + ";");
+            return field;
+        }
+
+        private static String literal(String value) {
+            StringBuilder sb = new StringBuilder("\"");
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"' -> sb.append("\\\"");
+                    case '\\' -> sb.append("\\\\");
+                    case '\n' -> sb.append("\\n");
+                    case '\r' -> sb.append("\\r");
+                    case '\t' -> sb.append("\\t");
+                    default -> {
+                        if (c < 0x20 || c > 0x7e) {
+                            sb.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            sb.append(c);
+                        }
+                    }
+                }
+            }
+            return sb.append('"').toString();
+        }
+
+        private String render(Value root) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("// Generated from ").append(fxmlPath).append(" by FxmlCompiler. Do not edit.\n");
+            sb.append("package ").append(packageName).append(";\n\n");
+            sb.append("@SuppressWarnings({\"rawtypes\", \"unchecked\", \"deprecation\"})\n");
+            sb.append("public final class ").append(className).append(" implements com.pma.util.CompiledView {\n\n");
+            for (Map.Entry<String, String> handle : staticHandles.entrySet()) {
+                String type = handle.getKey().startsWith("F_") ? "java.lang.invoke.VarHandle" : "java.lang.invoke.MethodHandle";
+                sb.append("    private static final ").append(type).append(' ').append(handle.getKey())
+                        .append(" = ").append(handle.getValue()).append(";\n");
+            }
+            sb.append("\n    private ").append(controllerName()).append(" controller;\n");
+            fields.forEach(field -> sb.append(field).append('\n'));
+
+            sb.append("\n    @Override\n    public Class<?> controllerType() {\n        return ")
+                    .append(controllerName()).append(".class;\n    }\n");
+
+            int methods = (statements.size() + STATEMENTS_PER_METHOD - 1) / STATEMENTS_PER_METHOD;
+            sb.append("\n    @Override\n    public javafx.scene.Parent load(Object controller, java.net.URL location) throws java.io.IOException {\n");
+            sb.append("        this.controller = (").append(controllerName()).append(") controller;\n");
+            sb.append("        try {\n");
+            for (int i = 0; i < methods; i++) {
+                sb.append("            build").append(i).append("(location);\n");
+            }
+            sb.append("        } catch (RuntimeException e) {\n");
+            sb.append("            throw new javafx.fxml.LoadException(").append(literal(fxmlPath)).append(", e);\n");
+            sb.append("        }\n");
+            sb.append("        return ").append(root.expression()).append(";\n    }\n");
+
+            for (int i = 0; i < methods; i++) {
+                sb.append("\n    private void build").append(i).append("(java.net.URL location) {\n");
+                for (String statement : statements.subList(i * STATEMENTS_PER_METHOD,
+                        Math.min(statements.size(), (i + 1) * STATEMENTS_PER_METHOD))) {
+                    sb.append("        ").append(statement).append('\n');
+                }
+                sb.append("    }\n");
+            }
+            sb.append("}\n");
+            return sb.toString();
+        }
+    }
+}
@@ -1,12 +1,29 @@
 package com.pma;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.SpringApplication; // Import UIManager
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.event.ApplicationContextInitializedEvent;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.boot.context.event.ApplicationPreparedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.scheduling.annotation.EnableAsync; // Import ConfigurableApplicationContext
 
+import com.pma.service.ReferenceDataWarmer;
+import com.pma.util.CompiledViews;
+import com.pma.util.DialogUtil;
+import com.pma.util.SplashScreen;
+import com.pma.util.StartupTimeline;
 import com.pma.util.UIManager;
 
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.application.Platform; // Import Platform
 import javafx.stage.Stage;
@@ -16,31 +33,137 @@ import javafx.stage.StageStyle;
 @EnableAsync
 public class App extends Application {
 
-    private ConfigurableApplicationContext springContext;
+    private static final Logger log = LoggerFactory.getLogger(App.class);
+
+    private static final String LOGIN_FXML = "/com/pma/fxml/login.fxml";
+
+    /**
+     * Đặt -Dpma.startup.benchmark=true để đo thời gian khởi động: ứng dụng in
+     * timeline rồi tự thoát ngay khi màn hình đăng nhập sẵn sàng.
+     */
+    private static final boolean STARTUP_BENCHMARK = Boolean.getBoolean("pma.startup.benchmark");
+
+    private volatile ConfigurableApplicationContext springContext;
     private UIManager uiManager;
 
-    // Static field để lưu trữ args từ main, dùng cho SpringApplication.run trong init()
+    private StartupTimeline timeline;
+    private CompletableFuture<ConfigurableApplicationContext> springStartup;
+    private SplashScreen splashScreen;
+
+    // Static field để lưu trữ args từ main, dùng cho SpringApplication.run
     private static String[] savedArgs;
 
     @Override
     public void init() throws Exception {
-        // Khởi động Spring Boot application context
-        // Truyền savedArgs để Spring có thể xử lý các tham số dòng lệnh nếu có
-        springContext = SpringApplication.run(App.class, savedArgs);
+        timeline = StartupTimeline.sinceProcessStart();
+        timeline.mark("javafx init");
 
-        // Lấy UIManager bean từ Spring context
-        // Tên bean mặc định thường là tên lớp viết thường chữ cái đầu ("uiManager")
-        uiManager = springContext.getBean(UIManager.class);
+        // Khởi động Spring Boot (Hibernate, kết nối SQL Server...) ở luồng nền để cửa sổ chờ hiện ra ngay
+        springStartup = new CompletableFuture<>();
+        Thread springThread = new Thread(this::runSpring, "spring-startup");
+        springThread.setDaemon(true);
+        springThread.start();
+
+        // Song song với Spring: nạp trước các lớp của màn hình đăng nhập
+        Thread preloadThread = new Thread(this::preloadLoginView, "login-view-preload");
+        preloadThread.setDaemon(true);
+        preloadThread.start();
+    }
+
+    private void runSpring() {
+        try {
+            SpringApplication application = new SpringApplication(App.class);
+            // Spring không tự tìm được lớp main từ luồng này; cần để nạp mã AOT (App__ApplicationContextInitializer)
+            application.setMainApplicationClass(App.class);
+            application.addListeners(this::onSpringEvent);
+            // Truyền savedArgs để Spring có thể xử lý các tham số dòng lệnh nếu có
+            springStartup.complete(application.run(savedArgs));
+        } catch (Throwable e) {
+            springStartup.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Ghi mốc thời gian và cập nhật cửa sổ chờ theo các bước khởi động của
+     * Spring.
+     */
+    private void onSpringEvent(ApplicationEvent event) {
+        String status;
+        double progress;
+        if (event instanceof ApplicationEnvironmentPreparedEvent) {
+            timeline.mark("spring environment");
+            status = "Đang đọc cấu hình...";
+            progress = 0.1;
+        } else if (event instanceof ApplicationContextInitializedEvent) {
+            timeline.mark("spring context initialized");
+            status = "Đang khởi tạo ứng dụng...";
+            progress = 0.2;
+        } else if (event instanceof ApplicationPreparedEvent) {
+            timeline.mark("spring context prepared");
+            status = "Đang kết nối cơ sở dữ liệu...";
+            progress = 0.3;
+        } else if (event instanceof ContextRefreshedEvent) {
+            timeline.mark("spring context refreshed");
+            status = "Đang chuẩn bị giao diện...";
+            progress = 0.9;
+        } else if (event instanceof ApplicationReadyEvent) {
+            timeline.mark("spring ready");
+            status = "Đang mở màn hình đăng nhập...";
+            progress = 1.0;
+        } else {
+            return;
+        }
+        Platform.runLater(() -> {
+            if (splashScreen != null) {
+                splashScreen.update(status, progress);
+            }
+        });
+    }
+
+    /**
+     * Nạp và khởi tạo trước lớp màn hình đăng nhập sinh sẵn từ FXML (nếu có),
+     * cùng controller và các lớp JavaFX mà nó dùng, để lần hiển thị đầu tiên
+     * không phải chờ nạp lớp.
+     */
+    private void preloadLoginView() {
+        try {
+            CompiledViews.find(LOGIN_FXML);
+            timeline.mark("login view preloaded");
+        } catch (RuntimeException | LinkageError e) {
+            log.debug("Could not preload login view: {}", e.toString());
+        }
     }
 
     @Override
     public void start(Stage primaryStage) throws Exception {
-        // Đảm bảo UIManager đã được lấy thành công từ Spring context
-        if (uiManager == null) {
-            System.err.println("UIManager bean is null. Spring context initialization might have failed.");
-            Platform.exit(); // Thoát ứng dụng JavaFX nếu không có UIManager
+        splashScreen = new SplashScreen();
+        splashScreen.show();
+        markOnNextFrame("first pixel (splash)", null);
+
+        springStartup.whenComplete((context, error) -> Platform.runLater(() -> onSpringStarted(primaryStage, context, error)));
+    }
+
+    private void onSpringStarted(Stage primaryStage, ConfigurableApplicationContext context, Throwable error) {
+        if (error != null) {
+            log.error("Spring context initialization failed.", error);
+            if (STARTUP_BENCHMARK) {
+                // Chạy đo/huấn luyện không có người dùng: không mở hộp thoại chờ bấm OK
+                System.exit(1);
+            }
+            splashScreen.close();
+            DialogUtil.showExceptionDialog("Lỗi khởi động", "Không thể khởi động ứng dụng.",
+                    "Kiểm tra cấu hình và kết nối cơ sở dữ liệu.", error instanceof Exception ex ? ex : new RuntimeException(error));
+            Platform.exit();
             return;
         }
+        springContext = context;
+
+        // Lấy UIManager bean từ Spring context
+        uiManager = springContext.getBean(UIManager.class);
+
+        // Làm nóng dữ liệu tham chiếu song song với việc hiển thị màn hình đăng nhập
+        springContext.getBean(ReferenceDataWarmer.class).warmUpAsync(timeline)
+                .thenRun(() -> timeline.mark("reference data warmed"));
 
         // Thiết lập primaryStage cho UIManager để nó có thể quản lý cửa sổ chính
         uiManager.initializePrimaryStage(primaryStage);
@@ -48,14 +171,43 @@ public class App extends Application {
         // Thiết lập các thuộc tính ban đầu cho Stage (tùy chọn, UIManager cũng có thể làm)
         primaryStage.initStyle(StageStyle.DECORATED);
         primaryStage.setResizable(true);
-        // primaryStage.setMaximized(true); // Có thể bỏ dòng này để dễ debug ban đầu
 
-        // Yêu cầu UIManager chuyển sang màn hình ban đầu (ví dụ: màn hình login)
-        // Dựa trên log trước đó có tiêu đề "Login Form", giả định màn hình login là màn hình khởi đầu.
+        // Phương thức loadScene trong UIManager sẽ gọi primaryStage.show()
         uiManager.switchToLoginScreen();
+        splashScreen.close();
+        splashScreen = null;
 
-        // Phương thức loadScene trong UIManager sẽ gọi primaryStage.show()
-        // nên bạn thường không cần gọi primaryStage.show() ở đây nữa.
+        markOnNextFrame("interactive login", () -> {
+            timeline.logSummary();
+            if (STARTUP_BENCHMARK) {
+                reportBenchmarkAndExit();
+            }
+        });
+    }
+
+    /**
+     * Ghi mốc ở lần vẽ khung hình kế tiếp (khi nội dung vừa thay đổi thực sự
+     * được hiển thị), rồi chạy then (nếu có) trên luồng JavaFX.
+     */
+    private void markOnNextFrame(String name, Runnable then) {
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                stop();
+                timeline.mark(name);
+                if (then != null) {
+                    then.run();
+                }
+            }
+        }.start();
+    }
+
+    private void reportBenchmarkAndExit() {
+        Duration firstPixel = timeline.get("first pixel (splash)").sinceStart();
+        Duration interactive = timeline.get("interactive login").sinceStart();
+        System.out.printf("STARTUP-BENCHMARK time-to-first-pixel=%d ms time-to-interactive-login=%d ms%n",
+                firstPixel.toMillis(), interactive.toMillis());
+        Platform.exit();
     }
 
     @Override
@@ -71,8 +223,13 @@ public class App extends Application {
     }
 
     public static void main(String[] args) {
-        // Lưu lại args để SpringApplication.run có thể sử dụng trong init()
+        // Lưu lại args để SpringApplication.run có thể sử dụng
         savedArgs = args;
+        if (Boolean.getBoolean("spring.aot.processing")) {
+            // Bước process-aot của Maven (profile cds) chỉ cần dựng Spring context trên luồng main, không mở JavaFX
+            new SpringApplication(App.class).run(args);
+            return;
+        }
         // Khởi chạy ứng dụng JavaFX. Lệnh này sẽ gọi init() rồi đến start().
         Application.launch(App.class, args);
     }
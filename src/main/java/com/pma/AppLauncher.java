@@ -0,0 +1,17 @@
+package com.pma;
+
+/**
+ * Điểm vào khi chạy ứng dụng từ classpath (java -jar, xem scripts/pma.sh).
+ * Lớp main không kế thừa javafx.application.Application nên JVM không đòi
+ * JavaFX phải nằm trên module path; {@link App} vẫn là lớp main khi chạy bằng
+ * javafx:run.
+ */
+public final class AppLauncher {
+
+    private AppLauncher() {
+    }
+
+    public static void main(String[] args) {
+        App.main(args);
+    }
+}
@@ -0,0 +1,128 @@
+package com.pma.config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bổ sung cột Appointments.slot_guard và ràng buộc UQ_Appointments_doctor_slot
+ * (xem Appointment.slotGuard) cho cơ sở dữ liệu đã có dữ liệu, trước khi
+ * Hibernate khởi động. Không thể thêm thẳng một cột NOT NULL vào bảng đã có
+ * dòng, và SQL Server coi các giá trị NULL là trùng nhau trong ràng buộc UNIQUE,
+ * nên việc chuyển đổi đi theo ba bước:
+ * <ol>
+ * <li>thêm cột cho phép NULL;</li>
+ * <li>điền giá trị cho các dòng cũ theo đúng quy tắc của
+ * Appointment.computeSlotGuard(). Nếu dữ liệu cũ đã có hai lịch "Scheduled"
+ * trùng bác sĩ và giờ bắt đầu, chỉ lịch được tạo trước giữ giờ bắt đầu làm
+ * khóa, các lịch còn lại dùng ID của chúng để ràng buộc tạo được;</li>
+ * <li>chuyển cột sang NOT NULL rồi tạo ràng buộc.</li>
+ * </ol>
+ * Mỗi bước chỉ chạy khi cần nên chạy lại nhiều lần vẫn an toàn. Với cơ sở dữ
+ * liệu mới (chưa có bảng Appointments) không làm gì; Hibernate tạo bảng cùng
+ * cột và ràng buộc.
+ */
+@Component
+public class AppointmentSlotGuardMigration implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentSlotGuardMigration.class);
+
+    /**
+     * Giờ bắt đầu theo định dạng của LocalDateTime.toString() sau withNano(0):
+     * không có phần giây khi giây bằng 0.
+     */
+    private static final String START_AS_GUARD = "CASE WHEN DATEPART(second, a.appointment_datetime) = 0"
+            + " THEN CONVERT(VARCHAR(16), a.appointment_datetime, 126)"
+            + " ELSE CONVERT(VARCHAR(19), a.appointment_datetime, 126) END";
+
+    private final DataSource dataSource;
+
+    @Autowired
+    public AppointmentSlotGuardMigration(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            if (!exists(statement, "SELECT OBJECT_ID('dbo.Appointments')")) {
+                return;
+            }
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                migrate(statement);
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private void migrate(Statement statement) throws SQLException {
+        if (!exists(statement, "SELECT COL_LENGTH('dbo.Appointments', 'slot_guard')")) {
+            log.info("Adding nullable column Appointments.slot_guard");
+            statement.execute("ALTER TABLE dbo.Appointments ADD slot_guard VARCHAR(40) NULL");
+        }
+
+        if (exists(statement, "SELECT 1 WHERE COLUMNPROPERTY(OBJECT_ID('dbo.Appointments'), 'slot_guard', 'AllowsNull') = 1")) {
+            int backfilled = statement.executeUpdate("WITH ranked AS ("
+                    + " SELECT a.slot_guard, a.appointment_id, a.doctor_id, a.status, a.appointment_datetime,"
+                    + " " + START_AS_GUARD + " AS start_guard,"
+                    + " ROW_NUMBER() OVER (PARTITION BY a.doctor_id, a.status, a.appointment_datetime"
+                    + " ORDER BY a.created_at, a.appointment_id) AS rn"
+                    + " FROM dbo.Appointments a WHERE a.slot_guard IS NULL)"
+                    + " UPDATE ranked SET slot_guard = CASE"
+                    + " WHEN status = 'Scheduled' AND doctor_id IS NOT NULL AND appointment_datetime IS NOT NULL"
+                    + " AND rn = 1 AND NOT EXISTS (SELECT 1 FROM dbo.Appointments o"
+                    + " WHERE o.doctor_id = ranked.doctor_id AND o.slot_guard = ranked.start_guard)"
+                    + " THEN start_guard"
+                    + " ELSE LOWER(CONVERT(VARCHAR(36), appointment_id)) END");
+            log.info("Backfilled Appointments.slot_guard for {} existing row(s); making it NOT NULL", backfilled);
+            statement.execute("ALTER TABLE dbo.Appointments ALTER COLUMN slot_guard VARCHAR(40) NOT NULL");
+        }
+
+        if (!exists(statement, "SELECT 1 FROM sys.key_constraints"
+                + " WHERE name = 'UQ_Appointments_doctor_slot' AND parent_object_id = OBJECT_ID('dbo.Appointments')")) {
+            log.info("Adding unique constraint UQ_Appointments_doctor_slot");
+            statement.execute("ALTER TABLE dbo.Appointments"
+                    + " ADD CONSTRAINT UQ_Appointments_doctor_slot UNIQUE (doctor_id, slot_guard)");
+        }
+    }
+
+    /**
+     * @return true nếu truy vấn trả về một dòng có giá trị khác NULL.
+     */
+    private static boolean exists(Statement statement, String sql) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery(sql)) {
+            return resultSet.next() && resultSet.getObject(1) != null;
+        }
+    }
+
+    /**
+     * Buộc EntityManagerFactory (và bước cập nhật lược đồ của Hibernate) chờ
+     * việc chuyển đổi hoàn tất.
+     */
+    @Configuration(proxyBeanMethods = false)
+    static class RunBeforeJpa extends EntityManagerFactoryDependsOnPostProcessor {
+
+        RunBeforeJpa() {
+            super(AppointmentSlotGuardMigration.class);
+        }
+    }
+}
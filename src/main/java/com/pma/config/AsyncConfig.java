@@ -0,0 +1,81 @@
+package com.pma.config;
+
+import java.util.concurrent.Executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+
+import com.pma.util.BoundedVirtualThreadExecutor;
+
+/**
+ * Cấu hình thực thi bất đồng bộ cho @Async. Mỗi nhóm công việc có một executor
+ * virtual thread riêng với giới hạn số tác vụ đồng thời và độ dài hàng chờ, để
+ * một đợt tải lớn (ví dụ hàng trăm email OTP khi đăng ký) không làm nghẽn các
+ * công việc khác. Phương thức @Async không chỉ định tên executor sẽ dùng nhóm
+ * mặc định.
+ */
+@Configuration
+public class AsyncConfig implements AsyncConfigurer {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncConfig.class);
+
+    /**
+     * Tên bean executor cho công việc nền chung (mặc định của @Async).
+     */
+    public static final String DEFAULT_EXECUTOR = "defaultAsyncExecutor";
+
+    /**
+     * Tên bean executor cho việc gửi email trực tiếp.
+     */
+    public static final String MAIL_EXECUTOR = "mailAsyncExecutor";
+
+    /**
+     * Tên bean executor cho việc gửi mã OTP.
+     */
+    public static final String OTP_EXECUTOR = "otpAsyncExecutor";
+
+    @Autowired
+    @Lazy
+    @Qualifier(DEFAULT_EXECUTOR)
+    private Executor defaultExecutor;
+
+    @Bean(name = DEFAULT_EXECUTOR, destroyMethod = "shutdown")
+    public BoundedVirtualThreadExecutor defaultAsyncExecutor(
+            @Value("${pma.async.default.max-concurrency:16}") int maxConcurrency,
+            @Value("${pma.async.default.max-queued:1000}") int maxQueued) {
+        return new BoundedVirtualThreadExecutor("async", maxConcurrency, maxQueued);
+    }
+
+    @Bean(name = MAIL_EXECUTOR, destroyMethod = "shutdown")
+    public BoundedVirtualThreadExecutor mailAsyncExecutor(
+            @Value("${pma.async.mail.max-concurrency:4}") int maxConcurrency,
+            @Value("${pma.async.mail.max-queued:500}") int maxQueued) {
+        return new BoundedVirtualThreadExecutor("mail", maxConcurrency, maxQueued);
+    }
+
+    @Bean(name = OTP_EXECUTOR, destroyMethod = "shutdown")
+    public BoundedVirtualThreadExecutor otpAsyncExecutor(
+            @Value("${pma.async.otp.max-concurrency:4}") int maxConcurrency,
+            @Value("${pma.async.otp.max-queued:1000}") int maxQueued) {
+        return new BoundedVirtualThreadExecutor("otp", maxConcurrency, maxQueued);
+    }
+
+    @Override
+    public Executor getAsyncExecutor() {
+        return defaultExecutor;
+    }
+
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (ex, method, params) -> log.error("Uncaught exception in async method {}.{}",
+                method.getDeclaringClass().getSimpleName(), method.getName(), ex);
+    }
+}
@@ -0,0 +1,54 @@
+package com.pma.config;
+
+import java.util.Map;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cấu hình bổ sung cho Hibernate. Bật JDBC batching để các thao tác ghi nhiều
+ * bản ghi (ví dụ: đặt lịch hẹn hàng loạt, các BillItem/PrescriptionDetail được
+ * cascade khi lưu hóa đơn/đơn thuốc) được gửi tới cơ sở dữ liệu theo lô thay vì
+ * từng câu lệnh riêng lẻ. Batching đòi hỏi khóa chính được sinh trước khi INSERT
+ * (xem SequentialUuid); khóa IDENTITY sẽ làm Hibernate tắt batching cho entity
+ * đó.
+ * <p>
+ * Bật second-level cache và query cache (JCache, nhà cung cấp Caffeine chạy
+ * trong tiến trình) cho các bảng tham chiếu nhỏ, ít thay đổi (Department,
+ * Disease, Medicine). Kích thước và thời gian hết hạn của từng vùng cache nằm
+ * trong application.conf; thời gian hết hạn giới hạn độ cũ của dữ liệu khi một
+ * máy khác sửa các bảng này. Thống kê Hibernate được bật để theo dõi tỷ lệ
+ * trúng cache (xem ReferenceDataCache).
+ * <p>
+ * Các giá trị ở đây có thể bị ghi đè bởi spring.jpa.properties.* trong file
+ * cấu hình.
+ */
+@Configuration
+public class HibernateConfig implements HibernatePropertiesCustomizer {
+
+    /**
+     * Số câu lệnh tối đa trong một lô JDBC.
+     */
+    public static final int JDBC_BATCH_SIZE = 50;
+
+    private static final String JCACHE_PROVIDER = "hibernate.javax.cache.provider";
+    private static final String CAFFEINE_CACHING_PROVIDER = "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider";
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.putIfAbsent(AvailableSettings.STATEMENT_BATCH_SIZE, JDBC_BATCH_SIZE);
+        // Gom các câu lệnh cùng bảng liền nhau để batching đạt hiệu quả
+        hibernateProperties.putIfAbsent(AvailableSettings.ORDER_INSERTS, true);
+        hibernateProperties.putIfAbsent(AvailableSettings.ORDER_UPDATES, true);
+        hibernateProperties.putIfAbsent(AvailableSettings.BATCH_VERSIONED_DATA, true);
+
+        hibernateProperties.putIfAbsent(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+        hibernateProperties.putIfAbsent(AvailableSettings.USE_QUERY_CACHE, true);
+        hibernateProperties.putIfAbsent(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+        hibernateProperties.putIfAbsent(JCACHE_PROVIDER, CAFFEINE_CACHING_PROVIDER);
+        // Chỉ các thực thể có @Cache mới được cache
+        hibernateProperties.putIfAbsent(AvailableSettings.JAKARTA_SHARED_CACHE_MODE, "ENABLE_SELECTIVE");
+        hibernateProperties.putIfAbsent(AvailableSettings.GENERATE_STATISTICS, true);
+    }
+}
@@ -5,12 +5,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import com.pma.model.enums.PasswordResetInitiationResult;
 import com.pma.service.UserAccountService;
 import com.pma.util.DialogUtil;
 import com.pma.util.UIManager;
+import com.pma.util.UiTaskService;
 
-import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
@@ -41,6 +40,8 @@ public class ForgotPasswordController {
     private UserAccountService userAccountService;
     @Autowired
     private UIManager uiManager;
+    @Autowired
+    private UiTaskService uiTaskService;
 
     @FXML
     public void initialize() {
@@ -62,11 +63,8 @@ public class ForgotPasswordController {
         showProgress();
         setFormDisabled(true);
 
-        Thread resetInitiationThread = new Thread(() -> {
-            try {
-                PasswordResetInitiationResult result = userAccountService.initiatePasswordReset(input);
-
-                Platform.runLater(() -> {
+        uiTaskService.submit(this, () -> userAccountService.initiatePasswordReset(input),
+                result -> {
                     hideProgress();
                     switch (result) {
                         case EMAIL_SENT -> {
@@ -87,18 +85,13 @@ public class ForgotPasswordController {
                             showError("Không thể gửi email đặt lại mật khẩu. Vui lòng thử lại sau hoặc liên hệ hỗ trợ.");
                         }
                     }
-                });
-            } catch (Exception e) {
-                log.error("Error initiating password reset for input '{}': {}", input, e.getMessage(), e);
-                Platform.runLater(() -> {
+                },
+                e -> {
+                    log.error("Error initiating password reset for input '{}': {}", input, e.getMessage(), e);
                     hideProgress();
                     setFormDisabled(false);
                     showError("An unexpected error occurred. Please try again.");
                 });
-            }
-        });
-        resetInitiationThread.setDaemon(true);
-        resetInitiationThread.start();
     }
 
     @FXML
@@ -8,8 +8,8 @@ import org.springframework.stereotype.Component;
 import com.pma.service.UserAccountService;
 import com.pma.util.DialogUtil;
 import com.pma.util.UIManager;
+import com.pma.util.UiTaskService;
 
-import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
@@ -40,6 +40,8 @@ public class ForgotPasswordRequestController {
     private UserAccountService userAccountService;
     @Autowired
     private UIManager uiManager;
+    @Autowired
+    private UiTaskService uiTaskService;
 
     @FXML
     public void initialize() {
@@ -61,30 +63,24 @@ public class ForgotPasswordRequestController {
         showProgress();
         setFormDisabled(true);
 
-        // Run service call in a background thread
-        new Thread(() -> {
-            try {
-                // This service method should internally handle email sending
-                // and always return true for security reasons (not revealing if user exists)
-                userAccountService.initiatePasswordReset(input);
-
-                Platform.runLater(() -> {
+        // Run service call in a background task
+        // This service method should internally handle email sending
+        // and always return true for security reasons (not revealing if user exists)
+        uiTaskService.submit(this, () -> userAccountService.initiatePasswordReset(input),
+                _ -> {
                     hideProgress();
                     DialogUtil.showInfoAlert("Yêu cầu đã được xử lý",
                             "Nếu tài khoản của bạn tồn tại trong hệ thống, một email chứa mã đặt lại mật khẩu đã được gửi. Vui lòng kiểm tra hộp thư của bạn (bao gồm cả thư mục spam) và nhập mã đó cùng với mật khẩu mới của bạn vào màn hình tiếp theo.");
                     // Chuyển đến màn hình đặt lại mật khẩu, truyền username/email đã nhập
                     // để ResetPasswordController có thể điền sẵn nếu muốn.
                     uiManager.switchToResetPasswordScreen(input);
-                });
-            } catch (Exception e) {
-                log.error("Lỗi khi bắt đầu quá trình đặt lại mật khẩu cho '{}': {}", input, e.getMessage(), e);
-                Platform.runLater(() -> {
+                },
+                e -> {
+                    log.error("Lỗi khi bắt đầu quá trình đặt lại mật khẩu cho '{}': {}", input, e.getMessage(), e);
                     hideProgress();
                     setFormDisabled(false);
                     showError("Đã xảy ra lỗi không mong muốn. Vui lòng thử lại.");
                 });
-            }
-        }).start();
     }
 
     @FXML
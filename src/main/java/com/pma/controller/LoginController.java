@@ -18,6 +18,7 @@ import com.pma.model.enums.UserRole;
 import com.pma.service.UserAccountService;
 import com.pma.util.DialogUtil;
 import com.pma.util.UIManager;
+import com.pma.util.UiTaskService;
 
 import javafx.application.Platform; // Import LocalDateTime
 import javafx.event.ActionEvent; // Ensure UserRole is imported
@@ -48,6 +49,9 @@ public class LoginController {
     @Autowired
     private UIManager uiManager;
 
+    @Autowired
+    private UiTaskService uiTaskService;
+
     @Autowired
     private UserAccountService userAccountService;
 
@@ -134,7 +138,7 @@ public class LoginController {
         showProgress();
         setFormDisabled(true);
 
-        Thread authenticationThread = new Thread(() -> {
+        uiTaskService.run(this, () -> {
             try {
                 UserAccount userAccount = userAccountService.findByUsername(username)
                         .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
@@ -216,9 +220,6 @@ public class LoginController {
                 handleAuthenticationFailure("An unexpected error occurred. Please try again.", username, false);
             }
         });
-
-        authenticationThread.setDaemon(true);
-        authenticationThread.start();
     }
 
     private void sendOtpAndSwitchTo2FAScreen(UserAccount userAccount, Authentication preAuth, String infoMessage) {
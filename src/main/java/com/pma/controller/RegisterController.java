@@ -22,6 +22,7 @@ import com.pma.service.PatientService;
 import com.pma.service.UserAccountService;
 import com.pma.util.DialogUtil; // Import EmailService
 import com.pma.util.UIManager;
+import com.pma.util.UiTaskService;
 
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
@@ -58,6 +59,9 @@ public class RegisterController {
     @Autowired
     private UIManager uiManager;
 
+    @Autowired
+    private UiTaskService uiTaskService;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -311,7 +315,7 @@ public class RegisterController {
         LocalDateTime otpExpiry = LocalDateTime.now().plus(UserAccountService.EMAIL_OTP_VALIDITY_DURATION);
 
         // Attempt to send OTP in a background thread, but wait for its result
-        Thread otpSendingThread = new Thread(() -> {
+        uiTaskService.run(this, () -> {
             try {
                 Future<Void> emailFuture = emailService.sendOtpEmail(email, username, rawOtp);
                 emailFuture.get(20, TimeUnit.SECONDS); // Wait for email sending, with timeout
@@ -353,8 +357,6 @@ public class RegisterController {
                 });
             }
         });
-        otpSendingThread.setDaemon(true);
-        otpSendingThread.start();
     }
 
     private void switchToOtpVerificationView() {
@@ -399,7 +401,7 @@ public class RegisterController {
         showOtpProgress();
         setOtpFormDisabled(true);
 
-        Thread otpVerificationThread = new Thread(() -> {
+        uiTaskService.run(this, () -> {
             if (passwordEncoder.matches(otp, this.pendingOtpHash)) {
                 // OTP is valid, proceed to save data
                 try {
@@ -473,8 +475,6 @@ public class RegisterController {
                 });
             }
         });
-        otpVerificationThread.setDaemon(true);
-        otpVerificationThread.start();
     }
 
     @FXML
@@ -492,7 +492,7 @@ public class RegisterController {
         String newHashedOtp = passwordEncoder.encode(newRawOtp);
         LocalDateTime newOtpExpiry = LocalDateTime.now().plus(UserAccountService.EMAIL_OTP_VALIDITY_DURATION);
 
-        Thread resendOtpThread = new Thread(() -> {
+        uiTaskService.run(this, () -> {
             try {
                 Future<Void> emailFuture = emailService.sendOtpEmail(
                         pendingPatientData.getEmail(), pendingUserAccountData.getUsername(), newRawOtp);
@@ -516,8 +516,6 @@ public class RegisterController {
                 });
             }
         });
-        resendOtpThread.setDaemon(true);
-        resendOtpThread.start();
     }
 
     @FXML
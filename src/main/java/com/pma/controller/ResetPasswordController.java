@@ -11,6 +11,7 @@ import org.springframework.stereotype.Component;
 import com.pma.service.UserAccountService;
 import com.pma.util.DialogUtil;
 import com.pma.util.UIManager;
+import com.pma.util.UiTaskService;
 
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
@@ -62,6 +63,8 @@ public class ResetPasswordController {
     private UserAccountService userAccountService;
     @Autowired
     private UIManager uiManager;
+    @Autowired
+    private UiTaskService uiTaskService;
 
     private String usernameForReset; // Sẽ được set bởi UIManager
     private boolean newPasswordVisible = false;
@@ -174,21 +177,22 @@ public class ResetPasswordController {
         showProgress();
         setFormDisabled(true);
 
-        Thread resetThread = new Thread(() -> {
-            boolean success = userAccountService.resetPasswordWithToken(usernameToUse, token, newPassword);
-            Platform.runLater(() -> {
-                hideProgress();
-                if (success) {
-                    DialogUtil.showSuccessAlert("Thành công", "Mật khẩu của bạn đã được đặt lại thành công. Vui lòng đăng nhập bằng mật khẩu mới.");
-                    uiManager.switchToLoginScreen();
-                } else {
+        uiTaskService.submit(this, () -> userAccountService.resetPasswordWithToken(usernameToUse, token, newPassword),
+                success -> {
+                    hideProgress();
+                    if (success) {
+                        DialogUtil.showSuccessAlert("Thành công", "Mật khẩu của bạn đã được đặt lại thành công. Vui lòng đăng nhập bằng mật khẩu mới.");
+                        uiManager.switchToLoginScreen();
+                    } else {
+                        setFormDisabled(false);
+                        showError("Mã đặt lại không hợp lệ, đã hết hạn hoặc có lỗi xảy ra. Vui lòng thử lại hoặc yêu cầu mã mới.");
+                    }
+                },
+                _ -> {
+                    hideProgress();
                     setFormDisabled(false);
-                    showError("Mã đặt lại không hợp lệ, đã hết hạn hoặc có lỗi xảy ra. Vui lòng thử lại hoặc yêu cầu mã mới.");
-                }
-            });
-        });
-        resetThread.setDaemon(true);
-        resetThread.start();
+                    showError("Đã xảy ra lỗi không mong muốn. Vui lòng thử lại.");
+                });
     }
 
     @FXML
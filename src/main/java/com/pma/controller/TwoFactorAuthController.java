@@ -14,6 +14,7 @@ import com.pma.model.enums.UserRole;
 import com.pma.service.UserAccountService;
 import com.pma.util.DialogUtil;
 import com.pma.util.UIManager;
+import com.pma.util.UiTaskService;
 
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
@@ -35,6 +36,9 @@ public class TwoFactorAuthController {
     @Autowired
     private UIManager uiManager;
 
+    @Autowired
+    private UiTaskService uiTaskService;
+
     @FXML
     private VBox twoFactorFormContainer;
     @FXML
@@ -105,7 +109,7 @@ public class TwoFactorAuthController {
         showProgress();
         setFormDisabled(true);
 
-        Thread verificationThread = new Thread(() -> {
+        uiTaskService.run(this, () -> {
             try {
                 // Lấy userId từ username (cần chắc chắn username là duy nhất)
                 UserAccount user = userAccountService.findByUsername(usernameFor2FA)
@@ -164,8 +168,6 @@ public class TwoFactorAuthController {
                 });
             }
         });
-        verificationThread.setDaemon(true);
-        verificationThread.start();
     }
 
     @FXML
@@ -200,26 +202,22 @@ public class TwoFactorAuthController {
         setFormDisabled(true);
         sendEmailOtpLabel.setDisable(true);
 
-        Thread resendThread = new Thread(() -> {
-            try {
-                userAccountService.generateAndSendEmailOtp(user.getUserId());
-                Platform.runLater(() -> {
-                    infoLabel2FA.setText("Một mã OTP mới đã được gửi đến email của bạn.");
-                    DialogUtil.showInfoAlert("Đã gửi OTP", "Một mã OTP mới đã được gửi đến email của bạn.");
-                });
-            } catch (Exception e) {
-                log.error("Không thể gửi OTP cho người dùng {}: {}", usernameFor2FA, e.getMessage());
-                Platform.runLater(() -> showError("Không thể gửi OTP. Vui lòng thử lại sau."));
-            } finally {
-                Platform.runLater(() -> {
-                    hideProgress();
-                    setFormDisabled(false);
-                    sendEmailOtpLabel.setDisable(false);
-                });
-            }
+        uiTaskService.submit(this, () -> {
+            userAccountService.generateAndSendEmailOtp(user.getUserId());
+            return null;
+        }, _ -> {
+            hideProgress();
+            setFormDisabled(false);
+            sendEmailOtpLabel.setDisable(false);
+            infoLabel2FA.setText("Một mã OTP mới đã được gửi đến email của bạn.");
+            DialogUtil.showInfoAlert("Đã gửi OTP", "Một mã OTP mới đã được gửi đến email của bạn.");
+        }, e -> {
+            log.error("Không thể gửi OTP cho người dùng {}: {}", usernameFor2FA, e.getMessage());
+            hideProgress();
+            setFormDisabled(false);
+            sendEmailOtpLabel.setDisable(false);
+            showError("Không thể gửi OTP. Vui lòng thử lại sau.");
         });
-        resendThread.setDaemon(true);
-        resendThread.start();
     }
 
     // --- UI Helper Methods ---
@@ -15,8 +15,8 @@ import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
 import com.pma.service.UserAccountService;
 import com.pma.util.DialogUtil;
+import com.pma.util.UiTaskService;
 
-import javafx.application.Platform;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -56,6 +56,8 @@ public class TwoFactorSetupController {
 
     @Autowired
     private UserAccountService userAccountService;
+    @Autowired
+    private UiTaskService uiTaskService;
 
     private UUID userId;
     private String generatedSecret;
@@ -101,35 +103,32 @@ public class TwoFactorSetupController {
     private void generateAndDisplayQrCode() {
         showProgress(); // This will also call setFormInteractive(false)
 
-        Thread qrGenerationThread = new Thread(() -> {
-            try {
-                UserAccountService.TwoFactorSecretAndQrData data = userAccountService.generateNewTwoFactorSecretAndQrData(userId);
-                TwoFactorSetupController.this.generatedSecret = data.getSecret();
-                String qrCodeUrl = data.getQrCodeData();
-                QRCodeWriter qrCodeWriter = new QRCodeWriter();
-                BitMatrix bitMatrix = qrCodeWriter.encode(qrCodeUrl, BarcodeFormat.QR_CODE, QR_CODE_WIDTH, QR_CODE_HEIGHT);
-                BufferedImage bufferedImage = MatrixToImageWriter.toBufferedImage(bitMatrix);
-                Image qrImage = SwingFXUtils.toFXImage(bufferedImage, null);
-                Platform.runLater(() -> {
-                    qrCodeImageView.setImage(qrImage);
-                    secretKeyLabel.setText(generatedSecret);
-                    secretKeyLabel.setWrapText(true);
-                    hideProgress(); // Hide indicator
-                    setFormInteractive(true); // Re-enable form controls
-                });
-            } catch (WriterException e) { // Specific exception for QR code generation issues
+        uiTaskService.submit(this, () -> {
+            UserAccountService.TwoFactorSecretAndQrData data = userAccountService.generateNewTwoFactorSecretAndQrData(userId);
+            TwoFactorSetupController.this.generatedSecret = data.getSecret();
+            String qrCodeUrl = data.getQrCodeData();
+            QRCodeWriter qrCodeWriter = new QRCodeWriter();
+            BitMatrix bitMatrix = qrCodeWriter.encode(qrCodeUrl, BarcodeFormat.QR_CODE, QR_CODE_WIDTH, QR_CODE_HEIGHT);
+            BufferedImage bufferedImage = MatrixToImageWriter.toBufferedImage(bitMatrix);
+            return SwingFXUtils.toFXImage(bufferedImage, null);
+        }, qrImage -> {
+            qrCodeImageView.setImage(qrImage);
+            secretKeyLabel.setText(generatedSecret);
+            secretKeyLabel.setWrapText(true);
+            hideProgress(); // Hide indicator
+            setFormInteractive(true); // Re-enable form controls
+        }, e -> {
+            if (e instanceof WriterException) { // Specific exception for QR code generation issues
                 log.error("Error generating QR code for user {}: {}", userId, e.getMessage());
-                Platform.runLater(() -> handleQrGenerationError("Could not generate QR Code. Please try again."));
-            } catch (Exception e) { // Catch other potential errors from service or logic
+                handleQrGenerationError("Could not generate QR Code. Please try again.");
+            } else { // Other potential errors from service or logic
                 log.error("Unexpected error generating 2FA data for user {}: {}", userId, e.getMessage(), e);
-                Platform.runLater(() -> handleQrGenerationError(
-                        "An unexpected error occurred while generating QR data. " +
-                        "Please try again or contact support."
-                ));
+                handleQrGenerationError(
+                        "An unexpected error occurred while generating QR data. "
+                        + "Please try again or contact support."
+                );
             }
         });
-        qrGenerationThread.setDaemon(true); // Ensure thread doesn't prevent app shutdown
-        qrGenerationThread.start();
     }
 
     @FXML
@@ -146,10 +145,8 @@ public class TwoFactorSetupController {
         clearError();
         showProgress(); // This will also call setFormInteractive(false)
 
-        Thread verificationThread = new Thread(() -> {
-            try {
-                boolean isValid = userAccountService.verifyAndEnableTwoFactor(userId, generatedSecret, otp);
-                Platform.runLater(() -> {
+        uiTaskService.submit(this, () -> userAccountService.verifyAndEnableTwoFactor(userId, generatedSecret, otp),
+                isValid -> {
                     if (isValid) {
                         this.setupSuccessful = true;
                         DialogUtil.showInfoAlert("2FA Enabled", "Two-Factor Authentication has been successfully enabled for your account.");
@@ -159,18 +156,13 @@ public class TwoFactorSetupController {
                         setFormInteractive(true); // Re-enable form for another try
                         showError("Invalid OTP code. Please try again.");
                     } // Consider adding a mechanism to limit OTP verification attempts
-                });
-            } catch (Exception e) {
-                log.error("Error verifying and enabling 2FA for user {}: {}", userId, e.getMessage(), e);
-                Platform.runLater(() -> {
+                },
+                e -> {
+                    log.error("Error verifying and enabling 2FA for user {}: {}", userId, e.getMessage(), e);
                     hideProgress(); // Hide indicator
                     setFormInteractive(true); // Re-enable form
                     showError("An error occurred. " + e.getMessage());
                 });
-            }
-        });
-        verificationThread.setDaemon(true); // Ensure thread doesn't prevent app shutdown
-        verificationThread.start();
     }
 
     @FXML
@@ -3,7 +3,9 @@ package com.pma.controller.admin;
 import com.pma.model.entity.Department;
 import com.pma.service.DepartmentService;
 import com.pma.util.DialogUtil;
+import com.pma.util.RefreshableView;
 import com.pma.util.UIManager;
+import com.pma.util.UiTaskService;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -29,7 +31,7 @@ import javafx.fxml.Initializable;
 
 @Component
 @RequiredArgsConstructor
-public class AdminManageDepartmentsController implements Initializable {
+public class AdminManageDepartmentsController implements Initializable, RefreshableView {
 
     private static final Logger log = LoggerFactory.getLogger(AdminManageDepartmentsController.class);
 
@@ -89,6 +91,7 @@ public class AdminManageDepartmentsController implements Initializable {
 
     private final DepartmentService departmentService;
     private final UIManager uiManager;
+    private final UiTaskService uiTaskService;
 
     private final ObservableList<Department> departmentObservableList = FXCollections.observableArrayList();
 
@@ -105,6 +108,11 @@ public class AdminManageDepartmentsController implements Initializable {
         log.info("AdminManageDepartmentsController initialized successfully");
     }
 
+    @Override
+    public void onViewShown() {
+        loadDepartments();
+    }
+
     private void setupTable() {
         departmentNameColumn.setCellValueFactory(new PropertyValueFactory<>("departmentName"));
         createdAtColumn.setCellValueFactory(cellData
@@ -294,17 +302,19 @@ public class AdminManageDepartmentsController implements Initializable {
     }
 
     private void loadDepartments() {
-        try {
-            log.debug("Loading departments data...");
-            List<Department> departments = departmentService.getAllDepartments(); // Assuming getAllDepartments method
-            departmentObservableList.setAll(departments);
-            log.info("Loaded {} departments.", departments.size());
-        } catch (Exception e) {
-            log.error("Error loading departments data: {}", e.getMessage(), e);
-            DialogUtil.showErrorAlert("Lỗi tải dữ liệu", "Không thể tải danh sách khoa.");
-            departmentObservableList.clear();
-        }
-        // Ensure buttons are in correct state after loading
-        clearForm(null);
+        log.debug("Loading departments data...");
+        uiTaskService.submit(this, () -> departmentService.getAllDepartments(),
+                departments -> {
+                    departmentObservableList.setAll(departments);
+                    log.info("Loaded {} departments.", departments.size());
+                    // Ensure buttons are in correct state after loading
+                    clearForm(null);
+                },
+                e -> {
+                    log.error("Error loading departments data: {}", e.getMessage(), e);
+                    DialogUtil.showErrorAlert("Lỗi tải dữ liệu", "Không thể tải danh sách khoa.");
+                    departmentObservableList.clear();
+                    clearForm(null);
+                });
     }
 }
@@ -3,7 +3,9 @@ package com.pma.controller.admin;
 import com.pma.model.entity.Disease;
 import com.pma.service.DiseaseService; // Giả định bạn có service này
 import com.pma.util.DialogUtil;
+import com.pma.util.RefreshableView;
 import com.pma.util.UIManager;
+import com.pma.util.UiTaskService;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -26,7 +28,7 @@ import java.util.ResourceBundle;
 
 @Component
 @RequiredArgsConstructor
-public class AdminManageDiseasesController implements Initializable {
+public class AdminManageDiseasesController implements Initializable, RefreshableView {
 
     private static final Logger log = LoggerFactory.getLogger(AdminManageDiseasesController.class);
 
@@ -97,6 +99,7 @@ public class AdminManageDiseasesController implements Initializable {
 
     private final UIManager uiManager;
     private final DiseaseService diseaseService; // Inject service
+    private final UiTaskService uiTaskService;
 
     private final ObservableList<Disease> diseaseObservableList = FXCollections.observableArrayList();
 
@@ -119,6 +122,11 @@ public class AdminManageDiseasesController implements Initializable {
         log.info("AdminManageDiseasesController initialized successfully");
     }
 
+    @Override
+    public void onViewShown() {
+        loadDiseasesData();
+    }
+
     private void setupTableColumns() {
         diseaseCodeColumn.setCellValueFactory(new PropertyValueFactory<>("diseaseCode")); // or "id" if you use getId()
         diseaseNameColumn.setCellValueFactory(new PropertyValueFactory<>("diseaseName"));
@@ -129,16 +137,17 @@ public class AdminManageDiseasesController implements Initializable {
     }
 
     private void loadDiseasesData() {
-        try {
-            log.debug("Loading diseases data...");
-            List<Disease> diseases = diseaseService.getAllDiseases();
-            diseaseObservableList.setAll(diseases);
-            log.info("Loaded {} diseases.", diseases.size());
-        } catch (Exception e) {
-            log.error("Error loading diseases data: {}", e.getMessage(), e);
-            DialogUtil.showErrorAlert("Lỗi tải dữ liệu", "Không thể tải danh sách bệnh.");
-            diseaseObservableList.clear();
-        }
+        log.debug("Loading diseases data...");
+        uiTaskService.submit(this, () -> diseaseService.getAllDiseases(),
+                diseases -> {
+                    diseaseObservableList.setAll(diseases);
+                    log.info("Loaded {} diseases.", diseases.size());
+                },
+                e -> {
+                    log.error("Error loading diseases data: {}", e.getMessage(), e);
+                    DialogUtil.showErrorAlert("Lỗi tải dữ liệu", "Không thể tải danh sách bệnh.");
+                    diseaseObservableList.clear();
+                });
     }
 
     private void populateForm(Disease disease) {
@@ -7,7 +7,9 @@ import com.pma.model.enums.Gender;
 import com.pma.service.DepartmentService;
 import com.pma.service.DoctorService;
 import com.pma.util.DialogUtil;
+import com.pma.util.RefreshableView;
 import com.pma.util.UIManager;
+import com.pma.util.UiTaskService;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -35,13 +37,14 @@ import java.util.Random;
 
 @Component
 @RequiredArgsConstructor
-public class AdminManageDoctorsController implements Initializable {
+public class AdminManageDoctorsController implements Initializable, RefreshableView {
 
     private static final Logger log = LoggerFactory.getLogger(AdminManageDoctorsController.class);
 
     private final UIManager uiManager;
     private final DoctorService doctorService;
     private final DepartmentService departmentService;
+    private final UiTaskService uiTaskService;
 
     @FXML
     private VBox sidebar;
@@ -161,8 +164,7 @@ public class AdminManageDoctorsController implements Initializable {
         setupFormControls();
         setupDoctorsTable();
         loadDepartmentsData();
-        loadInitialDoctorsData(); // Load all doctors into master list first
-        doctorObservableList.setAll(allDoctorsMasterList); // Initially display all doctors
+        loadInitialDoctorsData(); // Load all doctors into master list, then display them
 
         doctorsTable.getSelectionModel().selectedItemProperty().addListener(
                 (obs, oldSelection, newSelection) -> {
@@ -182,6 +184,12 @@ public class AdminManageDoctorsController implements Initializable {
         log.info("AdminManageDoctorsController initialized successfully");
     }
 
+    @Override
+    public void onViewShown() {
+        loadDepartmentsData();
+        loadInitialDoctorsData();
+    }
+
     private void setupSidebar() {
         // Optional: Highlight active button
         // adminManageDoctorsButton.getStyleClass().add("active-sidebar-button");
@@ -228,41 +236,49 @@ public class AdminManageDoctorsController implements Initializable {
     }
 
     private void loadDepartmentsData() {
-        try {
-            log.debug("Loading departments data...");
-            // Giả sử DepartmentService có phương thức findAllActiveDepartments()
-            // hoặc một phương thức tương tự để lấy danh sách khoa đang hoạt động.
-            List<Department> departments = departmentService.getAllDepartments(); // Hoặc findAllActiveDepartments()
-            if (departments != null) {
-                departmentObservableList.setAll(departments);
-                log.info("Loaded {} departments.", departments.size());
-            } else {
-                departmentObservableList.clear();
-                log.warn("DepartmentService returned null for loading departments.");
-            }
-        } catch (Exception e) {
-            log.error("Error loading departments data: {}", e.getMessage(), e);
-            DialogUtil.showErrorAlert("Lỗi tải Khoa", "Không thể tải danh sách khoa.");
-            departmentObservableList.clear();
-        }
+        log.debug("Loading departments data...");
+        // Giả sử DepartmentService có phương thức findAllActiveDepartments()
+        // hoặc một phương thức tương tự để lấy danh sách khoa đang hoạt động.
+        uiTaskService.submit(this, () -> departmentService.getAllDepartments(), // Hoặc findAllActiveDepartments()
+                departments -> {
+                    if (departments != null) {
+                        departmentObservableList.setAll(departments);
+                        log.info("Loaded {} departments.", departments.size());
+                    } else {
+                        departmentObservableList.clear();
+                        log.warn("DepartmentService returned null for loading departments.");
+                    }
+                },
+                e -> {
+                    log.error("Error loading departments data: {}", e.getMessage(), e);
+                    DialogUtil.showErrorAlert("Lỗi tải Khoa", "Không thể tải danh sách khoa.");
+                    departmentObservableList.clear();
+                });
     }
 
+    /**
+     * Tải danh sách bác sĩ ở luồng nền vào danh sách gốc, sau đó hiển thị toàn
+     * bộ lên bảng.
+     */
     private void loadInitialDoctorsData() {
-        try {
-            log.debug("Loading doctors data...");
-            List<Doctor> doctors = doctorService.getAllDoctors(); // Giả sử DoctorService có phương thức này
-            if (doctors != null) {
-                allDoctorsMasterList.setAll(doctors);
-                log.info("Loaded {} doctors.", doctors.size());
-            } else {
-                allDoctorsMasterList.clear();
-                log.warn("DoctorService returned null for loading doctors.");
-            }
-        } catch (Exception e) {
-            log.error("Error loading doctors data: {}", e.getMessage(), e);
-            DialogUtil.showErrorAlert("Lỗi tải Bác sĩ", "Không thể tải danh sách bác sĩ.");
-            allDoctorsMasterList.clear();
-        }
+        log.debug("Loading doctors data...");
+        uiTaskService.submit(this, () -> doctorService.getAllDoctors(), // Giả sử DoctorService có phương thức này
+                doctors -> {
+                    if (doctors != null) {
+                        allDoctorsMasterList.setAll(doctors);
+                        log.info("Loaded {} doctors.", doctors.size());
+                    } else {
+                        allDoctorsMasterList.clear();
+                        log.warn("DoctorService returned null for loading doctors.");
+                    }
+                    doctorObservableList.setAll(allDoctorsMasterList); // Cập nhật bảng hiển thị
+                },
+                e -> {
+                    log.error("Error loading doctors data: {}", e.getMessage(), e);
+                    DialogUtil.showErrorAlert("Lỗi tải Bác sĩ", "Không thể tải danh sách bác sĩ.");
+                    allDoctorsMasterList.clear();
+                    doctorObservableList.clear();
+                });
     }
 
     private void populateForm(Doctor doctor) {
@@ -638,8 +654,7 @@ public class AdminManageDoctorsController implements Initializable {
     }
 
     private void refreshDoctorsTable() {
-        loadInitialDoctorsData(); // Tải lại dữ liệu gốc
-        doctorObservableList.setAll(allDoctorsMasterList); // Cập nhật bảng hiển thị
+        loadInitialDoctorsData(); // Tải lại dữ liệu gốc và cập nhật bảng hiển thị
         clearForm(null); // Xóa form
     }
 
@@ -2,8 +2,12 @@ package com.pma.controller.admin;
 
 import java.math.BigDecimal; // Giả định bạn có entity này
 import java.net.URL; // Giả định bạn có service này
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.ResourceBundle;
+import java.util.UUID;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,13 +17,21 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
 
+import com.pma.model.entity.LowStockAlert;
 import com.pma.model.entity.Medicine;
+import com.pma.model.entity.MedicineLot;
 import com.pma.model.enums.MedicineStatus;
+import com.pma.service.LowStockAlertService;
+import com.pma.service.MedicineLotService;
 import com.pma.service.MedicineService;
 import com.pma.util.DialogUtil;
+import com.pma.util.RefreshableView;
 import com.pma.util.UIManager;
+import com.pma.util.UiTaskService;
 
 import jakarta.persistence.EntityNotFoundException;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -27,6 +39,7 @@ import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
+import javafx.scene.control.DatePicker;
 import javafx.scene.control.Label;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
@@ -38,7 +51,7 @@ import lombok.RequiredArgsConstructor;
 
 @Component
 @RequiredArgsConstructor
-public class AdminManageMedicinesController implements Initializable {
+public class AdminManageMedicinesController implements Initializable, RefreshableView {
 
     private static final Logger log = LoggerFactory.getLogger(AdminManageMedicinesController.class);
 
@@ -128,10 +141,72 @@ public class AdminManageMedicinesController implements Initializable {
     @FXML
     private TableColumn<Medicine, LocalDateTime> updatedAtColumn;
 
+    // Cảnh báo thiếu thuốc chưa được xác nhận
+    @FXML
+    private TableView<LowStockAlert> lowStockAlertsTable;
+    @FXML
+    private TableColumn<LowStockAlert, String> alertMedicineColumn;
+    @FXML
+    private TableColumn<LowStockAlert, Integer> alertAvailableColumn;
+    @FXML
+    private TableColumn<LowStockAlert, Integer> alertThresholdColumn;
+    @FXML
+    private TableColumn<LowStockAlert, String> alertCreatedAtColumn;
+    @FXML
+    private Button acknowledgeAlertButton;
+
+    // Lô thuốc của thuốc đang chọn
+    @FXML
+    private Label selectedMedicineLotsLabel;
+    @FXML
+    private TableView<MedicineLot> lotsTable;
+    @FXML
+    private TableColumn<MedicineLot, String> lotNumberColumn;
+    @FXML
+    private TableColumn<MedicineLot, String> lotExpiryColumn;
+    @FXML
+    private TableColumn<MedicineLot, Integer> lotQuantityColumn;
+    @FXML
+    private Label untrackedStockLabel;
+    @FXML
+    private TextField lotNumberField;
+    @FXML
+    private DatePicker lotExpiryPicker;
+    @FXML
+    private TextField lotQuantityField;
+    @FXML
+    private Button receiveLotButton;
+
+    // Lô còn hàng sắp hết hạn (mọi thuốc)
+    @FXML
+    private TableView<MedicineLot> nearExpiryLotsTable;
+    @FXML
+    private TableColumn<MedicineLot, String> nearExpiryMedicineColumn;
+    @FXML
+    private TableColumn<MedicineLot, String> nearExpiryLotNumberColumn;
+    @FXML
+    private TableColumn<MedicineLot, String> nearExpiryDateColumn;
+    @FXML
+    private TableColumn<MedicineLot, Integer> nearExpiryQuantityColumn;
+
     private final UIManager uiManager;
     private final MedicineService medicineService; // Inject service
+    private final LowStockAlertService lowStockAlertService;
+    private final MedicineLotService medicineLotService;
+    private final UiTaskService uiTaskService;
 
     private final ObservableList<Medicine> medicineObservableList = FXCollections.observableArrayList();
+    private final ObservableList<LowStockAlert> lowStockAlertObservableList = FXCollections.observableArrayList();
+    private final ObservableList<MedicineLot> lotObservableList = FXCollections.observableArrayList();
+    private final ObservableList<MedicineLot> nearExpiryLotObservableList = FXCollections.observableArrayList();
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    private static final DateTimeFormatter EXPIRY_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    /**
+     * Các lô của một thuốc và phần tồn kho không nằm trong lô còn hạn nào.
+     */
+    private record MedicineLots(List<MedicineLot> lots, int untracked) {
+    }
     private static final ObservableList<String> STATUS_OPTIONS
             = FXCollections.observableArrayList("Available", "Unavailable", "Discontinued");
 
@@ -145,7 +220,11 @@ public class AdminManageMedicinesController implements Initializable {
         log.info("Initializing AdminManageMedicinesController");
         statusCombo.setItems(STATUS_OPTIONS);
         setupTableColumns();
+        setupLowStockAlertsTable();
+        setupLotTables();
         loadMedicinesDataForCurrentPage(); // Load initial page
+        loadLowStockAlerts();
+        loadNearExpiryLots();
 
         medicinesTable.getSelectionModel().selectedItemProperty().addListener(
                 (_, _, newSelection) -> {
@@ -153,6 +232,7 @@ public class AdminManageMedicinesController implements Initializable {
                         populateForm(newSelection);
                         updateButton.setDisable(false);
                         deleteButton.setDisable(false);
+                        loadLots(newSelection);
                     } else {
                         clearForm(null);
                     }
@@ -160,6 +240,13 @@ public class AdminManageMedicinesController implements Initializable {
         log.info("AdminManageMedicinesController initialized successfully");
     }
 
+    @Override
+    public void onViewShown() {
+        loadMedicinesDataForCurrentPage();
+        loadLowStockAlerts();
+        loadNearExpiryLots();
+    }
+
    
     private void setupTableColumns() {
         medicineNameColumn.setCellValueFactory(new PropertyValueFactory<>("medicineName"));
@@ -174,6 +261,108 @@ public class AdminManageMedicinesController implements Initializable {
         medicinesTable.setItems(medicineObservableList);
     }
 
+    private void setupLowStockAlertsTable() {
+        alertMedicineColumn.setCellValueFactory(cellData
+                -> new SimpleStringProperty(cellData.getValue().getMedicine().getMedicineName()));
+        alertAvailableColumn.setCellValueFactory(cellData
+                -> new SimpleObjectProperty<>(cellData.getValue().getAvailableQuantity()));
+        alertThresholdColumn.setCellValueFactory(cellData
+                -> new SimpleObjectProperty<>(cellData.getValue().getReorderThreshold()));
+        alertCreatedAtColumn.setCellValueFactory(cellData
+                -> new SimpleStringProperty(cellData.getValue().getCreatedAt() != null
+                        ? cellData.getValue().getCreatedAt().format(DATE_FORMATTER) : ""));
+        lowStockAlertsTable.setItems(lowStockAlertObservableList);
+        lowStockAlertsTable.getSelectionModel().selectedItemProperty().addListener(
+                (_, _, newSelection) -> acknowledgeAlertButton.setDisable(newSelection == null));
+    }
+
+    /**
+     * Tải các cảnh báo thiếu thuốc chưa được xác nhận (mới nhất trước).
+     */
+    private void loadLowStockAlerts() {
+        uiTaskService.submit(this, lowStockAlertService::getOpenAlerts,
+                alerts -> {
+                    lowStockAlertObservableList.setAll(alerts);
+                    log.info("Loaded {} open low stock alert(s).", alerts.size());
+                },
+                e -> {
+                    log.error("Error loading low stock alerts: {}", e.getMessage(), e);
+                    DialogUtil.showErrorAlert("Lỗi tải dữ liệu", "Không thể tải danh sách cảnh báo thiếu thuốc.");
+                    lowStockAlertObservableList.clear();
+                });
+    }
+
+    private void setupLotTables() {
+        lotNumberColumn.setCellValueFactory(new PropertyValueFactory<>("lotNumber"));
+        lotExpiryColumn.setCellValueFactory(cellData
+                -> new SimpleStringProperty(cellData.getValue().getExpiryDate().format(EXPIRY_FORMATTER)));
+        lotQuantityColumn.setCellValueFactory(new PropertyValueFactory<>("quantity"));
+        lotsTable.setItems(lotObservableList);
+
+        nearExpiryMedicineColumn.setCellValueFactory(cellData
+                -> new SimpleStringProperty(cellData.getValue().getMedicine().getMedicineName()));
+        nearExpiryLotNumberColumn.setCellValueFactory(new PropertyValueFactory<>("lotNumber"));
+        nearExpiryDateColumn.setCellValueFactory(cellData
+                -> new SimpleStringProperty(cellData.getValue().getExpiryDate().format(EXPIRY_FORMATTER)));
+        nearExpiryQuantityColumn.setCellValueFactory(new PropertyValueFactory<>("quantity"));
+        nearExpiryLotsTable.setItems(nearExpiryLotObservableList);
+    }
+
+    /**
+     * Tải các lô của thuốc đang chọn cùng phần tồn kho không theo lô (phần này
+     * khi xuất sẽ không phân bổ được vào lô nào).
+     */
+    private void loadLots(Medicine medicine) {
+        UUID medicineId = medicine.getMedicineId();
+        selectedMedicineLotsLabel.setText("Lô của thuốc: " + medicine.getMedicineName());
+        receiveLotButton.setDisable(false);
+        uiTaskService.submit(this, () -> new MedicineLots(medicineLotService.getLots(medicineId),
+                medicineLotService.getUntrackedQuantity(medicineId)),
+                result -> {
+                    Medicine selected = medicinesTable.getSelectionModel().getSelectedItem();
+                    if (selected == null || !selected.getMedicineId().equals(medicineId)) {
+                        return; // Người dùng đã chọn thuốc khác trong lúc tải
+                    }
+                    lotObservableList.setAll(result.lots());
+                    untrackedStockLabel.setText(result.untracked() > 0
+                            ? "Cảnh báo: " + result.untracked() + " " + medicine.getUnit()
+                                    + " trong tồn kho không thuộc lô còn hạn nào; khi xuất sẽ không truy vết được lô."
+                            : "Toàn bộ tồn kho nằm trong các lô còn hạn.");
+                },
+                e -> {
+                    log.error("Error loading lots for medicine {}: {}", medicineId, e.getMessage(), e);
+                    DialogUtil.showErrorAlert("Lỗi tải dữ liệu", "Không thể tải danh sách lô thuốc.");
+                    lotObservableList.clear();
+                    untrackedStockLabel.setText("");
+                });
+    }
+
+    private void clearLots() {
+        lotObservableList.clear();
+        selectedMedicineLotsLabel.setText("Chọn một thuốc để xem và nhập lô.");
+        untrackedStockLabel.setText("");
+        lotNumberField.clear();
+        lotExpiryPicker.setValue(null);
+        lotQuantityField.clear();
+        receiveLotButton.setDisable(true);
+    }
+
+    /**
+     * Tải các lô còn hàng đã hết hạn hoặc sắp hết hạn của mọi thuốc.
+     */
+    private void loadNearExpiryLots() {
+        uiTaskService.submit(this, medicineLotService::getNearExpiryLots,
+                lots -> {
+                    nearExpiryLotObservableList.setAll(lots);
+                    log.info("Loaded {} medicine lot(s) near expiry.", lots.size());
+                },
+                e -> {
+                    log.error("Error loading medicine lots near expiry: {}", e.getMessage(), e);
+                    DialogUtil.showErrorAlert("Lỗi tải dữ liệu", "Không thể tải danh sách lô sắp hết hạn.");
+                    nearExpiryLotObservableList.clear();
+                });
+    }
+
     private void loadMedicinesDataForCurrentPage() {
         try {
             log.debug("Loading medicines data for page: {} with page size: {}", currentPage, pageSize);
@@ -397,6 +586,100 @@ public class AdminManageMedicinesController implements Initializable {
         updateButton.setDisable(true);
         deleteButton.setDisable(true);
         medicinesTable.getSelectionModel().clearSelection();
+        clearLots();
+    }
+
+    @FXML
+    void receiveLot(ActionEvent event) {
+        Medicine selectedMedicine = medicinesTable.getSelectionModel().getSelectedItem();
+        if (selectedMedicine == null) {
+            DialogUtil.showWarningAlert("Chưa chọn Thuốc", "Vui lòng chọn một loại thuốc để nhập lô.");
+            return;
+        }
+        StringBuilder errors = new StringBuilder();
+        String lotNumber = lotNumberField.getText() != null ? lotNumberField.getText().trim() : "";
+        if (lotNumber.isEmpty()) {
+            errors.append("- Số lô không được để trống.\n");
+        }
+        LocalDate expiryDate = lotExpiryPicker.getValue();
+        if (expiryDate == null) {
+            errors.append("- Hạn dùng không được để trống.\n");
+        } else if (expiryDate.isBefore(LocalDate.now())) {
+            errors.append("- Không thể nhập lô đã hết hạn.\n");
+        }
+        int quantity = 0;
+        try {
+            quantity = Integer.parseInt(lotQuantityField.getText() != null ? lotQuantityField.getText().trim() : "");
+            if (quantity <= 0) {
+                errors.append("- Số lượng phải là số nguyên dương.\n");
+            }
+        } catch (NumberFormatException e) {
+            errors.append("- Số lượng không hợp lệ (phải là số nguyên).\n");
+        }
+        if (!errors.isEmpty()) {
+            DialogUtil.showWarningAlert("Thiếu thông tin hoặc dữ liệu không hợp lệ", errors.toString());
+            return;
+        }
+
+        UUID medicineId = selectedMedicine.getMedicineId();
+        int received = quantity;
+        receiveLotButton.setDisable(true);
+        uiTaskService.submit(this, () -> {
+            medicineLotService.receiveLot(medicineId, lotNumber, expiryDate, received);
+            return medicineService.getMedicineById(medicineId);
+        }, updatedMedicine -> {
+            DialogUtil.showSuccessAlert("Thành công", "Đã nhập " + received + " " + updatedMedicine.getUnit()
+                    + " thuốc " + updatedMedicine.getMedicineName() + " (lô " + lotNumber + ").");
+            int index = medicineObservableList.indexOf(selectedMedicine);
+            if (index != -1) {
+                // Chọn lại dòng để cập nhật form, danh sách lô và tồn kho
+                medicineObservableList.set(index, updatedMedicine);
+                medicinesTable.getSelectionModel().select(updatedMedicine);
+            }
+            lotNumberField.clear();
+            lotExpiryPicker.setValue(null);
+            lotQuantityField.clear();
+            receiveLotButton.setDisable(false);
+            loadNearExpiryLots();
+        }, e -> {
+            receiveLotButton.setDisable(false);
+            if (e instanceof IllegalArgumentException) {
+                // Ví dụ: số lô đã tồn tại với hạn dùng khác
+                log.warn("Cannot receive lot {} for medicine {}: {}", lotNumber, medicineId, e.getMessage());
+                DialogUtil.showErrorAlert("Không thể nhập lô", "Không thể nhập lô " + lotNumber
+                        + ". Số lô có thể đã tồn tại với hạn dùng khác.");
+            } else if (e instanceof EntityNotFoundException) {
+                DialogUtil.showErrorAlert("Không tìm thấy", "Không tìm thấy thuốc để nhập lô. Có thể đã bị xóa.");
+                loadMedicinesDataForCurrentPage();
+            } else {
+                log.error("Error receiving lot for medicine {}: {}", medicineId, e.getMessage(), e);
+                DialogUtil.showErrorAlert("Lỗi Hệ thống", "Không thể nhập lô thuốc. Vui lòng thử lại sau.");
+            }
+        });
+    }
+
+    @FXML
+    void acknowledgeAlert(ActionEvent event) {
+        LowStockAlert selectedAlert = lowStockAlertsTable.getSelectionModel().getSelectedItem();
+        if (selectedAlert == null) {
+            DialogUtil.showWarningAlert("Chưa chọn Cảnh báo", "Vui lòng chọn một cảnh báo để xác nhận.");
+            return;
+        }
+        acknowledgeAlertButton.setDisable(true);
+        uiTaskService.submit(this, () -> {
+            lowStockAlertService.acknowledge(selectedAlert.getAlertId());
+            return selectedAlert;
+        }, lowStockAlertObservableList::remove, e -> {
+            if (e instanceof EntityNotFoundException) {
+                // Cảnh báo đã bị xóa ở nơi khác: chỉ cần bỏ khỏi danh sách
+                log.warn("Low stock alert not found: {}", selectedAlert.getAlertId());
+                lowStockAlertObservableList.remove(selectedAlert);
+            } else {
+                log.error("Error acknowledging low stock alert: {}", e.getMessage(), e);
+                DialogUtil.showErrorAlert("Lỗi", "Không thể xác nhận cảnh báo. Vui lòng thử lại sau.");
+                acknowledgeAlertButton.setDisable(false);
+            }
+        });
     }
 
     // Event handlers for pagination buttons
@@ -4,7 +4,9 @@ import com.pma.model.entity.Patient; // Thay thế bằng Patient entity/DTO th
 import com.pma.model.enums.Gender;
 import com.pma.service.PatientService; // Giả sử bạn có một PatientService
 import com.pma.util.DialogUtil;
+import com.pma.util.RefreshableView;
 import com.pma.util.UIManager;
+import com.pma.util.UiTaskService;
 
 import jakarta.persistence.EntityNotFoundException;
 import javafx.collections.FXCollections;
@@ -37,12 +39,13 @@ import java.util.UUID;
 
 @Component
 @RequiredArgsConstructor
-public class AdminManagePatientsController implements Initializable {
+public class AdminManagePatientsController implements Initializable, RefreshableView {
 
     private static final Logger log = LoggerFactory.getLogger(AdminManagePatientsController.class);
 
     private final UIManager uiManager;
     private final PatientService patientService; // Inject service của bạn
+    private final UiTaskService uiTaskService;
     // private final DialogUtil dialogUtil; // DialogUtil will be used statically
 
     @FXML
@@ -181,6 +184,11 @@ public class AdminManagePatientsController implements Initializable {
         // bloodTypeCombo1.setItems(FXCollections.observableArrayList("A+", "A-", "B+", "B-", "O+", "O-", "AB+", "AB-"));
     }
 
+    @Override
+    public void onViewShown() {
+        loadPatientsData();
+    }
+
     private void setupTableColumns() {
         fullNameColumn.setCellValueFactory(new PropertyValueFactory<>("fullName"));
         dateOfBirthColumn.setCellValueFactory(new PropertyValueFactory<>("dateOfBirth"));
@@ -208,31 +216,18 @@ public class AdminManagePatientsController implements Initializable {
     private void loadPatientsData() {
         log.info("Đang tải dữ liệu bệnh nhân...");
 
-        javafx.concurrent.Task<List<Patient>> loadTask = new javafx.concurrent.Task<>() {
-            @Override
-            protected List<Patient> call() throws Exception {
-                return patientService.getAllPatients(); // Chạy trên luồng nền
-            }
-        };
-
-        loadTask.setOnSucceeded(event -> {
-            List<Patient> patients = loadTask.getValue();
-            patientList.setAll(patients);
-            log.info("Đã tải {} bệnh nhân.", patients.size());
-        });
-
-        loadTask.setOnFailed(event -> {
-            Throwable e = loadTask.getException();
-            log.error("Lỗi khi tải dữ liệu bệnh nhân: {}", e.getMessage(), e);
-            DialogUtil.showErrorAlert("Lỗi tải dữ liệu",
-                    "Không thể tải danh sách bệnh nhân. Vui lòng thử lại.");
-            patientList.clear();
-        });
-
-        // Start the background task
-        Thread loadThread = new Thread(loadTask);
-        loadThread.setDaemon(true); // Set as daemon thread
-        loadThread.start();
+        // Chạy trên luồng nền, kết quả được đưa về luồng JavaFX
+        uiTaskService.submit(this, () -> patientService.getAllPatients(),
+                patients -> {
+                    patientList.setAll(patients);
+                    log.info("Đã tải {} bệnh nhân.", patients.size());
+                },
+                e -> {
+                    log.error("Lỗi khi tải dữ liệu bệnh nhân: {}", e.getMessage(), e);
+                    DialogUtil.showErrorAlert("Lỗi tải dữ liệu",
+                            "Không thể tải danh sách bệnh nhân. Vui lòng thử lại.");
+                    patientList.clear();
+                });
     }
 
     private void populateForm(Patient patient) {
@@ -18,6 +18,7 @@ import com.pma.service.DoctorService;
 import com.pma.service.PatientService;
 import com.pma.service.UserAccountService;
 import com.pma.util.DialogUtil;
+import com.pma.util.RefreshableView;
 import com.pma.util.UIManager;
 
 import jakarta.persistence.EntityNotFoundException;
@@ -40,7 +41,7 @@ import lombok.RequiredArgsConstructor;
 
 @Component
 @RequiredArgsConstructor
-public class AdminManageUserAccountsController implements Initializable {
+public class AdminManageUserAccountsController implements Initializable, RefreshableView {
 
     private static final Logger log = LoggerFactory.getLogger(AdminManageUserAccountsController.class);
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
@@ -137,6 +138,11 @@ public class AdminManageUserAccountsController implements Initializable {
         log.info("AdminManageUserAccountsController initialized successfully");
     }
 
+    @Override
+    public void onViewShown() {
+        loadData();
+    }
+
     // Constants for Dialogs
     private static final String SUCCESS_TITLE = "Thành công";
     private static final String ERROR_TITLE = "Lỗi";
@@ -10,6 +10,7 @@ import com.pma.model.enums.BillPaymentStatus;
 import com.pma.model.enums.PaymentMethod;
 import com.pma.service.BillService;
 import com.pma.util.DialogUtil;
+import com.pma.util.RefreshableView;
 import com.pma.util.UIManager;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
@@ -39,7 +40,7 @@ import java.util.UUID;
 
 @Component
 @RequiredArgsConstructor
-public class AdminViewRevenueController implements Initializable {
+public class AdminViewRevenueController implements Initializable, RefreshableView {
 
     private static final Logger log = LoggerFactory.getLogger(AdminViewRevenueController.class);
 
@@ -131,6 +132,11 @@ public class AdminViewRevenueController implements Initializable {
         log.info("AdminViewRevenueController initialized successfully");
     }
 
+    @Override
+    public void onViewShown() {
+        loadBillsData();
+    }
+
     private void setupSidebar() {
         // You can add logic here to highlight the active button, e.g.:
         // adminViewRevenueButton.getStyleClass().add("active-sidebar-button");
@@ -10,7 +10,12 @@ import com.pma.service.DoctorService;
 import com.pma.service.UserAccountService;
 import com.pma.util.DialogUtil;
 import com.pma.util.UIManager;
+import com.pma.util.UiTaskService;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleObjectProperty;
+import javafx.collections.ObservableList;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
 import javafx.collections.FXCollections;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -19,6 +24,7 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
@@ -42,6 +48,16 @@ public class DoctorBookAppointmentController {
 
     private static final Logger log = LoggerFactory.getLogger(DoctorBookAppointmentController.class);
 
+    /**
+     * Số cuộc hẹn tải mỗi lần (một cửa sổ keyset).
+     */
+    private static final int APPOINTMENT_WINDOW_SIZE = 50;
+
+    /**
+     * Ngưỡng cuộn (tỷ lệ) để bắt đầu tải cửa sổ tiếp theo.
+     */
+    private static final double LOAD_MORE_SCROLL_THRESHOLD = 0.9;
+
     @FXML
     private Button doctorViewPatientsButton;
 
@@ -125,9 +141,30 @@ public class DoctorBookAppointmentController {
 
     private Doctor currentDoctor;
 
+    /**
+     * Danh sách cuộc hẹn đang hiển thị, được nối thêm khi cuộn.
+     */
+    private final ObservableList<Appointment> appointmentItems = FXCollections.observableArrayList();
+
+    /**
+     * Vị trí keyset của cửa sổ tiếp theo; null nếu đã tải hết.
+     */
+    private ScrollPosition nextAppointmentPosition;
+
+    private boolean loadingAppointments;
+
+    /**
+     * Tăng mỗi khi danh sách được tải lại từ đầu; kết quả của cửa sổ được yêu
+     * cầu trước đó bị bỏ qua.
+     */
+    private int appointmentLoadGeneration;
+
     @Autowired
     private UIManager uiManager;
 
+    @Autowired
+    private UiTaskService uiTaskService;
+
     /**
      * Khởi tạo controller sau khi FXML được tải.
      */
@@ -140,6 +177,7 @@ public class DoctorBookAppointmentController {
         loadPatients();
         loadAppointments();
         setupTableSelectionListener();
+        setupLoadMoreOnScroll();
     }
 
     /**
@@ -247,20 +285,109 @@ public class DoctorBookAppointmentController {
     }
 
     /**
-     * Tải danh sách cuộc hẹn của bác sĩ hiện tại vào bảng.
+     * Tải cửa sổ cuộc hẹn đầu tiên (mới nhất) của bác sĩ hiện tại vào bảng.
+     * Các cửa sổ tiếp theo được tải khi người dùng cuộn xuống cuối bảng.
      */
     private void loadAppointments() {
-        if (currentDoctor != null) {
-            try {
-                List<Appointment> appointments = appointmentService.getAppointmentsByDoctor(
-                        currentDoctor.getDoctorId(), null).getContent();
-                appointmentsTable.setItems(FXCollections.observableArrayList(appointments));
-                log.info("Đã tải {} cuộc hẹn cho bác sĩ {}", appointments.size(), currentDoctor.getFullName());
-            } catch (Exception e) {
-                log.error("Không thể tải danh sách cuộc hẹn", e);
-                DialogUtil.showErrorAlert("Lỗi", "Không thể tải danh sách cuộc hẹn: " + e.getMessage());
+        appointmentLoadGeneration++;
+        loadingAppointments = false;
+        appointmentItems.clear();
+        appointmentsTable.setItems(appointmentItems);
+        nextAppointmentPosition = ScrollPosition.keyset();
+        loadNextAppointmentWindow();
+    }
+
+    /**
+     * Tải nền cửa sổ cuộc hẹn tiếp theo và nối vào cuối bảng. Nếu sau khi nối
+     * bảng vẫn chưa có thanh cuộn dọc (chưa đủ hàng để cuộn), cửa sổ tiếp
+     * theo được tải luôn, vì người dùng không thể cuộn để yêu cầu nó.
+     */
+    private void loadNextAppointmentWindow() {
+        if (currentDoctor == null || nextAppointmentPosition == null || loadingAppointments) {
+            return;
+        }
+        loadingAppointments = true;
+        int generation = appointmentLoadGeneration;
+        UUID doctorId = currentDoctor.getDoctorId();
+        ScrollPosition position = nextAppointmentPosition;
+        uiTaskService.submit(this,
+                () -> appointmentService.getAppointmentWindowByDoctor(doctorId, position, APPOINTMENT_WINDOW_SIZE),
+                window -> {
+                    if (generation != appointmentLoadGeneration) {
+                        return; // Danh sách đã được tải lại trong lúc chờ
+                    }
+                    loadingAppointments = false;
+                    appointmentItems.addAll(window.getContent());
+                    nextAppointmentPosition = window.hasNext() && !window.isEmpty()
+                            ? window.positionAt(window.size() - 1)
+                            : null;
+                    log.info("Đã tải {} cuộc hẹn (tổng {}) cho bác sĩ {}", window.size(), appointmentItems.size(),
+                            currentDoctor.getFullName());
+                    loadMoreIfNotScrollable();
+                },
+                error -> {
+                    if (generation != appointmentLoadGeneration) {
+                        return;
+                    }
+                    loadingAppointments = false;
+                    log.error("Không thể tải danh sách cuộc hẹn", error);
+                    DialogUtil.showErrorAlert("Lỗi", "Không thể tải danh sách cuộc hẹn: " + error.getMessage());
+                });
+    }
+
+    /**
+     * Tải cửa sổ tiếp theo nếu bảng đang hiển thị nhưng chưa cuộn được. Bảng
+     * chưa có skin (chưa gắn vào scene) thì bỏ qua; việc kiểm tra được làm lại
+     * khi skin được tạo.
+     */
+    private void loadMoreIfNotScrollable() {
+        if (nextAppointmentPosition == null || appointmentsTable.getSkin() == null
+                || appointmentsTable.getScene() == null) {
+            return;
+        }
+        // Bố cục lại ngay để thanh cuộn phản ánh các hàng vừa nối
+        appointmentsTable.layout();
+        ScrollBar scrollBar = verticalScrollBar();
+        if (scrollBar == null || !scrollBar.isVisible()) {
+            loadNextAppointmentWindow();
+        }
+    }
+
+    private ScrollBar verticalScrollBar() {
+        for (Node node : appointmentsTable.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar scrollBar && scrollBar.getOrientation() == Orientation.VERTICAL) {
+                return scrollBar;
             }
         }
+        return null;
+    }
+
+    /**
+     * Gắn listener vào thanh cuộn dọc của bảng để tải thêm khi cuộn gần cuối.
+     * Thanh cuộn chỉ tồn tại sau khi skin của TableView được tạo.
+     */
+    private void setupLoadMoreOnScroll() {
+        appointmentsTable.skinProperty().addListener((obs, oldSkin, newSkin) -> {
+            if (newSkin == null) {
+                return;
+            }
+            ScrollBar scrollBar = verticalScrollBar();
+            if (scrollBar != null) {
+                scrollBar.valueProperty().addListener((o, oldValue, newValue) -> {
+                    if (newValue.doubleValue() >= scrollBar.getMax() * LOAD_MORE_SCROLL_THRESHOLD) {
+                        loadNextAppointmentWindow();
+                    }
+                });
+            }
+            // Cửa sổ đầu có thể đã về trước khi bảng được hiển thị
+            Platform.runLater(this::loadMoreIfNotScrollable);
+        });
+        // Bảng cao hơn (phóng to cửa sổ) có thể hết cuộn được
+        appointmentsTable.heightProperty().addListener((obs, oldHeight, newHeight) -> {
+            if (newHeight.doubleValue() > oldHeight.doubleValue()) {
+                Platform.runLater(this::loadMoreIfNotScrollable);
+            }
+        });
     }
 
     /**
@@ -3,14 +3,15 @@ package com.pma.controller.doctor;
 import com.pma.model.entity.Diagnosis;
 import com.pma.model.entity.Disease;
 import com.pma.model.entity.Doctor;
-import com.pma.model.entity.Medicine;
 import com.pma.model.entity.Patient;
 import com.pma.model.entity.Prescription;
 import com.pma.model.entity.PrescriptionDetail;
 import com.pma.model.enums.PrescriptionStatus;
 import com.pma.service.DoctorService;
 import com.pma.service.DiagnosisService;
+import com.pma.service.MedicineCatalog;
 import com.pma.service.MedicineService;
+import com.pma.service.MedicineSummary;
 import com.pma.service.PatientService;
 import com.pma.service.PrescriptionService;
 import com.pma.service.PrescriptionService.PrescriptionDetailDTO;
@@ -21,7 +22,10 @@ import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import com.pma.util.UIManager;
+import com.pma.util.UiTaskService;
+import javafx.concurrent.Task;
 import javafx.scene.control.*;
+import javafx.util.StringConverter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,7 +35,9 @@ import org.springframework.stereotype.Controller;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
@@ -42,6 +48,11 @@ public class DoctorPrescribeController {
 
     private static final Logger log = LoggerFactory.getLogger(DoctorPrescribeController.class);
 
+    /**
+     * Số thuốc gợi ý tối đa trong ô tìm thuốc.
+     */
+    private static final int MEDICINE_SUGGESTION_LIMIT = 20;
+
     @FXML
     private Button doctorViewPatientsButton;
 
@@ -63,7 +74,7 @@ public class DoctorPrescribeController {
     @FXML
     private ComboBox<PrescriptionStatus> statusCombo;
     @FXML
-    private ComboBox<Medicine> medicineCombo;
+    private ComboBox<MedicineSummary> medicineCombo;
     @FXML
     private TextField quantityField;
     @FXML
@@ -98,11 +109,16 @@ public class DoctorPrescribeController {
     private final PrescriptionService prescriptionService;
     private final PatientService patientService;
     private final MedicineService medicineService;
+    private final MedicineCatalog medicineCatalog;
+    private final UiTaskService uiTaskService;
     private final DiagnosisService diagnosisService; // Inject DiagnosisService
     private final DoctorService doctorService;
 
     private Doctor currentDoctor;
     private Prescription selectedPrescription;
+    private final ObservableList<MedicineSummary> medicineSuggestions = FXCollections.observableArrayList();
+    private final Map<UUID, Integer> availableQuantities = new HashMap<>(); // Tồn kho khả dụng theo medicineId
+    private Task<Map<UUID, Integer>> availabilityTask;
     @Autowired
     private UIManager uiManager;
 
@@ -111,11 +127,15 @@ public class DoctorPrescribeController {
             PrescriptionService prescriptionService,
             PatientService patientService,
             MedicineService medicineService,
+            MedicineCatalog medicineCatalog,
+            UiTaskService uiTaskService,
             DoctorService doctorService,
             DiagnosisService diagnosisService) { // Add DiagnosisService to constructor
         this.prescriptionService = prescriptionService;
         this.patientService = patientService;
         this.medicineService = medicineService;
+        this.medicineCatalog = medicineCatalog;
+        this.uiTaskService = uiTaskService;
         this.diagnosisService = diagnosisService; // Assign it
         this.doctorService = doctorService;
     }
@@ -160,11 +180,11 @@ public class DoctorPrescribeController {
         });
 
         // Add listener for medicineCombo to auto-fill unitPriceField
-        medicineCombo.getSelectionModel().selectedItemProperty().addListener((_, _, newMedicine) -> {
+        medicineCombo.valueProperty().addListener((_, _, newMedicine) -> {
             if (newMedicine != null) {
-                unitPriceField.setText(newMedicine.getPrice().toString());
-                log.debug("Auto-filled unit price for medicine {}: {}", newMedicine.getMedicineName(),
-                        newMedicine.getPrice());
+                unitPriceField.setText(newMedicine.price().toString());
+                log.debug("Auto-filled unit price for medicine {}: {}", newMedicine.medicineName(),
+                        newMedicine.price());
             } else {
                 unitPriceField.clear();
             }
@@ -209,24 +229,94 @@ public class DoctorPrescribeController {
         });
     }
 
+    /**
+     * Sets up the medicineCombo as an as-you-type search box backed by the
+     * in-memory medicine catalogue. Only the suggestions currently shown are
+     * looked up for available (unreserved) stock, in the background.
+     */
     private void loadMedicines() {
-        List<Medicine> medicines = medicineService.searchMedicinesByName("");
-        ObservableList<Medicine> medicineList = FXCollections.observableArrayList(medicines);
-        medicineCombo.setItems(medicineList);
-        medicineCombo.setCellFactory(_ -> new ListCell<>() {
+        medicineCombo.setEditable(true);
+        medicineCombo.setItems(medicineSuggestions);
+        medicineCombo.setConverter(new StringConverter<>() {
             @Override
-            protected void updateItem(Medicine medicine, boolean empty) {
-                super.updateItem(medicine, empty);
-                setText(empty ? null : medicine.getMedicineName());
+            public String toString(MedicineSummary medicine) {
+                return medicine == null ? "" : medicine.medicineName();
+            }
+
+            @Override
+            public MedicineSummary fromString(String text) {
+                MedicineSummary current = medicineCombo.getValue();
+                if (current != null && current.medicineName().equalsIgnoreCase(text.strip())) {
+                    return current;
+                }
+                // Chỉ nhận tên khớp hoàn toàn; chuỗi đang gõ dở không phải là một lựa chọn
+                return medicineCatalog.suggest(text, MEDICINE_SUGGESTION_LIMIT).stream()
+                        .filter(medicine -> medicine.medicineName().equalsIgnoreCase(text.strip()))
+                        .findFirst().orElse(null);
             }
         });
-        medicineCombo.setButtonCell(new ListCell<>() {
+        medicineCombo.setCellFactory(_ -> new ListCell<>() {
             @Override
-            protected void updateItem(Medicine medicine, boolean empty) {
+            protected void updateItem(MedicineSummary medicine, boolean empty) {
                 super.updateItem(medicine, empty);
-                setText(empty ? null : medicine.getMedicineName());
+                setText(empty ? null : medicineLabel(medicine));
+            }
+        });
+        medicineCombo.getEditor().textProperty().addListener((_, _, text) -> {
+            MedicineSummary current = medicineCombo.getValue();
+            if (current != null && current.medicineName().equals(text)) {
+                return; // Văn bản vừa được đặt từ lựa chọn, không phải do người dùng gõ
+            }
+            showMedicineSuggestions(text);
+            if (medicineCombo.getEditor().isFocused() && !medicineCombo.isShowing()) {
+                medicineCombo.show();
             }
         });
+        showMedicineSuggestions("");
+    }
+
+    private void showMedicineSuggestions(String text) {
+        // setAll giữ nguyên giá trị đang chọn của ComboBox (thay vì setItems)
+        medicineSuggestions.setAll(medicineCatalog.suggest(text, MEDICINE_SUGGESTION_LIMIT));
+        loadAvailableQuantities();
+    }
+
+    /**
+     * Fetches available stock for the suggestions not yet looked up, then
+     * redraws the suggestion list.
+     */
+    private void loadAvailableQuantities() {
+        List<UUID> missing = medicineSuggestions.stream()
+                .map(MedicineSummary::medicineId)
+                .filter(id -> !availableQuantities.containsKey(id))
+                .toList();
+        if (availabilityTask != null) {
+            availabilityTask.cancel();
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        availabilityTask = uiTaskService.submit(this, () -> medicineService.getAvailableQuantities(missing),
+                quantities -> {
+                    availableQuantities.putAll(quantities);
+                    medicineSuggestions.setAll(List.copyOf(medicineSuggestions)); // Vẽ lại các ô
+                },
+                e -> log.warn("Could not load available stock for medicine suggestions: {}", e.getMessage()));
+    }
+
+    /**
+     * Discards cached available stock (after a prescription changed it) and
+     * reloads it for the suggestions currently shown.
+     */
+    private void refreshAvailableQuantities() {
+        availableQuantities.clear();
+        loadAvailableQuantities();
+    }
+
+    private String medicineLabel(MedicineSummary medicine) {
+        Integer available = availableQuantities.get(medicine.medicineId());
+        return available == null ? medicine.medicineName()
+                : medicine.medicineName() + " (còn " + available + " " + medicine.unit() + ")";
     }
 
     private void loadStatusOptions() {
@@ -317,6 +407,7 @@ public class DoctorPrescribeController {
             // 3. Update UI
             prescriptionsTable.getItems().add(savedPrescription);
             clearForm(null);
+            refreshAvailableQuantities(); // Tồn kho khả dụng đã thay đổi
             showAlert(Alert.AlertType.INFORMATION, "Thành công", "Đã tạo đơn thuốc thành công.");
             log.info("Prescription created for patient: {}", savedPrescription.getPatient().getFullName());
         } catch (IllegalArgumentException | EntityNotFoundException e) {
@@ -354,6 +445,7 @@ public class DoctorPrescribeController {
                 loadPrescriptions(); // Fallback to reload all if item not found
             }
             clearForm(null);
+            refreshAvailableQuantities(); // Tồn kho khả dụng đã thay đổi
             showAlert(Alert.AlertType.INFORMATION, "Thành công", "Đã cập nhật trạng thái đơn thuốc thành công.");
             log.info("Prescription updated for patient: {}", updatedPrescription.getPatient().getFullName());
         } catch (IllegalArgumentException | EntityNotFoundException e) {
@@ -368,7 +460,7 @@ public class DoctorPrescribeController {
         prescriptionDatePicker.setValue(null);
         notesField.clear();
         statusCombo.getSelectionModel().clearSelection();
-        medicineCombo.getSelectionModel().clearSelection();
+        medicineCombo.setValue(null);
         diseaseCombo.getSelectionModel().clearSelection(); // Clear disease selection
         quantityField.clear();
         unitPriceField.clear();
@@ -414,7 +506,7 @@ public class DoctorPrescribeController {
             throw new IllegalArgumentException("Giá đơn vị phải là số hợp lệ với tối đa 2 chữ số thập phân.");
         }
 
-        detail.setMedicineId(medicineCombo.getValue().getMedicineId());
+        detail.setMedicineId(medicineCombo.getValue().medicineId());
         detail.setQuantity(Integer.parseInt(quantityField.getText()));
         detail.setDosage(dosageField.getText());
         detail.setInstructions(instructionsField.getText());
@@ -431,14 +523,13 @@ public class DoctorPrescribeController {
             Set<PrescriptionDetail> details = prescription.getPrescriptionDetailsView();
             if (details != null && !details.isEmpty()) {
                 PrescriptionDetail detail = details.iterator().next(); // Lấy chi tiết đầu tiên
-                Medicine medicine = detail.getMedicine();
-                medicineCombo.setValue(medicine);
+                medicineCombo.setValue(MedicineSummary.of(detail.getMedicine()));
                 quantityField.setText(String.valueOf(detail.getQuantity()));
                 dosageField.setText(detail.getDosage());
                 instructionsField.setText(detail.getInstructions());
                 unitPriceField.setText(detail.getUnitPrice().toString());
             } else {
-                medicineCombo.getSelectionModel().clearSelection();
+                medicineCombo.setValue(null);
                 quantityField.clear();
                 dosageField.clear();
                 instructionsField.clear();
@@ -448,7 +539,7 @@ public class DoctorPrescribeController {
             log.error("Failed to load prescription details for prescription id: {}. Lazy initialization error: {}",
                     prescription.getPrescriptionId(), e.getMessage());
             showAlert(Alert.AlertType.ERROR, "Lỗi", "Không thể tải chi tiết đơn thuốc do lỗi dữ liệu.");
-            medicineCombo.getSelectionModel().clearSelection();
+            medicineCombo.setValue(null);
             quantityField.clear();
             dosageField.clear();
             instructionsField.clear();
@@ -483,4 +574,9 @@ public class DoctorPrescribeController {
     private void loadDoctorBookAppointment(ActionEvent event) {
         uiManager.switchToDoctorBookAppointment();
     }
+
+    @FXML
+    private void logout(ActionEvent event) {
+        uiManager.switchToLoginScreen();
+    }
 }
@@ -3,7 +3,9 @@ package com.pma.controller.doctor;
 import com.pma.model.entity.Patient;
 import com.pma.service.PatientService;
 import com.pma.util.DialogUtil;
+import com.pma.util.RefreshableView;
 import com.pma.util.UIManager;
+import com.pma.util.UiTaskService;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -27,7 +29,7 @@ import java.util.ResourceBundle;
 
 @Component
 @RequiredArgsConstructor
-public class DoctorViewPatientsController implements Initializable {
+public class DoctorViewPatientsController implements Initializable, RefreshableView {
 
     private static final Logger log = LoggerFactory.getLogger(DoctorViewPatientsController.class);
 
@@ -90,12 +92,20 @@ public class DoctorViewPatientsController implements Initializable {
     @Autowired
     private UIManager uiManager;
 
+    @Autowired
+    private UiTaskService uiTaskService;
+
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
         setupTableColumns();
         loadPatientsData();
     }
 
+    @Override
+    public void onViewShown() {
+        loadPatientsData();
+    }
+
     private void setupTableColumns() {
         fullNameColumn.setCellValueFactory(new PropertyValueFactory<>("fullName"));
         dateOfBirthColumn.setCellValueFactory(new PropertyValueFactory<>("dateOfBirth"));
@@ -123,29 +133,16 @@ public class DoctorViewPatientsController implements Initializable {
     private void loadPatientsData() {
         log.info("Loading patient data...");
 
-        javafx.concurrent.Task<List<Patient>> loadTask = new javafx.concurrent.Task<>() {
-            @Override
-            protected List<Patient> call() throws Exception {
-                return patientService.getAllPatients();
-            }
-        };
-
-        loadTask.setOnSucceeded(event -> {
-            List<Patient> patients = loadTask.getValue();
-            patientList.setAll(patients);
-            log.info("Loaded {} patients.", patients.size());
-        });
-
-        loadTask.setOnFailed(event -> {
-            Throwable e = loadTask.getException();
-            log.error("Error loading patient data: {}", e.getMessage(), e);
-            DialogUtil.showErrorAlert("Load Error", "Unable to load patient list. Please try again.");
-            patientList.clear();
-        });
-
-        Thread loadThread = new Thread(loadTask);
-        loadThread.setDaemon(true);
-        loadThread.start();
+        uiTaskService.submit(this, () -> patientService.getAllPatients(),
+                patients -> {
+                    patientList.setAll(patients);
+                    log.info("Loaded {} patients.", patients.size());
+                },
+                e -> {
+                    log.error("Error loading patient data: {}", e.getMessage(), e);
+                    DialogUtil.showErrorAlert("Load Error", "Unable to load patient list. Please try again.");
+                    patientList.clear();
+                });
     }
 
         @FXML
@@ -3,10 +3,13 @@ package com.pma.controller.patient;
 import com.pma.model.entity.Appointment;
 import com.pma.model.entity.Doctor;
 import com.pma.model.enums.AppointmentStatus;
+import com.pma.service.AppointmentAvailabilityService;
 import com.pma.service.AppointmentService;
+import com.pma.service.WaitlistService;
 import com.pma.repository.DoctorRepository;
 import com.pma.util.DialogUtil;
 import com.pma.util.UIManager;
+import com.pma.util.UiTaskService;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -19,7 +22,10 @@ import org.springframework.stereotype.Component;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.Period;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -35,6 +41,24 @@ public class PatientBookAppointmentController {
 
     private static final Logger log = LoggerFactory.getLogger(PatientBookAppointmentController.class);
 
+    /**
+     * Số ngày (tính cả ngày bắt đầu) của khoảng chờ khi đăng ký danh sách chờ.
+     */
+    private static final int WAITLIST_RANGE_DAYS = 7;
+
+    private static final String NO_REPEAT = "Không lặp lại";
+
+    /**
+     * Các kiểu lặp lại của lịch tái khám và khoảng cách giữa hai lần hẹn.
+     */
+    private static final Map<String, Period> REPEAT_INTERVALS = new LinkedHashMap<>();
+
+    static {
+        REPEAT_INTERVALS.put("Hàng tuần", Period.ofWeeks(1));
+        REPEAT_INTERVALS.put("Mỗi 2 tuần", Period.ofWeeks(2));
+        REPEAT_INTERVALS.put("Hàng tháng", Period.ofMonths(1));
+    }
+
     @FXML
     private Button patientBookAppointmentButton;
     @FXML
@@ -68,24 +92,42 @@ public class PatientBookAppointmentController {
     @FXML
     private ComboBox<String> appointmentTypeCombo; // Hộp chọn loại cuộc hẹn
 
+    @FXML
+    private ComboBox<String> repeatCombo; // Hộp chọn kiểu lặp lại (tái khám định kỳ)
+
+    @FXML
+    private Spinner<Integer> occurrencesSpinner; // Số lần hẹn của chuỗi
+
     @FXML
     private Button bookButton; // Nút đặt lịch
 
     @FXML
     private Button clearButton; // Nút xóa form
 
+    @FXML
+    private Button waitlistButton; // Nút đăng ký danh sách chờ
+
     @FXML
     private TableView<Appointment> appointmentsTable; // Bảng hiển thị các cuộc hẹn sắp tới
 
     @Autowired
     private AppointmentService appointmentService;
 
+    @Autowired
+    private AppointmentAvailabilityService availabilityService;
+
+    @Autowired
+    private WaitlistService waitlistService;
+
     @Autowired
     private DoctorRepository doctorRepository;
 
     @Autowired
     private UIManager uiManager;
 
+    @Autowired
+    private UiTaskService uiTaskService;
+
     private UUID patientId;
 
     /**
@@ -99,8 +141,10 @@ public class PatientBookAppointmentController {
         khoiTaoComboHour();
         khoiTaoComboMinute();
         khoiTaoAppointmentTypeCombo();
+        khoiTaoRepeatControls();
         khoiTaoDatePicker();
         khoiTaoAppointmentsTable();
+        khoiTaoAvailabilityListeners();
     }
 
     /**
@@ -132,7 +176,8 @@ public class PatientBookAppointmentController {
     }
 
     /**
-     * Khởi tạo hộp chọn giờ với giá trị từ 00 đến 23.
+     * Khởi tạo hộp chọn giờ với giá trị từ 00 đến 23. Các giờ đã kín lịch của
+     * bác sĩ được chọn bị vô hiệu hóa.
      */
     private void khoiTaoComboHour() {
         List<String> hours = IntStream.rangeClosed(0, 23)
@@ -140,15 +185,105 @@ public class PatientBookAppointmentController {
                 .collect(Collectors.toList());
         comboHour.setItems(FXCollections.observableArrayList(hours));
         comboHour.setPromptText("Giờ");
+        comboHour.setCellFactory(_ -> new ListCell<>() {
+            @Override
+            protected void updateItem(String hour, boolean empty) {
+                super.updateItem(hour, empty);
+                setText(empty ? null : hour);
+                setDisable(!empty && hour != null && isHourUnavailable(hour));
+            }
+        });
     }
 
     /**
-     * Khởi tạo hộp chọn phút với các giá trị 00, 15, 30, 45.
+     * Khởi tạo hộp chọn phút với các giá trị 00, 15, 30, 45. Các khung đã có
+     * lịch của bác sĩ được chọn bị vô hiệu hóa.
      */
     private void khoiTaoComboMinute() {
         List<String> minutes = List.of("00", "15", "30", "45");
         comboMinute.setItems(FXCollections.observableArrayList(minutes));
         comboMinute.setPromptText("Phút");
+        comboMinute.setCellFactory(_ -> new ListCell<>() {
+            @Override
+            protected void updateItem(String minute, boolean empty) {
+                super.updateItem(minute, empty);
+                setText(empty ? null : minute);
+                setDisable(!empty && minute != null && isSlotUnavailable(comboHour.getValue(), minute));
+            }
+        });
+    }
+
+    /**
+     * Lắng nghe thay đổi bác sĩ, ngày và giờ để làm mới trạng thái khung giờ
+     * trống. Khi chọn bác sĩ (hoặc một ngày ngoài khoảng đã nạp), lịch của bác
+     * sĩ được nạp vào bộ nhớ ở luồng nền rồi các ô được vẽ lại.
+     */
+    private void khoiTaoAvailabilityListeners() {
+        doctorCombo.valueProperty().addListener((_, _, doctor) -> {
+            if (doctor != null) {
+                LocalDate today = LocalDate.now();
+                preloadAvailability(doctor, today, today.plusDays(30));
+            }
+            refreshAvailability();
+        });
+        appointmentDatePicker.valueProperty().addListener((_, _, date) -> {
+            Doctor doctor = doctorCombo.getValue();
+            if (doctor != null && date != null) {
+                // Ngày đã nạp và còn hiệu lực không bị đọc lại
+                preloadAvailability(doctor, date, date.plusDays(1));
+            }
+            refreshAvailability();
+        });
+        comboHour.valueProperty().addListener((_, _, _) -> refreshMinuteCells());
+    }
+
+    /**
+     * Nạp lịch của bác sĩ cho một khoảng ngày ở luồng nền, rồi vẽ lại các ô
+     * nếu bác sĩ vẫn đang được chọn.
+     */
+    private void preloadAvailability(Doctor doctor, LocalDate from, LocalDate to) {
+        UUID doctorId = doctor.getDoctorId();
+        uiTaskService.submit(this, () -> {
+            availabilityService.preload(doctorId, from, to);
+            return null;
+        }, _ -> {
+            Doctor selected = doctorCombo.getValue();
+            if (selected != null && doctorId.equals(selected.getDoctorId())) {
+                refreshAvailability();
+            }
+        }, e -> log.warn("Không thể nạp lịch trống của bác sĩ {}: {}", doctorId, e.getMessage()));
+    }
+
+    /**
+     * Làm mới các ô ngày, giờ và phút theo bitmap khung giờ trống hiện tại.
+     */
+    private void refreshAvailability() {
+        khoiTaoDatePicker();
+        comboHour.setItems(FXCollections.observableArrayList(comboHour.getItems()));
+        refreshMinuteCells();
+    }
+
+    private void refreshMinuteCells() {
+        comboMinute.setItems(FXCollections.observableArrayList(comboMinute.getItems()));
+    }
+
+    private boolean isHourUnavailable(String hour) {
+        Doctor doctor = doctorCombo.getValue();
+        LocalDate date = appointmentDatePicker.getValue();
+        if (doctor == null || date == null) {
+            return false;
+        }
+        return availabilityService.isHourFullyBooked(doctor.getDoctorId(), date, Integer.parseInt(hour));
+    }
+
+    private boolean isSlotUnavailable(String hour, String minute) {
+        Doctor doctor = doctorCombo.getValue();
+        LocalDate date = appointmentDatePicker.getValue();
+        if (doctor == null || date == null || hour == null) {
+            return false;
+        }
+        LocalDateTime start = LocalDateTime.of(date, LocalTime.of(Integer.parseInt(hour), Integer.parseInt(minute)));
+        return !availabilityService.isSlotAvailable(doctor.getDoctorId(), start);
     }
 
     /**
@@ -161,14 +296,32 @@ public class PatientBookAppointmentController {
     }
 
     /**
-     * Khởi tạo bộ chọn ngày, vô hiệu hóa các ngày trong quá khứ.
+     * Khởi tạo hộp chọn lặp lại và số lần hẹn. Số lần chỉ được chọn khi có lặp
+     * lại, tối đa AppointmentService.MAX_BATCH_APPOINTMENTS.
+     */
+    private void khoiTaoRepeatControls() {
+        ObservableList<String> repeatOptions = FXCollections.observableArrayList(NO_REPEAT);
+        repeatOptions.addAll(REPEAT_INTERVALS.keySet());
+        repeatCombo.setItems(repeatOptions);
+        repeatCombo.setValue(NO_REPEAT);
+        occurrencesSpinner.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(
+                2, AppointmentService.MAX_BATCH_APPOINTMENTS, 4));
+        repeatCombo.valueProperty().addListener((_, _, repeat)
+                -> occurrencesSpinner.setDisable(repeat == null || NO_REPEAT.equals(repeat)));
+    }
+
+    /**
+     * Khởi tạo bộ chọn ngày, vô hiệu hóa các ngày trong quá khứ và các ngày
+     * bác sĩ được chọn đã kín lịch.
      */
     private void khoiTaoDatePicker() {
         appointmentDatePicker.setDayCellFactory(_ -> new DateCell() {
             @Override
             public void updateItem(LocalDate date, boolean empty) {
                 super.updateItem(date, empty);
-                setDisable(empty || date.isBefore(LocalDate.now()));
+                Doctor doctor = doctorCombo.getValue();
+                setDisable(empty || date.isBefore(LocalDate.now())
+                        || (doctor != null && availabilityService.isDayFullyBooked(doctor.getDoctorId(), date)));
             }
         });
     }
@@ -233,11 +386,22 @@ public class PatientBookAppointmentController {
             appointment.setAppointmentType(appointmentTypeCombo.getValue());
             appointment.setStatus(AppointmentStatus.Scheduled);
 
-            // Đặt lịch hẹn
-            Appointment savedAppointment = appointmentService.scheduleAppointment(appointment, patientId, selectedDoctor.getDoctorId());
-
-            DialogUtil.showSuccessAlert("Thành Công", "Đặt lịch hẹn thành công vào "
-                    + savedAppointment.getAppointmentDatetime() + " với Bác sĩ " + selectedDoctor.getFullName());
+            Period repeatInterval = REPEAT_INTERVALS.get(repeatCombo.getValue());
+            if (repeatInterval != null) {
+                // Đặt cả chuỗi trong một transaction: một lần hẹn bị trùng thì không lần nào được lưu
+                List<Appointment> series = appointmentService.scheduleSeries(appointment, patientId,
+                        selectedDoctor.getDoctorId(), repeatInterval, occurrencesSpinner.getValue());
+                DialogUtil.showSuccessAlert("Thành Công", "Đã đặt " + series.size() + " lịch hẹn ("
+                        + repeatCombo.getValue().toLowerCase() + ") từ " + series.get(0).getAppointmentDatetime()
+                        + " đến " + series.get(series.size() - 1).getAppointmentDatetime()
+                        + " với Bác sĩ " + selectedDoctor.getFullName());
+            } else {
+                // Đặt lịch hẹn
+                Appointment savedAppointment = appointmentService.scheduleAppointment(appointment, patientId, selectedDoctor.getDoctorId());
+
+                DialogUtil.showSuccessAlert("Thành Công", "Đặt lịch hẹn thành công vào "
+                        + savedAppointment.getAppointmentDatetime() + " với Bác sĩ " + selectedDoctor.getFullName());
+            }
 
             // Làm mới bảng lịch hẹn
             khoiTaoAppointmentsTable();
@@ -248,6 +412,17 @@ public class PatientBookAppointmentController {
         } catch (IllegalArgumentException e) {
             log.warn("Đặt lịch hẹn thất bại: {}", e.getMessage());
             DialogUtil.showErrorAlert("Lỗi Đặt Lịch", e.getMessage());
+            // Bitmap có thể chưa biết lịch vừa được đặt từ máy khác: nạp lại ngày đó
+            Doctor doctor = doctorCombo.getValue();
+            LocalDate date = appointmentDatePicker.getValue();
+            if (doctor != null && date != null) {
+                availabilityService.invalidate(doctor.getDoctorId(), date);
+                preloadAvailability(doctor, date, date.plusDays(1));
+                if (DialogUtil.showConfirmation("Đăng ký Danh sách chờ", "Bạn có muốn đăng ký danh sách chờ của Bác sĩ "
+                        + doctor.getFullName() + " để được tự động đặt lịch khi có lịch hẹn bị hủy?")) {
+                    joinWaitlist();
+                }
+            }
         } catch (Exception e) {
             log.error("Lỗi không mong muốn khi đặt lịch hẹn", e);
             DialogUtil.showExceptionDialog("Lỗi Không Mong Muốn", "Đã xảy ra lỗi khi đặt lịch hẹn.",
@@ -255,6 +430,45 @@ public class PatientBookAppointmentController {
         }
     }
 
+    /**
+     * Đăng ký bệnh nhân vào danh sách chờ của bác sĩ đang chọn, trong
+     * WAITLIST_RANGE_DAYS ngày kể từ ngày đã chọn (hoặc từ hôm nay). Khi có lịch
+     * hẹn trong khoảng đó bị hủy, hệ thống tự đặt lịch và gửi email xác nhận.
+     */
+    @FXML
+    private void joinWaitlist() {
+        Doctor doctor = doctorCombo.getValue();
+        if (doctor == null) {
+            DialogUtil.showErrorAlert("Lỗi Nhập Liệu", "Vui lòng chọn bác sĩ.");
+            return;
+        }
+        if (reasonField.getText() == null || reasonField.getText().trim().isEmpty()) {
+            DialogUtil.showErrorAlert("Lỗi Nhập Liệu", "Vui lòng cung cấp lý do cho cuộc hẹn.");
+            return;
+        }
+        if (appointmentTypeCombo.getValue() == null) {
+            DialogUtil.showErrorAlert("Lỗi Nhập Liệu", "Vui lòng chọn loại cuộc hẹn.");
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        LocalDate selected = appointmentDatePicker.getValue();
+        LocalDate earliest = selected != null && selected.isAfter(today) ? selected : today;
+        LocalDate latest = earliest.plusDays(WAITLIST_RANGE_DAYS - 1);
+        try {
+            waitlistService.addToWaitlist(patientId, doctor.getDoctorId(), earliest, latest, 0,
+                    reasonField.getText().trim(), appointmentTypeCombo.getValue());
+            DialogUtil.showSuccessAlert("Thành Công", "Đã đăng ký danh sách chờ của Bác sĩ " + doctor.getFullName()
+                    + " từ " + earliest + " đến " + latest + ". Bạn sẽ nhận email khi được xếp lịch.");
+        } catch (IllegalArgumentException e) {
+            log.warn("Đăng ký danh sách chờ thất bại: {}", e.getMessage());
+            DialogUtil.showErrorAlert("Lỗi Đăng ký Danh sách chờ", e.getMessage());
+        } catch (Exception e) {
+            log.error("Lỗi không mong muốn khi đăng ký danh sách chờ", e);
+            DialogUtil.showExceptionDialog("Lỗi Không Mong Muốn", "Đã xảy ra lỗi khi đăng ký danh sách chờ.",
+                    e.getMessage(), e);
+        }
+    }
+
     /**
      * Xác thực dữ liệu nhập vào từ form đặt lịch hẹn.
      *
@@ -281,6 +495,7 @@ public class PatientBookAppointmentController {
         if (getAppointmentDateTimeFromForm().isBefore(LocalDateTime.now())) {
             return Optional.of("Ngày và giờ hẹn phải ở tương lai.");
         }
+        // Không chặn theo bitmap khung giờ trống (chỉ là gợi ý): AppointmentService kiểm tra chồng chéo trên CSDL
         return Optional.empty();
     }
 
@@ -307,6 +522,7 @@ public class PatientBookAppointmentController {
         comboMinute.getSelectionModel().clearSelection();
         reasonField.clear();
         appointmentTypeCombo.getSelectionModel().clearSelection();
+        repeatCombo.setValue(NO_REPEAT);
         log.info("Form đặt lịch hẹn đã được xóa.");
     }
 
@@ -9,20 +9,22 @@ import org.hibernate.annotations.UpdateTimestamp;
 import org.hibernate.proxy.HibernateProxy;
 
 import com.pma.model.enums.AppointmentStatus;
+import com.pma.model.id.SequentialUuid;
 
 import jakarta.persistence.Column; // Quan trọng cho equals/hashCode
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType; // <-- THAY ĐỔI PACKAGE ENUM NẾU CẦN
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.Lob;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -39,11 +41,20 @@ import lombok.ToString;
 @ToString(exclude = {"patient", "doctor"})
 @NoArgsConstructor // Bắt buộc cho JPA
 @Entity
-@Table(name = "Appointments", schema = "dbo", indexes = { // Thêm index từ schema SQL
+@Table(name = "Appointments", schema = "dbo", uniqueConstraints = {
+    // Chặn ở tầng DB hai lịch "Scheduled" trùng bác sĩ và thời điểm bắt đầu (xem slotGuard).
+    // Chỉ bắt các lịch trùng đúng giờ bắt đầu; lịch chồng lấn lệch giờ do truy vấn chồng chéo chặn.
+    // Với CSDL đã có dữ liệu, cột và ràng buộc được thêm bởi AppointmentSlotGuardMigration.
+    @UniqueConstraint(name = "UQ_Appointments_doctor_slot", columnNames = {"doctor_id", "slot_guard"})
+}, indexes = { // Thêm index từ schema SQL
 
     @Index(name = "IX_Appointments_patient_id", columnList = "patient_id"),
     @Index(name = "IX_Appointments_doctor_id", columnList = "doctor_id"),
-    @Index(name = "IX_Appointments_appointment_datetime", columnList = "appointment_datetime")
+    @Index(name = "IX_Appointments_appointment_datetime", columnList = "appointment_datetime"),
+    // Index phức hợp phục vụ truy vấn kiểm tra chồng chéo lịch theo cửa sổ thời gian
+    @Index(name = "IX_Appointments_doctor_status_datetime", columnList = "doctor_id, status, appointment_datetime"),
+    // Index phục vụ phân trang keyset danh sách lịch hẹn của bác sĩ
+    @Index(name = "IX_Appointments_doctor_datetime_id", columnList = "doctor_id, appointment_datetime, appointment_id")
 })
 public class Appointment {
 
@@ -51,7 +62,7 @@ public class Appointment {
      * Khóa chính của cuộc hẹn, kiểu UUID, tự sinh bởi cơ sở dữ liệu.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID) // Tối ưu cho UNIQUEIDENTIFIER DEFAULT NEWSEQUENTIALID
+    @SequentialUuid
     @Column(name = "appointment_id", nullable = false, updatable = false)
     private UUID appointmentId;
 
@@ -110,6 +121,35 @@ public class Appointment {
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
+    /**
+     * Khóa chống trùng khung giờ, kết hợp với doctor_id trong ràng buộc
+     * UQ_Appointments_doctor_slot. Với lịch "Scheduled" có bác sĩ, giá trị là
+     * thời điểm bắt đầu nên hai lịch cùng bác sĩ, cùng giờ sẽ bị DB từ chối;
+     * với các trạng thái khác (hoặc chưa có bác sĩ) giá trị là ID cuộc hẹn để
+     * không chặn việc đặt lại khung giờ đã hủy. JPA chuẩn không hỗ trợ filtered
+     * unique index nên dùng cột này thay thế. Được tính tự động trước khi lưu.
+     * <p>
+     * Ràng buộc chỉ từ chối hai lịch có cùng thời điểm bắt đầu. Hai lịch chồng
+     * lấn nhưng lệch giờ (ví dụ 9:00 và 9:30 với thời lượng 60 phút) có khóa
+     * khác nhau và không bị ràng buộc chặn; trường hợp đó do truy vấn chồng
+     * chéo có khóa PESSIMISTIC_WRITE trong AppointmentService ngăn lại. Ràng
+     * buộc là lớp bảo vệ cuối cùng cho trường hợp phổ biến nhất (hai quầy chọn
+     * cùng một khung giờ).
+     */
+    @Setter(lombok.AccessLevel.NONE)
+    @Column(name = "slot_guard", nullable = false, length = 40)
+    private String slotGuard;
+
+    /**
+     * Khoảng nhắc nhỏ nhất (phút trước giờ hẹn) đã được gửi email nhắc, null
+     * nếu chưa gửi lần nào. Mỗi máy trạm chỉ gửi một lời nhắc sau khi giành
+     * được quyền gửi bằng câu lệnh UPDATE có điều kiện trên cột này
+     * (AppointmentRepository.claimReminder), nên nhiều máy cùng chạy không gửi
+     * trùng. Được đặt lại về null khi đổi giờ hẹn.
+     */
+    @Column(name = "reminder_sent_lead_minutes")
+    private Integer reminderSentLeadMinutes;
+
     /**
      * Thời điểm bản ghi cuộc hẹn được cập nhật lần cuối. Được quản lý tự động
      * bởi Hibernate (@UpdateTimestamp).
@@ -225,6 +265,20 @@ public class Appointment {
     public UUID getId() {
         return this.appointmentId;
     }
+
+    /**
+     * Tính lại slotGuard trước mỗi lần INSERT/UPDATE.
+     */
+    @PrePersist
+    @PreUpdate
+    void computeSlotGuard() {
+        if (status == AppointmentStatus.Scheduled && doctor != null && appointmentDatetime != null) {
+            this.slotGuard = appointmentDatetime.withNano(0).toString();
+        } else {
+            // ID có thể chưa được sinh tại @PrePersist, khi đó dùng một UUID ngẫu nhiên bất kỳ
+            this.slotGuard = (appointmentId != null ? appointmentId : UUID.randomUUID()).toString();
+        }
+    }
     // --- Lưu ý quan trọng cho helper methods `setPatient`/`setDoctor` ---
     // Các phương thức này yêu cầu các lớp liên quan (Patient, Doctor) phải có
     // các phương thức helper nội bộ (ví dụ: addAppointmentInternal,
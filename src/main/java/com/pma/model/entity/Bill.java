@@ -23,6 +23,7 @@ import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import com.pma.model.enums.PaymentMethod; // Import enum PaymentMethod
 import com.pma.model.enums.BillPaymentStatus;
+import com.pma.model.id.SequentialUuid;
 
 /**
  * Entity đại diện cho bảng Bills trong cơ sở dữ liệu. Lưu trữ thông tin hóa đơn
@@ -43,7 +44,7 @@ import com.pma.model.enums.BillPaymentStatus;
 public class Bill {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @SequentialUuid
     @Column(name = "bill_id", nullable = false, updatable = false)
     private UUID billId;
 
@@ -17,6 +17,7 @@ import java.util.Objects;
 import java.util.UUID;
 
 import com.pma.model.enums.BillItemType;
+import com.pma.model.id.SequentialUuid;
 
 /**
  * Entity đại diện cho bảng BillItems trong cơ sở dữ liệu. Lưu trữ chi tiết từng
@@ -37,7 +38,7 @@ import com.pma.model.enums.BillItemType;
 public class BillItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @SequentialUuid
     @Column(name = "bill_item_id", nullable = false, updatable = false)
     private UUID billItemId;
 
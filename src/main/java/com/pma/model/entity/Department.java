@@ -6,6 +6,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.hibernate.proxy.HibernateProxy; // Cần cho equals/hashCode chuẩn
@@ -17,6 +19,8 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 
+import com.pma.model.id.SequentialUuid;
+
 /**
  * Entity đại diện cho bảng Departments trong cơ sở dữ liệu.
  * Phiên bản tối ưu, sử dụng Lombok, equals/hashCode chuẩn,
@@ -28,6 +32,8 @@ import java.util.UUID;
 @ToString(exclude = { "doctors" })
 @NoArgsConstructor // Bắt buộc cho JPA
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "Departments", uniqueConstraints = {
         // Định nghĩa UNIQUE constraint cho department_name
         @UniqueConstraint(name = "UQ_Departments_DepartmentName", columnNames = { "department_name" })
@@ -38,7 +44,7 @@ public class Department {
      * Khóa chính của khoa, kiểu UUID, tự sinh bởi cơ sở dữ liệu.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID) // Phù hợp UNIQUEIDENTIFIER + DEFAULT
+    @SequentialUuid
     @Column(name = "department_id", nullable = false, updatable = false)
     private UUID departmentId;
 
@@ -16,6 +16,7 @@ import java.util.UUID;
 
 // ---> IMPORT ENUM TỪ PACKAGE RIÊNG <---
 import com.pma.model.enums.DiagnosisStatus; // <-- THAY ĐỔI PACKAGE ENUM NẾU CẦN
+import com.pma.model.id.SequentialUuid;
 
 /**
  * Entity đại diện cho bảng Diagnoses trong cơ sở dữ liệu.
@@ -40,7 +41,7 @@ public class Diagnosis {
      * Khóa chính của chẩn đoán, kiểu UUID, tự sinh bởi cơ sở dữ liệu.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @SequentialUuid
     @Column(name = "diagnosis_id", nullable = false, updatable = false)
     private UUID diagnosisId;
 
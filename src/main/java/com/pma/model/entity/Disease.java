@@ -6,6 +6,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.hibernate.proxy.HibernateProxy; // Cần cho equals/hashCode chuẩn
@@ -28,6 +30,8 @@ import java.util.Set;
 @ToString(exclude = {"diagnoses"})
 @NoArgsConstructor // Bắt buộc cho JPA
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "Diseases", uniqueConstraints = {
     // Ràng buộc UNIQUE cho disease_name
     @UniqueConstraint(name = "UQ_Diseases_DiseaseName", columnNames = {"disease_name"})
@@ -0,0 +1,98 @@
+package com.pma.model.entity;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.proxy.HibernateProxy;
+
+import com.pma.model.id.SequentialUuid;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Entity đại diện cho bảng DispensedLots. Ghi lại lô và số lượng đã xuất cho
+ * một đơn thuốc, để dược sĩ biết lấy thuốc từ lô nào và để truy vết khi một lô
+ * bị thu hồi.
+ */
+@Getter
+@Setter
+@ToString(exclude = {"prescription", "lot"})
+@NoArgsConstructor // Bắt buộc cho JPA
+@Entity
+@Table(name = "DispensedLots", indexes = {
+    @Index(name = "IX_DispensedLots_prescription_id", columnList = "prescription_id"),
+    @Index(name = "IX_DispensedLots_lot_id", columnList = "lot_id")
+})
+public class DispensedLot {
+
+    @Id
+    @SequentialUuid
+    @Column(name = "dispensed_lot_id", nullable = false, updatable = false)
+    private UUID dispensedLotId;
+
+    /**
+     * Đơn thuốc đã xuất. Bắt buộc.
+     */
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "prescription_id", nullable = false, updatable = false)
+    private Prescription prescription;
+
+    /**
+     * Lô được lấy thuốc. Bắt buộc.
+     */
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "lot_id", nullable = false, updatable = false)
+    private MedicineLot lot;
+
+    /**
+     * Số lượng lấy từ lô.
+     */
+    @Column(name = "quantity", nullable = false, updatable = false)
+    private int quantity;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // --- equals() và hashCode() chuẩn ---
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null) {
+            return false;
+        }
+        Class<?> oEffectiveClass = o instanceof HibernateProxy
+                ? ((HibernateProxy) o).getHibernateLazyInitializer().getPersistentClass()
+                : o.getClass();
+        Class<?> thisEffectiveClass = this instanceof HibernateProxy
+                ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass()
+                : this.getClass();
+        if (thisEffectiveClass != oEffectiveClass) {
+            return false;
+        }
+        DispensedLot that = (DispensedLot) o;
+        return getDispensedLotId() != null && Objects.equals(getDispensedLotId(), that.getDispensedLotId());
+    }
+
+    @Override
+    public final int hashCode() {
+        return (this instanceof HibernateProxy
+                ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass()
+                : this.getClass()).hashCode();
+    }
+}
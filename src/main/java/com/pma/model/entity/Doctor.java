@@ -22,6 +22,7 @@ import java.util.UUID;
 // ---> IMPORT ENUMS TỪ PACKAGE RIÊNG <---
 import com.pma.model.enums.Gender; // <-- THAY ĐỔI PACKAGE ENUM NẾU CẦN
 import com.pma.model.enums.DoctorStatus; // <-- THAY ĐỔI PACKAGE ENUM NẾU CẦN
+import com.pma.model.id.SequentialUuid;
 
 /**
  * Entity đại diện cho bảng Doctors trong cơ sở dữ liệu.
@@ -47,7 +48,7 @@ import com.pma.model.enums.DoctorStatus; // <-- THAY ĐỔI PACKAGE ENUM NẾU C
 public class Doctor {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @SequentialUuid
     @Column(name = "doctor_id", nullable = false, updatable = false)
     private UUID doctorId;
 
@@ -0,0 +1,108 @@
+package com.pma.model.entity;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.proxy.HibernateProxy;
+
+import com.pma.model.enums.EmailOutboxStatus;
+import com.pma.model.id.SequentialUuid;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Entity đại diện cho bảng EmailOutbox. Mỗi bản ghi là một email đang chờ gửi,
+ * được ghi trong cùng transaction với thay đổi nghiệp vụ (lịch hẹn, tài
+ * khoản...) để email không bị mất khi máy chủ SMTP chậm hoặc không truy cập
+ * được. Bản ghi bị xóa sau khi gửi thành công.
+ */
+@Getter
+@Setter
+@ToString(exclude = {"body"})
+@NoArgsConstructor // Bắt buộc cho JPA
+@Entity
+@Table(name = "EmailOutbox", indexes = {
+    @Index(name = "IX_EmailOutbox_status_next_attempt", columnList = "status, next_attempt_at")
+})
+public class EmailOutboxMessage {
+
+    @Id
+    @SequentialUuid
+    @Column(name = "message_id", nullable = false, updatable = false)
+    private UUID messageId;
+
+    @Column(name = "recipient", nullable = false, length = 255)
+    private String recipient;
+
+    @Column(name = "subject", nullable = false, length = 255)
+    private String subject;
+
+    @Column(name = "body", nullable = false, columnDefinition = "NVARCHAR(MAX)")
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 15)
+    private EmailOutboxStatus status = EmailOutboxStatus.PENDING;
+
+    /**
+     * Số lần đã thử gửi.
+     */
+    @Column(name = "attempts", nullable = false)
+    private int attempts = 0;
+
+    /**
+     * Thời điểm sớm nhất được thử gửi tiếp. Khi một dispatcher nhận bản ghi,
+     * giá trị này được đẩy lùi như một hợp đồng thuê (lease) để các tiến trình
+     * khác không gửi trùng.
+     */
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // --- equals() và hashCode() chuẩn ---
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null) {
+            return false;
+        }
+        Class<?> oEffectiveClass = o instanceof HibernateProxy
+                ? ((HibernateProxy) o).getHibernateLazyInitializer().getPersistentClass()
+                : o.getClass();
+        Class<?> thisEffectiveClass = this instanceof HibernateProxy
+                ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass()
+                : this.getClass();
+        if (thisEffectiveClass != oEffectiveClass) {
+            return false;
+        }
+        EmailOutboxMessage that = (EmailOutboxMessage) o;
+        return getMessageId() != null && Objects.equals(getMessageId(), that.getMessageId());
+    }
+
+    @Override
+    public final int hashCode() {
+        return (this instanceof HibernateProxy
+                ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass()
+                : this.getClass()).hashCode();
+    }
+}
@@ -0,0 +1,110 @@
+package com.pma.model.entity;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.proxy.HibernateProxy;
+
+import com.pma.model.id.SequentialUuid;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Entity đại diện cho bảng LowStockAlerts. Mỗi bản ghi là một lần tồn kho khả
+ * dụng của một thuốc giảm từ trên xuống bằng hoặc dưới ngưỡng đặt hàng lại.
+ * Cảnh báo hiển thị trong ứng dụng tới khi được xác nhận và được gửi cho bộ
+ * phận mua hàng trong email tổng hợp hằng ngày.
+ */
+@Getter
+@Setter
+@ToString(exclude = {"medicine"})
+@NoArgsConstructor // Bắt buộc cho JPA
+@Entity
+@Table(name = "LowStockAlerts", indexes = {
+    @Index(name = "IX_LowStockAlerts_acknowledged_at", columnList = "acknowledged_at"),
+    @Index(name = "IX_LowStockAlerts_digest_batch_id", columnList = "digest_batch_id")
+})
+public class LowStockAlert {
+
+    @Id
+    @SequentialUuid
+    @Column(name = "alert_id", nullable = false, updatable = false)
+    private UUID alertId;
+
+    /**
+     * Thuốc sắp hết. Bắt buộc.
+     */
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "medicine_id", nullable = false, updatable = false)
+    private Medicine medicine;
+
+    /**
+     * Tồn kho khả dụng ngay sau lần giảm gây ra cảnh báo.
+     */
+    @Column(name = "available_quantity", nullable = false, updatable = false)
+    private int availableQuantity;
+
+    /**
+     * Ngưỡng đặt hàng lại áp dụng lúc đó.
+     */
+    @Column(name = "reorder_threshold", nullable = false, updatable = false)
+    private int reorderThreshold;
+
+    /**
+     * Thời điểm người dùng xác nhận đã xem (null nếu chưa).
+     */
+    @Column(name = "acknowledged_at")
+    private LocalDateTime acknowledgedAt;
+
+    /**
+     * Lần gửi email tổng hợp đã nhận cảnh báo này (null nếu chưa gửi).
+     */
+    @Column(name = "digest_batch_id")
+    private UUID digestBatchId;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // --- equals() và hashCode() chuẩn ---
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null) {
+            return false;
+        }
+        Class<?> oEffectiveClass = o instanceof HibernateProxy
+                ? ((HibernateProxy) o).getHibernateLazyInitializer().getPersistentClass()
+                : o.getClass();
+        Class<?> thisEffectiveClass = this instanceof HibernateProxy
+                ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass()
+                : this.getClass();
+        if (thisEffectiveClass != oEffectiveClass) {
+            return false;
+        }
+        LowStockAlert that = (LowStockAlert) o;
+        return getAlertId() != null && Objects.equals(getAlertId(), that.getAlertId());
+    }
+
+    @Override
+    public final int hashCode() {
+        return (this instanceof HibernateProxy
+                ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass()
+                : this.getClass()).hashCode();
+    }
+}
@@ -18,6 +18,8 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 
+import com.pma.model.id.SequentialUuid;
+
 /**
  * Entity đại diện cho bảng MedicalRecords trong cơ sở dữ liệu.
  * Lưu trữ các ghi chép y tế cho bệnh nhân.
@@ -40,7 +42,7 @@ import java.util.UUID;
 public class MedicalRecord {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @SequentialUuid
     @Column(name = "record_id", nullable = false, updatable = false)
     private UUID recordId;
 
@@ -6,6 +6,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.hibernate.proxy.HibernateProxy; // Cần cho equals/hashCode chuẩn
@@ -20,6 +22,7 @@ import java.util.UUID;
 
 // ---> IMPORT ENUM TỪ PACKAGE RIÊNG <---
 import com.pma.model.enums.MedicineStatus; // <-- THAY ĐỔI PACKAGE ENUM NẾU CẦN
+import com.pma.model.id.SequentialUuid;
 
 /**
  * Entity đại diện cho bảng Medicines trong cơ sở dữ liệu.
@@ -33,6 +36,8 @@ import com.pma.model.enums.MedicineStatus; // <-- THAY ĐỔI PACKAGE ENUM NẾU
 @ToString(exclude = { "prescriptionDetails" })
 @NoArgsConstructor // Bắt buộc cho JPA
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "Medicines", uniqueConstraints = {
         // Ràng buộc UNIQUE cho medicine_name
         @UniqueConstraint(name = "UQ_Medicines_MedicineName", columnNames = { "medicine_name" })
@@ -46,7 +51,7 @@ public class Medicine {
      * Khóa chính của thuốc, kiểu UUID, tự sinh bởi cơ sở dữ liệu.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID) // Phù hợp UNIQUEIDENTIFIER + DEFAULT
+    @SequentialUuid
     @Column(name = "medicine_id", nullable = false, updatable = false)
     private UUID medicineId;
 
@@ -88,6 +93,15 @@ public class Medicine {
     @Column(name = "stock_quantity", nullable = false)
     private int stockQuantity = 0; // Khởi tạo mặc định
 
+    /**
+     * Số lượng đang được giữ cho các đơn thuốc chưa xuất (xem StockReservation).
+     * Luôn nằm trong khoảng 0..stockQuantity; chỉ được thay đổi bằng các câu
+     * lệnh UPDATE của MedicineRepository.
+     */
+    @Column(name = "reserved_quantity", nullable = false)
+    @Setter(AccessLevel.NONE)
+    private int reservedQuantity = 0;
+
     /**
      * Trạng thái của thuốc (ví dụ: Còn hàng, Hết hàng).
      * Sử dụng Enum để chuẩn hóa.
@@ -110,6 +124,21 @@ public class Medicine {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    /**
+     * Ngưỡng đặt hàng lại: khi tồn kho khả dụng giảm xuống bằng hoặc dưới ngưỡng
+     * này, một cảnh báo thiếu thuốc được tạo (xem LowStockMonitor). Null để dùng
+     * ngưỡng mặc định pma.stock.default-reorder-threshold.
+     */
+    @Column(name = "reorder_threshold")
+    private Integer reorderThreshold;
+
+    /**
+     * Số lượng còn có thể kê cho đơn mới: tồn kho trừ phần đang được giữ.
+     */
+    public int getAvailableQuantity() {
+        return stockQuantity - reservedQuantity;
+    }
+
     // --- Mối quan hệ OneToMany (Phía không sở hữu) ---
 
     /**
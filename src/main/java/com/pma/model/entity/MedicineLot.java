@@ -0,0 +1,130 @@
+package com.pma.model.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.proxy.HibernateProxy;
+
+import com.pma.model.id.SequentialUuid;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Entity đại diện cho bảng MedicineLots. Mỗi bản ghi là một lô nhập của một
+ * thuốc, với số lô, hạn dùng và số lượng còn lại trong lô. Medicine.stockQuantity
+ * vẫn là tổng tồn kho; các lô cho biết tồn kho đó thuộc lô nào (tồn kho nhập
+ * trước khi có lô không thuộc lô nào).
+ */
+@Getter
+@Setter
+@ToString(exclude = {"medicine"})
+@NoArgsConstructor // Bắt buộc cho JPA
+@Entity
+@Table(name = "MedicineLots", uniqueConstraints = {
+    @UniqueConstraint(name = "UQ_MedicineLots_medicine_lot_number", columnNames = {"medicine_id", "lot_number"})
+}, indexes = {
+    // Thứ tự xuất lô của một thuốc (hết hạn trước, xuất trước)
+    @Index(name = "IX_MedicineLots_medicine_id_expiry_date", columnList = "medicine_id, expiry_date"),
+    @Index(name = "IX_MedicineLots_expiry_date", columnList = "expiry_date")
+})
+public class MedicineLot {
+
+    @Id
+    @SequentialUuid
+    @Column(name = "lot_id", nullable = false, updatable = false)
+    private UUID lotId;
+
+    /**
+     * Thuốc của lô. Bắt buộc.
+     */
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "medicine_id", nullable = false, updatable = false)
+    private Medicine medicine;
+
+    /**
+     * Số lô của nhà sản xuất, duy nhất trong một thuốc.
+     */
+    @Column(name = "lot_number", nullable = false, length = 50, updatable = false)
+    private String lotNumber;
+
+    /**
+     * Hạn dùng; lô đã quá hạn không được xuất.
+     */
+    @Column(name = "expiry_date", nullable = false, updatable = false)
+    private LocalDate expiryDate;
+
+    /**
+     * Số lượng còn lại trong lô.
+     */
+    @Column(name = "quantity", nullable = false)
+    private int quantity;
+
+    /**
+     * Thời điểm lô được đánh dấu sắp hết hạn bởi lần kiểm tra hằng đêm; null
+     * nếu chưa.
+     */
+    @Column(name = "near_expiry_flagged_at")
+    private LocalDateTime nearExpiryFlaggedAt;
+
+    /**
+     * Tránh việc nhập thêm vào lô và việc xuất lô cùng lúc ghi đè số lượng của
+     * nhau.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // --- equals() và hashCode() chuẩn ---
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null) {
+            return false;
+        }
+        Class<?> oEffectiveClass = o instanceof HibernateProxy
+                ? ((HibernateProxy) o).getHibernateLazyInitializer().getPersistentClass()
+                : o.getClass();
+        Class<?> thisEffectiveClass = this instanceof HibernateProxy
+                ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass()
+                : this.getClass();
+        if (thisEffectiveClass != oEffectiveClass) {
+            return false;
+        }
+        MedicineLot that = (MedicineLot) o;
+        return getLotId() != null && Objects.equals(getLotId(), that.getLotId());
+    }
+
+    @Override
+    public final int hashCode() {
+        return (this instanceof HibernateProxy
+                ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass()
+                : this.getClass()).hashCode();
+    }
+}
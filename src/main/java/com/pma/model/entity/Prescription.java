@@ -20,6 +20,7 @@ import java.util.UUID;
 
 // ---> IMPORT ENUM TỪ PACKAGE RIÊNG <---
 import com.pma.model.enums.PrescriptionStatus; // <-- THAY ĐỔI PACKAGE ENUM NẾU CẦN
+import com.pma.model.id.SequentialUuid;
 
 /**
  * Entity đại diện cho bảng Prescriptions trong cơ sở dữ liệu.
@@ -42,7 +43,7 @@ import com.pma.model.enums.PrescriptionStatus; // <-- THAY ĐỔI PACKAGE ENUM N
 public class Prescription {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID) // Phù hợp UNIQUEIDENTIFIER + DEFAULT
+    @SequentialUuid
     @Column(name = "prescription_id", nullable = false, updatable = false)
     private UUID prescriptionId;
 
@@ -13,6 +13,8 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Objects;
 import java.util.UUID;
+
+import com.pma.model.id.SequentialUuid;
 // Import BillItem nếu cần quản lý quan hệ ngược từ PrescriptionDetail -> BillItem
 // import java.util.Set;
 // import java.util.HashSet;
@@ -36,7 +38,7 @@ import java.util.UUID;
 public class PrescriptionDetail {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID) // Phù hợp UNIQUEIDENTIFIER + DEFAULT
+    @SequentialUuid
     @Column(name = "prescription_detail_id", nullable = false, updatable = false)
     private UUID prescriptionDetailId;
 
@@ -0,0 +1,125 @@
+package com.pma.model.entity;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.proxy.HibernateProxy;
+
+import com.pma.model.enums.ReservationStatus;
+import com.pma.model.id.SequentialUuid;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Entity đại diện cho bảng StockReservations. Mỗi bản ghi giữ một lượng thuốc
+ * cho một đơn thuốc chưa xuất; tổng các bản ghi ACTIVE của một thuốc bằng
+ * Medicine.reservedQuantity. Bản ghi chuyển sang CONSUMED khi đơn được xuất,
+ * RELEASED khi đơn bị hủy/sửa bớt và EXPIRED khi quá hạn giữ.
+ */
+@Getter
+@Setter
+@ToString(exclude = {"prescription", "medicine"})
+@NoArgsConstructor // Bắt buộc cho JPA
+@Entity
+@Table(name = "StockReservations", indexes = {
+    @Index(name = "IX_StockReservations_prescription_id", columnList = "prescription_id"),
+    @Index(name = "IX_StockReservations_status_expires_at", columnList = "status, expires_at")
+})
+public class StockReservation {
+
+    @Id
+    @SequentialUuid
+    @Column(name = "reservation_id", nullable = false, updatable = false)
+    private UUID reservationId;
+
+    /**
+     * Đơn thuốc giữ hàng. Bắt buộc.
+     */
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "prescription_id", nullable = false, updatable = false)
+    private Prescription prescription;
+
+    /**
+     * Thuốc được giữ. Bắt buộc.
+     */
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "medicine_id", nullable = false, updatable = false)
+    private Medicine medicine;
+
+    /**
+     * Số lượng đang giữ (tổng của mọi dòng cùng thuốc trong đơn).
+     */
+    @Column(name = "quantity", nullable = false)
+    private int quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 15)
+    private ReservationStatus status = ReservationStatus.ACTIVE;
+
+    /**
+     * Thời điểm hết hạn giữ hàng; sau đó lượng giữ được trả lại tồn kho khả dụng.
+     */
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    /**
+     * Tránh việc hết hạn tự động và việc sửa đơn cùng trả lại một lượng giữ.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // --- equals() và hashCode() chuẩn ---
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null) {
+            return false;
+        }
+        Class<?> oEffectiveClass = o instanceof HibernateProxy
+                ? ((HibernateProxy) o).getHibernateLazyInitializer().getPersistentClass()
+                : o.getClass();
+        Class<?> thisEffectiveClass = this instanceof HibernateProxy
+                ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass()
+                : this.getClass();
+        if (thisEffectiveClass != oEffectiveClass) {
+            return false;
+        }
+        StockReservation that = (StockReservation) o;
+        return getReservationId() != null && Objects.equals(getReservationId(), that.getReservationId());
+    }
+
+    @Override
+    public final int hashCode() {
+        return (this instanceof HibernateProxy
+                ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass()
+                : this.getClass()).hashCode();
+    }
+}
@@ -0,0 +1,144 @@
+package com.pma.model.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.proxy.HibernateProxy;
+
+import com.pma.model.enums.WaitlistStatus;
+import com.pma.model.id.SequentialUuid;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Entity đại diện cho bảng WaitlistEntries. Mỗi bản ghi là một yêu cầu của
+ * bệnh nhân chờ một khung giờ trống của bác sĩ trong một khoảng ngày; khi có
+ * lịch hẹn bị hủy trong khoảng đó, bệnh nhân phù hợp nhất được đặt lịch tự
+ * động.
+ */
+@Getter
+@Setter
+@ToString(exclude = {"patient", "doctor", "filledAppointment"})
+@NoArgsConstructor // Bắt buộc cho JPA
+@Entity
+@Table(name = "WaitlistEntries", indexes = {
+    @Index(name = "IX_WaitlistEntries_patient_id", columnList = "patient_id"),
+    @Index(name = "IX_WaitlistEntries_doctor_status", columnList = "doctor_id, status")
+})
+public class WaitlistEntry {
+
+    @Id
+    @SequentialUuid
+    @Column(name = "waitlist_entry_id", nullable = false, updatable = false)
+    private UUID waitlistEntryId;
+
+    /**
+     * Bệnh nhân đang chờ. Bắt buộc.
+     */
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "patient_id", nullable = false)
+    private Patient patient;
+
+    /**
+     * Bác sĩ mà bệnh nhân muốn khám. Bắt buộc.
+     */
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "doctor_id", nullable = false)
+    private Doctor doctor;
+
+    /**
+     * Ngày sớm nhất bệnh nhân có thể đến (bao gồm).
+     */
+    @Column(name = "earliest_date", nullable = false)
+    private LocalDate earliestDate;
+
+    /**
+     * Ngày muộn nhất bệnh nhân có thể đến (bao gồm).
+     */
+    @Column(name = "latest_date", nullable = false)
+    private LocalDate latestDate;
+
+    /**
+     * Độ ưu tiên, giá trị lớn hơn được xét trước. Cùng độ ưu tiên thì ai đăng
+     * ký trước được xét trước.
+     */
+    @Column(name = "priority", nullable = false)
+    private int priority = 0;
+
+    /**
+     * Lý do khám, được chép sang lịch hẹn khi đặt tự động.
+     */
+    @Column(name = "reason", length = 500)
+    private String reason;
+
+    /**
+     * Loại cuộc hẹn mong muốn.
+     */
+    @Column(name = "appointment_type", length = 50)
+    private String appointmentType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 15)
+    private WaitlistStatus status = WaitlistStatus.WAITING;
+
+    /**
+     * Lịch hẹn được đặt tự động cho yêu cầu này (nếu đã được lấp).
+     */
+    @ManyToOne(fetch = FetchType.LAZY, optional = true)
+    @JoinColumn(name = "filled_appointment_id", nullable = true)
+    private Appointment filledAppointment;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // --- equals() và hashCode() chuẩn ---
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null) {
+            return false;
+        }
+        Class<?> oEffectiveClass = o instanceof HibernateProxy
+                ? ((HibernateProxy) o).getHibernateLazyInitializer().getPersistentClass()
+                : o.getClass();
+        Class<?> thisEffectiveClass = this instanceof HibernateProxy
+                ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass()
+                : this.getClass();
+        if (thisEffectiveClass != oEffectiveClass) {
+            return false;
+        }
+        WaitlistEntry that = (WaitlistEntry) o;
+        return getWaitlistEntryId() != null && Objects.equals(getWaitlistEntryId(), that.getWaitlistEntryId());
+    }
+
+    @Override
+    public final int hashCode() {
+        return (this instanceof HibernateProxy
+                ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass()
+                : this.getClass()).hashCode();
+    }
+}
@@ -0,0 +1,6 @@
+package com.pma.model.enums;
+
+public enum EmailOutboxStatus {
+    PENDING,
+    FAILED
+}
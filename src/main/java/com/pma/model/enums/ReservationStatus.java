@@ -0,0 +1,8 @@
+package com.pma.model.enums;
+
+public enum ReservationStatus {
+    ACTIVE,
+    CONSUMED,
+    RELEASED,
+    EXPIRED
+}
@@ -0,0 +1,8 @@
+package com.pma.model.enums;
+
+public enum WaitlistStatus {
+    WAITING,
+    FILLED,
+    CANCELLED,
+    EXPIRED
+}
@@ -0,0 +1,22 @@
+package com.pma.model.id;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+/**
+ * Đánh dấu khóa chính UUID được sinh bằng {@link SequentialUuidGenerator}
+ * (UUID tăng dần theo thời gian, xem {@link SequentialUuids}). Dùng thay cho
+ * {@code @GeneratedValue(strategy = GenerationType.UUID)}; đổi cách sinh khóa
+ * cho mọi entity chỉ cần đổi generator ở đây.
+ */
+@IdGeneratorType(SequentialUuidGenerator.class)
+@Retention(RUNTIME)
+@Target({ FIELD, METHOD })
+public @interface SequentialUuid {
+}
@@ -0,0 +1,88 @@
+package com.pma.model.id;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Sinh UUID tăng dần theo thời gian theo thứ tự sắp xếp của kiểu
+ * uniqueidentifier trong SQL Server.
+ * <p>
+ * SQL Server so sánh uniqueidentifier theo nhóm cuối cùng (6 byte, 12 ký tự
+ * hex cuối) trước, rồi tới nhóm thứ tư (2 byte), sau cùng mới tới ba nhóm đầu.
+ * Vì vậy UUID sinh ra có bố cục:
+ * <pre>
+ * rrrrrrrr-rrrr-8rrr-Vsss-tttttttttttt
+ * t: thời điểm sinh, mili giây từ epoch (48 bit)
+ * s: số thứ tự trong cùng mili giây (14 bit, V chứa 2 bit variant của RFC 9562)
+ * r: ngẫu nhiên (phân biệt các máy sinh cùng lúc); 8 là version "custom"
+ * </pre>
+ * Khóa mới luôn lớn hơn khóa cũ nên được chèn vào cuối clustered index, không
+ * gây tách trang như UUID ngẫu nhiên. Trong một JVM các giá trị tăng dần
+ * nghiêm ngặt; khi hết số thứ tự trong một mili giây, thời điểm được mượn sang
+ * mili giây kế tiếp.
+ * <p>
+ * Lớp không phụ thuộc Hibernate để có thể dùng lại (ví dụ trong
+ * scripts/UuidInsertBenchmark.java).
+ */
+public final class SequentialUuids {
+
+    private static final int SEQUENCE_BITS = 14;
+    private static final long TIMESTAMP_MASK = (1L << 48) - 1;
+
+    private static final SequentialUuids SYSTEM_CLOCK = new SequentialUuids(System::currentTimeMillis);
+
+    private final LongSupplier clock;
+
+    /**
+     * Trạng thái cuối cùng đã cấp: (thời điểm << 14) | số thứ tự.
+     */
+    private final AtomicLong lastState = new AtomicLong();
+
+    /**
+     * Bộ sinh riêng với đồng hồ cho trước (mili giây từ epoch), để test điều
+     * khiển được thời điểm sinh; ứng dụng chỉ dùng {@link #next()}.
+     */
+    SequentialUuids(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Sinh một UUID tăng dần theo thời gian.
+     */
+    public static UUID next() {
+        return SYSTEM_CLOCK.generate();
+    }
+
+    UUID generate() {
+        long now = clock.getAsLong() << SEQUENCE_BITS;
+        long state;
+        long previous;
+        do {
+            previous = lastState.get();
+            state = Math.max(now, previous + 1);
+        } while (!lastState.compareAndSet(previous, state));
+
+        long timestamp = (state >>> SEQUENCE_BITS) & TIMESTAMP_MASK;
+        long sequence = state & ((1L << SEQUENCE_BITS) - 1);
+
+        long mostSigBits = (ThreadLocalRandom.current().nextLong() & ~0xF000L) | 0x8000L; // version 8
+        long leastSigBits = (0x2L << 62) | (sequence << 48) | timestamp; // variant 10
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * Lấy thời điểm sinh (mili giây từ epoch) của một UUID do lớp này tạo ra.
+     *
+     * @param uuid UUID tăng dần theo thời gian.
+     * @return Thời điểm sinh.
+     * @throws IllegalArgumentException nếu UUID không do lớp này tạo ra.
+     */
+    public static long timestampOf(UUID uuid) {
+        if (uuid.version() != 8 || uuid.variant() != 2) {
+            throw new IllegalArgumentException("Not a sequential UUID: " + uuid);
+        }
+        return uuid.getLeastSignificantBits() & TIMESTAMP_MASK;
+    }
+}
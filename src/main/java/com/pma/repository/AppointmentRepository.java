@@ -1,13 +1,22 @@
 package com.pma.repository; // Đảm bảo đúng package
 
 import java.time.LocalDateTime; // Import Entity Appointment
+import java.util.Collection;
 import java.util.List; // Import Doctor để tìm theo bác sĩ
 import java.util.UUID; // Import Patient để tìm theo bệnh nhân
 import org.springframework.data.jpa.repository.EntityGraph;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page; // Import Enum AppointmentStatus
 import org.springframework.data.domain.Pageable; // Import cho phân trang
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository; // Import cho phân trang
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.pma.model.entity.Appointment; // Import nếu dùng @Query
@@ -15,6 +24,8 @@ import com.pma.model.entity.Doctor; // Import nếu dùng @Query với tham số
 import com.pma.model.entity.Patient;
 import com.pma.model.enums.AppointmentStatus; // Import nếu tìm theo thời gian
 
+import jakarta.persistence.LockModeType;
+
 /**
  * Spring Data JPA repository cho thực thể Appointment.
  */
@@ -122,6 +133,67 @@ public interface AppointmentRepository extends JpaRepository<Appointment, UUID>
     List<Appointment> findByDoctor_DoctorIdAndAppointmentDatetimeBetween(UUID doctorId, LocalDateTime startDateTime,
             LocalDateTime endDateTime);
 
+    /**
+     * Tìm danh sách các cuộc hẹn của một bác sĩ theo trạng thái trong một
+     * khoảng thời gian.
+     *
+     * @param doctorId ID của Doctor.
+     * @param status Trạng thái cần lọc.
+     * @param startDateTime Thời điểm bắt đầu (bao gồm).
+     * @param endDateTime Thời điểm kết thúc (bao gồm).
+     * @return Danh sách các Appointment phù hợp.
+     */
+    List<Appointment> findByDoctor_DoctorIdAndStatusAndAppointmentDatetimeBetween(UUID doctorId,
+            AppointmentStatus status, LocalDateTime startDateTime, LocalDateTime endDateTime);
+
+    /**
+     * Tìm các cuộc hẹn của một bác sĩ theo trạng thái có thời gian bắt đầu nằm
+     * trong khoảng mở (windowStart, windowEnd). Dùng để kiểm tra chồng chéo
+     * lịch hẹn mà không phải tải toàn bộ lịch sử của bác sĩ; truy vấn được hỗ
+     * trợ bởi index IX_Appointments_doctor_status_datetime.
+     * <p>
+     * Truy vấn lấy khóa ghi bi quan (trên SQL Server là UPDLOCK, HOLDLOCK) nên
+     * khoảng khóa trên index được giữ đến hết transaction, chặn transaction
+     * khác chèn lịch vào cùng cửa sổ thời gian của bác sĩ. Phải được gọi trong
+     * transaction.
+     *
+     * @param doctorId ID của Doctor.
+     * @param status Trạng thái cần lọc (thường là Scheduled).
+     * @param windowStart Cận dưới của cửa sổ (không bao gồm).
+     * @param windowEnd Cận trên của cửa sổ (không bao gồm).
+     * @return Danh sách các Appointment nằm trong cửa sổ thời gian.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Appointment a WHERE a.doctor.doctorId = :doctorId AND a.status = :status"
+            + " AND a.appointmentDatetime > :windowStart AND a.appointmentDatetime < :windowEnd")
+    List<Appointment> findConflictingAppointments(@Param("doctorId") UUID doctorId,
+            @Param("status") AppointmentStatus status,
+            @Param("windowStart") LocalDateTime windowStart,
+            @Param("windowEnd") LocalDateTime windowEnd);
+
+    /**
+     * Giành quyền gửi một lời nhắc: ghi khoảng nhắc vào
+     * reminder_sent_lead_minutes nếu lịch hẹn vẫn "Scheduled" đúng giờ đã lên
+     * lịch nhắc và chưa có lời nhắc nào cùng hoặc gần giờ hẹn hơn được gửi. Chỉ
+     * một transaction cập nhật được dòng, nên khi nhiều máy cùng đến hạn nhắc
+     * thì chỉ một máy gửi email.
+     *
+     * @param appointmentId ID của Appointment.
+     * @param status Trạng thái yêu cầu (Scheduled).
+     * @param appointmentDatetime Giờ hẹn mà lời nhắc được lên lịch theo.
+     * @param leadMinutes Khoảng nhắc (phút trước giờ hẹn).
+     * @return 1 nếu giành được quyền gửi, 0 nếu không.
+     */
+    @Modifying
+    @Query("UPDATE Appointment a SET a.reminderSentLeadMinutes = :leadMinutes"
+            + " WHERE a.appointmentId = :appointmentId AND a.status = :status"
+            + " AND a.appointmentDatetime = :appointmentDatetime"
+            + " AND (a.reminderSentLeadMinutes IS NULL OR a.reminderSentLeadMinutes > :leadMinutes)")
+    int claimReminder(@Param("appointmentId") UUID appointmentId,
+            @Param("status") AppointmentStatus status,
+            @Param("appointmentDatetime") LocalDateTime appointmentDatetime,
+            @Param("leadMinutes") int leadMinutes);
+
     // --- Ví dụ sử dụng Phân trang và Sắp xếp ---
     /**
      * Tìm các cuộc hẹn của một bệnh nhân, sắp xếp theo thời gian hẹn giảm dần,
@@ -145,6 +217,22 @@ public interface AppointmentRepository extends JpaRepository<Appointment, UUID>
     @EntityGraph(attributePaths = "patient") // Eagerly fetch the patient associated with the appointment
     Page<Appointment> findByDoctor_DoctorIdOrderByAppointmentDatetimeDesc(UUID doctorId, Pageable pageable);
 
+    /**
+     * Lấy một cửa sổ các cuộc hẹn của bác sĩ theo phân trang keyset (seek),
+     * sắp xếp theo (appointment_datetime, appointment_id) giảm dần. Truyền
+     * ScrollPosition.keyset() cho trang đầu và vị trí của phần tử cuối cửa sổ
+     * trước cho trang tiếp theo; chi phí mỗi trang không phụ thuộc vào số lượng
+     * lịch sử của bác sĩ (hỗ trợ bởi index IX_Appointments_doctor_datetime_id).
+     *
+     * @param doctorId ID của Doctor.
+     * @param position Vị trí keyset bắt đầu.
+     * @param limit Số phần tử tối đa của cửa sổ.
+     * @return Window chứa các Appointment và vị trí để lấy cửa sổ tiếp theo.
+     */
+    @EntityGraph(attributePaths = "patient") // Eagerly fetch the patient associated with the appointment
+    Window<Appointment> findByDoctor_DoctorIdOrderByAppointmentDatetimeDescAppointmentIdDesc(UUID doctorId,
+            ScrollPosition position, Limit limit);
+
     /**
      * Tìm danh sách các cuộc hẹn diễn ra trong một khoảng thời gian, sắp xếp
      * theo thời gian hẹn tăng dần, có phân trang.
@@ -157,6 +245,29 @@ public interface AppointmentRepository extends JpaRepository<Appointment, UUID>
     Page<Appointment> findByAppointmentDatetimeBetweenOrderByAppointmentDatetimeAsc(LocalDateTime startDateTime,
             LocalDateTime endDateTime, Pageable pageable);
 
+    /**
+     * Lấy một lát (Slice) các cuộc hẹn theo trạng thái trong một khoảng thời
+     * gian, sắp xếp theo thời gian hẹn tăng dần. Dùng để nạp dữ liệu theo từng
+     * khối mà không cần đếm tổng số bản ghi như Page.
+     *
+     * @param status Trạng thái cần lọc.
+     * @param startDateTime Thời điểm bắt đầu (bao gồm).
+     * @param endDateTime Thời điểm kết thúc (bao gồm).
+     * @param pageable Thông tin phân trang.
+     * @return Slice chứa danh sách Appointment.
+     */
+    Slice<Appointment> findByStatusAndAppointmentDatetimeBetweenOrderByAppointmentDatetimeAsc(AppointmentStatus status,
+            LocalDateTime startDateTime, LocalDateTime endDateTime, Pageable pageable);
+
+    /**
+     * Tìm các cuộc hẹn theo danh sách ID, tải kèm bệnh nhân và bác sĩ.
+     *
+     * @param appointmentIds Danh sách ID cần tìm.
+     * @return Danh sách Appointment tìm thấy.
+     */
+    @EntityGraph(attributePaths = {"patient", "doctor"})
+    List<Appointment> findByAppointmentIdIn(Collection<UUID> appointmentIds);
+
     // --- Ví dụ sử dụng @Query ---
     /**
      * Tìm các cuộc hẹn chưa hoàn thành (Scheduled) của một bác sĩ trước một
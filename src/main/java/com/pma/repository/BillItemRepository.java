@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param; // Import nếu dùng @Q
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal; // Import nếu cần tìm theo giá
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID; // Kiểu dữ liệu của khóa chính (billItemId)
 
@@ -81,6 +82,17 @@ public interface BillItemRepository extends JpaRepository<BillItem, UUID> {
      */
     List<BillItem> findByPrescriptionDetail_PrescriptionDetailId(UUID prescriptionDetailId);
 
+    /**
+     * Trong các chi tiết đơn thuốc cho trước, tìm những chi tiết đang được ít
+     * nhất một mục hóa đơn tham chiếu (một truy vấn cho cả danh sách).
+     *
+     * @param prescriptionDetailIds ID của các PrescriptionDetail cần kiểm tra.
+     * @return ID của các chi tiết đã được lập hóa đơn.
+     */
+    @Query("SELECT DISTINCT bi.prescriptionDetail.prescriptionDetailId FROM BillItem bi "
+            + "WHERE bi.prescriptionDetail.prescriptionDetailId IN :ids")
+    List<UUID> findBilledPrescriptionDetailIds(@Param("ids") Collection<UUID> prescriptionDetailIds);
+
     // --- Ví dụ sử dụng @Query ---
     /**
      * Tính tổng tiền của tất cả các mục trong một hóa đơn cụ thể.
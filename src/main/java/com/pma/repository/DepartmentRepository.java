@@ -1,9 +1,13 @@
 package com.pma.repository; // Đảm bảo đúng package
 
 import com.pma.model.entity.Department; // Import lớp Entity Department
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional; // Dùng cho phương thức tìm kiếm có thể không trả về kết quả
 import java.util.UUID; // Kiểu dữ liệu của khóa chính (departmentId)
 
@@ -16,6 +20,21 @@ import java.util.UUID; // Kiểu dữ liệu của khóa chính (departmentId)
 public interface DepartmentRepository extends JpaRepository<Department, UUID> {
     // Kế thừa JpaRepository<TênEntity, KiểuID>
 
+    /**
+     * Vùng query cache của các truy vấn danh sách khoa.
+     */
+    String QUERY_CACHE_REGION = "query.departments";
+
+    /**
+     * Lấy tất cả các khoa; kết quả được lưu trong query cache.
+     */
+    @Override
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = QUERY_CACHE_REGION)
+    })
+    List<Department> findAll();
+
     // --- Các phương thức CRUD cơ bản được cung cấp sẵn bởi JpaRepository ---
     // save(Department entity), saveAll(Iterable<Department> entities)
     // findById(UUID id), existsById(UUID id)
@@ -1,8 +1,11 @@
 package com.pma.repository; // Đảm bảo đúng package
 
 import com.pma.model.entity.Disease; // Import Entity Disease
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query; // Import nếu dùng @Query
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param; // Import nếu dùng @Query với tham số
 import org.springframework.stereotype.Repository;
 
@@ -17,6 +20,21 @@ import java.util.Optional;
 public interface DiseaseRepository extends JpaRepository<Disease, String> { // Lưu ý: Kiểu ID là String
     // Kế thừa JpaRepository<Disease, String>
 
+    /**
+     * Vùng query cache của các truy vấn danh sách bệnh.
+     */
+    String QUERY_CACHE_REGION = "query.diseases";
+
+    /**
+     * Lấy tất cả các loại bệnh; kết quả được lưu trong query cache.
+     */
+    @Override
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = QUERY_CACHE_REGION)
+    })
+    List<Disease> findAll();
+
     // --- Các phương thức CRUD cơ bản được cung cấp sẵn ---
     // save, findById(String id), findAll, deleteById(String id), count,
     // existsById(String id), etc.
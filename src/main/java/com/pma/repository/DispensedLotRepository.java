@@ -0,0 +1,39 @@
+package com.pma.repository;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.pma.model.entity.DispensedLot;
+
+/**
+ * Spring Data JPA repository cho thực thể DispensedLot.
+ */
+@Repository
+public interface DispensedLotRepository extends JpaRepository<DispensedLot, UUID> {
+
+    /**
+     * Tìm các lô đã xuất cho một đơn thuốc (kèm lô và thuốc).
+     *
+     * @param prescriptionId ID của Prescription.
+     * @return Danh sách DispensedLot của đơn.
+     */
+    @Query("SELECT d FROM DispensedLot d JOIN FETCH d.lot l JOIN FETCH l.medicine"
+            + " WHERE d.prescription.prescriptionId = :prescriptionId ORDER BY l.expiryDate")
+    List<DispensedLot> findWithLotByPrescriptionId(@Param("prescriptionId") UUID prescriptionId);
+
+    /**
+     * Xóa các bản ghi xuất lô của một đơn thuốc (trước khi xóa đơn).
+     *
+     * @param prescriptionId ID của Prescription.
+     * @return Số bản ghi đã xóa.
+     */
+    @Modifying
+    @Query("DELETE FROM DispensedLot d WHERE d.prescription.prescriptionId = :prescriptionId")
+    int deleteByPrescriptionId(@Param("prescriptionId") UUID prescriptionId);
+}
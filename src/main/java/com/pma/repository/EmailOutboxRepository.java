@@ -0,0 +1,54 @@
+package com.pma.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.pma.model.entity.EmailOutboxMessage;
+import com.pma.model.enums.EmailOutboxStatus;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+/**
+ * Spring Data JPA repository cho thực thể EmailOutboxMessage.
+ */
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, UUID> {
+
+    /**
+     * Khóa và lấy các email đến hạn gửi, cũ nhất trước. Các bản ghi đang bị
+     * tiến trình khác khóa được bỏ qua (SKIP LOCKED / READPAST) thay vì chờ.
+     *
+     * @param status Trạng thái cần lọc.
+     * @param now Thời điểm hiện tại.
+     * @param limit Số bản ghi tối đa.
+     * @return Danh sách EmailOutboxMessage đã khóa.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    List<EmailOutboxMessage> findByStatusAndNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(EmailOutboxStatus status,
+            LocalDateTime now, Limit limit);
+
+    /**
+     * Xóa các email ở một trạng thái được tạo trước một thời điểm, bằng một
+     * câu lệnh DELETE.
+     *
+     * @param status Trạng thái cần xóa (FAILED).
+     * @param before Thời điểm tạo muộn nhất (không bao gồm).
+     * @return Số email đã xóa.
+     */
+    @Modifying
+    @Query("DELETE FROM EmailOutboxMessage m WHERE m.status = :status AND m.createdAt < :before")
+    int deleteByStatusAndCreatedAtBefore(@Param("status") EmailOutboxStatus status,
+            @Param("before") LocalDateTime before);
+}
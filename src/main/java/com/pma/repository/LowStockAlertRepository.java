@@ -0,0 +1,47 @@
+package com.pma.repository;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.pma.model.entity.LowStockAlert;
+
+/**
+ * Spring Data JPA repository cho thực thể LowStockAlert.
+ */
+@Repository
+public interface LowStockAlertRepository extends JpaRepository<LowStockAlert, UUID> {
+
+    /**
+     * Tìm các cảnh báo chưa được xác nhận, mới nhất trước (kèm thuốc).
+     *
+     * @return Danh sách LowStockAlert chưa xác nhận.
+     */
+    @Query("SELECT a FROM LowStockAlert a JOIN FETCH a.medicine WHERE a.acknowledgedAt IS NULL ORDER BY a.createdAt DESC")
+    List<LowStockAlert> findUnacknowledged();
+
+    /**
+     * Gán tất cả cảnh báo chưa gửi email cho một lần gửi tổng hợp. Mỗi cảnh báo
+     * chỉ được gán cho một lần gửi kể cả khi nhiều máy chạy cùng lúc.
+     *
+     * @param batchId ID của lần gửi.
+     * @return Số cảnh báo đã được gán.
+     */
+    @Modifying
+    @Query("UPDATE LowStockAlert a SET a.digestBatchId = :batchId WHERE a.digestBatchId IS NULL")
+    int claimForDigest(@Param("batchId") UUID batchId);
+
+    /**
+     * Tìm các cảnh báo của một lần gửi tổng hợp, theo thời gian (kèm thuốc).
+     *
+     * @param batchId ID của lần gửi.
+     * @return Danh sách LowStockAlert của lần gửi.
+     */
+    @Query("SELECT a FROM LowStockAlert a JOIN FETCH a.medicine WHERE a.digestBatchId = :batchId ORDER BY a.createdAt")
+    List<LowStockAlert> findByDigestBatchId(@Param("batchId") UUID batchId);
+}
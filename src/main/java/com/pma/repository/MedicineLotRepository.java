@@ -0,0 +1,97 @@
+package com.pma.repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.pma.model.entity.MedicineLot;
+
+import jakarta.persistence.LockModeType;
+
+/**
+ * Spring Data JPA repository cho thực thể MedicineLot.
+ */
+@Repository
+public interface MedicineLotRepository extends JpaRepository<MedicineLot, UUID> {
+
+    /**
+     * Tìm một lô theo thuốc và số lô.
+     *
+     * @param medicineId ID của thuốc.
+     * @param lotNumber Số lô.
+     * @return Optional chứa MedicineLot nếu tìm thấy.
+     */
+    @Query("SELECT l FROM MedicineLot l WHERE l.medicine.medicineId = :medicineId AND l.lotNumber = :lotNumber")
+    Optional<MedicineLot> findByMedicineIdAndLotNumber(@Param("medicineId") UUID medicineId,
+            @Param("lotNumber") String lotNumber);
+
+    /**
+     * Tìm các lô của một thuốc, hết hạn sớm nhất trước.
+     *
+     * @param medicineId ID của thuốc.
+     * @return Danh sách MedicineLot của thuốc.
+     */
+    @Query("SELECT l FROM MedicineLot l WHERE l.medicine.medicineId = :medicineId ORDER BY l.expiryDate, l.createdAt")
+    List<MedicineLot> findByMedicineId(@Param("medicineId") UUID medicineId);
+
+    /**
+     * Khóa và lấy các lô còn hàng, chưa hết hạn của các thuốc cho trước, để
+     * phân bổ khi xuất thuốc. Hai lần xuất cùng thuốc chạy lần lượt, nên không
+     * lấy trùng số lượng của một lô.
+     *
+     * @param medicineIds Các ID thuốc.
+     * @param today Ngày hiện tại (lô hết hạn trước ngày này bị bỏ qua).
+     * @return Danh sách MedicineLot đã khóa.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM MedicineLot l WHERE l.medicine.medicineId IN :ids AND l.quantity > 0"
+            + " AND l.expiryDate >= :today")
+    List<MedicineLot> findAllocatableForUpdate(@Param("ids") Collection<UUID> medicineIds,
+            @Param("today") LocalDate today);
+
+    /**
+     * Tổng số lượng trong các lô còn hạn của một thuốc.
+     *
+     * @param medicineId ID của thuốc.
+     * @param today Ngày hiện tại (lô hết hạn trước ngày này không được tính).
+     * @return Tổng số lượng (0 nếu không có lô).
+     */
+    @Query("SELECT COALESCE(SUM(l.quantity), 0) FROM MedicineLot l WHERE l.medicine.medicineId = :medicineId"
+            + " AND l.expiryDate >= :today")
+    long sumAllocatableQuantity(@Param("medicineId") UUID medicineId, @Param("today") LocalDate today);
+
+    /**
+     * Tìm các lô còn hàng có hạn dùng đến trước hoặc bằng một ngày, hết hạn sớm
+     * nhất trước (kèm thuốc).
+     *
+     * @param cutoff Ngày giới hạn.
+     * @return Danh sách MedicineLot phù hợp.
+     */
+    @Query("SELECT l FROM MedicineLot l JOIN FETCH l.medicine WHERE l.quantity > 0 AND l.expiryDate <= :cutoff"
+            + " ORDER BY l.expiryDate")
+    List<MedicineLot> findExpiringBy(@Param("cutoff") LocalDate cutoff);
+
+    /**
+     * Đánh dấu sắp hết hạn cho các lô còn hàng có hạn dùng đến trước hoặc bằng
+     * một ngày và chưa được đánh dấu. Tăng version để lần ghi của một entity đã
+     * nạp trước đó không xóa mất dấu.
+     *
+     * @param cutoff Ngày giới hạn.
+     * @param now Thời điểm đánh dấu.
+     * @return Số lô vừa được đánh dấu.
+     */
+    @Modifying
+    @Query("UPDATE MedicineLot l SET l.nearExpiryFlaggedAt = :now, l.version = l.version + 1"
+            + " WHERE l.nearExpiryFlaggedAt IS NULL AND l.quantity > 0 AND l.expiryDate <= :cutoff")
+    int flagNearExpiry(@Param("cutoff") LocalDate cutoff, @Param("now") LocalDateTime now);
+}
@@ -2,15 +2,19 @@ package com.pma.repository; // Đảm bảo đúng package
 
 import com.pma.model.entity.Medicine; // Import Entity Medicine
 import com.pma.model.enums.MedicineStatus; // Import Enum MedicineStatus
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page; // Import cho phân trang
 import org.springframework.data.domain.Pageable; // Import cho phân trang
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying; // Import nếu dùng câu lệnh UPDATE/DELETE
 import org.springframework.data.jpa.repository.Query; // Import nếu dùng @Query
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param; // Import nếu dùng @Query với tham số
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal; // Import nếu tìm theo giá
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID; // Kiểu dữ liệu của khóa chính (medicineId)
@@ -19,9 +23,14 @@ import java.util.UUID; // Kiểu dữ liệu của khóa chính (medicineId)
  * Spring Data JPA repository cho thực thể Medicine.
  */
 @Repository
-public interface MedicineRepository extends JpaRepository<Medicine, UUID> {
+public interface MedicineRepository extends JpaRepository<Medicine, UUID>, MedicineStockRepository {
     // Kế thừa JpaRepository<Medicine, UUID>
 
+    /**
+     * Vùng query cache của các truy vấn tìm thuốc theo tên.
+     */
+    String QUERY_CACHE_REGION = "query.medicines";
+
     // --- Các phương thức CRUD cơ bản được cung cấp sẵn ---
     // save, findById, findAll, deleteById, count, existsById, etc.
 
@@ -47,9 +56,15 @@ public interface MedicineRepository extends JpaRepository<Medicine, UUID> {
      * Tìm danh sách các loại thuốc có tên chứa một chuỗi ký tự (không phân biệt hoa
      * thường).
      * 
+     * Kết quả được lưu trong query cache theo đoạn tên.
+     *
      * @param nameFragment Đoạn tên cần tìm kiếm.
      * @return Danh sách các Medicine phù hợp.
      */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = QUERY_CACHE_REGION)
+    })
     List<Medicine> findByMedicineNameContainingIgnoreCase(String nameFragment);
 
     /**
@@ -95,26 +110,62 @@ public interface MedicineRepository extends JpaRepository<Medicine, UUID> {
      */
     Page<Medicine> findByOrderByMedicineNameAsc(Pageable pageable);
 
-    // --- Ví dụ sử dụng @Query và @Modifying ---
     /**
-     * Cập nhật số lượng tồn kho cho một loại thuốc cụ thể.
-     * 
-     * @Modifying: Đánh dấu đây là một câu lệnh thay đổi dữ liệu (UPDATE/DELETE),
-     *             không phải SELECT.
-     *             Cần được thực thi trong một transaction (@Transactional ở tầng
-     *             Service).
-     * @param medicineId     ID của thuốc cần cập nhật.
+     * Điều chỉnh tồn kho của một loại thuốc bằng một câu lệnh UPDATE nguyên tử:
+     * không cập nhật nếu tồn kho mới bị âm hoặc thấp hơn lượng đang được giữ cho
+     * các đơn thuốc, và chuyển thuốc đang AVAILABLE sang OUT_OF_STOCK khi tồn
+     * kho về 0.
+     * <p>
+     * Không làm mới Medicine đã nạp trong persistence context. Cần được thực thi
+     * trong một transaction (@Transactional ở tầng Service).
+     *
+     * @param medicineId ID của thuốc cần cập nhật.
      * @param quantityChange Số lượng thay đổi (có thể âm để giảm).
-     * @return Số lượng bản ghi bị ảnh hưởng (thường là 1 nếu thành công).
+     * @return 1 nếu đã cập nhật, 0 nếu không tìm thấy thuốc hoặc tồn kho không đủ.
      */
-    /*
-     * @Modifying // Bắt buộc cho UPDATE/DELETE
-     * 
-     * @Query("UPDATE Medicine m SET m.stockQuantity = m.stockQuantity + :quantityChange WHERE m.medicineId = :medicineId"
-     * )
-     * int updateStockQuantity(@Param("medicineId") UUID
-     * medicineId, @Param("quantityChange") int quantityChange);
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Medicine m SET m.stockQuantity = m.stockQuantity + :quantityChange,"
+            + " m.status = CASE WHEN m.stockQuantity + :quantityChange = 0"
+            + " AND m.status = com.pma.model.enums.MedicineStatus.AVAILABLE"
+            + " THEN com.pma.model.enums.MedicineStatus.OUT_OF_STOCK ELSE m.status END,"
+            + " m.updatedAt = LOCAL DATETIME"
+            + " WHERE m.medicineId = :medicineId AND m.stockQuantity + :quantityChange >= 0"
+            + " AND m.stockQuantity + :quantityChange >= m.reservedQuantity")
+    int adjustStock(@Param("medicineId") UUID medicineId, @Param("quantityChange") int quantityChange);
+
+    /**
+     * Lấy tồn kho khả dụng (tồn kho trừ lượng đang giữ) của nhiều loại thuốc
+     * bằng một truy vấn, đọc thẳng từ cơ sở dữ liệu (không qua cache).
+     *
+     * @param medicineIds Các ID thuốc.
+     * @return Các cặp [medicineId, tồn kho khả dụng].
+     */
+    @Query("SELECT m.medicineId, m.stockQuantity - m.reservedQuantity FROM Medicine m WHERE m.medicineId IN :ids")
+    List<Object[]> findAvailableQuantities(@Param("ids") Collection<UUID> medicineIds);
+
+    /**
+     * Lấy thông tin rút gọn của tất cả các thuốc để dựng danh mục tìm kiếm trong
+     * bộ nhớ (MedicineCatalog), không nạp entity.
+     *
+     * @return Các bộ [medicineId, medicineName, manufacturer, unit, price].
+     */
+    @Query("SELECT m.medicineId, m.medicineName, m.manufacturer, m.unit, m.price FROM Medicine m")
+    List<Object[]> findCatalogueRows();
+
+    /**
+     * Trong các thuốc cho trước, tìm những thuốc có tồn kho khả dụng bằng hoặc
+     * dưới ngưỡng đặt hàng lại (truy vấn theo khóa chính, không quét bảng).
+     *
+     * @param medicineIds Các ID thuốc.
+     * @param defaultThreshold Ngưỡng dùng cho thuốc chưa đặt ngưỡng riêng.
+     * @return Các bộ [medicineId, medicineName, tồn kho khả dụng, ngưỡng].
      */
+    @Query("SELECT m.medicineId, m.medicineName, m.stockQuantity - m.reservedQuantity,"
+            + " COALESCE(m.reorderThreshold, :defaultThreshold) FROM Medicine m"
+            + " WHERE m.medicineId IN :ids"
+            + " AND m.stockQuantity - m.reservedQuantity <= COALESCE(m.reorderThreshold, :defaultThreshold)")
+    List<Object[]> findAtOrBelowReorderThreshold(@Param("ids") Collection<UUID> medicineIds,
+            @Param("defaultThreshold") int defaultThreshold);
 
     /**
      * Tìm kiếm thuốc theo từ khóa trong tên hoặc nhà sản xuất.
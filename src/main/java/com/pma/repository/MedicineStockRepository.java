@@ -0,0 +1,54 @@
+package com.pma.repository;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Các thao tác tồn kho thuốc không biểu diễn được bằng truy vấn dẫn xuất hay
+ * {@code @Query} (được MedicineRepository kế thừa).
+ * <p>
+ * Mỗi phương thức nhận Map từ medicineId tới số lượng và cập nhật cả lô bằng
+ * một câu lệnh UPDATE (tối đa
+ * {@link MedicineStockRepositoryImpl#MAX_ROWS_PER_STATEMENT} thuốc mỗi câu
+ * lệnh). Thuốc không thỏa điều kiện thì không được cập nhật; người gọi so sánh
+ * giá trị trả về với kích thước Map. Các phương thức không làm mới những
+ * Medicine đã nạp trong persistence context và phải được gọi trong một
+ * transaction.
+ */
+public interface MedicineStockRepository {
+
+    /**
+     * Điều chỉnh tồn kho của nhiều loại thuốc. Thuốc có tồn kho mới thấp hơn
+     * lượng đang giữ (hoặc âm) không được cập nhật; thuốc về 0 từ trạng thái
+     * AVAILABLE được chuyển sang OUT_OF_STOCK.
+     *
+     * @param quantityChanges Map từ medicineId tới số lượng thay đổi.
+     * @return Số thuốc đã được cập nhật.
+     */
+    int adjustStockBatch(Map<UUID, Integer> quantityChanges);
+
+    /**
+     * Giữ hàng: tăng lượng đang giữ nếu tồn kho khả dụng đủ.
+     *
+     * @param quantities Map từ medicineId tới số lượng cần giữ (dương).
+     * @return Số thuốc đã được giữ.
+     */
+    int reserveStockBatch(Map<UUID, Integer> quantities);
+
+    /**
+     * Trả lại lượng đang giữ về tồn kho khả dụng.
+     *
+     * @param quantities Map từ medicineId tới số lượng trả lại (dương).
+     * @return Số thuốc đã được cập nhật.
+     */
+    int releaseReservedBatch(Map<UUID, Integer> quantities);
+
+    /**
+     * Xuất hàng đã giữ: giảm cả tồn kho lẫn lượng đang giữ, chuyển thuốc về 0
+     * từ AVAILABLE sang OUT_OF_STOCK.
+     *
+     * @param quantities Map từ medicineId tới số lượng xuất (dương).
+     * @return Số thuốc đã được cập nhật.
+     */
+    int consumeReservedBatch(Map<UUID, Integer> quantities);
+}
@@ -0,0 +1,100 @@
+package com.pma.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.hibernate.query.NativeQuery;
+
+import com.pma.model.entity.Medicine;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+/**
+ * Cài đặt {@link MedicineStockRepository} bằng SQL thuần của SQL Server: các
+ * cặp (medicine_id, delta) được truyền như một bảng VALUES và JOIN với
+ * Medicines, nên điều kiện tồn kho được kiểm tra và áp dụng nguyên tử cho từng
+ * dòng.
+ */
+class MedicineStockRepositoryImpl implements MedicineStockRepository {
+
+    /**
+     * Số thuốc tối đa trong một câu lệnh (2 tham số mỗi thuốc, SQL Server giới
+     * hạn 2100 tham số).
+     */
+    static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int adjustStockBatch(Map<UUID, Integer> quantityChanges) {
+        return update(quantityChanges,
+                " m.stock_quantity = m.stock_quantity + d.delta," + outOfStockAtZero("m.stock_quantity + d.delta"),
+                "m.stock_quantity + d.delta >= m.reserved_quantity AND m.stock_quantity + d.delta >= 0");
+    }
+
+    @Override
+    public int reserveStockBatch(Map<UUID, Integer> quantities) {
+        return update(quantities,
+                " m.reserved_quantity = m.reserved_quantity + d.delta,",
+                "m.stock_quantity - m.reserved_quantity >= d.delta");
+    }
+
+    @Override
+    public int releaseReservedBatch(Map<UUID, Integer> quantities) {
+        return update(quantities,
+                " m.reserved_quantity = m.reserved_quantity - d.delta,",
+                "m.reserved_quantity >= d.delta");
+    }
+
+    @Override
+    public int consumeReservedBatch(Map<UUID, Integer> quantities) {
+        return update(quantities,
+                " m.stock_quantity = m.stock_quantity - d.delta, m.reserved_quantity = m.reserved_quantity - d.delta,"
+                + outOfStockAtZero("m.stock_quantity - d.delta"),
+                "m.reserved_quantity >= d.delta");
+    }
+
+    /**
+     * Phép gán chuyển thuốc đang AVAILABLE sang OUT_OF_STOCK khi tồn kho mới
+     * (biểu thức newStock, tính trên giá trị trước khi cập nhật) bằng 0.
+     */
+    private static String outOfStockAtZero(String newStock) {
+        return " m.status = CASE WHEN " + newStock + " = 0 AND m.status = 'AVAILABLE'"
+                + " THEN 'OUT_OF_STOCK' ELSE m.status END,";
+    }
+
+    private int update(Map<UUID, Integer> deltas, String assignments, String condition) {
+        List<Map.Entry<UUID, Integer>> entries = new ArrayList<>(deltas.entrySet());
+        int updated = 0;
+        for (int from = 0; from < entries.size(); from += MAX_ROWS_PER_STATEMENT) {
+            updated += update(entries.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, entries.size())),
+                    assignments, condition);
+        }
+        return updated;
+    }
+
+    private int update(List<Map.Entry<UUID, Integer>> entries, String assignments, String condition) {
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < entries.size(); i++) {
+            values.append(i == 0 ? "" : ", ").append("(:id").append(i).append(", :delta").append(i).append(')');
+        }
+        String sql = "UPDATE m SET" + assignments + " m.updated_at = SYSDATETIME()"
+                + " FROM Medicines m JOIN (VALUES " + values + ") AS d (medicine_id, delta)"
+                + " ON m.medicine_id = d.medicine_id"
+                + " WHERE " + condition;
+
+        Query query = entityManager.createNativeQuery(sql);
+        for (int i = 0; i < entries.size(); i++) {
+            query.setParameter("id" + i, entries.get(i).getKey());
+            query.setParameter("delta" + i, entries.get(i).getValue());
+        }
+        // Chỉ làm mất hiệu lực cache của Medicine thay vì toàn bộ second-level cache
+        query.unwrap(NativeQuery.class).addSynchronizedEntityClass(Medicine.class);
+        return query.executeUpdate();
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param; // Import nếu dùng @Q
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal; // Import nếu tìm theo giá
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID; // Kiểu dữ liệu của khóa chính (prescriptionDetailId)
 
@@ -111,4 +112,14 @@ public interface PrescriptionDetailRepository extends JpaRepository<Prescription
      * @return Số lượng chi tiết đơn thuốc chứa thuốc này
      */
     long countByMedicine_MedicineId(UUID medicineId);
+
+    /**
+     * Tải nhiều chi tiết đơn thuốc theo ID bằng một truy vấn, kèm đơn thuốc
+     * chứa chúng (để kiểm tra bệnh nhân mà không phát sinh thêm truy vấn).
+     *
+     * @param ids Các ID chi tiết đơn thuốc.
+     * @return Các PrescriptionDetail tìm thấy.
+     */
+    @Query("SELECT pd FROM PrescriptionDetail pd JOIN FETCH pd.prescription WHERE pd.prescriptionDetailId IN :ids")
+    List<PrescriptionDetail> findAllWithPrescriptionByIdIn(@Param("ids") Collection<UUID> ids);
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.pma.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.pma.model.entity.StockReservation;
+import com.pma.model.enums.ReservationStatus;
+
+/**
+ * Spring Data JPA repository cho thực thể StockReservation.
+ */
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, UUID> {
+
+    /**
+     * Tìm các lượng giữ hàng của một đơn thuốc theo trạng thái (kèm thuốc).
+     *
+     * @param prescriptionId ID của Prescription.
+     * @param status Trạng thái cần lọc.
+     * @return Danh sách StockReservation phù hợp.
+     */
+    @Query("SELECT r FROM StockReservation r JOIN FETCH r.medicine "
+            + "WHERE r.prescription.prescriptionId = :prescriptionId AND r.status = :status")
+    List<StockReservation> findWithMedicineByPrescriptionAndStatus(@Param("prescriptionId") UUID prescriptionId,
+            @Param("status") ReservationStatus status);
+
+    /**
+     * Tìm các lượng giữ hàng theo trạng thái đã hết hạn tại một thời điểm, hết
+     * hạn sớm nhất trước (kèm thuốc).
+     *
+     * @param status Trạng thái cần lọc.
+     * @param now Thời điểm so sánh.
+     * @param limit Số bản ghi tối đa.
+     * @return Danh sách StockReservation phù hợp.
+     */
+    @Query("SELECT r FROM StockReservation r JOIN FETCH r.medicine "
+            + "WHERE r.status = :status AND r.expiresAt <= :now ORDER BY r.expiresAt")
+    List<StockReservation> findExpired(@Param("status") ReservationStatus status, @Param("now") LocalDateTime now,
+            Limit limit);
+
+    /**
+     * Xóa tất cả lượng giữ hàng của một đơn thuốc (trước khi xóa đơn).
+     *
+     * @param prescriptionId ID của Prescription.
+     * @return Số bản ghi đã xóa.
+     */
+    @Modifying
+    @Query("DELETE FROM StockReservation r WHERE r.prescription.prescriptionId = :prescriptionId")
+    int deleteByPrescriptionId(@Param("prescriptionId") UUID prescriptionId);
+}
@@ -0,0 +1,79 @@
+package com.pma.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.pma.model.entity.WaitlistEntry;
+import com.pma.model.enums.WaitlistStatus;
+
+import jakarta.persistence.LockModeType;
+
+/**
+ * Spring Data JPA repository cho thực thể WaitlistEntry.
+ */
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, UUID> {
+
+    /**
+     * Tìm danh sách các yêu cầu chờ theo trạng thái.
+     *
+     * @param status Trạng thái cần lọc.
+     * @return Danh sách WaitlistEntry phù hợp.
+     */
+    List<WaitlistEntry> findByStatus(WaitlistStatus status);
+
+    /**
+     * Tìm danh sách các yêu cầu chờ của một bệnh nhân theo trạng thái.
+     *
+     * @param patientId ID của Patient.
+     * @param status Trạng thái cần lọc.
+     * @return Danh sách WaitlistEntry phù hợp.
+     */
+    List<WaitlistEntry> findByPatient_PatientIdAndStatus(UUID patientId, WaitlistStatus status);
+
+    /**
+     * Tìm các yêu cầu đang chờ của một bác sĩ có khoảng ngày chứa ngày đã cho,
+     * theo thứ tự xét: độ ưu tiên cao trước, cùng độ ưu tiên thì đăng ký sớm
+     * trước. Truy vấn được hỗ trợ bởi index IX_WaitlistEntries_doctor_status.
+     * <p>
+     * Các dòng trả về bị khóa ghi bi quan (trên SQL Server là UPDLOCK) đến hết
+     * transaction, nên hai máy cùng xử lý lịch hủy của một bác sĩ không lấy
+     * trùng một yêu cầu. Phải được gọi trong transaction.
+     *
+     * @param doctorId ID của Doctor.
+     * @param status Trạng thái cần lọc (WAITING).
+     * @param day Ngày của khung giờ vừa trống.
+     * @param limit Số yêu cầu tối đa.
+     * @return Danh sách WaitlistEntry theo thứ tự xét.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM WaitlistEntry w WHERE w.doctor.doctorId = :doctorId AND w.status = :status"
+            + " AND w.earliestDate <= :day AND w.latestDate >= :day"
+            + " ORDER BY w.priority DESC, w.createdAt, w.waitlistEntryId")
+    List<WaitlistEntry> findCandidatesForUpdate(@Param("doctorId") UUID doctorId,
+            @Param("status") WaitlistStatus status,
+            @Param("day") LocalDate day,
+            Limit limit);
+
+    /**
+     * Chuyển các yêu cầu có ngày muộn nhất trước ngày đã cho từ trạng thái
+     * {@code from} sang {@code to} bằng một câu lệnh UPDATE.
+     *
+     * @return Số yêu cầu đã cập nhật.
+     */
+    @Modifying
+    @Query("UPDATE WaitlistEntry w SET w.status = :to, w.updatedAt = CURRENT_TIMESTAMP"
+            + " WHERE w.status = :from AND w.latestDate < :day")
+    int updateStatusForLatestDateBefore(@Param("from") WaitlistStatus from,
+            @Param("to") WaitlistStatus to,
+            @Param("day") LocalDate day);
+}
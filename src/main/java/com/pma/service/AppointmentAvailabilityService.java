@@ -0,0 +1,411 @@
+package com.pma.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.pma.model.entity.Appointment;
+import com.pma.model.enums.AppointmentStatus;
+import com.pma.repository.AppointmentRepository;
+import com.pma.util.TransactionUtil;
+
+/**
+ * Service giữ bản đồ bit (bitmap) các khung 15 phút đã bị chiếm của từng bác sĩ
+ * theo từng ngày. Bitmap được nạp từ AppointmentRepository theo khối ngày và
+ * được cập nhật tăng dần khi lịch hẹn được đặt, cập nhật, hủy hoặc xóa, để các
+ * màn hình đặt lịch tra cứu khung giờ trống mà không cần truy vấn cơ sở dữ
+ * liệu mỗi lần thay đổi lựa chọn.
+ * <p>
+ * Bitmap chỉ là gợi ý cho giao diện: nó không thấy ngay các lịch được đặt từ
+ * máy khác, và các ngày chưa nạp (hoặc đã quá hạn) được coi là còn trống. Mỗi
+ * ngày đã nạp chỉ có hiệu lực trong pma.appointment.availability-ttl (mặc định
+ * 2 phút); sau đó nó bị loại khỏi bộ nhớ và được nạp lại ở lần
+ * {@link #preload} kế tiếp. Việc kiểm tra quyết định vẫn là truy vấn chồng chéo
+ * trong AppointmentService khi đặt lịch.
+ * <p>
+ * Các phương thức tra cứu không bao giờ truy vấn cơ sở dữ liệu nên có thể gọi
+ * trên luồng JavaFX; {@link #preload} thì có và phải chạy ở luồng nền.
+ */
+@Service
+public class AppointmentAvailabilityService {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentAvailabilityService.class);
+
+    /**
+     * Độ dài một khung giờ (phút).
+     */
+    public static final int SLOT_MINUTES = 15;
+
+    /**
+     * Số khung giờ trong một ngày (24 giờ x 4 khung).
+     */
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final AppointmentRepository appointmentRepository;
+    private final long ttlNanos;
+
+    /**
+     * Lịch đã nạp theo (bác sĩ, ngày).
+     */
+    private final Map<DayKey, DaySchedule> schedules = new ConcurrentHashMap<>();
+
+    /**
+     * Chỉ mục ngược: cuộc hẹn -> các ngày mà nó chiếm khung giờ, dùng để gỡ bỏ
+     * khi hủy/cập nhật mà không cần biết thời gian cũ.
+     */
+    private final Map<UUID, List<DayKey>> appointmentDays = new ConcurrentHashMap<>();
+
+    /**
+     * Khóa dùng để tuần tự hóa việc nạp và cập nhật tăng dần (các thao tác tra
+     * cứu không cần khóa này).
+     */
+    private final Object mutationLock = new Object();
+
+    @Autowired
+    public AppointmentAvailabilityService(AppointmentRepository appointmentRepository,
+            @Value("${pma.appointment.availability-ttl:2m}") Duration ttl) {
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("pma.appointment.availability-ttl must be positive: " + ttl);
+        }
+        this.appointmentRepository = appointmentRepository;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Nạp trước lịch của bác sĩ cho một khoảng ngày (bao gồm hai đầu). Các ngày
+     * đã có trong bộ nhớ và chưa quá hạn được giữ nguyên; các ngày quá hạn được
+     * nạp lại. Đồng thời loại khỏi bộ nhớ mọi ngày đã quá hạn của các bác sĩ
+     * khác, để bộ nhớ chỉ giữ những gì vừa được xem gần đây.
+     *
+     * @param doctorId ID của bác sĩ.
+     * @param from Ngày bắt đầu.
+     * @param to Ngày kết thúc.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public void preload(UUID doctorId, LocalDate from, LocalDate to) {
+        if (doctorId == null || from == null || to == null || to.isBefore(from)) {
+            return;
+        }
+        synchronized (mutationLock) {
+            long now = System.nanoTime();
+            evictExpired(now);
+            List<LocalDate> missingDays = new ArrayList<>();
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                if (!schedules.containsKey(new DayKey(doctorId, day))) {
+                    missingDays.add(day);
+                }
+            }
+            if (missingDays.isEmpty()) {
+                return;
+            }
+
+            LocalDate firstMissing = missingDays.get(0);
+            LocalDate lastMissing = missingDays.get(missingDays.size() - 1);
+            // Lùi thêm một khoảng bằng thời lượng cuộc hẹn để lấy các cuộc hẹn tràn sang từ ngày trước
+            List<Appointment> appointments = appointmentRepository
+                    .findByDoctor_DoctorIdAndStatusAndAppointmentDatetimeBetween(doctorId, AppointmentStatus.Scheduled,
+                            firstMissing.atStartOfDay().minusMinutes(AppointmentService.DEFAULT_APPOINTMENT_DURATION_MINUTES),
+                            lastMissing.plusDays(1).atStartOfDay());
+
+            Map<DayKey, DaySchedule> loaded = new HashMap<>();
+            for (LocalDate day : missingDays) {
+                loaded.put(new DayKey(doctorId, day), new DaySchedule(now));
+            }
+            for (Appointment appointment : appointments) {
+                occupy(loaded, doctorId, appointment.getAppointmentId(), appointment.getAppointmentDatetime());
+            }
+            schedules.putAll(loaded);
+            log.debug("Loaded availability for doctor {} on {} day(s) from {} to {} ({} appointments)",
+                    doctorId, missingDays.size(), firstMissing, lastMissing, appointments.size());
+        }
+    }
+
+    /**
+     * Kiểm tra một thời điểm bắt đầu có thể đặt lịch cho bác sĩ hay không, tức
+     * là toàn bộ các khung giờ mà cuộc hẹn mới sẽ chiếm đều còn trống (hoặc
+     * chưa được nạp) và thời điểm đó ở tương lai. Chỉ dùng để gợi ý trên giao
+     * diện.
+     *
+     * @param doctorId ID của bác sĩ.
+     * @param start Thời điểm bắt đầu dự kiến.
+     * @return true nếu khung giờ có vẻ còn trống.
+     */
+    public boolean isSlotAvailable(UUID doctorId, LocalDateTime start) {
+        if (doctorId == null || start == null || start.isBefore(LocalDateTime.now())) {
+            return false;
+        }
+        LocalDate day = start.toLocalDate();
+        int minuteOfDay = start.getHour() * 60 + start.getMinute();
+        return isRangeFree(doctorId, day, minuteOfDay / SLOT_MINUTES,
+                ceilDiv(minuteOfDay + (int) AppointmentService.DEFAULT_APPOINTMENT_DURATION_MINUTES, SLOT_MINUTES));
+    }
+
+    /**
+     * Kiểm tra trong một giờ cụ thể của ngày còn khung bắt đầu nào trống hay
+     * không.
+     *
+     * @param doctorId ID của bác sĩ.
+     * @param date Ngày cần kiểm tra.
+     * @param hour Giờ (0-23).
+     * @return true nếu mọi khung bắt đầu trong giờ đó đều không thể đặt.
+     */
+    public boolean isHourFullyBooked(UUID doctorId, LocalDate date, int hour) {
+        for (int minute = 0; minute < 60; minute += SLOT_MINUTES) {
+            if (isSlotAvailable(doctorId, date.atTime(hour, minute))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Kiểm tra một ngày của bác sĩ đã kín lịch hay chưa (không còn khung bắt
+     * đầu nào có thể đặt).
+     *
+     * @param doctorId ID của bác sĩ.
+     * @param date Ngày cần kiểm tra.
+     * @return true nếu ngày đã kín lịch.
+     */
+    public boolean isDayFullyBooked(UUID doctorId, LocalDate date) {
+        for (int hour = 0; hour < 24; hour++) {
+            if (!isHourFullyBooked(doctorId, date, hour)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cập nhật bitmap sau khi một cuộc hẹn được tạo hoặc thay đổi (thời gian,
+     * trạng thái). Nếu đang trong transaction, thay đổi chỉ được áp dụng sau
+     * khi commit.
+     *
+     * @param appointment Cuộc hẹn vừa được lưu.
+     */
+    public void onAppointmentSaved(Appointment appointment) {
+        if (appointment == null || appointment.getAppointmentId() == null) {
+            return;
+        }
+        UUID appointmentId = appointment.getAppointmentId();
+        UUID doctorId = appointment.getDoctor() != null ? appointment.getDoctor().getDoctorId() : null;
+        LocalDateTime start = appointment.getAppointmentDatetime();
+        boolean scheduled = appointment.getStatus() == AppointmentStatus.Scheduled;
+
+        TransactionUtil.runAfterCommit(() -> {
+            synchronized (mutationLock) {
+                release(appointmentId);
+                if (scheduled && doctorId != null && start != null) {
+                    occupy(schedules, doctorId, appointmentId, start);
+                }
+            }
+        });
+    }
+
+    /**
+     * Bỏ lịch đã nạp của bác sĩ trong một ngày, để lần {@link #preload} kế tiếp
+     * đọc lại từ cơ sở dữ liệu (ví dụ khi việc đặt lịch bị từ chối vì một lịch
+     * được đặt từ máy khác mà bitmap chưa biết).
+     *
+     * @param doctorId ID của bác sĩ.
+     * @param date Ngày cần nạp lại.
+     */
+    public void invalidate(UUID doctorId, LocalDate date) {
+        if (doctorId == null || date == null) {
+            return;
+        }
+        synchronized (mutationLock) {
+            DayKey key = new DayKey(doctorId, date);
+            DaySchedule schedule = schedules.remove(key);
+            if (schedule != null) {
+                forget(key, schedule);
+            }
+        }
+    }
+
+    /**
+     * Gỡ một cuộc hẹn khỏi bitmap (khi bị xóa cứng).
+     *
+     * @param appointmentId ID của cuộc hẹn.
+     */
+    public void onAppointmentRemoved(UUID appointmentId) {
+        if (appointmentId == null) {
+            return;
+        }
+        TransactionUtil.runAfterCommit(() -> {
+            synchronized (mutationLock) {
+                release(appointmentId);
+            }
+        });
+    }
+
+    private boolean isRangeFree(UUID doctorId, LocalDate day, int fromSlot, int toSlot) {
+        long now = System.nanoTime();
+        while (fromSlot < toSlot) {
+            DaySchedule schedule = schedules.get(new DayKey(doctorId, day));
+            int end = Math.min(toSlot, SLOTS_PER_DAY);
+            // Ngày chưa nạp hoặc đã quá hạn: không biết, coi như còn trống
+            if (schedule != null && !schedule.isExpired(now, ttlNanos) && !schedule.isFree(fromSlot, end)) {
+                return false;
+            }
+            // Phần còn lại tràn sang ngày kế tiếp
+            fromSlot = 0;
+            toSlot -= SLOTS_PER_DAY;
+            day = day.plusDays(1);
+        }
+        return true;
+    }
+
+    /**
+     * Loại các ngày đã quá hạn khỏi bộ nhớ, cùng các tham chiếu tới chúng trong
+     * chỉ mục ngược. Phải được gọi khi giữ mutationLock.
+     */
+    private void evictExpired(long now) {
+        Iterator<Map.Entry<DayKey, DaySchedule>> entries = schedules.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<DayKey, DaySchedule> entry = entries.next();
+            if (!entry.getValue().isExpired(now, ttlNanos)) {
+                continue;
+            }
+            entries.remove();
+            forget(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Gỡ các tham chiếu tới một ngày vừa bị loại khỏi chỉ mục ngược. Phải được
+     * gọi khi giữ mutationLock.
+     */
+    private void forget(DayKey key, DaySchedule schedule) {
+        for (UUID appointmentId : schedule.appointmentIds()) {
+            List<DayKey> days = appointmentDays.get(appointmentId);
+            if (days != null) {
+                days.remove(key);
+                if (days.isEmpty()) {
+                    appointmentDays.remove(appointmentId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Đánh dấu các khung giờ mà cuộc hẹn chiếm trên những ngày có trong map.
+     * Phải được gọi khi giữ mutationLock.
+     */
+    private void occupy(Map<DayKey, DaySchedule> target, UUID doctorId, UUID appointmentId, LocalDateTime start) {
+        LocalDate day = start.toLocalDate();
+        int fromMinute = start.getHour() * 60 + start.getMinute();
+        int toMinute = fromMinute + (int) AppointmentService.DEFAULT_APPOINTMENT_DURATION_MINUTES;
+        while (fromMinute < toMinute) {
+            DayKey key = new DayKey(doctorId, day);
+            DaySchedule schedule = target.get(key);
+            if (schedule != null) {
+                schedule.add(appointmentId, fromMinute, Math.min(toMinute, MINUTES_PER_DAY));
+                appointmentDays.computeIfAbsent(appointmentId, _ -> new ArrayList<>()).add(key);
+            }
+            fromMinute = 0;
+            toMinute -= MINUTES_PER_DAY;
+            day = day.plusDays(1);
+        }
+    }
+
+    /**
+     * Gỡ cuộc hẹn khỏi mọi ngày mà nó đang chiếm. Phải được gọi khi giữ
+     * mutationLock.
+     */
+    private void release(UUID appointmentId) {
+        List<DayKey> days = appointmentDays.remove(appointmentId);
+        if (days == null) {
+            return;
+        }
+        for (DayKey key : days) {
+            DaySchedule schedule = schedules.get(key);
+            if (schedule != null) {
+                schedule.remove(appointmentId);
+            }
+        }
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+
+    /**
+     * Khóa của một ngày làm việc của bác sĩ.
+     */
+    private record DayKey(UUID doctorId, LocalDate date) {
+
+    }
+
+    /**
+     * Lịch của một bác sĩ trong một ngày: danh sách các khoảng phút bị chiếm
+     * theo cuộc hẹn và bitmap 96 khung được suy ra từ danh sách đó.
+     */
+    private static final class DaySchedule {
+
+        private final Map<UUID, int[]> ranges = new HashMap<>();
+        private final long[] occupied = new long[2];
+        private final long loadedAt;
+
+        DaySchedule(long loadedAt) {
+            this.loadedAt = loadedAt;
+        }
+
+        boolean isExpired(long now, long ttlNanos) {
+            return now - loadedAt > ttlNanos;
+        }
+
+        synchronized List<UUID> appointmentIds() {
+            return List.copyOf(ranges.keySet());
+        }
+
+        synchronized void add(UUID appointmentId, int fromMinute, int toMinute) {
+            ranges.put(appointmentId, new int[]{fromMinute, toMinute});
+            mark(fromMinute, toMinute);
+        }
+
+        synchronized void remove(UUID appointmentId) {
+            if (ranges.remove(appointmentId) == null) {
+                return;
+            }
+            // Các khoảng có thể dùng chung một khung lẻ, nên dựng lại bitmap từ các khoảng còn lại
+            occupied[0] = 0L;
+            occupied[1] = 0L;
+            for (int[] range : ranges.values()) {
+                mark(range[0], range[1]);
+            }
+        }
+
+        synchronized boolean isFree(int fromSlot, int toSlot) {
+            for (int slot = fromSlot; slot < toSlot; slot++) {
+                if ((occupied[slot >>> 6] & (1L << (slot & 63))) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void mark(int fromMinute, int toMinute) {
+            int toSlot = ceilDiv(toMinute, SLOT_MINUTES);
+            for (int slot = fromMinute / SLOT_MINUTES; slot < toSlot; slot++) {
+                occupied[slot >>> 6] |= 1L << (slot & 63);
+            }
+        }
+    }
+}
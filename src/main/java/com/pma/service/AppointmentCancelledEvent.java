@@ -0,0 +1,16 @@
+package com.pma.service;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Sự kiện phát ra khi một lịch hẹn "Scheduled" có bác sĩ bị hủy, tức là một
+ * khung giờ của bác sĩ vừa được giải phóng.
+ *
+ * @param appointmentId ID của lịch hẹn bị hủy.
+ * @param doctorId ID của bác sĩ.
+ * @param appointmentDatetime Thời điểm bắt đầu của khung giờ được giải phóng.
+ */
+public record AppointmentCancelledEvent(UUID appointmentId, UUID doctorId, LocalDateTime appointmentDatetime) {
+
+}
@@ -0,0 +1,410 @@
+package com.pma.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.pma.model.entity.Appointment;
+import com.pma.model.enums.AppointmentStatus;
+import com.pma.repository.AppointmentRepository;
+import com.pma.util.HierarchicalTimingWheel;
+import com.pma.util.TransactionUtil;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Service lên lịch gửi email nhắc lịch hẹn (mặc định 24 giờ và 2 giờ trước giờ
+ * hẹn). Các lời nhắc được giữ trong một bánh xe thời gian phân tầng và chỉ cho
+ * những lịch hẹn nằm trong cửa sổ sắp tới, nên chi phí thêm/hủy là O(1) và bộ
+ * nhớ không phụ thuộc vào tổng số lịch hẹn trong tương lai. Cửa sổ được nạp
+ * dần từ cơ sở dữ liệu theo từng khối thời gian; các lịch hẹn được đặt, đổi giờ
+ * hoặc hủy được cập nhật tăng dần sau khi transaction commit.
+ * <p>
+ * Mỗi máy trạm đang chạy ứng dụng đều có một bộ lập lịch, nên khi đến hạn, lời
+ * nhắc chỉ được gửi sau khi giành quyền trong cơ sở dữ liệu
+ * (AppointmentRepository.claimReminder); quyền gửi và email trong hàng đợi
+ * outbox được ghi trong cùng một transaction, nên mỗi lời nhắc được gửi đúng
+ * một lần dù có bao nhiêu máy. Lời nhắc đến hạn khi không có máy nào chạy sẽ
+ * được gửi bù khi máy đầu tiên khởi động lại, nếu lịch hẹn vẫn chưa diễn ra
+ * (chỉ lời nhắc gần giờ hẹn nhất trong số các lời nhắc bị lỡ).
+ */
+@Service
+public class AppointmentReminderScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentReminderScheduler.class);
+
+    /**
+     * Độ phân giải của bánh xe thời gian (ms).
+     */
+    private static final long TICK_MILLIS = 1_000;
+
+    /**
+     * Số ô trên mỗi tầng của bánh xe thời gian.
+     */
+    private static final int WHEEL_SIZE = 60;
+
+    /**
+     * Độ dài mỗi khối thời gian được nạp từ cơ sở dữ liệu.
+     */
+    private static final Duration LOAD_CHUNK = Duration.ofHours(6);
+
+    /**
+     * Số lịch hẹn tối đa trong một lần truy vấn khi nạp cửa sổ.
+     */
+    private static final int LOAD_PAGE_SIZE = 1_000;
+
+    /**
+     * Số lịch hẹn tối đa được tải lại trong một truy vấn khi gửi nhắc.
+     */
+    private static final int DISPATCH_BATCH_SIZE = 200;
+
+    private final AppointmentRepository appointmentRepository;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+    private final List<Duration> leadTimes;
+    private final Duration maxLeadTime;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    /**
+     * Các lời nhắc đang chờ theo lịch hẹn, dùng để hủy khi lịch hẹn thay đổi.
+     */
+    private final Map<UUID, List<Reminder>> remindersByAppointment = new HashMap<>();
+
+    /**
+     * Các lời nhắc đã quá hạn nhưng bị lỡ (lịch hẹn được tạo trước thời điểm
+     * nhắc), được gửi ở nhịp kế tiếp.
+     */
+    private final List<Reminder> missed = new ArrayList<>();
+
+    /**
+     * Các lịch hẹn được lưu hoặc xóa trong khi một khối đang được nạp; null khi
+     * không nạp. Trạng thái sau commit của chúng đã được áp dụng trực tiếp, nên
+     * dòng mà truy vấn nạp khối trả về (có thể đọc trước commit) bị bỏ qua.
+     */
+    private Set<UUID> changedDuringLoad;
+
+    /**
+     * Khóa bảo vệ bánh xe thời gian, remindersByAppointment, missed,
+     * loadedUntil và changedDuringLoad.
+     */
+    private final Object lock = new Object();
+
+    private HierarchicalTimingWheel<Reminder> wheel;
+    private LocalDateTime loadedUntil; // null khi bộ lập lịch chưa khởi động
+    private ScheduledExecutorService ticker;
+
+    @Autowired
+    public AppointmentReminderScheduler(AppointmentRepository appointmentRepository,
+            EmailService emailService,
+            PlatformTransactionManager transactionManager,
+            @Value("${pma.reminder.lead-times:24h,2h}") String leadTimesProperty) {
+        this.appointmentRepository = appointmentRepository;
+        this.emailService = emailService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.leadTimes = Arrays.stream(leadTimesProperty.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(DurationStyle::detectAndParse)
+                .sorted(Comparator.reverseOrder())
+                .toList();
+        if (leadTimes.isEmpty() || leadTimes.stream().anyMatch(d -> d.isNegative() || d.isZero())) {
+            throw new IllegalArgumentException("pma.reminder.lead-times must contain positive durations: " + leadTimesProperty);
+        }
+        this.maxLeadTime = leadTimes.get(0);
+    }
+
+    /**
+     * Khởi động bộ lập lịch sau khi ứng dụng sẵn sàng: nạp cửa sổ đầu tiên và
+     * bắt đầu đếm nhịp mỗi giây.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        synchronized (lock) {
+            if (ticker != null) {
+                return;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            wheel = new HierarchicalTimingWheel<>(TICK_MILLIS, WHEEL_SIZE, toEpochMillis(now), Reminder::fireAtMillis);
+            loadedUntil = now;
+            ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "appointment-reminder-ticker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        log.info("Starting appointment reminder scheduler with lead times {}", leadTimes);
+        ticker.scheduleWithFixedDelay(this::tick, 0, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    /**
+     * Cập nhật lời nhắc cho một lịch hẹn vừa được lưu (đặt mới, đổi giờ hoặc
+     * đổi trạng thái). Thay đổi được áp dụng sau khi transaction hiện tại
+     * commit thành công.
+     *
+     * @param appointment Lịch hẹn đã lưu.
+     */
+    public void onAppointmentSaved(Appointment appointment) {
+        UUID appointmentId = appointment.getAppointmentId();
+        LocalDateTime appointmentTime = appointment.getAppointmentDatetime();
+        LocalDateTime createdAt = appointment.getCreatedAt();
+        boolean scheduled = appointment.getStatus() == AppointmentStatus.Scheduled;
+        TransactionUtil.runAfterCommit(() -> {
+            synchronized (lock) {
+                cancelReminders(appointmentId);
+                if (changedDuringLoad != null) {
+                    changedDuringLoad.add(appointmentId);
+                }
+                // Lịch hẹn nằm ngoài cửa sổ đã nạp sẽ được lấy khi nạp khối tiếp theo
+                if (scheduled && appointmentTime != null && loadedUntil != null
+                        && !appointmentTime.isAfter(loadedUntil)) {
+                    scheduleReminders(appointmentId, appointmentTime, createdAt);
+                }
+            }
+        });
+    }
+
+    /**
+     * Hủy các lời nhắc của một lịch hẹn đã bị xóa, sau khi transaction hiện tại
+     * commit thành công.
+     *
+     * @param appointmentId ID của lịch hẹn.
+     */
+    public void onAppointmentRemoved(UUID appointmentId) {
+        TransactionUtil.runAfterCommit(() -> {
+            synchronized (lock) {
+                cancelReminders(appointmentId);
+                if (changedDuringLoad != null) {
+                    changedDuringLoad.add(appointmentId);
+                }
+            }
+        });
+    }
+
+    private void tick() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime horizon = now.plus(maxLeadTime).plus(LOAD_CHUNK);
+            while (loadedUntil.isBefore(horizon)) {
+                loadNextChunk();
+            }
+            List<Reminder> due;
+            synchronized (lock) {
+                due = new ArrayList<>(missed);
+                missed.clear();
+                due.addAll(wheel.advanceClock(toEpochMillis(now)));
+                due.forEach(this::forget);
+            }
+            if (!due.isEmpty()) {
+                dispatch(due);
+            }
+        } catch (Exception e) {
+            // Không để ngoại lệ làm dừng luồng đếm nhịp
+            log.error("Error while processing appointment reminders", e);
+        }
+    }
+
+    /**
+     * Nạp các lịch hẹn đang ở trạng thái Scheduled trong khối thời gian tiếp
+     * theo sau loadedUntil vào bánh xe thời gian.
+     * <p>
+     * loadedUntil được đẩy lên trước khi truy vấn, nên lịch hẹn trong khối được
+     * commit trong lúc nạp (truy vấn có thể không thấy) vẫn được
+     * {@link #onAppointmentSaved(Appointment)} lên lịch; dòng của các lịch hẹn
+     * đó trong kết quả truy vấn được bỏ qua vì có thể là trạng thái cũ. Nếu
+     * truy vấn lỗi, loadedUntil được trả lại để khối được nạp lại ở nhịp sau.
+     */
+    private void loadNextChunk() {
+        LocalDateTime from;
+        LocalDateTime to;
+        synchronized (lock) {
+            from = loadedUntil;
+            to = from.plus(LOAD_CHUNK);
+            loadedUntil = to;
+            changedDuringLoad = new HashSet<>();
+        }
+        int loaded = 0;
+        boolean complete = false;
+        try {
+            Pageable pageable = PageRequest.of(0, LOAD_PAGE_SIZE);
+            Slice<Appointment> slice;
+            do {
+                slice = appointmentRepository.findByStatusAndAppointmentDatetimeBetweenOrderByAppointmentDatetimeAsc(
+                        AppointmentStatus.Scheduled, from, to, pageable);
+                synchronized (lock) {
+                    for (Appointment appointment : slice) {
+                        // Khoảng Between bao gồm hai đầu; bỏ qua biên dưới đã nạp ở khối trước
+                        if (appointment.getAppointmentDatetime().isAfter(from)
+                                && !changedDuringLoad.contains(appointment.getAppointmentId())) {
+                            cancelReminders(appointment.getAppointmentId());
+                            scheduleReminders(appointment.getAppointmentId(), appointment.getAppointmentDatetime(),
+                                    appointment.getCreatedAt());
+                            loaded++;
+                        }
+                    }
+                }
+                pageable = slice.nextPageable();
+            } while (slice.hasNext());
+            complete = true;
+        } finally {
+            synchronized (lock) {
+                changedDuringLoad = null;
+                if (!complete) {
+                    loadedUntil = from;
+                }
+            }
+        }
+        log.debug("Loaded {} appointments for reminders in ({}, {}]", loaded, from, to);
+    }
+
+    private void scheduleReminders(UUID appointmentId, LocalDateTime appointmentTime, LocalDateTime createdAt) {
+        long appointmentMillis = toEpochMillis(appointmentTime);
+        long createdMillis = createdAt != null ? toEpochMillis(createdAt) : Long.MAX_VALUE;
+        List<Reminder> reminders = new ArrayList<>(leadTimes.size());
+        Reminder lastMissed = null;
+        for (Duration leadTime : leadTimes) {
+            Reminder reminder = new Reminder(appointmentId, appointmentTime, leadTime,
+                    appointmentMillis - leadTime.toMillis());
+            if (wheel.add(reminder)) {
+                reminders.add(reminder);
+            } else if (createdMillis < reminder.fireAtMillis) {
+                // Đến hạn khi chưa có máy nào chạy; lịch đặt sau thời điểm nhắc (đặt gấp) thì không nhắc
+                lastMissed = reminder;
+            }
+        }
+        if (lastMissed != null) {
+            reminders.add(lastMissed);
+            missed.add(lastMissed);
+        }
+        if (!reminders.isEmpty()) {
+            remindersByAppointment.put(appointmentId, reminders);
+        }
+    }
+
+    private void cancelReminders(UUID appointmentId) {
+        List<Reminder> reminders = remindersByAppointment.remove(appointmentId);
+        if (reminders != null) {
+            // Hủy lười: phần tử vẫn nằm trong bánh xe nhưng bị bỏ qua khi đến hạn
+            reminders.forEach(reminder -> reminder.cancelled = true);
+        }
+    }
+
+    private void forget(Reminder reminder) {
+        List<Reminder> reminders = remindersByAppointment.get(reminder.appointmentId);
+        if (reminders != null) {
+            reminders.remove(reminder);
+            if (reminders.isEmpty()) {
+                remindersByAppointment.remove(reminder.appointmentId);
+            }
+        }
+    }
+
+    /**
+     * Tải lại các lịch hẹn đến hạn nhắc theo lô và gửi email cho những lịch hẹn
+     * vẫn còn hiệu lực, mỗi lời nhắc trong một transaction gồm bước giành quyền
+     * gửi và bước xếp email vào outbox.
+     */
+    private void dispatch(List<Reminder> due) {
+        List<Reminder> active = due.stream().filter(reminder -> !reminder.cancelled).toList();
+        for (int from = 0; from < active.size(); from += DISPATCH_BATCH_SIZE) {
+            List<Reminder> batch = active.subList(from, Math.min(from + DISPATCH_BATCH_SIZE, active.size()));
+            Map<UUID, Appointment> appointments = appointmentRepository
+                    .findByAppointmentIdIn(batch.stream().map(Reminder::appointmentId).distinct().toList())
+                    .stream()
+                    .collect(Collectors.toMap(Appointment::getAppointmentId, Function.identity()));
+            for (Reminder reminder : batch) {
+                Appointment appointment = appointments.get(reminder.appointmentId);
+                if (appointment == null
+                        || appointment.getStatus() != AppointmentStatus.Scheduled
+                        || !reminder.appointmentTime.equals(appointment.getAppointmentDatetime())) {
+                    log.debug("Skipping stale reminder for appointment {}", reminder.appointmentId);
+                    continue;
+                }
+                try {
+                    transactionTemplate.executeWithoutResult(_ -> send(appointment, reminder));
+                } catch (Exception e) {
+                    log.error("Failed to send {} reminder for appointment {}", reminder.leadTime,
+                            reminder.appointmentId, e);
+                }
+            }
+        }
+    }
+
+    private void send(Appointment appointment, Reminder reminder) {
+        int claimed = appointmentRepository.claimReminder(reminder.appointmentId, AppointmentStatus.Scheduled,
+                reminder.appointmentTime, (int) reminder.leadTime.toMinutes());
+        if (claimed == 0) {
+            log.debug("{} reminder for appointment {} already sent or no longer valid", reminder.leadTime,
+                    reminder.appointmentId);
+            return;
+        }
+        emailService.sendAppointmentReminder(appointment, reminder.leadTime);
+    }
+
+    private long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Một lời nhắc trong bánh xe thời gian.
+     */
+    private static final class Reminder {
+
+        private final UUID appointmentId;
+        private final LocalDateTime appointmentTime;
+        private final Duration leadTime;
+        private final long fireAtMillis;
+        private volatile boolean cancelled;
+
+        private Reminder(UUID appointmentId, LocalDateTime appointmentTime, Duration leadTime, long fireAtMillis) {
+            this.appointmentId = appointmentId;
+            this.appointmentTime = appointmentTime;
+            this.leadTime = leadTime;
+            this.fireAtMillis = fireAtMillis;
+        }
+
+        private UUID appointmentId() {
+            return appointmentId;
+        }
+
+        private long fireAtMillis() {
+            return fireAtMillis;
+        }
+    }
+}
@@ -1,15 +1,23 @@
 package com.pma.service; // Đảm bảo đúng package
 
 import java.time.LocalDateTime; // Import Entity Appointment
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List; // Import List for Appointment collections
+import java.util.TreeSet;
 import java.util.UUID; // Import Doctor
 
 import org.slf4j.Logger; // Import Patient
 import org.slf4j.LoggerFactory; // Import Enum AppointmentStatus
 import org.springframework.beans.factory.annotation.Autowired; // Import Repository Appointment
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException; // Import Repository Doctor để kiểm tra
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page; // Import Repository Patient để kiểm tra
 import org.springframework.data.domain.Pageable; // Exception chuẩn
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
@@ -34,20 +42,42 @@ public class AppointmentService {
 
     private static final Logger log = LoggerFactory.getLogger(AppointmentService.class);
 
+    /**
+     * Thời lượng mặc định của một cuộc hẹn (phút), dùng khi kiểm tra chồng chéo.
+     */
+    static final long DEFAULT_APPOINTMENT_DURATION_MINUTES = 60;
+
+    /**
+     * Số cuộc hẹn tối đa trong một lần đặt lịch hàng loạt.
+     */
+    public static final int MAX_BATCH_APPOINTMENTS = 52;
+
     private final AppointmentRepository appointmentRepository;
     private final PatientRepository patientRepository;
     private final DoctorRepository doctorRepository;
     private final EmailService emailService; // Dùng để gửi email thông báo
+    private final AppointmentAvailabilityService availabilityService; // Bitmap khung giờ trống
+    private final DoctorBookingLocks doctorBookingLocks; // Khóa phân dải theo bác sĩ
+    private final ApplicationEventPublisher eventPublisher; // Phát sự kiện hủy lịch cho danh sách chờ
+    private final AppointmentReminderScheduler reminderScheduler; // Lên lịch email nhắc hẹn
 
     @Autowired
     public AppointmentService(AppointmentRepository appointmentRepository,
             PatientRepository patientRepository,
             DoctorRepository doctorRepository,
-            EmailService emailService) { // Inject EmailService
+            EmailService emailService,
+            AppointmentAvailabilityService availabilityService,
+            DoctorBookingLocks doctorBookingLocks,
+            ApplicationEventPublisher eventPublisher,
+            AppointmentReminderScheduler reminderScheduler) { // Inject EmailService
         this.appointmentRepository = appointmentRepository;
         this.patientRepository = patientRepository;
         this.doctorRepository = doctorRepository;
         this.emailService = emailService; // Gán vào biến thành viên
+        this.availabilityService = availabilityService;
+        this.doctorBookingLocks = doctorBookingLocks;
+        this.eventPublisher = eventPublisher;
+        this.reminderScheduler = reminderScheduler;
     }
 
     /**
@@ -99,6 +129,8 @@ public class AppointmentService {
             doctor = doctorRepository.findById(doctorId)
                     .orElseThrow(() -> new EntityNotFoundException("Doctor not found with id: " + doctorId));
 
+            // Giữ khóa của bác sĩ đến hết transaction để kiểm tra và ghi không bị xen ngang
+            doctorBookingLocks.lockUntilTransactionEnds(doctorId);
             // Kiểm tra chồng chéo lịch hẹn
             checkAppointmentOverlap(appointment.getAppointmentDatetime(), doctorId, null);
         }
@@ -109,19 +141,151 @@ public class AppointmentService {
         appointment.setDoctor(doctor); // Gọi helper method (nếu có) để đồng bộ 2 chiều
         appointment.setStatus(AppointmentStatus.Scheduled);
 
-        Appointment savedAppointment = appointmentRepository.save(appointment);
+        Appointment savedAppointment = saveAndFlushGuarded(appointment);
         log.info("Successfully scheduled appointment with id: {}", savedAppointment.getAppointmentId());
+        availabilityService.onAppointmentSaved(savedAppointment);
+        reminderScheduler.onAppointmentSaved(savedAppointment);
+
+        // --- GỬI EMAIL XÁC NHẬN (ghi vào outbox trong cùng transaction) ---
+        emailService.sendSchedulingConfirmation(savedAppointment);
+
+        return savedAppointment;
+    }
+
+    /**
+     * Đặt một chuỗi lịch hẹn định kỳ (ví dụ: tái khám hàng tuần trong 12
+     * tuần). Các lần hẹn được sao chép từ mẫu, cách nhau một khoảng interval,
+     * bắt đầu từ thời gian hẹn của mẫu.
+     *
+     * @param template Cuộc hẹn mẫu (reason, type, dateTime của lần đầu tiên).
+     * @param patientId UUID của Patient đặt lịch.
+     * @param doctorId UUID của Doctor.
+     * @param interval Khoảng cách giữa hai lần hẹn liên tiếp (ví dụ: 1 tuần).
+     * @param occurrences Số lần hẹn.
+     * @return Danh sách Appointment đã được tạo, theo thứ tự thời gian.
+     * @throws IllegalArgumentException nếu tham số không hợp lệ hoặc có lần hẹn
+     * bị chồng chéo.
+     */
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
+    public List<Appointment> scheduleSeries(Appointment template, UUID patientId, UUID doctorId,
+            Period interval, int occurrences) {
+        if (template == null || template.getAppointmentDatetime() == null) {
+            throw new IllegalArgumentException("Appointment date and time must be in the future.");
+        }
+        if (interval == null || interval.isZero() || interval.isNegative()) {
+            throw new IllegalArgumentException("Series interval must be positive.");
+        }
+        if (occurrences < 1 || occurrences > MAX_BATCH_APPOINTMENTS) {
+            throw new IllegalArgumentException("Number of occurrences must be between 1 and " + MAX_BATCH_APPOINTMENTS + ".");
+        }
+
+        List<Appointment> appointments = new ArrayList<>(occurrences);
+        LocalDateTime dateTime = template.getAppointmentDatetime();
+        for (int i = 0; i < occurrences; i++) {
+            Appointment occurrence = new Appointment();
+            occurrence.setAppointmentDatetime(dateTime);
+            occurrence.setReason(template.getReason());
+            occurrence.setAppointmentType(template.getAppointmentType());
+            appointments.add(occurrence);
+            dateTime = dateTime.plus(interval);
+        }
+        return scheduleBatch(appointments, patientId, doctorId);
+    }
+
+    /**
+     * Đặt nhiều lịch hẹn cho cùng một bệnh nhân và bác sĩ trong một
+     * transaction. Bệnh nhân và bác sĩ chỉ được tải một lần, toàn bộ các lần
+     * hẹn được kiểm tra chồng chéo với lịch của bác sĩ bằng một truy vấn duy
+     * nhất, được ghi bằng JDBC batch và chỉ gửi một email xác nhận tổng hợp.
+     *
+     * @param appointments Danh sách cuộc hẹn (reason, type, dateTime). ID nên
+     * là null.
+     * @param patientId UUID của Patient đặt lịch.
+     * @param doctorId UUID của Doctor.
+     * @return Danh sách Appointment đã được tạo, theo thứ tự thời gian.
+     * @throws EntityNotFoundException nếu patientId hoặc doctorId không tồn tại.
+     * @throws IllegalArgumentException nếu có lần hẹn không hợp lệ hoặc chồng
+     * chéo (khi đó không lần hẹn nào được lưu).
+     */
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
+    public List<Appointment> scheduleBatch(List<Appointment> appointments, UUID patientId, UUID doctorId) {
+        log.info("Attempting to schedule {} appointments for patientId: {}, doctorId: {}",
+                appointments != null ? appointments.size() : 0, patientId, doctorId);
 
-        // --- GỬI EMAIL XÁC NHẬN ---
+        // --- Validation ---
+        if (appointments == null || appointments.isEmpty()) {
+            throw new IllegalArgumentException("At least one appointment is required.");
+        }
+        if (appointments.size() > MAX_BATCH_APPOINTMENTS) {
+            throw new IllegalArgumentException("Cannot schedule more than " + MAX_BATCH_APPOINTMENTS + " appointments at once.");
+        }
+        if (doctorId == null) {
+            throw new IllegalArgumentException("Doctor is required for batch scheduling.");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (Appointment appointment : appointments) {
+            if (appointment.getAppointmentDatetime() == null || appointment.getAppointmentDatetime().isBefore(now)) {
+                log.warn("Batch scheduling failed. Appointment datetime is invalid: {}", appointment.getAppointmentDatetime());
+                throw new IllegalArgumentException("Appointment date and time must be in the future.");
+            }
+        }
+
+        Patient patient = patientRepository.findById(patientId)
+                .orElseThrow(() -> new EntityNotFoundException("Patient not found with id: " + patientId));
+        Doctor doctor = doctorRepository.findById(doctorId)
+                .orElseThrow(() -> new EntityNotFoundException("Doctor not found with id: " + doctorId));
+
+        List<Appointment> ordered = new ArrayList<>(appointments);
+        ordered.sort(Comparator.comparing(Appointment::getAppointmentDatetime));
+
+        // --- Kiểm tra chồng chéo trong một lượt ---
+        doctorBookingLocks.lockUntilTransactionEnds(doctorId);
+        LocalDateTime first = ordered.get(0).getAppointmentDatetime();
+        LocalDateTime last = ordered.get(ordered.size() - 1).getAppointmentDatetime();
+        TreeSet<LocalDateTime> takenStarts = new TreeSet<>();
+        for (Appointment existing : appointmentRepository.findConflictingAppointments(doctorId,
+                AppointmentStatus.Scheduled,
+                first.minusMinutes(DEFAULT_APPOINTMENT_DURATION_MINUTES),
+                last.plusMinutes(DEFAULT_APPOINTMENT_DURATION_MINUTES))) {
+            takenStarts.add(existing.getAppointmentDatetime());
+        }
+        for (Appointment appointment : ordered) {
+            LocalDateTime start = appointment.getAppointmentDatetime();
+            // Lịch gần nhất bắt đầu sau (start - thời lượng) mà trước (start + thời lượng) là chồng chéo
+            LocalDateTime nearest = takenStarts.higher(start.minusMinutes(DEFAULT_APPOINTMENT_DURATION_MINUTES));
+            if (nearest != null && nearest.isBefore(start.plusMinutes(DEFAULT_APPOINTMENT_DURATION_MINUTES))) {
+                log.warn("Batch scheduling failed for doctor {}. Occurrence at {} overlaps appointment at {}.",
+                        doctorId, start, nearest);
+                throw new IllegalArgumentException("Bác sĩ không rảnh vào " + start
+                        + " do có lịch hẹn chồng chéo. Không có lịch hẹn nào được tạo.");
+            }
+            takenStarts.add(start); // Các lần hẹn trong cùng chuỗi cũng không được chồng chéo nhau
+        }
+
+        // --- Thiết lập và Lưu theo lô ---
+        for (Appointment appointment : ordered) {
+            appointment.setAppointmentId(null);
+            appointment.setPatient(patient);
+            appointment.setDoctor(doctor);
+            appointment.setStatus(AppointmentStatus.Scheduled);
+        }
+        List<Appointment> savedAppointments;
         try {
-            emailService.sendSchedulingConfirmation(savedAppointment);
-            log.info("Triggered confirmation email for appointment id: {}", savedAppointment.getAppointmentId());
-        } catch (Exception e) {
-            log.error("Failed to trigger confirmation email sending for appointment id: {}",
-                    savedAppointment.getAppointmentId(), e);
+            savedAppointments = appointmentRepository.saveAll(ordered);
+            appointmentRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Database rejected batch scheduling for doctor {} due to slot guard: {}",
+                    doctorId, e.getMostSpecificCause().getMessage());
+            throw new IllegalArgumentException("Bác sĩ không rảnh vào thời gian đã chọn do có lịch hẹn chồng chéo. Vui lòng chọn khung giờ khác.", e);
         }
+        savedAppointments.forEach(availabilityService::onAppointmentSaved);
+        savedAppointments.forEach(reminderScheduler::onAppointmentSaved);
+        log.info("Successfully scheduled {} appointments for patientId: {}", savedAppointments.size(), patientId);
 
-        return savedAppointment;
+        // --- GỬI MỘT EMAIL XÁC NHẬN TỔNG HỢP (ghi vào outbox trong cùng transaction) ---
+        emailService.sendSeriesSchedulingConfirmation(savedAppointments);
+
+        return savedAppointments;
     }
 
     /**
@@ -157,9 +321,17 @@ public class AppointmentService {
         }
 
         // 4. Kiểm tra chồng chéo lịch hẹn (loại trừ chính cuộc hẹn đang cập nhật)
+        doctorBookingLocks.lockUntilTransactionEnds(doctorId);
         checkAppointmentOverlap(appointmentUpdateData.getAppointmentDatetime(), doctorId, appointmentId);
 
+        AppointmentStatus previousStatus = existingAppointment.getStatus();
+        LocalDateTime previousDatetime = existingAppointment.getAppointmentDatetime();
+        UUID previousDoctorId = existingAppointment.getDoctor() != null ? existingAppointment.getDoctor().getDoctorId() : null;
+
         // 5. Cập nhật các thuộc tính của existingAppointment
+        if (!appointmentUpdateData.getAppointmentDatetime().equals(previousDatetime)) {
+            existingAppointment.setReminderSentLeadMinutes(null); // Giờ mới: gửi lại các lời nhắc
+        }
         existingAppointment.setAppointmentDatetime(appointmentUpdateData.getAppointmentDatetime());
         existingAppointment.setReason(appointmentUpdateData.getReason());
         existingAppointment.setAppointmentType(appointmentUpdateData.getAppointmentType());
@@ -169,8 +341,13 @@ public class AppointmentService {
         // Nhưng vẫn set lại để đảm bảo đối tượng managed được liên kết đúng
         existingAppointment.setPatient(patient);
         existingAppointment.setDoctor(doctor);
+        saveAndFlushGuarded(existingAppointment);
+        availabilityService.onAppointmentSaved(existingAppointment);
+        reminderScheduler.onAppointmentSaved(existingAppointment);
+        if (previousStatus == AppointmentStatus.Scheduled && existingAppointment.getStatus() == AppointmentStatus.Cancelled) {
+            publishSlotFreed(appointmentId, previousDoctorId, previousDatetime);
+        }
 
-        // Transaction commit sẽ tự động lưu các thay đổi
         log.info("Successfully updated appointment with id: {}", appointmentId);
         return existingAppointment;
     }
@@ -190,7 +367,10 @@ public class AppointmentService {
     }
     
     /**
-     * Phương thức helper để kiểm tra chồng chéo lịch hẹn cho một bác sĩ.
+     * Phương thức helper để kiểm tra chồng chéo lịch hẹn cho một bác sĩ. Chỉ
+     * truy vấn các cuộc hẹn "Scheduled" có thời gian bắt đầu nằm trong khoảng
+     * (newDateTime - thời lượng, newDateTime + thời lượng), vì chỉ những cuộc
+     * hẹn này mới có thể giao với khung giờ mới.
      *
      * @param newDateTime Thời gian bắt đầu của cuộc hẹn mới.
      * @param doctorId ID của bác sĩ.
@@ -198,15 +378,15 @@ public class AppointmentService {
      * @throws IllegalArgumentException nếu có lịch hẹn chồng chéo.
      */
     private void checkAppointmentOverlap(LocalDateTime newDateTime, UUID doctorId, UUID appointmentIdToExclude) {
-        final long DEFAULT_APPOINTMENT_DURATION_MINUTES = 60; // Giả định thời lượng cuộc hẹn
         LocalDateTime newAppStartTime = newDateTime;
         LocalDateTime newAppEndTime = newAppStartTime.plusMinutes(DEFAULT_APPOINTMENT_DURATION_MINUTES);
 
-        // Lấy tất cả các cuộc hẹn "Scheduled" (chưa hoàn thành) của bác sĩ
-        List<Appointment> doctorScheduledAppointments = appointmentRepository
-                .findByDoctor_DoctorIdAndStatus(doctorId, AppointmentStatus.Scheduled);
+        // Chỉ lấy các cuộc hẹn "Scheduled" của bác sĩ nằm trong cửa sổ có thể chồng chéo
+        List<Appointment> conflictingAppointments = appointmentRepository.findConflictingAppointments(
+                doctorId, AppointmentStatus.Scheduled,
+                newAppStartTime.minusMinutes(DEFAULT_APPOINTMENT_DURATION_MINUTES), newAppEndTime);
 
-        for (Appointment existingApp : doctorScheduledAppointments) {
+        for (Appointment existingApp : conflictingAppointments) {
             // Bỏ qua cuộc hẹn đang được cập nhật (nếu có)
             if (appointmentIdToExclude != null && existingApp.getAppointmentId().equals(appointmentIdToExclude)) {
                 continue;
@@ -214,13 +394,38 @@ public class AppointmentService {
 
             LocalDateTime existingAppStartTime = existingApp.getAppointmentDatetime();
             LocalDateTime existingAppEndTime = existingAppStartTime.plusMinutes(DEFAULT_APPOINTMENT_DURATION_MINUTES);
+            log.warn("Lịch hẹn chồng chéo phát hiện cho bác sĩ {}. Lịch hẹn hiện có (ID: {}) từ {} đến {}. Lịch hẹn mới/cập nhật từ {} đến {}.",
+                    doctorId, existingApp.getAppointmentId(), existingAppStartTime, existingAppEndTime, newAppStartTime, newAppEndTime);
+            throw new IllegalArgumentException("Bác sĩ không rảnh vào thời gian đã chọn do có lịch hẹn chồng chéo. Vui lòng chọn khung giờ khác.");
+        }
+    }
 
-            // Kiểm tra chồng chéo: (StartA < EndB) AND (EndA > StartB)
-            if (newAppStartTime.isBefore(existingAppEndTime) && newAppEndTime.isAfter(existingAppStartTime)) {
-                log.warn("Lịch hẹn chồng chéo phát hiện cho bác sĩ {} (ID: {}). Lịch hẹn hiện có (ID: {}) từ {} đến {}. Lịch hẹn mới/cập nhật từ {} đến {}.",
-                        doctorId, doctorId, existingApp.getAppointmentId(), existingAppStartTime, existingAppEndTime, newAppStartTime, newAppEndTime);
-                throw new IllegalArgumentException("Bác sĩ không rảnh vào thời gian đã chọn do có lịch hẹn chồng chéo. Vui lòng chọn khung giờ khác.");
-            }
+    /**
+     * Lưu và flush ngay cuộc hẹn để ràng buộc UQ_Appointments_doctor_slot được
+     * kiểm tra trong phương thức hiện tại, chuyển vi phạm thành lỗi chồng chéo
+     * lịch hẹn.
+     *
+     * @param appointment Cuộc hẹn cần lưu.
+     * @return Cuộc hẹn đã lưu.
+     * @throws IllegalArgumentException nếu DB từ chối do trùng khung giờ.
+     */
+    private Appointment saveAndFlushGuarded(Appointment appointment) {
+        try {
+            return appointmentRepository.saveAndFlush(appointment);
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Database rejected appointment at {} due to slot guard: {}",
+                    appointment.getAppointmentDatetime(), e.getMostSpecificCause().getMessage());
+            throw new IllegalArgumentException("Bác sĩ không rảnh vào thời gian đã chọn do có lịch hẹn chồng chéo. Vui lòng chọn khung giờ khác.", e);
+        }
+    }
+
+    /**
+     * Phát sự kiện AppointmentCancelledEvent để danh sách chờ lấp khung giờ
+     * vừa trống (được xử lý sau khi transaction commit).
+     */
+    private void publishSlotFreed(UUID appointmentId, UUID doctorId, LocalDateTime appointmentDatetime) {
+        if (doctorId != null && appointmentDatetime != null) {
+            eventPublisher.publishEvent(new AppointmentCancelledEvent(appointmentId, doctorId, appointmentDatetime));
         }
     }
 
@@ -253,6 +458,8 @@ public class AppointmentService {
             throw new IllegalArgumentException("Cannot set status back to Scheduled.");
         }
 
+        AppointmentStatus previousStatus = appointment.getStatus();
+
         // --- Cập nhật ---
         appointment.setStatus(newStatus);
         if (updateNote != null && !updateNote.trim().isEmpty()) {
@@ -262,16 +469,17 @@ public class AppointmentService {
         }
 
         log.info("Appointment status updated successfully for id: {}", id);
+        availabilityService.onAppointmentSaved(appointment);
+        reminderScheduler.onAppointmentSaved(appointment);
+        if (previousStatus == AppointmentStatus.Scheduled && newStatus == AppointmentStatus.Cancelled) {
+            publishSlotFreed(id, appointment.getDoctor() != null ? appointment.getDoctor().getDoctorId() : null,
+                    appointment.getAppointmentDatetime());
+        }
 
         // --- GỬI EMAIL THÔNG BÁO HỦY (NẾU CÓ) ---
         if (newStatus == AppointmentStatus.Cancelled) {
-            try {
-                emailService.sendCancellationNotification(appointment,
-                        updateNote != null ? updateNote : "No reason provided.");
-                log.info("Triggered cancellation email for appointment id: {}", id);
-            } catch (Exception e) {
-                log.error("Failed to trigger cancellation email sending for appointment id: {}", id, e);
-            }
+            emailService.sendCancellationNotification(appointment,
+                    updateNote != null ? updateNote : "No reason provided.");
         }
 
         return appointment; // Transaction commit sẽ lưu thay đổi
@@ -317,6 +525,23 @@ public class AppointmentService {
         return appointmentRepository.findByDoctor_DoctorIdOrderByAppointmentDatetimeDesc(doctorId, pageable);
     }
 
+    /**
+     * Lấy một cửa sổ các cuộc hẹn của bác sĩ theo phân trang keyset, mới nhất
+     * trước.
+     *
+     * @param doctorId ID của Doctor.
+     * @param position Vị trí bắt đầu; null hoặc ScrollPosition.keyset() cho
+     * cửa sổ đầu tiên.
+     * @param size Số phần tử tối đa của cửa sổ.
+     * @return Window chứa danh sách Appointment.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Window<Appointment> getAppointmentWindowByDoctor(UUID doctorId, ScrollPosition position, int size) {
+        log.info("Fetching appointment window for doctor id: {} from position: {} (size {})", doctorId, position, size);
+        return appointmentRepository.findByDoctor_DoctorIdOrderByAppointmentDatetimeDescAppointmentIdDesc(doctorId,
+                position != null ? position : ScrollPosition.keyset(), Limit.of(size));
+    }
+
     /**
      * Lấy danh sách các cuộc hẹn trong một khoảng thời gian (có phân trang).
      *
@@ -350,6 +575,8 @@ public class AppointmentService {
         }
         try {
             appointmentRepository.deleteById(id);
+            availabilityService.onAppointmentRemoved(id);
+            reminderScheduler.onAppointmentRemoved(id);
             log.info("Successfully deleted appointment with id: {}", id);
         } catch (DataIntegrityViolationException e) {
             log.error(
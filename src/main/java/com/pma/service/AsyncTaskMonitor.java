@@ -0,0 +1,124 @@
+package com.pma.service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.pma.util.BoundedVirtualThreadExecutor;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Service cung cấp chỉ số của các executor bất đồng bộ (số tác vụ đang chạy,
+ * đang chờ, thời gian chờ, số lần bị từ chối) cho màn hình quản trị hoặc ghi
+ * log chẩn đoán. Chỉ số được ghi log định kỳ (cấu hình
+ * pma.async.metrics-log-interval, mặc định 5 phút, 0 để tắt); executor không có
+ * hoạt động nào kể từ lần ghi trước được bỏ qua, và executor có tác vụ mới bị
+ * từ chối được ghi ở mức WARN.
+ */
+@Service
+public class AsyncTaskMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncTaskMonitor.class);
+
+    private final List<BoundedVirtualThreadExecutor> executors;
+    private final Duration logInterval;
+
+    /**
+     * Chỉ số của lần ghi log trước, theo tên executor.
+     */
+    private final Map<String, BoundedVirtualThreadExecutor.Metrics> lastLogged = new HashMap<>();
+
+    private ScheduledExecutorService logger;
+
+    @Autowired
+    public AsyncTaskMonitor(List<BoundedVirtualThreadExecutor> executors,
+            @Value("${pma.async.metrics-log-interval:5m}") Duration logInterval) {
+        this.executors = executors;
+        this.logInterval = logInterval;
+    }
+
+    /**
+     * Bắt đầu ghi log chỉ số định kỳ sau khi ứng dụng sẵn sàng.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (logger != null || logInterval.isZero() || logInterval.isNegative()) {
+            return;
+        }
+        logger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "async-task-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.scheduleWithFixedDelay(this::logActivity, logInterval.toMillis(), logInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (logger != null) {
+            logger.shutdownNow();
+        }
+    }
+
+    /**
+     * Lấy chỉ số hiện tại của tất cả executor.
+     *
+     * @return Danh sách chỉ số, mỗi phần tử ứng với một nhóm công việc.
+     */
+    public List<BoundedVirtualThreadExecutor.Metrics> snapshot() {
+        return executors.stream().map(BoundedVirtualThreadExecutor::metrics).toList();
+    }
+
+    /**
+     * Ghi chỉ số hiện tại của tất cả executor ra log.
+     */
+    public void logSnapshot() {
+        snapshot().forEach(metrics -> log(metrics, false));
+    }
+
+    /**
+     * Ghi chỉ số của các executor có hoạt động kể từ lần ghi trước.
+     */
+    synchronized void logActivity() {
+        try {
+            for (BoundedVirtualThreadExecutor.Metrics metrics : snapshot()) {
+                BoundedVirtualThreadExecutor.Metrics previous = lastLogged.put(metrics.name(), metrics);
+                boolean idle = metrics.active() == 0 && metrics.queued() == 0;
+                if (previous != null && idle && previous.completed() == metrics.completed()
+                        && previous.rejected() == metrics.rejected()) {
+                    continue;
+                }
+                log(metrics, metrics.rejected() > (previous == null ? 0 : previous.rejected()));
+            }
+        } catch (Exception e) {
+            // Không để ngoại lệ làm dừng luồng định kỳ
+            log.error("Error while logging async executor metrics", e);
+        }
+    }
+
+    private static void log(BoundedVirtualThreadExecutor.Metrics metrics, boolean newRejections) {
+        String format = "Async executor '{}': active={}/{}, queued={}, completed={}, rejected={}, avgWait={}ms, maxWait={}ms";
+        Object[] arguments = {metrics.name(), metrics.active(), metrics.maxConcurrency(), metrics.queued(),
+                metrics.completed(), metrics.rejected(), metrics.averageQueueWait().toMillis(),
+                metrics.maxQueueWait().toMillis()};
+        if (newRejections) {
+            log.warn(format, arguments);
+        } else {
+            log.info(format, arguments);
+        }
+    }
+}
@@ -23,8 +23,10 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal; // Cần cho tính toán tiền
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set; // Cần cho BillItems
 import java.util.UUID;
@@ -100,14 +102,9 @@ public class BillService {
         }
 
         // --- Tạo và thêm BillItems ---
+        Map<UUID, PrescriptionDetail> prescriptionDetails = loadPrescriptionDetails(billItemDTOs, patientId);
         Set<BillItem> items = new HashSet<>();
         for (BillItemDTO dto : billItemDTOs) {
-            if (dto.getQuantity() <= 0 || dto.getUnitPrice() == null
-                    || dto.getUnitPrice().compareTo(BigDecimal.ZERO) < 0) {
-                throw new IllegalArgumentException(
-                        "Invalid quantity or unit price for item: " + dto.getItemDescription());
-            }
-
             BillItem item = new BillItem();
             item.setBillItemId(null);
             item.setItemDescription(dto.getItemDescription()); // Cần validation không rỗng
@@ -117,15 +114,7 @@ public class BillService {
 
             // Xử lý liên kết tùy chọn (ví dụ với PrescriptionDetail)
             if (dto.getPrescriptionDetailId() != null) {
-                PrescriptionDetail pd = prescriptionDetailRepository.findById(dto.getPrescriptionDetailId())
-                        .orElseThrow(() -> new EntityNotFoundException(
-                        "PrescriptionDetail not found with id: " + dto.getPrescriptionDetailId()));
-                // Kiểm tra xem PrescriptionDetail có đúng của Patient không?
-                if (!pd.getPrescription().getPatient().getPatientId().equals(patientId)) {
-                    throw new IllegalArgumentException("PrescriptionDetail " + dto.getPrescriptionDetailId()
-                            + " does not belong to patient " + patientId);
-                }
-                item.setPrescriptionDetail(pd);
+                item.setPrescriptionDetail(prescriptionDetails.get(dto.getPrescriptionDetailId()));
             }
             // Tương tự xử lý liên kết với LabTest, Procedure nếu có DTO tương ứng
 
@@ -143,6 +132,50 @@ public class BillService {
         return savedBill;
     }
 
+    /**
+     * Kiểm tra các mục hóa đơn và tải tất cả chi tiết đơn thuốc được tham chiếu
+     * bằng một truy vấn (thay vì một findById cho mỗi mục).
+     *
+     * @param billItemDTOs Danh sách mục hóa đơn.
+     * @param patientId ID bệnh nhân của hóa đơn.
+     * @return Map từ prescriptionDetailId tới PrescriptionDetail.
+     * @throws IllegalArgumentException nếu có mục có số lượng/đơn giá không hợp
+     * lệ hoặc chi tiết đơn thuốc không thuộc bệnh nhân.
+     * @throws EntityNotFoundException nếu có chi tiết đơn thuốc không tồn tại
+     * (liệt kê tất cả các ID không tìm thấy).
+     */
+    private Map<UUID, PrescriptionDetail> loadPrescriptionDetails(List<BillItemDTO> billItemDTOs, UUID patientId) {
+        Set<UUID> detailIds = new HashSet<>();
+        for (BillItemDTO dto : billItemDTOs) {
+            if (dto.getQuantity() <= 0 || dto.getUnitPrice() == null
+                    || dto.getUnitPrice().compareTo(BigDecimal.ZERO) < 0) {
+                throw new IllegalArgumentException(
+                        "Invalid quantity or unit price for item: " + dto.getItemDescription());
+            }
+            if (dto.getPrescriptionDetailId() != null) {
+                detailIds.add(dto.getPrescriptionDetailId());
+            }
+        }
+        if (detailIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<UUID, PrescriptionDetail> details = new HashMap<>();
+        for (PrescriptionDetail pd : prescriptionDetailRepository.findAllWithPrescriptionByIdIn(detailIds)) {
+            // Kiểm tra xem PrescriptionDetail có đúng của Patient không (chỉ đọc ID, không tải Patient)
+            if (!pd.getPrescription().getPatient().getPatientId().equals(patientId)) {
+                throw new IllegalArgumentException("PrescriptionDetail " + pd.getPrescriptionDetailId()
+                        + " does not belong to patient " + patientId);
+            }
+            details.put(pd.getPrescriptionDetailId(), pd);
+        }
+        if (details.size() != detailIds.size()) {
+            List<UUID> missing = detailIds.stream().filter(id -> !details.containsKey(id)).toList();
+            throw new EntityNotFoundException("PrescriptionDetail not found with id(s): " + missing);
+        }
+        return details;
+    }
+
     /**
      * Lấy Bill theo ID.
      */
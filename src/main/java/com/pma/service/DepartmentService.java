@@ -32,6 +32,7 @@ public class DepartmentService {
     // tạo
     private final DepartmentRepository departmentRepository;
     private final DoctorRepository doctorRepository;
+    private final ReferenceDataCache referenceDataCache;
 
     /**
      * Sử dụng Constructor Injection để tiêm (inject) các dependency Repository.
@@ -46,11 +47,15 @@ public class DepartmentService {
      * @param departmentRepository Bean Repository cho Department.
      * @param doctorRepository     Bean Repository cho Doctor (cần để kiểm tra khi
      *                             xóa Department).
+     * @param referenceDataCache   Quản lý cache dữ liệu tham chiếu (xóa cache sau
+     *                             khi thay đổi).
      */
     @Autowired // Đánh dấu constructor này để Spring tự động tiêm dependency
-    public DepartmentService(DepartmentRepository departmentRepository, DoctorRepository doctorRepository) {
+    public DepartmentService(DepartmentRepository departmentRepository, DoctorRepository doctorRepository,
+            ReferenceDataCache referenceDataCache) {
         this.departmentRepository = departmentRepository;
         this.doctorRepository = doctorRepository;
+        this.referenceDataCache = referenceDataCache;
     }
 
     /**
@@ -152,6 +157,7 @@ public class DepartmentService {
         // --- Data Access ---
         // Lưu entity mới vào DB
         Department savedDepartment = departmentRepository.save(department);
+        referenceDataCache.evictDepartments();
         log.info("Successfully created department with id: {} and name: {}", savedDepartment.getDepartmentId(),
                 savedDepartment.getDepartmentName());
         return savedDepartment;
@@ -196,6 +202,7 @@ public class DepartmentService {
             // --- Cập nhật Entity ---
             // Cập nhật tên trên đối tượng 'managed'
             existingDepartment.setDepartmentName(newName.trim());
+            referenceDataCache.evictDepartments();
             log.info("Department name updated for id: {}", id);
         } else {
             log.info("No name change detected or new name is invalid/same for department id: {}", id);
@@ -250,6 +257,7 @@ public class DepartmentService {
         // --- Data Access ---
         // Nếu không có ràng buộc, tiến hành xóa
         departmentRepository.delete(departmentToDelete); // Hoặc deleteById(id)
+        referenceDataCache.evictDepartments();
         log.info("Successfully deleted department with id: {}", id);
     }
 }
\ No newline at end of file
@@ -29,11 +29,14 @@ public class DiseaseService {
 
     private final DiseaseRepository diseaseRepository;
     private final DiagnosisRepository diagnosisRepository; // Cần để kiểm tra trước khi xóa
+    private final ReferenceDataCache referenceDataCache;
 
     @Autowired
-    public DiseaseService(DiseaseRepository diseaseRepository, DiagnosisRepository diagnosisRepository) {
+    public DiseaseService(DiseaseRepository diseaseRepository, DiagnosisRepository diagnosisRepository,
+            ReferenceDataCache referenceDataCache) {
         this.diseaseRepository = diseaseRepository;
         this.diagnosisRepository = diagnosisRepository;
+        this.referenceDataCache = referenceDataCache;
     }
 
     /**
@@ -107,6 +110,7 @@ public class DiseaseService {
 
         // --- Data Access ---
         Disease savedDisease = diseaseRepository.save(disease);
+        referenceDataCache.evictDiseases();
         log.info("Successfully created disease with code: {}", savedDisease.getDiseaseCode());
         return savedDisease;
     }
@@ -146,6 +150,7 @@ public class DiseaseService {
         }
 
         // Transaction commit sẽ lưu thay đổi
+        referenceDataCache.evictDiseases();
         log.info("Disease update process completed for code: {}", diseaseCode);
         return existingDisease;
     }
@@ -184,6 +189,7 @@ public class DiseaseService {
         // 3. Nếu không có ràng buộc, tiến hành xóa
         try {
             diseaseRepository.deleteById(diseaseCode);
+            referenceDataCache.evictDiseases();
             log.info("Successfully deleted disease with code: {}", diseaseCode);
         } catch (DataIntegrityViolationException e) {
             // Dự phòng nếu có lỗi ràng buộc khác
@@ -0,0 +1,78 @@
+package com.pma.service;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Khóa phân dải (striped lock) theo bác sĩ dùng trong tiến trình để tuần tự
+ * hóa các thao tác đặt lịch của cùng một bác sĩ, trong khi các bác sĩ khác
+ * nhau vẫn đặt lịch song song. Khóa được giữ đến khi transaction hiện tại kết
+ * thúc (commit hoặc rollback), để bước kiểm tra chồng chéo và bước ghi nằm
+ * trọn trong vùng được bảo vệ.
+ */
+@Component
+public class DoctorBookingLocks {
+
+    private static final Logger log = LoggerFactory.getLogger(DoctorBookingLocks.class);
+
+    /**
+     * Số dải khóa (lũy thừa của 2).
+     */
+    private static final int STRIPE_COUNT = 64;
+
+    /**
+     * Thời gian chờ tối đa để lấy khóa.
+     */
+    private static final long LOCK_TIMEOUT_SECONDS = 10;
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPE_COUNT];
+
+    public DoctorBookingLocks() {
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Lấy khóa của bác sĩ và giữ cho đến khi transaction hiện tại kết thúc.
+     * Phải được gọi bên trong một transaction đang hoạt động.
+     *
+     * @param doctorId ID của bác sĩ.
+     * @throws IllegalStateException nếu không có transaction hoặc không lấy
+     * được khóa trong thời gian chờ.
+     */
+    public void lockUntilTransactionEnds(UUID doctorId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Doctor booking lock requires an active transaction.");
+        }
+        ReentrantLock lock = stripeFor(doctorId);
+        try {
+            if (!lock.tryLock(LOCK_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Timed out waiting for booking lock of doctor {}", doctorId);
+                throw new IllegalStateException("Hệ thống đang bận xử lý lịch của bác sĩ này. Vui lòng thử lại.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for doctor booking lock.", e);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+
+    private ReentrantLock stripeFor(UUID doctorId) {
+        int hash = doctorId.hashCode();
+        hash ^= (hash >>> 16); // Trộn bit cao xuống để phân bố đều hơn
+        return stripes[hash & (STRIPE_COUNT - 1)];
+    }
+}
@@ -275,12 +275,8 @@ public class DoctorService {
             // Gửi email thông báo sau khi xóa thành công
             if (doctorEmail != null && !doctorEmail.isBlank()) {
                 String adminUsername = "Quản trị viên"; // Placeholder
-                try {
-                    emailService.sendAccountDeletionNotification(doctorEmail, doctorFullName, "Bác sĩ", adminUsername);
-                    log.info("Requested to send account deletion notification to former doctor: {}", doctorEmail);
-                } catch (Exception ex) {
-                    log.error("Failed to send deletion notification email to doctor {}: {}", doctorEmail, ex.getMessage());
-                }
+                // Ghi vào outbox trong cùng transaction: lỗi ghi sẽ rollback cả việc xóa
+                emailService.sendAccountDeletionNotification(doctorEmail, doctorFullName, "Bác sĩ", adminUsername);
             } else {
                 log.warn("Doctor {} (ID: {}) did not have an email. Deletion notification not sent.", doctorFullName, id);
             }
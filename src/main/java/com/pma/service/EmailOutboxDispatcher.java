@@ -0,0 +1,221 @@
+package com.pma.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Service;
+
+import com.pma.model.entity.EmailOutboxMessage;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Bộ gửi email từ hàng đợi EmailOutbox. Định kỳ nhận một lô email đến hạn, gửi
+ * cả lô qua một kết nối SMTP duy nhất (JavaMailSender.send(SimpleMailMessage...))
+ * rồi ghi lại kết quả từng email. Khi cấu hình pma.mail.outbox.concurrency lớn
+ * hơn 1, lô được chia cho nhiều luồng, mỗi luồng dùng một kết nối riêng, với số
+ * kết nối đồng thời không vượt quá giá trị cấu hình. Các email FAILED được xóa
+ * sau pma.mail.outbox.failed-retention.
+ */
+@Service
+public class EmailOutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    /**
+     * Thời gian "thuê" một lô email; nếu quá thời gian này mà chưa ghi được kết
+     * quả (ví dụ ứng dụng bị tắt), email sẽ được gửi lại.
+     */
+    private static final Duration LEASE_DURATION = Duration.ofMinutes(5);
+
+    /**
+     * Chu kỳ xóa các email FAILED đã quá hạn giữ lại.
+     */
+    private static final Duration PURGE_INTERVAL = Duration.ofHours(1);
+
+    private final EmailOutboxService outboxService;
+    private final JavaMailSender mailSender;
+    private final String fromEmailAddress;
+    private final int batchSize;
+    private final int concurrency;
+    private final Duration pollInterval;
+    private final Duration failedRetention;
+
+    private ScheduledExecutorService poller;
+    private ExecutorService senderPool; // null khi chỉ dùng một kết nối
+
+    @Autowired
+    public EmailOutboxDispatcher(EmailOutboxService outboxService,
+            JavaMailSender mailSender,
+            @Value("${spring.mail.username}") String fromEmailAddress,
+            @Value("${pma.mail.outbox.batch-size:50}") int batchSize,
+            @Value("${pma.mail.outbox.concurrency:1}") int concurrency,
+            @Value("${pma.mail.outbox.poll-interval:2s}") Duration pollInterval,
+            @Value("${pma.mail.outbox.failed-retention:7d}") Duration failedRetention) {
+        if (batchSize <= 0 || concurrency <= 0) {
+            throw new IllegalArgumentException("pma.mail.outbox.batch-size and pma.mail.outbox.concurrency must be positive.");
+        }
+        this.outboxService = outboxService;
+        this.mailSender = mailSender;
+        this.fromEmailAddress = fromEmailAddress;
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
+        this.pollInterval = pollInterval;
+        this.failedRetention = failedRetention;
+    }
+
+    /**
+     * Bắt đầu gửi email từ hàng đợi sau khi ứng dụng sẵn sàng.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (poller != null) {
+            return;
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "email-outbox-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (concurrency > 1) {
+            AtomicInteger counter = new AtomicInteger();
+            senderPool = Executors.newFixedThreadPool(concurrency, r -> {
+                Thread thread = new Thread(r, "email-outbox-sender-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        log.info("Starting email outbox dispatcher (batch size {}, concurrency {}, poll interval {})",
+                batchSize, concurrency, pollInterval);
+        poller.scheduleWithFixedDelay(this::drain, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        poller.scheduleWithFixedDelay(this::purgeFailed, 0, PURGE_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+        if (senderPool != null) {
+            senderPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Gửi các email đến hạn cho tới khi hàng đợi không còn lô đầy.
+     */
+    private void drain() {
+        try {
+            List<EmailOutboxMessage> batch;
+            do {
+                batch = outboxService.claimDueBatch(batchSize, LEASE_DURATION);
+                if (!batch.isEmpty()) {
+                    Map<UUID, String> failures = send(batch);
+                    List<UUID> sentIds = new ArrayList<>(batch.size());
+                    for (EmailOutboxMessage message : batch) {
+                        if (!failures.containsKey(message.getMessageId())) {
+                            sentIds.add(message.getMessageId());
+                        }
+                    }
+                    outboxService.recordResults(sentIds, failures);
+                    log.debug("Email outbox batch done: {} sent, {} failed", sentIds.size(), failures.size());
+                }
+            } while (batch.size() == batchSize && !Thread.currentThread().isInterrupted());
+        } catch (Exception e) {
+            // Không để ngoại lệ làm dừng luồng định kỳ; email sẽ được thử lại khi hết hạn thuê
+            log.error("Error while dispatching email outbox", e);
+        }
+    }
+
+    private void purgeFailed() {
+        try {
+            outboxService.purgeFailed(failedRetention);
+        } catch (Exception e) {
+            log.error("Error while purging failed emails from outbox", e);
+        }
+    }
+
+    /**
+     * Gửi một lô email, chia cho tối đa concurrency kết nối.
+     *
+     * @return Lỗi của các email gửi thất bại, theo ID.
+     */
+    private Map<UUID, String> send(List<EmailOutboxMessage> batch) throws InterruptedException {
+        if (senderPool == null || batch.size() == 1) {
+            return sendOverOneConnection(batch);
+        }
+        int chunkSize = (batch.size() + concurrency - 1) / concurrency;
+        List<Future<Map<UUID, String>>> futures = new ArrayList<>();
+        for (int from = 0; from < batch.size(); from += chunkSize) {
+            List<EmailOutboxMessage> chunk = batch.subList(from, Math.min(from + chunkSize, batch.size()));
+            futures.add(senderPool.submit(() -> sendOverOneConnection(chunk)));
+        }
+        Map<UUID, String> failures = new HashMap<>();
+        for (Future<Map<UUID, String>> future : futures) {
+            try {
+                failures.putAll(future.get());
+            } catch (ExecutionException e) {
+                // sendOverOneConnection tự bắt lỗi gửi; đến đây là lỗi ngoài dự kiến, để hết hạn thuê rồi thử lại
+                log.error("Unexpected error in email sender thread", e.getCause());
+            }
+        }
+        return failures;
+    }
+
+    private Map<UUID, String> sendOverOneConnection(List<EmailOutboxMessage> chunk) {
+        Map<SimpleMailMessage, UUID> idsByMessage = new IdentityHashMap<>();
+        SimpleMailMessage[] messages = new SimpleMailMessage[chunk.size()];
+        for (int i = 0; i < chunk.size(); i++) {
+            EmailOutboxMessage outboxMessage = chunk.get(i);
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(fromEmailAddress);
+            message.setTo(outboxMessage.getRecipient());
+            message.setSubject(outboxMessage.getSubject());
+            message.setText(outboxMessage.getBody());
+            messages[i] = message;
+            idsByMessage.put(message, outboxMessage.getMessageId());
+        }
+
+        Map<UUID, String> failures = new HashMap<>();
+        try {
+            mailSender.send(messages);
+        } catch (MailSendException e) {
+            // Lỗi theo từng email: chỉ những email trong failedMessages cần thử lại
+            e.getFailedMessages().forEach((message, error) -> {
+                UUID id = idsByMessage.get(message);
+                if (id != null) {
+                    failures.put(id, error.getMessage());
+                }
+            });
+            if (failures.isEmpty()) {
+                idsByMessage.values().forEach(id -> failures.put(id, e.getMessage()));
+            }
+        } catch (MailException e) {
+            // Lỗi kết nối/xác thực: cả lô cần thử lại
+            idsByMessage.values().forEach(id -> failures.put(id, e.getMessage()));
+        }
+        return failures;
+    }
+}
@@ -0,0 +1,161 @@
+package com.pma.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.pma.model.entity.EmailOutboxMessage;
+import com.pma.model.enums.EmailOutboxStatus;
+import com.pma.repository.EmailOutboxRepository;
+
+/**
+ * Service quản lý hàng đợi email (transactional outbox). Email được ghi vào
+ * bảng EmailOutbox trong transaction của nghiệp vụ gọi tới; EmailOutboxDispatcher
+ * nhận các email đến hạn theo lô, gửi, rồi ghi lại kết quả qua service này.
+ */
+@Service
+public class EmailOutboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxService.class);
+
+    /**
+     * Số lần thử gửi tối đa trước khi email bị đánh dấu FAILED.
+     */
+    static final int MAX_ATTEMPTS = 8;
+
+    /**
+     * Thời gian chờ trước lần thử lại đầu tiên; nhân đôi sau mỗi lần thất bại.
+     */
+    private static final Duration INITIAL_BACKOFF = Duration.ofSeconds(30);
+
+    /**
+     * Thời gian chờ tối đa giữa hai lần thử.
+     */
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final EmailOutboxRepository emailOutboxRepository;
+
+    @Autowired
+    public EmailOutboxService(EmailOutboxRepository emailOutboxRepository) {
+        this.emailOutboxRepository = emailOutboxRepository;
+    }
+
+    /**
+     * Ghi một email vào hàng đợi trong transaction hiện tại (hoặc transaction
+     * mới nếu chưa có). Email chỉ được gửi sau khi transaction commit.
+     *
+     * @param message Email cần gửi (chỉ người nhận đầu tiên, tiêu đề và nội
+     * dung được lưu; địa chỉ gửi lấy từ cấu hình khi gửi).
+     * @throws IllegalArgumentException nếu email thiếu người nhận, tiêu đề hoặc
+     * nội dung.
+     */
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
+    public void enqueue(SimpleMailMessage message) {
+        if (message.getTo() == null || message.getTo().length == 0 || message.getSubject() == null
+                || message.getText() == null) {
+            throw new IllegalArgumentException("Email message must have a recipient, subject and body.");
+        }
+        for (String recipient : message.getTo()) {
+            EmailOutboxMessage outboxMessage = new EmailOutboxMessage();
+            outboxMessage.setRecipient(recipient);
+            outboxMessage.setSubject(message.getSubject());
+            outboxMessage.setBody(message.getText());
+            outboxMessage.setNextAttemptAt(LocalDateTime.now());
+            emailOutboxRepository.save(outboxMessage);
+        }
+    }
+
+    /**
+     * Nhận một lô email đến hạn gửi. Các email được "thuê" trong khoảng
+     * leaseDuration (nextAttemptAt bị đẩy lùi và số lần thử tăng lên) để các
+     * tiến trình khác không gửi trùng; nếu tiến trình dừng giữa chừng, email
+     * sẽ được gửi lại khi hết hạn thuê.
+     *
+     * @param batchSize Số email tối đa.
+     * @param leaseDuration Thời gian thuê.
+     * @return Danh sách email đã nhận.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED)
+    public List<EmailOutboxMessage> claimDueBatch(int batchSize, Duration leaseDuration) {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutboxMessage> batch = emailOutboxRepository
+                .findByStatusAndNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(EmailOutboxStatus.PENDING, now,
+                        Limit.of(batchSize));
+        LocalDateTime leaseUntil = now.plus(leaseDuration);
+        for (EmailOutboxMessage message : batch) {
+            message.setAttempts(message.getAttempts() + 1);
+            message.setNextAttemptAt(leaseUntil);
+        }
+        return batch;
+    }
+
+    /**
+     * Ghi nhận kết quả gửi một lô: email gửi thành công bị xóa khỏi hàng đợi,
+     * email thất bại được lên lịch thử lại với thời gian chờ tăng dần, hoặc
+     * đánh dấu FAILED khi đã hết số lần thử.
+     *
+     * @param sentIds ID các email đã gửi thành công.
+     * @param failures Lỗi của các email gửi thất bại, theo ID.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED)
+    public void recordResults(Collection<UUID> sentIds, Map<UUID, String> failures) {
+        if (!sentIds.isEmpty()) {
+            emailOutboxRepository.deleteAllByIdInBatch(sentIds);
+        }
+        if (failures.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (EmailOutboxMessage message : emailOutboxRepository.findAllById(failures.keySet())) {
+            String error = failures.get(message.getMessageId());
+            message.setLastError(error != null && error.length() > MAX_ERROR_LENGTH
+                    ? error.substring(0, MAX_ERROR_LENGTH) : error);
+            if (message.getAttempts() >= MAX_ATTEMPTS) {
+                message.setStatus(EmailOutboxStatus.FAILED);
+                log.error("Giving up on email {} to {} after {} attempts: {}", message.getMessageId(),
+                        message.getRecipient(), message.getAttempts(), error);
+            } else {
+                message.setNextAttemptAt(now.plus(backoff(message.getAttempts())));
+                log.warn("Email {} to {} failed (attempt {}), will retry at {}: {}", message.getMessageId(),
+                        message.getRecipient(), message.getAttempts(), message.getNextAttemptAt(), error);
+            }
+        }
+    }
+
+    /**
+     * Xóa các email FAILED đã nằm trong hàng đợi lâu hơn retention, để nội dung
+     * email (thông tin bệnh nhân, lịch hẹn) không bị giữ vô thời hạn.
+     *
+     * @param retention Thời gian giữ lại email FAILED để tra cứu lỗi.
+     * @return Số email đã xóa.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED)
+    public int purgeFailed(Duration retention) {
+        int purged = emailOutboxRepository.deleteByStatusAndCreatedAtBefore(EmailOutboxStatus.FAILED,
+                LocalDateTime.now().minus(retention));
+        if (purged > 0) {
+            log.info("Purged {} failed email(s) older than {}", purged, retention);
+        }
+        return purged;
+    }
+
+    private static Duration backoff(int attempts) {
+        Duration delay = INITIAL_BACKOFF.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+}
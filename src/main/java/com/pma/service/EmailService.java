@@ -4,25 +4,41 @@ import java.util.concurrent.CompletableFuture;
 import java.time.Duration;
 import java.time.format.DateTimeFormatter;
 
+import com.pma.config.AsyncConfig;
 import com.pma.model.entity.Appointment;
+import com.pma.model.entity.LowStockAlert;
+import com.pma.util.TransactionUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.MailException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Service xử lý gửi email trong hệ thống. Cung cấp các phương thức gửi email
  * thông báo và xác thực.
+ * <p>
+ * Các email thông báo gắn với thay đổi dữ liệu (lịch hẹn, tài khoản) được ghi
+ * vào hàng đợi EmailOutbox trong cùng transaction với thay đổi đó và được
+ * EmailOutboxDispatcher gửi theo lô, có thử lại. Nếu không ghi được vào hàng
+ * đợi, ngoại lệ được ném tiếp để transaction của nghiệp vụ rollback cùng email.
+ * Các email tương tác mà người dùng đang chờ kết quả (OTP, đặt lại mật khẩu) và
+ * các email chứa mật khẩu tạm (không được lưu vào bảng EmailOutbox) vẫn được
+ * gửi trực tiếp.
  */
 @Service
 public class EmailService {
@@ -43,6 +59,13 @@ public class EmailService {
     @Autowired
     private JavaMailSender mailSender;
 
+    @Autowired
+    private EmailOutboxService outboxService;
+
+    @Autowired
+    @Qualifier(AsyncConfig.MAIL_EXECUTOR)
+    private Executor mailExecutor;
+
     /**
      * Email gửi đi của hệ thống, được cấu hình trong application.properties
      */
@@ -54,8 +77,7 @@ public class EmailService {
      *
      * @param appointment Thông tin lịch hẹn cần gửi xác nhận
      */
-    @Async
-    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
     public void sendSchedulingConfirmation(Appointment appointment) {
         if (appointment == null || appointment.getPatient() == null || appointment.getPatient().getEmail() == null) {
             log.warn(
@@ -64,46 +86,142 @@ public class EmailService {
             return;
         }
 
-        try {
-            String patientEmail = appointment.getPatient().getEmail();
-            String patientName = appointment.getPatient().getFullName();
-            String doctorName = (appointment.getDoctor() != null) ? appointment.getDoctor().getFullName() : "N/A";
-            LocalDateTime dateTime = appointment.getAppointmentDatetime();
-
-            log.info("Preparing scheduling confirmation email for appointment id: {} to {}",
-                    appointment.getAppointmentId(), patientEmail);
+        String patientEmail = appointment.getPatient().getEmail();
+        String patientName = appointment.getPatient().getFullName();
+        String doctorName = (appointment.getDoctor() != null) ? appointment.getDoctor().getFullName() : "N/A";
+        LocalDateTime dateTime = appointment.getAppointmentDatetime();
+
+        log.info("Preparing scheduling confirmation email for appointment id: {} to {}",
+                appointment.getAppointmentId(), patientEmail);
+
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(fromEmailAddress);
+        message.setTo(patientEmail);
+        message.setSubject("Appointment Confirmation - PMA System");
+        message.setText(EmailTemplates.SCHEDULING_CONFIRMATION.renderer()
+                .set("patientName", patientName)
+                .set("appointmentId", appointment.getAppointmentId())
+                .set("doctorName", doctorName)
+                .set("dateTime", dateTime.format(EMAIL_DATE_TIME_FORMATTER))
+                .render());
+
+        outboxService.enqueue(message);
+        log.info("Queued scheduling confirmation email for appointment id: {}",
+                appointment.getAppointmentId());
+    }
 
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmailAddress);
-            message.setTo(patientEmail);
-            message.setSubject("Appointment Confirmation - PMA System");
-            message.setText(String.format("""
-                                          Dear %s,
+    /**
+     * Gửi một email xác nhận tổng hợp cho nhiều lịch hẹn được đặt cùng lúc
+     * (ví dụ: chuỗi lịch tái khám định kỳ) của cùng một bệnh nhân.
+     *
+     * @param appointments Danh sách lịch hẹn đã đặt, theo thứ tự thời gian
+     */
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
+    public void sendSeriesSchedulingConfirmation(List<Appointment> appointments) {
+        if (appointments == null || appointments.isEmpty()) {
+            return;
+        }
+        Appointment first = appointments.get(0);
+        if (first.getPatient() == null || first.getPatient().getEmail() == null) {
+            log.warn("Cannot send series scheduling confirmation. Patient email is null for appointment id: {}",
+                    first.getAppointmentId());
+            return;
+        }
 
-                                          Your appointment has been successfully scheduled.
+        String patientEmail = first.getPatient().getEmail();
+        String patientName = first.getPatient().getFullName();
+        String doctorName = (first.getDoctor() != null) ? first.getDoctor().getFullName() : "N/A";
 
-                                          Appointment Details:
-                                          - Appointment ID: %s
-                                          - Doctor: %s
-                                          - Date & Time: %s
+        StringBuilder details = new StringBuilder();
+        for (Appointment appointment : appointments) {
+            details.append("- ").append(appointment.getAppointmentDatetime().format(EMAIL_DATE_TIME_FORMATTER))
+                    .append(" (ID: ").append(appointment.getAppointmentId()).append(")\n");
+        }
 
-                                          Please arrive on time.
+        log.info("Preparing series scheduling confirmation email for {} appointments to {}",
+                appointments.size(), patientEmail);
+
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(fromEmailAddress);
+        message.setTo(patientEmail);
+        message.setSubject("Appointment Series Confirmation - PMA System");
+        message.setText(EmailTemplates.SERIES_SCHEDULING_CONFIRMATION.renderer()
+                .set("patientName", patientName)
+                .set("appointmentCount", appointments.size())
+                .set("doctorName", doctorName)
+                .set("details", details)
+                .render());
+
+        outboxService.enqueue(message);
+        log.info("Queued series scheduling confirmation email to {}", patientEmail);
+    }
 
-                                          Best regards,
-                                          PMA System""", patientName, appointment.getAppointmentId(), doctorName,
-                    dateTime.format(EMAIL_DATE_TIME_FORMATTER)));
+    /**
+     * Gửi email tổng hợp các cảnh báo thiếu thuốc cho bộ phận mua hàng. Như
+     * mọi email thông báo, lỗi ghi hàng đợi được ném tiếp; khi đó các cảnh báo
+     * không được đánh dấu đã gửi và được gửi lại ở lần tổng hợp sau.
+     *
+     * @param recipient Địa chỉ email của bộ phận mua hàng
+     * @param alerts Các cảnh báo (đã tải kèm thuốc), theo thứ tự thời gian
+     */
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
+    public void sendLowStockDigest(String recipient, List<LowStockAlert> alerts) {
+        StringBuilder details = new StringBuilder();
+        for (LowStockAlert alert : alerts) {
+            details.append("- ").append(alert.getMedicine().getMedicineName())
+                    .append(": ").append(alert.getAvailableQuantity()).append(' ').append(alert.getMedicine().getUnit())
+                    .append(" available (reorder threshold ").append(alert.getReorderThreshold())
+                    .append(", ").append(alert.getCreatedAt().format(EMAIL_DATE_TIME_FORMATTER)).append(")\n");
+        }
 
-            mailSender.send(message);
-            log.info("Successfully sent scheduling confirmation email for appointment id: {}",
-                    appointment.getAppointmentId());
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(fromEmailAddress);
+        message.setTo(recipient);
+        message.setSubject("Low Stock Digest (" + alerts.size() + " alerts) - PMA System");
+        message.setText(EmailTemplates.LOW_STOCK_DIGEST.renderer()
+                .set("alertCount", alerts.size())
+                .set("details", details)
+                .render());
+
+        outboxService.enqueue(message);
+        log.info("Queued low stock digest with {} alert(s) to {}", alerts.size(), recipient);
+    }
 
-        } catch (MailException e) {
-            log.error("Error sending scheduling confirmation email for appointment id: {}",
-                    appointment.getAppointmentId(), e);
-        } catch (Exception e) {
-            log.error("Unexpected error sending scheduling confirmation email for appointment id: {}",
-                    appointment.getAppointmentId(), e);
+    /**
+     * Gửi email nhắc lịch hẹn sắp diễn ra.
+     *
+     * @param appointment Thông tin lịch hẹn (đã tải kèm bệnh nhân và bác sĩ)
+     * @param leadTime Khoảng thời gian trước lịch hẹn mà email được gửi
+     */
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
+    public void sendAppointmentReminder(Appointment appointment, Duration leadTime) {
+        if (appointment == null || appointment.getPatient() == null || appointment.getPatient().getEmail() == null) {
+            log.warn("Cannot send appointment reminder. Invalid appointment or patient email is null for appointment id: {}",
+                    appointment != null ? appointment.getAppointmentId() : "null");
+            return;
         }
+
+        String patientEmail = appointment.getPatient().getEmail();
+        String patientName = appointment.getPatient().getFullName();
+        String doctorName = (appointment.getDoctor() != null) ? appointment.getDoctor().getFullName() : "N/A";
+        LocalDateTime dateTime = appointment.getAppointmentDatetime();
+
+        log.info("Preparing {}h reminder email for appointment id: {} to {}", leadTime.toHours(),
+                appointment.getAppointmentId(), patientEmail);
+
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(fromEmailAddress);
+        message.setTo(patientEmail);
+        message.setSubject("Appointment Reminder - PMA System");
+        message.setText(EmailTemplates.APPOINTMENT_REMINDER.renderer()
+                .set("patientName", patientName)
+                .set("appointmentId", appointment.getAppointmentId())
+                .set("doctorName", doctorName)
+                .set("dateTime", dateTime.format(EMAIL_DATE_TIME_FORMATTER))
+                .render());
+
+        outboxService.enqueue(message);
+        log.info("Queued reminder email for appointment id: {}", appointment.getAppointmentId());
     }
 
     /**
@@ -112,8 +230,7 @@ public class EmailService {
      * @param appointment Thông tin lịch hẹn bị hủy
      * @param reason Lý do hủy lịch hẹn (có thể null)
      */
-    @Async
-    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
     public void sendCancellationNotification(Appointment appointment, String reason) {
         if (appointment == null || appointment.getPatient() == null || appointment.getPatient().getEmail() == null) {
             log.warn(
@@ -123,56 +240,38 @@ public class EmailService {
 
         }
 
-        try {
 
-            String patientEmail = appointment.getPatient().getEmail();
+        String patientEmail = appointment.getPatient().getEmail();
 
-            String patientName = appointment.getPatient().getFullName();
+        String patientName = appointment.getPatient().getFullName();
 
-            String doctorName = (appointment.getDoctor() != null) ? appointment.getDoctor().getFullName() : "N/A";
+        String doctorName = (appointment.getDoctor() != null) ? appointment.getDoctor().getFullName() : "N/A";
 
-            LocalDateTime dateTime = appointment.getAppointmentDatetime();
+        LocalDateTime dateTime = appointment.getAppointmentDatetime();
 
-            String cancellationReason = (reason != null && !reason.isBlank()) ? reason : "Không có lý do cụ thể.";
+        String cancellationReason = (reason != null && !reason.isBlank()) ? reason : "Không có lý do cụ thể.";
 
-            log.info("Preparing cancellation notification email for appointment id: {} to {}",
-                    appointment.getAppointmentId(), patientEmail);
+        log.info("Preparing cancellation notification email for appointment id: {} to {}",
+                appointment.getAppointmentId(), patientEmail);
 
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmailAddress);
-            message.setTo(patientEmail);
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(fromEmailAddress);
+        message.setTo(patientEmail);
 
-            message.setSubject("Appointment Cancellation Notice - PMA System");
-            message.setText(String.format("""
-                                          Dear %s,
+        message.setSubject("Appointment Cancellation Notice - PMA System");
+        message.setText(EmailTemplates.APPOINTMENT_CANCELLATION.renderer()
+                .set("patientName", patientName)
+                .set("appointmentId", appointment.getAppointmentId())
+                .set("doctorName", doctorName)
+                .set("dateTime", dateTime.format(EMAIL_DATE_TIME_FORMATTER))
+                .set("reason", cancellationReason)
+                .render());
 
-                                          We regret to inform you that your appointment has been cancelled.
+        outboxService.enqueue(message);
 
-                                          Appointment Details:
-                                          - Appointment ID: %s
-                                          - Doctor: %s
-                                          - Scheduled Time: %s
-                                          - Cancellation Reason: %s
-
-                                          Please contact us if you would like to reschedule.
-
-                                          Best regards,
-                                          PMA System""", patientName, appointment.getAppointmentId(), doctorName,
-                    dateTime.format(EMAIL_DATE_TIME_FORMATTER), cancellationReason));
-
-            mailSender.send(message);
-
-            log.info("Successfully sent cancellation notification email for appointment id: {}",
-                    appointment.getAppointmentId()
-            );
-
-        } catch (MailException e) {
-            log.error("Error sending cancellation notification email for appointment id: {}",
-                    appointment.getAppointmentId(), e);
-        } catch (Exception e) {
-            log.error("Unexpected error sending cancellation notification email for appointment id: {}",
-                    appointment.getAppointmentId(), e);
-        }
+        log.info("Queued cancellation notification email for appointment id: {}",
+                appointment.getAppointmentId()
+        );
     }
 
     /**
@@ -183,7 +282,7 @@ public class EmailService {
      * @param username Tên người dùng để hiển thị trong email
      * @param otp Mã OTP cần gửi
      */
-    @Async
+    @Async(AsyncConfig.OTP_EXECUTOR)
     public Future<Void> sendOtpEmail(String recipientEmail, String username,
             String otp
     ) {
@@ -199,26 +298,11 @@ public class EmailService {
             message.setFrom(fromEmailAddress);
             message.setTo(recipientEmail);
             message.setSubject("Two-Factor Authentication Code - PMA System");
-            message.setText(String.format("""
-                                          Dear %s,
-                                          
-                                          Your authentication code is:
-                                          
-                                          %s
-                                          
-                                          This code will expire in %d minutes.
-                                          
-                                          \u26a0\ufe0f Security Notice:
-                                          - Never share this code with anyone
-                                          - PMA will never ask for this code via phone or email
-                                          - If you didn't request this code, please secure your account immediately
-                                          
-                                          Best regards,
-                                          PMA System""",
-                    username,
-                    otp,
-                    EMAIL_OTP_VALIDITY_DURATION.toMinutes()
-            ));
+            message.setText(EmailTemplates.OTP.renderer()
+                    .set("username", username)
+                    .set("otp", otp)
+                    .set("validityMinutes", EMAIL_OTP_VALIDITY_DURATION.toMinutes())
+                    .render());
 
             mailSender.send(message);
             log.info("Successfully sent OTP email to user: {}", username);
@@ -234,7 +318,7 @@ public class EmailService {
         }
     }
 
-    @Async
+    @Async(AsyncConfig.MAIL_EXECUTOR)
     public Future<Void> sendPasswordResetEmail(String recipientEmail, String username, String resetToken) {
         if (recipientEmail == null || recipientEmail.isBlank()) {
             log.warn("Cannot send password reset email. Invalid recipient email for user: {}", username);
@@ -248,24 +332,11 @@ public class EmailService {
             message.setFrom(fromEmailAddress);
             message.setTo(recipientEmail);
             message.setSubject("Password Reset Request - PMA System");
-            message.setText(String.format("""
-                                          Dear %s,
-
-                                          A password reset was requested for your account.
-                                          
-                                          Please use the following token along with your username on the 'Reset Password with Token' screen in the application:
-                                          %s
-                                          
-                                          This token will expire in %d hour(s).
-                                          
-                                          If you did not request a password reset, please ignore this email or contact support if you have concerns.
-                                          
-                                          Best regards,
-                                          PMA System""",
-                    username,
-                    resetToken,
-                    UserAccountService.PASSWORD_RESET_TOKEN_VALIDITY_DURATION.toHours()
-            ));
+            message.setText(EmailTemplates.PASSWORD_RESET.renderer()
+                    .set("username", username)
+                    .set("token", resetToken)
+                    .set("validityHours", UserAccountService.PASSWORD_RESET_TOKEN_VALIDITY_DURATION.toHours())
+                    .render());
 
             mailSender.send(message);
             log.info("Successfully sent password reset email to user: {}", username);
@@ -289,9 +360,9 @@ public class EmailService {
      * @param recipientName Tên của người nhận (để cá nhân hóa email).
      * @param username Tên đăng nhập mới.
      * @param rawPassword Mật khẩu mới (chưa băm).
-     * @return Future<Void> để theo dõi việc gửi email bất đồng bộ.
+     * @return Future<Void> hoàn tất khi email đã được gửi (hoặc thất bại), sau
+     * khi transaction hiện tại commit.
      */
-    @Async
     public Future<Void> sendNewAccountCredentials(String recipientEmail, String recipientName, String username, String temporaryPassword) {
         if (recipientEmail == null || recipientEmail.isBlank()) {
             log.warn("Cannot send new account credentials. Invalid recipient email for user: {}", username);
@@ -303,42 +374,19 @@ public class EmailService {
             return CompletableFuture.completedFuture(null);
         }
 
-        try {
-            log.info("Preparing new account credentials email for user: {} to {}", username, recipientEmail);
+        log.info("Preparing new account credentials email for user: {} to {}", username, recipientEmail);
 
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmailAddress);
-            message.setTo(recipientEmail);
-            message.setSubject("Thông tin tài khoản của bạn tại Hệ thống PMA");
-            message.setText(String.format("""
-                                          Chào %s,
-                                          
-                                          Tài khoản của bạn tại Hệ thống Quản lý (PMA) đã được tạo.
-                                          Dưới đây là thông tin đăng nhập của bạn:
-                                          
-                                          Tên đăng nhập: %s
-                                          Mật khẩu: %s
-                                          (Vui lòng đổi mật khẩu này ngay sau khi đăng nhập lần đầu tiên)
-                                          \u26a0\ufe0f Quan trọng:
-                                          - Vì lý do bảo mật, vui lòng đổi mật khẩu ngay sau lần đăng nhập đầu tiên.
-                                          - Không chia sẻ thông tin tài khoản này với bất kỳ ai.
-                                          
-                                          Trân trọng,
-                                          Đội ngũ Hệ thống PMA""",
-                    recipientName,
-                    username, // Username
-                    temporaryPassword // Temporary password
-            ));
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(fromEmailAddress);
+        message.setTo(recipientEmail);
+        message.setSubject("Thông tin tài khoản của bạn tại Hệ thống PMA");
+        message.setText(EmailTemplates.NEW_ACCOUNT_CREDENTIALS.renderer()
+                .set("recipientName", recipientName)
+                .set("username", username)
+                .set("password", temporaryPassword)
+                .render());
 
-            mailSender.send(message);
-            log.info("Successfully sent new account credentials email to user: {}", username);
-            return CompletableFuture.completedFuture(null);
-        } catch (MailException e) {
-            log.error("Failed to send new account credentials email to user: {} at {}: {}", username, recipientEmail, e.getMessage(), e);
-            CompletableFuture<Void> future = new CompletableFuture<>();
-            future.completeExceptionally(new RuntimeException("Failed to send new account credentials email to " + recipientEmail, e));
-            return future;
-        }
+        return sendAfterCommit(message, "new account credentials", username);
     }
 
     /**
@@ -349,9 +397,9 @@ public class EmailService {
      * @param recipientName Tên của bác sĩ (để cá nhân hóa email).
      * @param username Tên đăng nhập mới.
      * @param rawPassword Mật khẩu mới (chưa băm).
-     * @return Future<Void> để theo dõi việc gửi email bất đồng bộ.
+     * @return Future<Void> hoàn tất khi email đã được gửi (hoặc thất bại), sau
+     * khi transaction hiện tại commit.
      */
-    @Async
     public Future<Void> sendNewDoctorAccountCredentials(String recipientEmail, String recipientName, String username, String temporaryPassword) {
         if (recipientEmail == null || recipientEmail.isBlank()) {
             log.warn("Cannot send new doctor account credentials. Invalid recipient email for doctor: {}", username);
@@ -362,42 +410,19 @@ public class EmailService {
             return CompletableFuture.completedFuture(null);
         }
 
-        try {
-            log.info("Preparing new account credentials email for doctor: {} to {}", username, recipientEmail);
+        log.info("Preparing new account credentials email for doctor: {} to {}", username, recipientEmail);
 
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmailAddress);
-            message.setTo(recipientEmail);
-            message.setSubject("Thông tin tài khoản Bác sĩ của bạn tại Hệ thống PMA");
-            message.setText(String.format("""
-                                          Chào Bác sĩ %s,
-                                          
-                                          Tài khoản bác sĩ của bạn tại Hệ thống Quản lý (PMA) đã được tạo.
-                                          Dưới đây là thông tin đăng nhập của bạn:
-                                          
-                                          Tên đăng nhập: %s
-                                          Mật khẩu: %s
-                                          (Vui lòng đổi mật khẩu này ngay sau khi đăng nhập lần đầu tiên)
-                                          \u26a0\ufe0f Quan trọng:
-                                          - Vì lý do bảo mật, vui lòng đổi mật khẩu ngay sau lần đăng nhập đầu tiên.
-                                          - Không chia sẻ thông tin tài khoản này với bất kỳ ai.
-                                          
-                                          Trân trọng,
-                                          Đội ngũ Hệ thống PMA""",
-                    recipientName, // Sử dụng tên bác sĩ
-                    username, // Username
-                    temporaryPassword // Temporary password
-            ));
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(fromEmailAddress);
+        message.setTo(recipientEmail);
+        message.setSubject("Thông tin tài khoản Bác sĩ của bạn tại Hệ thống PMA");
+        message.setText(EmailTemplates.NEW_DOCTOR_ACCOUNT_CREDENTIALS.renderer()
+                .set("recipientName", recipientName)
+                .set("username", username)
+                .set("password", temporaryPassword)
+                .render());
 
-            mailSender.send(message);
-            log.info("Successfully sent new account credentials email to doctor: {}", username);
-            return CompletableFuture.completedFuture(null);
-        } catch (MailException e) {
-            log.error("Failed to send new account credentials email to doctor: {} at {}: {}", username, recipientEmail, e.getMessage(), e);
-            CompletableFuture<Void> future = new CompletableFuture<>();
-            future.completeExceptionally(new RuntimeException("Failed to send new account credentials email to " + recipientEmail, e));
-            return future;
-        }
+        return sendAfterCommit(message, "new doctor account credentials", username);
     }
 
     /**
@@ -408,9 +433,9 @@ public class EmailService {
      * @param accountType Loại tài khoản (ví dụ: "Bệnh nhân", "Bác sĩ").
      * @param adminUsername Tên của quản trị viên đã thực hiện hành động xóa (có
      * thể là "Quản trị viên hệ thống" nếu không có thông tin cụ thể).
-     * @return Future<Void> để theo dõi việc gửi email bất đồng bộ.
+     * @return Future<Void> đã hoàn tất khi email được đưa vào hàng đợi gửi.
      */
-    @Async
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
     public Future<Void> sendAccountDeletionNotification(String recipientEmail, String recipientName, String accountType, String adminUsername) {
         if (recipientEmail == null || recipientEmail.isBlank()) {
             log.warn("Cannot send account deletion notification. Invalid recipient email for {} formerly known as {}.", accountType, recipientName);
@@ -419,37 +444,47 @@ public class EmailService {
 
         String effectiveAdminName = (adminUsername != null && !adminUsername.isBlank()) ? adminUsername : "Quản trị viên hệ thống";
 
-        try {
-            log.info("Preparing account deletion notification email for {} {} to {}", accountType, recipientName, recipientEmail);
-
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmailAddress);
-            message.setTo(recipientEmail);
-            message.setSubject("Thông báo Xóa Tài khoản - Hệ thống PMA");
-            message.setText(String.format("""
-                                          Chào %s,
-                                          
-                                          Chúng tôi xin thông báo tài khoản %s của bạn tại Hệ thống Quản lý (PMA) đã bị xóa.
-                                          
-                                          Tài khoản của bạn đã được %s xóa khỏi hệ thống.
-                                          
-                                          Nếu bạn có bất kỳ thắc mắc nào hoặc cho rằng đây là một sự nhầm lẫn, vui lòng liên hệ với bộ phận hỗ trợ của chúng tôi.
-                                          
-                                          Trân trọng,
-                                          Đội ngũ Hệ thống PMA""",
-                    recipientName,
-                    accountType.toLowerCase(), // "bệnh nhân" hoặc "bác sĩ"
-                    effectiveAdminName
-            ));
+        log.info("Preparing account deletion notification email for {} {} to {}", accountType, recipientName, recipientEmail);
+
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(fromEmailAddress);
+        message.setTo(recipientEmail);
+        message.setSubject("Thông báo Xóa Tài khoản - Hệ thống PMA");
+        message.setText(EmailTemplates.ACCOUNT_DELETION.renderer()
+                .set("recipientName", recipientName)
+                .set("accountType", accountType.toLowerCase())
+                .set("adminName", effectiveAdminName)
+                .render());
+
+        outboxService.enqueue(message);
+        log.info("Queued account deletion notification email to {} for former {} {}", recipientEmail, accountType, recipientName);
+        return CompletableFuture.completedFuture(null);
+    }
 
-            mailSender.send(message);
-            log.info("Successfully sent account deletion notification email to {} for former {} {}", recipientEmail, accountType, recipientName);
-            return CompletableFuture.completedFuture(null);
-        } catch (MailException e) {
-            log.error("Failed to send account deletion notification email to {} for former {} {}: {}", recipientEmail, accountType, recipientName, e.getMessage(), e);
-            CompletableFuture<Void> future = new CompletableFuture<>();
-            future.completeExceptionally(new RuntimeException("Failed to send account deletion notification email to " + recipientEmail, e));
-            return future;
-        }
+    /**
+     * Gửi trực tiếp (không qua EmailOutbox) một email chứa thông tin bí mật, để
+     * mật khẩu không bao giờ được lưu vào cơ sở dữ liệu. Email chỉ được gửi sau
+     * khi transaction hiện tại commit (tài khoản đã thực sự tồn tại), trên
+     * executor gửi mail; nếu transaction rollback thì không gửi.
+     */
+    private CompletableFuture<Void> sendAfterCommit(SimpleMailMessage message, String description, String username) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        TransactionUtil.runAfterCompletion(() -> {
+            try {
+                CompletableFuture.runAsync(() -> mailSender.send(message), mailExecutor).whenComplete((_, error) -> {
+                    if (error == null) {
+                        log.info("Successfully sent {} email to user: {}", description, username);
+                        result.complete(null);
+                    } else {
+                        log.error("Failed to send {} email to user: {}: {}", description, username, error.getMessage());
+                        result.completeExceptionally(error);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                log.error("Mail executor rejected {} email to user: {}", description, username);
+                result.completeExceptionally(e);
+            }
+        }, () -> result.cancel(false));
+        return result;
     }
 }
@@ -0,0 +1,188 @@
+package com.pma.service;
+
+import com.pma.util.MessageTemplate;
+
+/**
+ * Các mẫu nội dung email của hệ thống, được biên dịch một lần khi lớp được nạp.
+ * Chỗ giữ chỗ có dạng {{ten}} (xem MessageTemplate).
+ */
+final class EmailTemplates {
+
+    // Private constructor để ngăn chặn việc tạo instance
+    private EmailTemplates() {
+    }
+
+    /**
+     * Xác nhận đặt lịch hẹn.
+     */
+    static final MessageTemplate SCHEDULING_CONFIRMATION = MessageTemplate.compile("""
+            Dear {{patientName}},
+
+            Your appointment has been successfully scheduled.
+
+            Appointment Details:
+            - Appointment ID: {{appointmentId}}
+            - Doctor: {{doctorName}}
+            - Date & Time: {{dateTime}}
+
+            Please arrive on time.
+
+            Best regards,
+            PMA System""");
+
+    /**
+     * Xác nhận đặt nhiều lịch hẹn cùng lúc.
+     */
+    static final MessageTemplate SERIES_SCHEDULING_CONFIRMATION = MessageTemplate.compile("""
+            Dear {{patientName}},
+
+            Your {{appointmentCount}} appointments with Doctor {{doctorName}} have been successfully scheduled:
+
+            {{details}}
+            Please arrive on time.
+
+            Best regards,
+            PMA System""");
+
+    /**
+     * Nhắc lịch hẹn sắp diễn ra.
+     */
+    static final MessageTemplate APPOINTMENT_REMINDER = MessageTemplate.compile("""
+            Dear {{patientName}},
+
+            This is a reminder of your upcoming appointment.
+
+            Appointment Details:
+            - Appointment ID: {{appointmentId}}
+            - Doctor: {{doctorName}}
+            - Date & Time: {{dateTime}}
+
+            Please arrive on time or contact us if you need to reschedule.
+
+            Best regards,
+            PMA System""");
+
+    /**
+     * Thông báo hủy lịch hẹn.
+     */
+    static final MessageTemplate APPOINTMENT_CANCELLATION = MessageTemplate.compile("""
+            Dear {{patientName}},
+
+            We regret to inform you that your appointment has been cancelled.
+
+            Appointment Details:
+            - Appointment ID: {{appointmentId}}
+            - Doctor: {{doctorName}}
+            - Scheduled Time: {{dateTime}}
+            - Cancellation Reason: {{reason}}
+
+            Please contact us if you would like to reschedule.
+
+            Best regards,
+            PMA System""");
+
+    /**
+     * Tổng hợp cảnh báo thiếu thuốc hằng ngày cho bộ phận mua hàng.
+     */
+    static final MessageTemplate LOW_STOCK_DIGEST = MessageTemplate.compile("""
+            Dear Purchasing Team,
+
+            {{alertCount}} low stock alert(s) since the last digest (available stock dropped to or below the reorder threshold):
+
+            {{details}}
+            Please review the stock levels and place orders as needed.
+
+            Best regards,
+            PMA System""");
+
+    /**
+     * Mã OTP xác thực hai yếu tố.
+     */
+    static final MessageTemplate OTP = MessageTemplate.compile("""
+            Dear {{username}},
+
+            Your authentication code is:
+
+            {{otp}}
+
+            This code will expire in {{validityMinutes}} minutes.
+
+            \u26a0\ufe0f Security Notice:
+            - Never share this code with anyone
+            - PMA will never ask for this code via phone or email
+            - If you didn't request this code, please secure your account immediately
+
+            Best regards,
+            PMA System""");
+
+    /**
+     * Mã đặt lại mật khẩu.
+     */
+    static final MessageTemplate PASSWORD_RESET = MessageTemplate.compile("""
+            Dear {{username}},
+
+            A password reset was requested for your account.
+
+            Please use the following token along with your username on the 'Reset Password with Token' screen in the application:
+            {{token}}
+
+            This token will expire in {{validityHours}} hour(s).
+
+            If you did not request a password reset, please ignore this email or contact support if you have concerns.
+
+            Best regards,
+            PMA System""");
+
+    /**
+     * Thông tin tài khoản mới của bệnh nhân.
+     */
+    static final MessageTemplate NEW_ACCOUNT_CREDENTIALS = MessageTemplate.compile("""
+            Chào {{recipientName}},
+
+            Tài khoản của bạn tại Hệ thống Quản lý (PMA) đã được tạo.
+            Dưới đây là thông tin đăng nhập của bạn:
+
+            Tên đăng nhập: {{username}}
+            Mật khẩu: {{password}}
+            (Vui lòng đổi mật khẩu này ngay sau khi đăng nhập lần đầu tiên)
+            \u26a0\ufe0f Quan trọng:
+            - Vì lý do bảo mật, vui lòng đổi mật khẩu ngay sau lần đăng nhập đầu tiên.
+            - Không chia sẻ thông tin tài khoản này với bất kỳ ai.
+
+            Trân trọng,
+            Đội ngũ Hệ thống PMA""");
+
+    /**
+     * Thông tin tài khoản mới của bác sĩ.
+     */
+    static final MessageTemplate NEW_DOCTOR_ACCOUNT_CREDENTIALS = MessageTemplate.compile("""
+            Chào Bác sĩ {{recipientName}},
+
+            Tài khoản bác sĩ của bạn tại Hệ thống Quản lý (PMA) đã được tạo.
+            Dưới đây là thông tin đăng nhập của bạn:
+
+            Tên đăng nhập: {{username}}
+            Mật khẩu: {{password}}
+            (Vui lòng đổi mật khẩu này ngay sau khi đăng nhập lần đầu tiên)
+            \u26a0\ufe0f Quan trọng:
+            - Vì lý do bảo mật, vui lòng đổi mật khẩu ngay sau lần đăng nhập đầu tiên.
+            - Không chia sẻ thông tin tài khoản này với bất kỳ ai.
+
+            Trân trọng,
+            Đội ngũ Hệ thống PMA""");
+
+    /**
+     * Thông báo tài khoản bị xóa.
+     */
+    static final MessageTemplate ACCOUNT_DELETION = MessageTemplate.compile("""
+            Chào {{recipientName}},
+
+            Chúng tôi xin thông báo tài khoản {{accountType}} của bạn tại Hệ thống Quản lý (PMA) đã bị xóa.
+
+            Tài khoản của bạn đã được {{adminName}} xóa khỏi hệ thống.
+
+            Nếu bạn có bất kỳ thắc mắc nào hoặc cho rằng đây là một sự nhầm lẫn, vui lòng liên hệ với bộ phận hỗ trợ của chúng tôi.
+
+            Trân trọng,
+            Đội ngũ Hệ thống PMA""");
+}
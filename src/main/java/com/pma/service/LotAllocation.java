@@ -0,0 +1,28 @@
+package com.pma.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.pma.model.entity.DispensedLot;
+
+/**
+ * Kết quả phân bổ số lượng xuất của một đơn thuốc vào các lô
+ * (MedicineLotService.allocate).
+ *
+ * @param lots Các DispensedLot đã tạo, theo thứ tự lấy lô (FEFO).
+ * @param untracked Map từ medicineId tới phần đã xuất không có lô còn hạn để
+ * phân bổ (tồn kho chưa theo lô); rỗng nếu mọi số lượng đều nằm trong lô.
+ */
+public record LotAllocation(List<DispensedLot> lots, Map<UUID, Integer> untracked) {
+
+    /**
+     * Kết quả rỗng (không có gì để phân bổ).
+     */
+    static final LotAllocation EMPTY = new LotAllocation(List.of(), Map.of());
+
+    public LotAllocation {
+        lots = List.copyOf(lots);
+        untracked = Map.copyOf(untracked);
+    }
+}
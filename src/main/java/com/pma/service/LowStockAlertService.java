@@ -0,0 +1,154 @@
+package com.pma.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.pma.model.entity.LowStockAlert;
+import com.pma.repository.LowStockAlertRepository;
+import com.pma.repository.MedicineRepository;
+
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Cảnh báo thiếu thuốc theo ngưỡng đặt hàng lại của từng thuốc.
+ * <p>
+ * Việc phát hiện diễn ra ngay khi tồn kho khả dụng bị giảm (MedicineService,
+ * StockReservationService gọi {@link #checkAfterDecrease(Map)} sau câu lệnh
+ * UPDATE): chỉ các thuốc vừa bị giảm được kiểm tra, bằng một truy vấn theo
+ * khóa chính, nên không cần quét định kỳ cả bảng Medicines. Một cảnh báo được
+ * tạo khi tồn kho khả dụng đi từ trên ngưỡng xuống bằng hoặc dưới ngưỡng, nên
+ * các lần giảm tiếp theo dưới ngưỡng không tạo cảnh báo trùng. Cảnh báo được
+ * lưu trong cùng transaction với thay đổi tồn kho, hiển thị trong ứng dụng tới
+ * khi được xác nhận và được gom vào email tổng hợp hằng ngày
+ * (LowStockDigestScheduler).
+ */
+@Service
+public class LowStockAlertService {
+
+    private static final Logger log = LoggerFactory.getLogger(LowStockAlertService.class);
+
+    private final LowStockAlertRepository alertRepository;
+    private final MedicineRepository medicineRepository;
+    private final EmailService emailService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int defaultReorderThreshold;
+
+    @Autowired
+    public LowStockAlertService(LowStockAlertRepository alertRepository,
+            MedicineRepository medicineRepository,
+            EmailService emailService,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${pma.stock.default-reorder-threshold:0}") int defaultReorderThreshold) {
+        if (defaultReorderThreshold < 0) {
+            throw new IllegalArgumentException(
+                    "pma.stock.default-reorder-threshold cannot be negative: " + defaultReorderThreshold);
+        }
+        this.alertRepository = alertRepository;
+        this.medicineRepository = medicineRepository;
+        this.emailService = emailService;
+        this.eventPublisher = eventPublisher;
+        this.defaultReorderThreshold = defaultReorderThreshold;
+    }
+
+    /**
+     * Tạo cảnh báo cho các thuốc mà lần giảm vừa rồi làm tồn kho khả dụng vượt
+     * xuống ngưỡng đặt hàng lại. Phải được gọi sau câu lệnh UPDATE, trong cùng
+     * transaction.
+     *
+     * @param decreases Map từ medicineId tới lượng tồn kho khả dụng vừa giảm
+     * (các giá trị không dương bị bỏ qua).
+     */
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
+    public void checkAfterDecrease(Map<UUID, Integer> decreases) {
+        List<UUID> ids = new ArrayList<>(decreases.size());
+        decreases.forEach((medicineId, decrease) -> {
+            if (decrease > 0) {
+                ids.add(medicineId);
+            }
+        });
+        if (ids.isEmpty()) {
+            return;
+        }
+        for (Object[] row : medicineRepository.findAtOrBelowReorderThreshold(ids, defaultReorderThreshold)) {
+            UUID medicineId = (UUID) row[0];
+            int available = ((Number) row[2]).intValue();
+            int threshold = ((Number) row[3]).intValue();
+            if (available + decreases.get(medicineId) <= threshold) {
+                continue; // Đã dưới ngưỡng từ trước
+            }
+            LowStockAlert alert = new LowStockAlert();
+            alert.setMedicine(medicineRepository.getReferenceById(medicineId));
+            alert.setAvailableQuantity(available);
+            alert.setReorderThreshold(threshold);
+            alertRepository.save(alert);
+            eventPublisher.publishEvent(
+                    new LowStockEvent(alert.getAlertId(), medicineId, (String) row[1], available, threshold));
+        }
+    }
+
+    /**
+     * Ghi log cảnh báo sau khi thay đổi tồn kho được commit.
+     *
+     * @param event Sự kiện thiếu thuốc.
+     */
+    @TransactionalEventListener
+    public void onLowStock(LowStockEvent event) {
+        log.warn("Low stock: {} has {} available (reorder threshold {})", event.medicineName(),
+                event.availableQuantity(), event.reorderThreshold());
+    }
+
+    /**
+     * Lấy các cảnh báo chưa được xác nhận, mới nhất trước.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<LowStockAlert> getOpenAlerts() {
+        return alertRepository.findUnacknowledged();
+    }
+
+    /**
+     * Đánh dấu một cảnh báo đã được xem.
+     *
+     * @param alertId ID của cảnh báo.
+     * @throws EntityNotFoundException nếu không tìm thấy cảnh báo.
+     */
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
+    public void acknowledge(UUID alertId) {
+        LowStockAlert alert = alertRepository.findById(alertId)
+                .orElseThrow(() -> new EntityNotFoundException("Low stock alert not found with id: " + alertId));
+        if (alert.getAcknowledgedAt() == null) {
+            alert.setAcknowledgedAt(LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Gom tất cả cảnh báo chưa gửi thành một email tổng hợp và ghi vào hàng đợi
+     * email. Không gửi gì nếu không có cảnh báo mới.
+     *
+     * @param recipient Địa chỉ email của bộ phận mua hàng.
+     * @return Số cảnh báo trong email.
+     */
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
+    public int queueDigest(String recipient) {
+        UUID batchId = UUID.randomUUID();
+        if (alertRepository.claimForDigest(batchId) == 0) {
+            return 0;
+        }
+        List<LowStockAlert> alerts = alertRepository.findByDigestBatchId(batchId);
+        emailService.sendLowStockDigest(recipient, alerts);
+        return alerts.size();
+    }
+}
@@ -0,0 +1,90 @@
+package com.pma.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Gửi email tổng hợp cảnh báo thiếu thuốc cho bộ phận mua hàng mỗi ngày một
+ * lần, vào giờ pma.stock.low-stock-digest-time (mặc định 07:00), tới địa chỉ
+ * pma.stock.purchasing-email (để trống để tắt). Khi nhiều máy cùng chạy, mỗi
+ * cảnh báo chỉ nằm trong một email (xem LowStockAlertService.queueDigest).
+ */
+@Service
+public class LowStockDigestScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(LowStockDigestScheduler.class);
+
+    private final LowStockAlertService alertService;
+    private final String purchasingEmail;
+    private final LocalTime digestTime;
+
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public LowStockDigestScheduler(LowStockAlertService alertService,
+            @Value("${pma.stock.purchasing-email:}") String purchasingEmail,
+            @Value("${pma.stock.low-stock-digest-time:07:00}") String digestTime) {
+        this.alertService = alertService;
+        this.purchasingEmail = purchasingEmail.trim();
+        this.digestTime = LocalTime.parse(digestTime.trim());
+    }
+
+    /**
+     * Lên lịch gửi email tổng hợp sau khi ứng dụng sẵn sàng.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        if (purchasingEmail.isEmpty()) {
+            log.info("pma.stock.purchasing-email is not set; low stock digest email is disabled.");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "low-stock-digest");
+            thread.setDaemon(true);
+            return thread;
+        });
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime firstRun = now.toLocalDate().atTime(digestTime);
+        if (!firstRun.isAfter(now)) {
+            firstRun = firstRun.plusDays(1);
+        }
+        long initialDelay = Duration.between(now, firstRun).toMillis();
+        scheduler.scheduleAtFixedRate(this::sendDigest, initialDelay, Duration.ofDays(1).toMillis(),
+                TimeUnit.MILLISECONDS);
+        log.info("Low stock digest to {} scheduled daily at {}", purchasingEmail, digestTime);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void sendDigest() {
+        try {
+            int alerts = alertService.queueDigest(purchasingEmail);
+            log.info("Low stock digest: {} alert(s) queued for {}", alerts, purchasingEmail);
+        } catch (Exception e) {
+            // Không để ngoại lệ làm dừng luồng định kỳ; cảnh báo sẽ nằm trong email ngày hôm sau
+            log.error("Error while queueing low stock digest", e);
+        }
+    }
+}
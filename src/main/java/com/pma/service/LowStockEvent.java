@@ -0,0 +1,18 @@
+package com.pma.service;
+
+import java.util.UUID;
+
+/**
+ * Sự kiện phát ra khi tồn kho khả dụng của một thuốc giảm từ trên xuống bằng
+ * hoặc dưới ngưỡng đặt hàng lại.
+ *
+ * @param alertId ID của LowStockAlert được tạo.
+ * @param medicineId ID của thuốc.
+ * @param medicineName Tên thuốc.
+ * @param availableQuantity Tồn kho khả dụng sau lần giảm.
+ * @param reorderThreshold Ngưỡng đặt hàng lại.
+ */
+public record LowStockEvent(UUID alertId, UUID medicineId, String medicineName, int availableQuantity,
+        int reorderThreshold) {
+
+}
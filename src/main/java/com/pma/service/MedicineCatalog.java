@@ -0,0 +1,440 @@
+package com.pma.service;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.pma.model.entity.Medicine;
+import com.pma.repository.MedicineRepository;
+import com.pma.util.TransactionUtil;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Danh mục thuốc trong bộ nhớ cho ô tìm thuốc gợi ý theo từng ký tự gõ.
+ * <p>
+ * Danh mục là một ảnh chụp bất biến gồm hai mảng khóa đã sắp xếp: tên thuốc
+ * đầy đủ, và các "đuôi từ" (phần của tên hoặc nhà sản xuất bắt đầu từ một từ,
+ * ví dụ "paracetamol 500mg" có đuôi từ "500mg"). Khóa được chuẩn hóa (chữ
+ * thường, bỏ dấu tiếng Việt) nên "para", "Para" và "pảa" tìm như nhau. Một lần
+ * gợi ý là một tìm kiếm nhị phân cộng một lần quét tuần tự qua tối đa vài chục
+ * khóa, không truy vấn cơ sở dữ liệu và không phụ thuộc số thuốc.
+ * <p>
+ * MedicineService cập nhật danh mục sau khi transaction tạo/sửa/xóa thuốc
+ * commit, bằng cách chèn/xóa khóa trên bản sao của ảnh chụp (không sắp xếp
+ * lại). Thay đổi từ máy khác được nạp lại toàn bộ mỗi
+ * pma.medicine.catalog-refresh-interval (mặc định 10 phút, 0 để tắt).
+ */
+@Service
+public class MedicineCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(MedicineCatalog.class);
+
+    /**
+     * Bảng bỏ dấu cho các ký tự dưới U+2000 (gồm chữ Latin có dấu tiếng Việt):
+     * ký tự gốc không dấu, hoặc 0 với dấu kết hợp đứng riêng.
+     */
+    private static final char[] FOLDED = foldTable();
+
+    private final MedicineRepository medicineRepository;
+    private final Duration refreshInterval;
+
+    /**
+     * Ảnh chụp hiện tại; null khi chưa nạp lần nào.
+     */
+    private volatile Snapshot snapshot;
+
+    /**
+     * Các thay đổi được áp dụng trong lúc đang nạp lại (để áp lại lên ảnh chụp
+     * mới); null khi không nạp lại. Truy cập trong synchronized (this).
+     */
+    private List<UnaryOperator<Snapshot>> changesDuringReload;
+
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    private ScheduledExecutorService refresher;
+
+    @Autowired
+    public MedicineCatalog(MedicineRepository medicineRepository,
+            @Value("${pma.medicine.catalog-refresh-interval:10m}") Duration refreshInterval) {
+        this.medicineRepository = medicineRepository;
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * Nạp danh mục ngay sau khi ứng dụng sẵn sàng và lên lịch nạp lại định kỳ.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (refresher != null) {
+            return;
+        }
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "medicine-catalog-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.execute(this::refresh);
+        if (!refreshInterval.isZero() && !refreshInterval.isNegative()) {
+            refresher.scheduleWithFixedDelay(this::refresh, refreshInterval.toMillis(), refreshInterval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    /**
+     * Gợi ý các thuốc có tên, một từ trong tên hoặc nhà sản xuất bắt đầu bằng
+     * chuỗi đã gõ. Thuốc khớp theo đầu tên đứng trước, mỗi nhóm theo thứ tự chữ
+     * cái. Chuỗi rỗng trả về các thuốc đầu tiên theo tên.
+     * <p>
+     * Nếu danh mục chưa được nạp, lần gọi đầu tiên sẽ chờ việc nạp hoàn tất.
+     *
+     * @param query Chuỗi người dùng đã gõ.
+     * @param limit Số gợi ý tối đa.
+     * @return Danh sách gợi ý (không trùng thuốc).
+     */
+    public List<MedicineSummary> suggest(String query, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        Snapshot current = loadedSnapshot();
+        String prefix = normalize(query);
+        Map<UUID, MedicineSummary> matches = new LinkedHashMap<>();
+        current.names().collect(prefix, matches, limit);
+        current.terms().collect(prefix, matches, limit);
+        return List.copyOf(matches.values());
+    }
+
+    /**
+     * Nạp lại toàn bộ danh mục từ cơ sở dữ liệu.
+     *
+     * @return Số thuốc trong danh mục.
+     */
+    public int reload() {
+        reloadLock.lock();
+        try {
+            synchronized (this) {
+                changesDuringReload = new ArrayList<>();
+            }
+            try {
+                List<MedicineSummary> summaries = new ArrayList<>();
+                for (Object[] row : medicineRepository.findCatalogueRows()) {
+                    summaries.add(new MedicineSummary((UUID) row[0], (String) row[1], (String) row[2],
+                            (String) row[3], (BigDecimal) row[4]));
+                }
+                Snapshot loaded = Snapshot.of(summaries);
+                synchronized (this) {
+                    // Thay đổi commit sau khi truy vấn chạy chưa có trong kết quả
+                    for (UnaryOperator<Snapshot> change : changesDuringReload) {
+                        loaded = change.apply(loaded);
+                    }
+                    snapshot = loaded;
+                }
+                log.debug("Medicine catalogue loaded: {} medicine(s), {} term key(s)", loaded.size(),
+                        loaded.terms().keys().length);
+                return loaded.size();
+            } finally {
+                synchronized (this) {
+                    changesDuringReload = null;
+                }
+            }
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /**
+     * Thêm hoặc cập nhật một thuốc trong danh mục sau khi transaction hiện tại
+     * commit.
+     *
+     * @param medicine Thuốc vừa được tạo hoặc sửa.
+     */
+    public void upsertAfterCommit(Medicine medicine) {
+        MedicineSummary summary = MedicineSummary.of(medicine);
+        TransactionUtil.runAfterCommit(() -> apply(current -> current.with(summary)));
+    }
+
+    /**
+     * Xóa một thuốc khỏi danh mục sau khi transaction hiện tại commit.
+     *
+     * @param medicineId ID của thuốc vừa bị xóa.
+     */
+    public void removeAfterCommit(UUID medicineId) {
+        TransactionUtil.runAfterCommit(() -> apply(current -> current.without(medicineId)));
+    }
+
+    /**
+     * Chuẩn hóa chuỗi để so khớp: chữ thường, bỏ dấu (kể cả đ → d), gộp khoảng
+     * trắng.
+     *
+     * @param text Chuỗi gốc (có thể null).
+     * @return Chuỗi đã chuẩn hóa.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder folded = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (Character.isWhitespace(c)) {
+                pendingSpace = !folded.isEmpty();
+                continue;
+            }
+            if (c < FOLDED.length) {
+                c = FOLDED[c];
+                if (c == 0) {
+                    continue;
+                }
+            }
+            if (pendingSpace) {
+                folded.append(' ');
+                pendingSpace = false;
+            }
+            folded.append(c);
+        }
+        return folded.toString();
+    }
+
+    private static char[] foldTable() {
+        char[] table = new char[0x2000];
+        for (char c = 0; c < table.length; c++) {
+            String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                table[c] = 0;
+            } else if (decomposed.length() > 1 && Character.getType(decomposed.charAt(1)) == Character.NON_SPACING_MARK) {
+                table[c] = decomposed.charAt(0);
+            } else {
+                table[c] = c;
+            }
+        }
+        table['đ'] = 'd';
+        return table;
+    }
+
+    private synchronized void apply(UnaryOperator<Snapshot> change) {
+        if (snapshot != null) {
+            snapshot = change.apply(snapshot);
+        }
+        if (changesDuringReload != null) {
+            changesDuringReload.add(change);
+        }
+    }
+
+    private Snapshot loadedSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            reloadLock.lock();
+            try {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            } finally {
+                reloadLock.unlock();
+            }
+        }
+        return current;
+    }
+
+    private void refresh() {
+        try {
+            reload();
+        } catch (Exception e) {
+            // Giữ ảnh chụp cũ; lần nạp sau sẽ thử lại
+            log.error("Error while reloading medicine catalogue", e);
+        }
+    }
+
+    /**
+     * Ảnh chụp bất biến của danh mục.
+     */
+    private record Snapshot(Map<UUID, MedicineSummary> byId, Index names, Index terms) {
+
+        static Snapshot of(Collection<MedicineSummary> summaries) {
+            Map<UUID, MedicineSummary> byId = new HashMap<>(summaries.size() * 2);
+            List<Key> names = new ArrayList<>(summaries.size());
+            List<Key> terms = new ArrayList<>(summaries.size() * 3);
+            for (MedicineSummary summary : summaries) {
+                byId.put(summary.medicineId(), summary);
+                String name = nameKey(summary);
+                names.add(new Key(name, summary));
+                for (String term : termKeys(name, summary)) {
+                    terms.add(new Key(term, summary));
+                }
+            }
+            return new Snapshot(byId, Index.sorted(names), Index.sorted(terms));
+        }
+
+        int size() {
+            return byId.size();
+        }
+
+        Snapshot with(MedicineSummary summary) {
+            MedicineSummary previous = byId.get(summary.medicineId());
+            Map<UUID, MedicineSummary> newById = new HashMap<>(byId);
+            newById.put(summary.medicineId(), summary);
+            return new Snapshot(newById,
+                    names.replace(previous, previous == null ? List.of() : List.of(nameKey(previous)),
+                            summary, List.of(nameKey(summary))),
+                    terms.replace(previous, previous == null ? List.of() : termKeys(nameKey(previous), previous),
+                            summary, termKeys(nameKey(summary), summary)));
+        }
+
+        Snapshot without(UUID medicineId) {
+            MedicineSummary previous = byId.get(medicineId);
+            if (previous == null) {
+                return this;
+            }
+            Map<UUID, MedicineSummary> newById = new HashMap<>(byId);
+            newById.remove(medicineId);
+            return new Snapshot(newById,
+                    names.replace(previous, List.of(nameKey(previous)), null, List.of()),
+                    terms.replace(previous, termKeys(nameKey(previous), previous), null, List.of()));
+        }
+
+        private static String nameKey(MedicineSummary summary) {
+            return normalize(summary.medicineName());
+        }
+
+        /**
+         * Các đuôi từ của tên (trừ tên đầy đủ, đã có trong chỉ mục tên) và của
+         * nhà sản xuất, không trùng lặp.
+         */
+        private static List<String> termKeys(String name, MedicineSummary summary) {
+            List<String> keys = new ArrayList<>();
+            addWordSuffixes(name, 1, keys);
+            String manufacturer = normalize(summary.manufacturer());
+            addWordSuffixes(manufacturer, 0, keys);
+            return keys.stream().distinct().toList();
+        }
+
+        private static void addWordSuffixes(String text, int from, List<String> keys) {
+            for (int i = Math.max(from, 0); i < text.length(); i++) {
+                if (Character.isLetterOrDigit(text.charAt(i))
+                        && (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)))) {
+                    keys.add(text.substring(i));
+                }
+            }
+        }
+    }
+
+    private record Key(String key, MedicineSummary value) {
+    }
+
+    /**
+     * Mảng khóa đã sắp xếp và mảng thuốc song song.
+     */
+    private record Index(String[] keys, MedicineSummary[] values) {
+
+        static Index sorted(List<Key> entries) {
+            entries.sort(Comparator.comparing(Key::key));
+            String[] keys = new String[entries.size()];
+            MedicineSummary[] values = new MedicineSummary[entries.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = entries.get(i).key();
+                values[i] = entries.get(i).value();
+            }
+            return new Index(keys, values);
+        }
+
+        /**
+         * Thêm các khóa khớp tiền tố vào kết quả cho tới khi đủ {@code limit}
+         * thuốc.
+         */
+        void collect(String prefix, Map<UUID, MedicineSummary> matches, int limit) {
+            for (int i = lowerBound(prefix); i < keys.length && matches.size() < limit
+                    && keys[i].startsWith(prefix); i++) {
+                matches.putIfAbsent(values[i].medicineId(), values[i]);
+            }
+        }
+
+        /**
+         * Tạo chỉ mục mới bỏ các khóa của {@code removed} và chèn các khóa của
+         * {@code added}, bằng một lần trộn tuyến tính (không sắp xếp lại).
+         */
+        Index replace(MedicineSummary removed, List<String> removedKeys, MedicineSummary added,
+                List<String> addedKeys) {
+            boolean[] dropped = new boolean[keys.length];
+            int droppedCount = 0;
+            for (String key : removedKeys) {
+                for (int i = lowerBound(key); i < keys.length && keys[i].equals(key); i++) {
+                    if (values[i] == removed && !dropped[i]) {
+                        dropped[i] = true;
+                        droppedCount++;
+                        break;
+                    }
+                }
+            }
+            String[] inserted = addedKeys.toArray(String[]::new);
+            Arrays.sort(inserted);
+
+            String[] newKeys = new String[keys.length - droppedCount + inserted.length];
+            MedicineSummary[] newValues = new MedicineSummary[newKeys.length];
+            int next = 0;
+            int j = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (dropped[i]) {
+                    continue;
+                }
+                while (j < inserted.length && inserted[j].compareTo(keys[i]) <= 0) {
+                    newKeys[next] = inserted[j++];
+                    newValues[next++] = added;
+                }
+                newKeys[next] = keys[i];
+                newValues[next++] = values[i];
+            }
+            while (j < inserted.length) {
+                newKeys[next] = inserted[j++];
+                newValues[next++] = added;
+            }
+            return new Index(newKeys, newValues);
+        }
+
+        /**
+         * Vị trí đầu tiên có khóa không nhỏ hơn {@code key}.
+         */
+        private int lowerBound(String key) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.pma.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Mỗi đêm (giờ pma.stock.lot-expiry-check-time, mặc định 02:00) đánh dấu các
+ * lô thuốc còn hàng sắp hết hạn (xem MedicineLotService.flagNearExpiryLots).
+ * Việc đánh dấu chỉ áp dụng cho lô chưa được đánh dấu, nên nhiều máy cùng chạy
+ * không gây trùng lặp.
+ */
+@Service
+public class MedicineLotExpiryScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(MedicineLotExpiryScheduler.class);
+
+    private final MedicineLotService lotService;
+    private final LocalTime checkTime;
+
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public MedicineLotExpiryScheduler(MedicineLotService lotService,
+            @Value("${pma.stock.lot-expiry-check-time:02:00}") String checkTime) {
+        this.lotService = lotService;
+        this.checkTime = LocalTime.parse(checkTime.trim());
+    }
+
+    /**
+     * Lên lịch kiểm tra hạn dùng hằng đêm sau khi ứng dụng sẵn sàng.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "medicine-lot-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long initialDelay = delayUntilNextRun(LocalDateTime.now(), checkTime).toMillis();
+        scheduler.scheduleAtFixedRate(this::checkExpiry, initialDelay, Duration.ofDays(1).toMillis(),
+                TimeUnit.MILLISECONDS);
+        log.info("Medicine lot expiry check scheduled daily at {}", checkTime);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Thời gian chờ tới lần kiểm tra kế tiếp: giờ kiểm tra của hôm nay nếu còn
+     * ở phía trước, nếu không thì của ngày mai.
+     */
+    static Duration delayUntilNextRun(LocalDateTime now, LocalTime checkTime) {
+        LocalDateTime nextRun = now.toLocalDate().atTime(checkTime);
+        if (!nextRun.isAfter(now)) {
+            nextRun = nextRun.plusDays(1);
+        }
+        return Duration.between(now, nextRun);
+    }
+
+    void checkExpiry() {
+        try {
+            int flagged = lotService.flagNearExpiryLots();
+            log.info("Medicine lot expiry check: {} lot(s) newly flagged", flagged);
+        } catch (Exception e) {
+            // Không để ngoại lệ làm dừng luồng định kỳ; lô chưa đánh dấu sẽ được xử lý đêm sau
+            log.error("Error while flagging medicine lots near expiry", e);
+        }
+    }
+}
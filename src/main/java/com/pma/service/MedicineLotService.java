@@ -0,0 +1,274 @@
+package com.pma.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.pma.model.entity.DispensedLot;
+import com.pma.model.entity.Medicine;
+import com.pma.model.entity.MedicineLot;
+import com.pma.model.entity.Prescription;
+import com.pma.repository.DispensedLotRepository;
+import com.pma.repository.MedicineLotRepository;
+import com.pma.repository.MedicineRepository;
+
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Quản lý lô thuốc (số lô, hạn dùng, số lượng) và phân bổ lô khi xuất thuốc
+ * theo nguyên tắc hết hạn trước, xuất trước (FEFO).
+ * <p>
+ * Medicine.stockQuantity vẫn là tổng tồn kho và vẫn được kiểm tra, trừ bằng
+ * các câu lệnh UPDATE có điều kiện như trước; nhập lô cộng vào tồn kho, còn
+ * phân bổ lô chỉ cho biết phần đã xuất nằm ở lô nào. Khi xuất một đơn, các lô
+ * còn hạn của mọi thuốc trong đơn được khóa và nạp bằng một truy vấn, xếp vào
+ * hàng đợi ưu tiên theo hạn dùng của từng thuốc và lấy dần từ đầu hàng đợi.
+ * Các lô bị trừ và các bản ghi DispensedLot được ghi khi flush thành một batch
+ * UPDATE và một batch INSERT (JDBC batching, xem HibernateConfig).
+ */
+@Service
+public class MedicineLotService {
+
+    private static final Logger log = LoggerFactory.getLogger(MedicineLotService.class);
+
+    /**
+     * Thứ tự xuất lô: hạn dùng sớm nhất trước, cùng hạn thì lô nhập trước.
+     */
+    private static final Comparator<MedicineLot> FEFO_ORDER = Comparator.comparing(MedicineLot::getExpiryDate)
+            .thenComparing(MedicineLot::getCreatedAt)
+            .thenComparing(MedicineLot::getLotNumber);
+
+    private final MedicineLotRepository lotRepository;
+    private final DispensedLotRepository dispensedLotRepository;
+    private final MedicineRepository medicineRepository;
+    private final MedicineService medicineService;
+    private final int expiryWarningDays;
+
+    @Autowired
+    public MedicineLotService(MedicineLotRepository lotRepository,
+            DispensedLotRepository dispensedLotRepository,
+            MedicineRepository medicineRepository,
+            MedicineService medicineService,
+            @Value("${pma.stock.expiry-warning-days:90}") int expiryWarningDays) {
+        if (expiryWarningDays < 0) {
+            throw new IllegalArgumentException("pma.stock.expiry-warning-days cannot be negative: " + expiryWarningDays);
+        }
+        this.lotRepository = lotRepository;
+        this.dispensedLotRepository = dispensedLotRepository;
+        this.medicineRepository = medicineRepository;
+        this.medicineService = medicineService;
+        this.expiryWarningDays = expiryWarningDays;
+    }
+
+    /**
+     * Nhập một lô thuốc: cộng số lượng vào lô (tạo lô nếu chưa có) và vào tồn
+     * kho của thuốc.
+     *
+     * @param medicineId ID của thuốc.
+     * @param lotNumber Số lô.
+     * @param expiryDate Hạn dùng.
+     * @param quantity Số lượng nhập (dương).
+     * @return MedicineLot sau khi nhập.
+     * @throws EntityNotFoundException nếu không tìm thấy thuốc.
+     * @throws IllegalArgumentException nếu dữ liệu không hợp lệ, lô đã hết hạn
+     * hoặc số lô đã tồn tại với hạn dùng khác.
+     */
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
+    public MedicineLot receiveLot(UUID medicineId, String lotNumber, LocalDate expiryDate, int quantity) {
+        log.info("Attempting to receive {} unit(s) of lot {} for medicine id: {}", quantity, lotNumber, medicineId);
+        if (lotNumber == null || lotNumber.trim().isEmpty()) {
+            throw new IllegalArgumentException("Lot number cannot be empty.");
+        }
+        if (expiryDate == null) {
+            throw new IllegalArgumentException("Lot expiry date is required.");
+        }
+        if (expiryDate.isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("Cannot receive a lot that has already expired: " + expiryDate);
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Received quantity must be positive.");
+        }
+
+        String number = lotNumber.trim();
+        MedicineLot lot = lotRepository.findByMedicineIdAndLotNumber(medicineId, number).orElse(null);
+        if (lot != null && !lot.getExpiryDate().equals(expiryDate)) {
+            log.warn("Lot {} of medicine id: {} already exists with expiry date {}", number, medicineId,
+                    lot.getExpiryDate());
+            throw new IllegalArgumentException("Lot '" + number + "' already exists with expiry date "
+                    + lot.getExpiryDate() + ".");
+        }
+        // Kiểm tra thuốc tồn tại và cộng tồn kho
+        medicineService.updateStockQuantity(medicineId, quantity);
+
+        if (lot == null) {
+            lot = new MedicineLot();
+            lot.setMedicine(medicineRepository.getReferenceById(medicineId));
+            lot.setLotNumber(number);
+            lot.setExpiryDate(expiryDate);
+            lot.setQuantity(quantity);
+            lot = lotRepository.save(lot);
+        } else {
+            lot.setQuantity(lot.getQuantity() + quantity);
+        }
+        log.info("Lot {} of medicine id: {} now has {} unit(s)", number, medicineId, lot.getQuantity());
+        return lot;
+    }
+
+    /**
+     * Hủy phần còn lại của một lô (ví dụ lô hết hạn hoặc bị thu hồi): trừ khỏi
+     * tồn kho của thuốc và đưa số lượng lô về 0.
+     *
+     * @param lotId ID của lô.
+     * @return Số lượng đã hủy.
+     * @throws EntityNotFoundException nếu không tìm thấy lô.
+     * @throws IllegalArgumentException nếu tồn kho còn lại sẽ thấp hơn lượng
+     * đang được giữ cho các đơn thuốc.
+     */
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
+    public int writeOffLot(UUID lotId) {
+        MedicineLot lot = lotRepository.findById(lotId)
+                .orElseThrow(() -> new EntityNotFoundException("Medicine lot not found with id: " + lotId));
+        int quantity = lot.getQuantity();
+        if (quantity > 0) {
+            medicineService.updateStockQuantity(lot.getMedicine().getMedicineId(), -quantity);
+            lot.setQuantity(0);
+            log.info("Wrote off {} unit(s) of lot {} (id: {})", quantity, lot.getLotNumber(), lotId);
+        }
+        return quantity;
+    }
+
+    /**
+     * Phân bổ số lượng vừa xuất của một đơn thuốc vào các lô theo FEFO. Phải
+     * được gọi sau khi tồn kho đã được trừ, trong cùng transaction. Phần không
+     * có lô còn hạn để phân bổ (tồn kho nhập trước khi có lô) được trả về trong
+     * LotAllocation.untracked(); tồn kho loại này của từng thuốc xem được trước
+     * khi xuất qua {@link #getUntrackedQuantity(UUID)}.
+     *
+     * @param prescription Đơn thuốc được xuất.
+     * @param quantities Map từ medicineId tới số lượng đã xuất.
+     * @return Các DispensedLot đã tạo và phần không theo lô.
+     */
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
+    public LotAllocation allocate(Prescription prescription, Map<UUID, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return LotAllocation.EMPTY;
+        }
+        Map<UUID, PriorityQueue<MedicineLot>> lotsByMedicine = new HashMap<>();
+        for (MedicineLot lot : lotRepository.findAllocatableForUpdate(quantities.keySet(), LocalDate.now())) {
+            lotsByMedicine.computeIfAbsent(lot.getMedicine().getMedicineId(), _ -> new PriorityQueue<>(FEFO_ORDER))
+                    .add(lot);
+        }
+
+        List<DispensedLot> allocations = new ArrayList<>();
+        Map<UUID, Integer> untracked = new HashMap<>();
+        quantities.forEach((medicineId, quantity) -> {
+            PriorityQueue<MedicineLot> lots = lotsByMedicine.get(medicineId);
+            int remaining = quantity;
+            while (remaining > 0 && lots != null && !lots.isEmpty()) {
+                MedicineLot lot = lots.poll();
+                int taken = Math.min(remaining, lot.getQuantity());
+                lot.setQuantity(lot.getQuantity() - taken);
+                DispensedLot allocation = new DispensedLot();
+                allocation.setPrescription(prescription);
+                allocation.setLot(lot);
+                allocation.setQuantity(taken);
+                allocations.add(allocation);
+                remaining -= taken;
+            }
+            if (remaining > 0) {
+                untracked.put(medicineId, remaining);
+            }
+        });
+        dispensedLotRepository.saveAll(allocations);
+
+        if (!untracked.isEmpty()) {
+            log.warn("Prescription {}: no unexpired lot covers {} (medicineId -> quantity); dispensed from untracked stock.",
+                    prescription.getPrescriptionId(), untracked);
+        }
+        log.info("Prescription {} allocated to {} lot(s)", prescription.getPrescriptionId(), allocations.size());
+        return new LotAllocation(allocations, untracked);
+    }
+
+    /**
+     * Xóa các bản ghi xuất lô của một đơn thuốc, trước khi đơn bị xóa. Số lượng
+     * lô không được hoàn lại (giống tồn kho của đơn đã xuất).
+     *
+     * @param prescriptionId ID của đơn thuốc.
+     */
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
+    public void removePrescription(UUID prescriptionId) {
+        dispensedLotRepository.deleteByPrescriptionId(prescriptionId);
+    }
+
+    /**
+     * Lấy các lô của một thuốc, hết hạn sớm nhất trước.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<MedicineLot> getLots(UUID medicineId) {
+        return lotRepository.findByMedicineId(medicineId);
+    }
+
+    /**
+     * Lấy các lô đã xuất cho một đơn thuốc (lô nào, bao nhiêu).
+     */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<DispensedLot> getDispensedLots(UUID prescriptionId) {
+        return dispensedLotRepository.findWithLotByPrescriptionId(prescriptionId);
+    }
+
+    /**
+     * Lấy phần tồn kho của một thuốc không nằm trong lô còn hạn nào (tồn kho
+     * nhập trước khi có lô, hoặc còn lại trong lô đã hết hạn chưa hủy). Phần
+     * này khi xuất sẽ không phân bổ được vào lô.
+     *
+     * @param medicineId ID của thuốc.
+     * @return Số lượng không theo lô (không âm).
+     * @throws EntityNotFoundException nếu không tìm thấy thuốc.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public int getUntrackedQuantity(UUID medicineId) {
+        Medicine medicine = medicineRepository.findById(medicineId)
+                .orElseThrow(() -> new EntityNotFoundException("Medicine not found with id: " + medicineId));
+        long inLots = lotRepository.sumAllocatableQuantity(medicineId, LocalDate.now());
+        return (int) Math.max(0, medicine.getStockQuantity() - inLots);
+    }
+
+    /**
+     * Lấy các lô còn hàng đã hết hạn hoặc sẽ hết hạn trong
+     * pma.stock.expiry-warning-days ngày tới (kèm thuốc).
+     */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<MedicineLot> getNearExpiryLots() {
+        return lotRepository.findExpiringBy(LocalDate.now().plusDays(expiryWarningDays));
+    }
+
+    /**
+     * Đánh dấu các lô còn hàng sắp hết hạn (trong pma.stock.expiry-warning-days
+     * ngày tới, kể cả lô đã hết hạn) chưa được đánh dấu.
+     *
+     * @return Số lô vừa được đánh dấu.
+     */
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
+    public int flagNearExpiryLots() {
+        int flagged = lotRepository.flagNearExpiry(LocalDate.now().plusDays(expiryWarningDays), LocalDateTime.now());
+        if (flagged > 0) {
+            log.warn("{} medicine lot(s) expire within {} day(s)", flagged, expiryWarningDays);
+        }
+        return flagged;
+    }
+}
@@ -1,7 +1,10 @@
 package com.pma.service;
 
 import java.math.BigDecimal; // Import Entity Medicine
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List; // Import Enum MedicineStatus
+import java.util.Map;
 import java.util.UUID; // Import Repository Medicine
 
 import org.slf4j.Logger; // Import nếu cần kiểm tra ràng buộc khi xóa
@@ -20,6 +23,7 @@ import com.pma.model.enums.MedicineStatus;
 import com.pma.repository.MedicineRepository;
 import com.pma.repository.PrescriptionDetailRepository;
 
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 
 /**
@@ -32,12 +36,24 @@ public class MedicineService {
 
     private final MedicineRepository medicineRepository;
     private final PrescriptionDetailRepository prescriptionDetailRepository; // Cần để kiểm tra trước khi xóa
+    private final ReferenceDataCache referenceDataCache;
+    private final EntityManager entityManager;
+    private final LowStockAlertService lowStockAlertService;
+    private final MedicineCatalog medicineCatalog;
 
     @Autowired
     public MedicineService(MedicineRepository medicineRepository,
-            PrescriptionDetailRepository prescriptionDetailRepository) {
+            PrescriptionDetailRepository prescriptionDetailRepository,
+            ReferenceDataCache referenceDataCache,
+            EntityManager entityManager,
+            LowStockAlertService lowStockAlertService,
+            MedicineCatalog medicineCatalog) {
         this.medicineRepository = medicineRepository;
         this.prescriptionDetailRepository = prescriptionDetailRepository;
+        this.referenceDataCache = referenceDataCache;
+        this.entityManager = entityManager;
+        this.lowStockAlertService = lowStockAlertService;
+        this.medicineCatalog = medicineCatalog;
     }
 
     /**
@@ -64,6 +80,9 @@ public class MedicineService {
         if (medicine.getStockQuantity() < 0) {
             throw new IllegalArgumentException("Stock quantity cannot be negative.");
         }
+        if (medicine.getReorderThreshold() != null && medicine.getReorderThreshold() < 0) {
+            throw new IllegalArgumentException("Reorder threshold cannot be negative.");
+        }
 
         // Kiểm tra trùng tên (UNIQUE constraint)
         medicineRepository.findByMedicineNameIgnoreCase(medicine.getMedicineName()).ifPresent(_ -> {
@@ -79,6 +98,8 @@ public class MedicineService {
         }
 
         Medicine savedMedicine = medicineRepository.save(medicine);
+        referenceDataCache.evictMedicines();
+        medicineCatalog.upsertAfterCommit(savedMedicine);
         log.info("Successfully created medicine with id: {}", savedMedicine.getMedicineId());
         return savedMedicine;
     }
@@ -110,7 +131,9 @@ public class MedicineService {
     }
 
     /**
-     * Tìm kiếm thuốc theo tên (không phân biệt hoa thường).
+     * Tìm kiếm thuốc theo tên (không phân biệt hoa thường). Truy vấn LIKE
+     * '%...%' quét cả bảng; ô tìm thuốc theo từng ký tự gõ nên dùng
+     * {@link MedicineCatalog#suggest(String, int)}.
      */
     @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<Medicine> searchMedicinesByName(String nameFragment) {
@@ -165,10 +188,18 @@ public class MedicineService {
         if (medicineDetails.getStatus() != null) {
             existingMedicine.setStatus(medicineDetails.getStatus());
         }
+        if (medicineDetails.getReorderThreshold() != null) {
+            if (medicineDetails.getReorderThreshold() < 0) {
+                throw new IllegalArgumentException("Reorder threshold cannot be negative.");
+            }
+            existingMedicine.setReorderThreshold(medicineDetails.getReorderThreshold());
+        }
         // Không nên cho phép cập nhật tồn kho trực tiếp qua đây, nên có phương thức
         // riêng
 
         // Transaction commit sẽ lưu thay đổi
+        referenceDataCache.evictMedicines();
+        medicineCatalog.upsertAfterCommit(existingMedicine);
         log.info("Medicine details update process completed for id: {}", id);
         return existingMedicine;
     }
@@ -176,41 +207,104 @@ public class MedicineService {
     /**
      * Cập nhật số lượng tồn kho cho một loại thuốc. Có thể dùng số âm để giảm
      * tồn kho.
+     * <p>
+     * Việc kiểm tra và cập nhật diễn ra trong một câu lệnh UPDATE có điều kiện,
+     * nên nhiều máy cùng xuất một loại thuốc không làm mất lượt trừ nào.
      *
      * @param medicineId ID của thuốc.
      * @param quantityChange Số lượng thay đổi (dương để tăng, âm để giảm).
      * @return Medicine với số lượng tồn kho đã cập nhật.
      * @throws EntityNotFoundException nếu không tìm thấy Medicine.
-     * @throws IllegalArgumentException nếu số lượng tồn kho mới sẽ thành âm.
+     * @throws IllegalArgumentException nếu số lượng tồn kho mới sẽ thành âm
+     * hoặc thấp hơn lượng đang được giữ cho các đơn thuốc.
      */
     @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
     public Medicine updateStockQuantity(UUID medicineId, int quantityChange) {
         log.info("Attempting to update stock quantity for medicine id: {} by {}", medicineId, quantityChange);
-        Medicine medicine = getMedicineById(medicineId);
+        if (medicineRepository.adjustStock(medicineId, quantityChange) == 0) {
+            if (!medicineRepository.existsById(medicineId)) {
+                throw new EntityNotFoundException("Medicine not found with id: " + medicineId);
+            }
+            log.warn("Stock update failed for medicine id: {}. Resulting quantity cannot be negative"
+                    + " or below the reserved quantity.", medicineId);
+            throw new IllegalArgumentException(
+                    "Cannot update stock. Resulting quantity would be negative or below the reserved quantity.");
+        }
+        if (quantityChange < 0) {
+            lowStockAlertService.checkAfterDecrease(Map.of(medicineId, -quantityChange));
+        }
 
-        int newStock = medicine.getStockQuantity() + quantityChange;
-        if (newStock < 0) {
-            log.warn("Stock update failed for medicine id: {}. New stock quantity ({}) cannot be negative.", medicineId,
-                    newStock);
-            throw new IllegalArgumentException("Cannot update stock. Resulting quantity would be negative.");
+        // Medicine có thể đã nằm trong persistence context với tồn kho cũ
+        Medicine updatedMedicine = getMedicineById(medicineId);
+        entityManager.refresh(updatedMedicine);
+        if (updatedMedicine.getStockQuantity() == 0 && updatedMedicine.getStatus() == MedicineStatus.OUT_OF_STOCK) {
+            log.info("Medicine id: {} is out of stock.", medicineId);
         }
+        log.info("Successfully updated stock quantity for medicine id: {} to {}", medicineId,
+                updatedMedicine.getStockQuantity());
+        return updatedMedicine;
+    }
 
-        medicine.setStockQuantity(newStock);
+    /**
+     * Cập nhật tồn kho của nhiều loại thuốc cùng lúc (ví dụ: khi xuất một đơn
+     * thuốc), bằng một câu lệnh UPDATE cho cả lô. Hoặc tất cả thuốc được cập
+     * nhật, hoặc không thuốc nào (transaction bị rollback).
+     *
+     * @param quantityChanges Map từ medicineId tới số lượng thay đổi.
+     * @throws IllegalArgumentException nếu có ID/số lượng null, hoặc có thuốc
+     * không tồn tại hay tồn kho mới sẽ thành âm.
+     */
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
+    public void updateStockQuantities(Map<UUID, Integer> quantityChanges) {
+        Map<UUID, Integer> changes = new HashMap<>();
+        quantityChanges.forEach((medicineId, change) -> {
+            if (medicineId == null || change == null) {
+                throw new IllegalArgumentException("Medicine id and quantity change are required.");
+            }
+            if (change != 0) {
+                changes.put(medicineId, change);
+            }
+        });
+        if (changes.isEmpty()) {
+            return;
+        }
+        log.info("Attempting to update stock quantity for {} medicine(s)", changes.size());
 
-        // Cập nhật trạng thái nếu cần (ví dụ: hết hàng)
-        if (newStock == 0 && medicine.getStatus() == MedicineStatus.AVAILABLE) {
-            medicine.setStatus(MedicineStatus.OUT_OF_STOCK);
-            log.info("Medicine status set to OUT_OF_STOCK for id: {} due to zero stock.", medicineId);
-        } else if (newStock > 0 && medicine.getStatus() == MedicineStatus.DISCONTINUED) {
-            // Tự động chuyển về Available nếu có hàng lại? Tùy logic nghiệp vụ
-            // medicine.setStatus(MedicineStatus.Available);
+        int updated = medicineRepository.adjustStockBatch(changes);
+        if (updated != changes.size()) {
+            log.warn("Batch stock update failed: {} of {} medicine(s) not found or short of stock.",
+                    changes.size() - updated, changes.size());
+            throw new IllegalArgumentException("Cannot update stock for " + (changes.size() - updated) + " of "
+                    + changes.size() + " medicine(s): medicine not found or resulting quantity would be negative.");
         }
+        Map<UUID, Integer> decreases = new HashMap<>();
+        changes.forEach((medicineId, change) -> decreases.put(medicineId, -change));
+        lowStockAlertService.checkAfterDecrease(decreases);
+        log.info("Successfully updated stock quantity for {} medicine(s)", updated);
+    }
 
-        // Dùng save() rõ ràng để đảm bảo cập nhật được thực hiện ngay lập tức nếu cần
-        // đọc lại giá trị mới
-        Medicine updatedMedicine = medicineRepository.save(medicine);
-        log.info("Successfully updated stock quantity for medicine id: {} to {}", medicineId, newStock);
-        return updatedMedicine;
+    /**
+     * Lấy tồn kho khả dụng (tồn kho trừ lượng đang giữ cho các đơn thuốc chưa
+     * xuất) của nhiều loại thuốc bằng một truy vấn, đọc thẳng từ cơ sở dữ liệu.
+     *
+     * @param medicineIds Các ID thuốc.
+     * @return Map từ medicineId tới tồn kho khả dụng (thuốc không tồn tại bị
+     * bỏ qua).
+     */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Map<UUID, Integer> getAvailableQuantities(Collection<UUID> medicineIds) {
+        if (medicineIds.isEmpty()) {
+            return Map.of();
+        }
+        // SQL Server giới hạn 2100 tham số cho mỗi câu lệnh
+        List<UUID> ids = List.copyOf(medicineIds);
+        Map<UUID, Integer> available = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += 1000) {
+            for (Object[] row : medicineRepository.findAvailableQuantities(ids.subList(from, Math.min(from + 1000, ids.size())))) {
+                available.put((UUID) row[0], ((Number) row[1]).intValue());
+            }
+        }
+        return available;
     }
 
     /**
@@ -248,6 +342,8 @@ public class MedicineService {
         // 3. Nếu không có ràng buộc, tiến hành xóa
         try {
             medicineRepository.deleteById(id);
+            referenceDataCache.evictMedicines();
+            medicineCatalog.removeAfterCommit(id);
             log.info("Successfully deleted medicine with id: {}", id);
         } catch (DataIntegrityViolationException e) {
             // Dự phòng nếu có lỗi ràng buộc khác
@@ -0,0 +1,31 @@
+package com.pma.service;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import com.pma.model.entity.Medicine;
+
+/**
+ * Thông tin rút gọn của một thuốc trong danh mục tìm kiếm (MedicineCatalog):
+ * đủ để hiển thị gợi ý và điền sẵn đơn giá, không giữ entity.
+ *
+ * @param medicineId ID của thuốc.
+ * @param medicineName Tên thuốc.
+ * @param manufacturer Nhà sản xuất (có thể null).
+ * @param unit Đơn vị tính.
+ * @param price Đơn giá hiện tại.
+ */
+public record MedicineSummary(UUID medicineId, String medicineName, String manufacturer, String unit,
+        BigDecimal price) {
+
+    /**
+     * Tạo thông tin rút gọn từ một Medicine đã nạp.
+     *
+     * @param medicine Thuốc nguồn.
+     * @return MedicineSummary tương ứng.
+     */
+    public static MedicineSummary of(Medicine medicine) {
+        return new MedicineSummary(medicine.getMedicineId(), medicine.getMedicineName(), medicine.getManufacturer(),
+                medicine.getUnit(), medicine.getPrice());
+    }
+}
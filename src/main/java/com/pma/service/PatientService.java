@@ -241,12 +241,8 @@ public class PatientService {
                 // Ví dụ: String adminUsername = SecurityContextHolder.getContext().getAuthentication().getName();
                 // Hiện tại, chúng ta sẽ dùng một placeholder.
                 String adminUsername = "Quản trị viên"; // Placeholder, có thể truyền từ controller nếu cần
-                try {
-                    emailService.sendAccountDeletionNotification(patientEmail, patientFullName, "Bệnh nhân", adminUsername);
-                    log.info("Requested to send account deletion notification to former patient: {}", patientEmail);
-                } catch (Exception ex) {
-                    log.error("Failed to send deletion notification email to patient {}: {}", patientEmail, ex.getMessage());
-                }
+                // Ghi vào outbox trong cùng transaction: lỗi ghi sẽ rollback cả việc xóa
+                emailService.sendAccountDeletionNotification(patientEmail, patientFullName, "Bệnh nhân", adminUsername);
             } else {
                 log.warn("Patient {} (ID: {}) did not have an email. Deletion notification not sent.", patientFullName, id);
             }
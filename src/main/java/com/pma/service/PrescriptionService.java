@@ -19,8 +19,12 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set; // Cần cho PrescriptionDetails
 import java.util.UUID;
@@ -37,6 +41,8 @@ public class PrescriptionService {
     private final MedicalRecordRepository medicalRecordRepository; // Optional
     private final MedicineRepository medicineRepository; // Cần để lấy giá thuốc
     private final PrescriptionDetailRepository prescriptionDetailRepository; // Cần để lưu chi tiết
+    private final StockReservationService stockReservationService;
+    private final BillItemRepository billItemRepository;
 
     @Autowired
     public PrescriptionService(PrescriptionRepository prescriptionRepository,
@@ -44,13 +50,17 @@ public class PrescriptionService {
             DoctorRepository doctorRepository,
             MedicalRecordRepository medicalRecordRepository,
             MedicineRepository medicineRepository,
-            PrescriptionDetailRepository prescriptionDetailRepository) {
+            PrescriptionDetailRepository prescriptionDetailRepository,
+            StockReservationService stockReservationService,
+            BillItemRepository billItemRepository) {
         this.prescriptionRepository = prescriptionRepository;
         this.patientRepository = patientRepository;
         this.doctorRepository = doctorRepository;
         this.medicalRecordRepository = medicalRecordRepository;
         this.medicineRepository = medicineRepository;
         this.prescriptionDetailRepository = prescriptionDetailRepository;
+        this.stockReservationService = stockReservationService;
+        this.billItemRepository = billItemRepository;
     }
 
     /**
@@ -68,7 +78,7 @@ public class PrescriptionService {
      * @throws EntityNotFoundException nếu Patient, Doctor, MedicalRecord (nếu
      * có), hoặc Medicine không tồn tại.
      * @throws IllegalArgumentException nếu thông tin chi tiết không hợp lệ (ví
-     * dụ: số lượng <= 0).
+     * dụ: số lượng <= 0) hoặc không đủ tồn kho khả dụng để giữ cho đơn.
      */
     @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
     public Prescription createPrescription(Prescription prescription, UUID patientId, UUID doctorId, UUID medicalRecordId,
@@ -118,15 +128,10 @@ public class PrescriptionService {
         }
 
         // --- Xử lý và tạo PrescriptionDetails ---
+        Map<UUID, Medicine> medicines = loadMedicines(prescriptionDetailDTOs);
         Set<PrescriptionDetail> details = new HashSet<>();
         for (PrescriptionDetailDTO dto : prescriptionDetailDTOs) {
-            if (dto.getQuantity() <= 0) {
-                throw new IllegalArgumentException("Quantity must be positive for medicineId: " + dto.getMedicineId());
-            }
-
-            Medicine medicine = medicineRepository.findById(dto.getMedicineId())
-                    .orElseThrow(
-                            () -> new EntityNotFoundException("Medicine not found with id: " + dto.getMedicineId()));
+            Medicine medicine = medicines.get(dto.getMedicineId());
 
             // Kiểm tra tồn kho (stockQuantity) của medicine nếu cần
             // if (medicine.getStockQuantity() < dto.getQuantity()) { ... }
@@ -150,21 +155,25 @@ public class PrescriptionService {
         Prescription savedPrescription = prescriptionRepository.save(prescription);
         log.info("Successfully created prescription with id: {}", savedPrescription.getPrescriptionId());
 
-        // Có thể cần cập nhật tồn kho thuốc ở đây (trong cùng transaction)
-        // updateStockQuantities(details);
+        // Giữ tồn kho cho tất cả các dòng bằng một câu lệnh (trong cùng transaction)
+        stockReservationService.syncPrescription(savedPrescription, null);
         return savedPrescription;
     }
 
     /**
-     * Cập nhật thông tin của một đơn thuốc, bao gồm cả chi tiết. Hiện tại,
-     * logic cập nhật chi tiết là xóa hết chi tiết cũ và thêm chi tiết mới từ
-     * form.
+     * Cập nhật thông tin của một đơn thuốc, bao gồm cả chi tiết. Chi tiết được
+     * cập nhật theo phần chênh lệch (xem {@link #applyDetailChanges}): dòng cũ
+     * khớp thuốc được giữ lại và sửa tại chỗ, nên ID của chúng (và các BillItem
+     * tham chiếu tới) không đổi. Lượng giữ tồn kho được điều chỉnh theo chi tiết
+     * và trạng thái mới (xem StockReservationService).
      *
      * @param prescriptionId ID của đơn thuốc cần cập nhật.
      * @param prescriptionData Đối tượng chứa thông tin mới (ngày, ghi chú,
      * trạng thái).
      * @param detailDTOs Danh sách DTO chi tiết đơn thuốc mới.
      * @return Prescription đã được cập nhật.
+     * @throws IllegalArgumentException nếu bản cập nhật bỏ một dòng đã được lập
+     * hóa đơn (BillItem tham chiếu tới), hoặc chi tiết không hợp lệ.
      */
     @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
     public Prescription updatePrescription(UUID prescriptionId, Prescription prescriptionData, List<PrescriptionDetailDTO> detailDTOs) {
@@ -172,47 +181,161 @@ public class PrescriptionService {
         Prescription existingPrescription = getPrescriptionById(prescriptionId);
 
         // Cập nhật các trường chính
+        PrescriptionStatus previousStatus = existingPrescription.getStatus();
         existingPrescription.setPrescriptionDate(prescriptionData.getPrescriptionDate());
         existingPrescription.setNotes(prescriptionData.getNotes());
         existingPrescription.setStatus(prescriptionData.getStatus());
 
-        // Cập nhật chi tiết: Xóa cũ, thêm mới.
-        // Giả định orphanRemoval=true trên Prescription.prescriptionDetails sẽ lo việc xóa khỏi DB.
-        existingPrescription.getPrescriptionDetails().clear();
+        List<PrescriptionDetailDTO> dtos = detailDTOs != null ? detailDTOs : List.of();
+        Map<UUID, Medicine> medicines = dtos.isEmpty() ? Map.of() : loadMedicines(dtos);
+        DetailChanges changes = applyDetailChanges(existingPrescription, dtos, medicines);
+        stockReservationService.syncPrescription(existingPrescription, previousStatus);
+
+        log.info("Prescription with id: {} updated successfully ({} detail(s) added, {} updated, {} removed).",
+                prescriptionId, changes.inserted(), changes.updated(), changes.deleted());
+        // Không cần gọi save() vì existingPrescription là managed entity.
+        return existingPrescription;
+    }
+
+    /**
+     * Lấy Prescription theo ID, đảm bảo các chi tiết (doctor,
+     * prescriptionDetails, medicine) được tải eager.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Optional<Prescription> getPrescriptionByIdWithDetails(UUID id) {
+        log.info("Fetching prescription with id: {} with details", id);
+        // prescriptionRepository.findById đã có @EntityGraph để tải eager doctor và prescriptionDetails.medicine
+        return prescriptionRepository.findById(id);
+    }
+
+    /**
+     * Số chi tiết đơn thuốc được thêm, sửa và xóa trong một lần cập nhật.
+     */
+    private record DetailChanges(int inserted, int updated, int deleted) {
+    }
+
+    /**
+     * Đưa chi tiết của đơn thuốc về đúng danh sách DTO với ít thay đổi nhất.
+     * <p>
+     * Mỗi DTO được ghép với một chi tiết cũ cùng thuốc: trước hết với dòng giống
+     * hệt (không cần ghi), sau đó với dòng bất kỳ còn lại của thuốc đó (chỉ sửa
+     * số lượng, liều dùng, hướng dẫn; đơn giá lúc kê được giữ nguyên). DTO không
+     * ghép được trở thành dòng mới; chi tiết cũ không được ghép bị gỡ khỏi đơn và
+     * orphanRemoval sẽ xóa chúng khỏi DB. Dòng đã được lập hóa đơn không được
+     * xóa: lỗi được báo trước khi flush, thay vì vi phạm khóa ngoại.
+     *
+     * @param prescription Đơn thuốc (managed) cần cập nhật.
+     * @param dtos Danh sách chi tiết mới, đã được kiểm tra.
+     * @param medicines Các thuốc được tham chiếu, theo ID.
+     * @return Số chi tiết được thêm, sửa và xóa.
+     * @throws IllegalArgumentException nếu có chi tiết cần xóa đang được
+     * BillItem tham chiếu (liệt kê tất cả các ID).
+     */
+    private DetailChanges applyDetailChanges(Prescription prescription, List<PrescriptionDetailDTO> dtos,
+            Map<UUID, Medicine> medicines) {
+        Map<UUID, List<PrescriptionDetail>> unmatched = new HashMap<>();
+        for (PrescriptionDetail detail : prescription.getPrescriptionDetails()) {
+            unmatched.computeIfAbsent(detail.getMedicine().getMedicineId(), _ -> new ArrayList<>()).add(detail);
+        }
 
-        if (detailDTOs != null && !detailDTOs.isEmpty()) {
-            for (PrescriptionDetailDTO dto : detailDTOs) {
-                if (dto.getQuantity() <= 0) {
-                    throw new IllegalArgumentException("Quantity must be positive for medicineId: " + dto.getMedicineId());
-                }
-                Medicine medicine = medicineRepository.findById(dto.getMedicineId())
-                        .orElseThrow(() -> new EntityNotFoundException("Medicine not found with id: " + dto.getMedicineId()));
+        // Lượt 1: ghép các dòng giống hệt, không phát sinh câu lệnh nào
+        List<PrescriptionDetailDTO> pending = new ArrayList<>();
+        for (PrescriptionDetailDTO dto : dtos) {
+            List<PrescriptionDetail> candidates = unmatched.getOrDefault(dto.getMedicineId(), List.of());
+            PrescriptionDetail same = candidates.stream().filter(d -> isSameDetail(d, dto)).findFirst().orElse(null);
+            if (same != null) {
+                candidates.remove(same);
+            } else {
+                pending.add(dto);
+            }
+        }
 
+        // Lượt 2: sửa tại chỗ dòng cùng thuốc còn lại, hoặc thêm dòng mới
+        int inserted = 0;
+        int updated = 0;
+        for (PrescriptionDetailDTO dto : pending) {
+            List<PrescriptionDetail> candidates = unmatched.getOrDefault(dto.getMedicineId(), List.of());
+            if (!candidates.isEmpty()) {
+                PrescriptionDetail detail = candidates.remove(0);
+                detail.setQuantity(dto.getQuantity());
+                detail.setDosage(dto.getDosage());
+                detail.setInstructions(dto.getInstructions());
+                updated++;
+            } else {
+                Medicine medicine = medicines.get(dto.getMedicineId());
                 PrescriptionDetail detail = new PrescriptionDetail();
                 detail.setMedicine(medicine);
                 detail.setQuantity(dto.getQuantity());
                 detail.setDosage(dto.getDosage());
                 detail.setInstructions(dto.getInstructions());
                 detail.setUnitPrice(medicine.getPrice());
+                prescription.addPrescriptionDetail(detail);
+                inserted++;
+            }
+        }
 
-                existingPrescription.addPrescriptionDetail(detail);
+        List<UUID> removedIds = new ArrayList<>();
+        for (List<PrescriptionDetail> leftovers : unmatched.values()) {
+            for (PrescriptionDetail detail : leftovers) {
+                removedIds.add(detail.getPrescriptionDetailId());
+            }
+        }
+        if (!removedIds.isEmpty()) {
+            List<UUID> billed = billItemRepository.findBilledPrescriptionDetailIds(removedIds);
+            if (!billed.isEmpty()) {
+                throw new IllegalArgumentException(
+                        "Cannot remove prescription detail(s) already referenced by a bill item: " + billed);
             }
         }
 
-        log.info("Prescription with id: {} updated successfully.", prescriptionId);
-        // Không cần gọi save() vì existingPrescription là managed entity.
-        return existingPrescription;
+        int deleted = 0;
+        for (List<PrescriptionDetail> leftovers : unmatched.values()) {
+            for (PrescriptionDetail detail : leftovers) {
+                prescription.removePrescriptionDetail(detail);
+                deleted++;
+            }
+        }
+        return new DetailChanges(inserted, updated, deleted);
+    }
+
+    private static boolean isSameDetail(PrescriptionDetail detail, PrescriptionDetailDTO dto) {
+        return detail.getQuantity() == dto.getQuantity()
+                && Objects.equals(detail.getDosage(), dto.getDosage())
+                && Objects.equals(detail.getInstructions(), dto.getInstructions());
     }
 
     /**
-     * Lấy Prescription theo ID, đảm bảo các chi tiết (doctor,
-     * prescriptionDetails, medicine) được tải eager.
+     * Kiểm tra các chi tiết đơn thuốc và tải tất cả thuốc được tham chiếu bằng
+     * một truy vấn (thay vì một findById cho mỗi dòng).
+     *
+     * @param detailDTOs Danh sách chi tiết đơn thuốc.
+     * @return Map từ medicineId tới Medicine, chứa mọi thuốc được tham chiếu.
+     * @throws IllegalArgumentException nếu có dòng thiếu medicineId hoặc số
+     * lượng không dương.
+     * @throws EntityNotFoundException nếu có thuốc không tồn tại (liệt kê tất cả
+     * các ID không tìm thấy).
      */
-    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
-    public Optional<Prescription> getPrescriptionByIdWithDetails(UUID id) {
-        log.info("Fetching prescription with id: {} with details", id);
-        // prescriptionRepository.findById đã có @EntityGraph để tải eager doctor và prescriptionDetails.medicine
-        return prescriptionRepository.findById(id);
+    private Map<UUID, Medicine> loadMedicines(List<PrescriptionDetailDTO> detailDTOs) {
+        Set<UUID> medicineIds = new HashSet<>();
+        for (PrescriptionDetailDTO dto : detailDTOs) {
+            if (dto.getMedicineId() == null) {
+                throw new IllegalArgumentException("Medicine id is required for every prescription detail.");
+            }
+            if (dto.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Quantity must be positive for medicineId: " + dto.getMedicineId());
+            }
+            medicineIds.add(dto.getMedicineId());
+        }
+
+        Map<UUID, Medicine> medicines = new HashMap<>();
+        for (Medicine medicine : medicineRepository.findAllById(medicineIds)) {
+            medicines.put(medicine.getMedicineId(), medicine);
+        }
+        if (medicines.size() != medicineIds.size()) {
+            List<UUID> missing = medicineIds.stream().filter(id -> !medicines.containsKey(id)).toList();
+            throw new EntityNotFoundException("Medicine not found with id(s): " + missing);
+        }
+        return medicines;
     }
 
     /**
@@ -252,7 +375,9 @@ public class PrescriptionService {
         log.info("Attempting to update status for prescription id: {} to {}", id, newStatus);
         Prescription prescription = getPrescriptionById(id);
         // Thêm logic kiểm tra chuyển đổi trạng thái nếu cần
+        PrescriptionStatus previousStatus = prescription.getStatus();
         prescription.setStatus(newStatus);
+        stockReservationService.syncPrescription(prescription, previousStatus);
         log.info("Prescription status updated successfully for id: {}", id);
         return prescription;
     }
@@ -269,6 +394,7 @@ public class PrescriptionService {
             throw new EntityNotFoundException("Prescription not found with id: " + id);
         }
         try {
+            stockReservationService.removePrescription(id);
             prescriptionRepository.deleteById(id);
             log.info("Successfully deleted prescription with id: {}", id);
         } catch (DataIntegrityViolationException e) {
@@ -290,24 +416,6 @@ public class PrescriptionService {
         private String instructions;
     }
 
-    // --- Phương thức helper có thể có ---
-    /*
-     * @Transactional // Phải cùng transaction với createPrescription
-     * protected void updateStockQuantities(Set<PrescriptionDetail> details) {
-     * for (PrescriptionDetail detail : details) {
-     * // Giảm số lượng tồn kho
-     * int updatedRows =
-     * medicineRepository.updateStockQuantity(detail.getMedicine().getMedicineId(),
-     * -detail.getQuantity());
-     * if (updatedRows == 0) {
-     * // Xử lý lỗi nếu không cập nhật được (ví dụ: medicine bị xóa?)
-     * log.error("Failed to update stock for medicineId: {}",
-     * detail.getMedicine().getMedicineId());
-     * // Có thể throw exception để rollback transaction
-     * }
-     * }
-     * }
-     */
     // --- Phương thức để lấy Prescription kèm Details (ví dụ JOIN FETCH) ---
     /*
      * @Transactional(readOnly = true)
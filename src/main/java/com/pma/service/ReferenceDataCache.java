@@ -0,0 +1,209 @@
+package com.pma.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.pma.model.entity.Department;
+import com.pma.model.entity.Disease;
+import com.pma.model.entity.Medicine;
+import com.pma.repository.DepartmentRepository;
+import com.pma.repository.DiseaseRepository;
+import com.pma.repository.MedicineRepository;
+import com.pma.util.TransactionUtil;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Quản lý second-level cache và query cache của dữ liệu tham chiếu
+ * (Department, Disease, Medicine).
+ * <p>
+ * Hibernate tự cập nhật cache khi dữ liệu được ghi qua entity; các service vẫn
+ * gọi evict sau mỗi thao tác tạo/sửa/xóa để cache không giữ dữ liệu cũ khi bảng
+ * bị thay đổi theo cách Hibernate không theo dõi được (truy vấn cập nhật hàng
+ * loạt, SQL thuần). Việc xóa được thực hiện sau khi transaction commit.
+ * <p>
+ * Tỷ lệ trúng cache của từng vùng được ghi log định kỳ (cấu hình
+ * pma.cache.statistics-log-interval, 0 để tắt) và khi ứng dụng dừng.
+ */
+@Service
+public class ReferenceDataCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+    /**
+     * Chỉ số của một vùng cache.
+     *
+     * @param region Tên vùng cache.
+     * @param hits Số lần trúng cache.
+     * @param misses Số lần không trúng cache.
+     * @param puts Số lần đưa dữ liệu vào cache.
+     * @param elements Số phần tử đang có trong vùng cache (-1 nếu không rõ).
+     */
+    public record RegionStatistics(String region, long hits, long misses, long puts, long elements) {
+
+        /**
+         * Tỷ lệ trúng cache (0..1), 0 nếu chưa có lượt truy cập nào.
+         */
+        public double hitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    private static final List<String> ENTITY_REGIONS = List.of(
+            Department.class.getName(), Disease.class.getName(), Medicine.class.getName());
+
+    private static final List<String> QUERY_REGIONS = List.of(
+            DepartmentRepository.QUERY_CACHE_REGION, DiseaseRepository.QUERY_CACHE_REGION,
+            MedicineRepository.QUERY_CACHE_REGION);
+
+    private final SessionFactory sessionFactory;
+    private final Duration statisticsLogInterval;
+
+    private ScheduledExecutorService statisticsLogger;
+
+    @Autowired
+    public ReferenceDataCache(EntityManagerFactory entityManagerFactory,
+            @Value("${pma.cache.statistics-log-interval:15m}") Duration statisticsLogInterval) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.statisticsLogInterval = statisticsLogInterval;
+    }
+
+    /**
+     * Xóa cache của các khoa sau khi transaction hiện tại commit.
+     */
+    public void evictDepartments() {
+        evictAfterCommit(Department.class, DepartmentRepository.QUERY_CACHE_REGION);
+    }
+
+    /**
+     * Xóa cache của các loại bệnh sau khi transaction hiện tại commit.
+     */
+    public void evictDiseases() {
+        evictAfterCommit(Disease.class, DiseaseRepository.QUERY_CACHE_REGION);
+    }
+
+    /**
+     * Xóa cache của các loại thuốc sau khi transaction hiện tại commit.
+     */
+    public void evictMedicines() {
+        evictAfterCommit(Medicine.class, MedicineRepository.QUERY_CACHE_REGION);
+    }
+
+    private void evictAfterCommit(Class<?> entityClass, String queryRegion) {
+        TransactionUtil.runAfterCommit(() -> {
+            Cache cache = sessionFactory.getCache();
+            cache.evictEntityData(entityClass);
+            cache.evictQueryRegion(queryRegion);
+            log.debug("Evicted second-level cache of {} and query region {}", entityClass.getSimpleName(), queryRegion);
+        });
+    }
+
+    /**
+     * Lấy chỉ số của các vùng cache dữ liệu tham chiếu. Trả về danh sách rỗng
+     * nếu thống kê Hibernate bị tắt.
+     */
+    public List<RegionStatistics> statistics() {
+        Statistics statistics = sessionFactory.getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            return List.of();
+        }
+        List<RegionStatistics> result = new ArrayList<>(ENTITY_REGIONS.size() + QUERY_REGIONS.size());
+        for (String region : ENTITY_REGIONS) {
+            addRegion(result, region, () -> statistics.getDomainDataRegionStatistics(region));
+        }
+        for (String region : QUERY_REGIONS) {
+            addRegion(result, region, () -> statistics.getQueryRegionStatistics(region));
+        }
+        return result;
+    }
+
+    private static void addRegion(List<RegionStatistics> result, String region,
+            Supplier<CacheRegionStatistics> lookup) {
+        CacheRegionStatistics regionStatistics;
+        try {
+            regionStatistics = lookup.get();
+        } catch (IllegalArgumentException e) {
+            // Vùng query cache chỉ được tạo ở lần truy vấn đầu tiên
+            return;
+        }
+        if (regionStatistics != null) {
+            long elements = regionStatistics.getElementCountInMemory();
+            result.add(new RegionStatistics(region, regionStatistics.getHitCount(), regionStatistics.getMissCount(),
+                    regionStatistics.getPutCount(), elements < 0 ? -1 : elements));
+        }
+    }
+
+    /**
+     * Ghi log tỷ lệ trúng cache của từng vùng và của toàn bộ query cache.
+     */
+    public void logStatistics() {
+        Statistics statistics = sessionFactory.getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            return;
+        }
+        for (RegionStatistics region : statistics()) {
+            log.info("Cache region {}: hit ratio {}% ({} hits, {} misses, {} puts, {} elements)", region.region(),
+                    Math.round(region.hitRatio() * 100), region.hits(), region.misses(), region.puts(),
+                    region.elements());
+        }
+        long queryHits = statistics.getQueryCacheHitCount();
+        long queryMisses = statistics.getQueryCacheMissCount();
+        log.info("Query cache: {} hits, {} misses; second-level cache: {} hits, {} misses; {} queries executed",
+                queryHits, queryMisses, statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(), statistics.getQueryExecutionCount());
+    }
+
+    /**
+     * Bắt đầu ghi log thống kê định kỳ sau khi ứng dụng sẵn sàng.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (statisticsLogger != null || statisticsLogInterval.isZero() || statisticsLogInterval.isNegative()) {
+            return;
+        }
+        statisticsLogger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cache-statistics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = statisticsLogInterval.toMillis();
+        statisticsLogger.scheduleAtFixedRate(this::logStatisticsSafely, intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (statisticsLogger != null) {
+            statisticsLogger.shutdownNow();
+        }
+        logStatisticsSafely();
+    }
+
+    private void logStatisticsSafely() {
+        try {
+            logStatistics();
+        } catch (RuntimeException e) {
+            // Không để lỗi đọc thống kê làm dừng luồng định kỳ
+            log.warn("Could not read cache statistics: {}", e.getMessage());
+        }
+    }
+}
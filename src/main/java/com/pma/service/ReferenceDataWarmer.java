@@ -0,0 +1,80 @@
+package com.pma.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.IntSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.pma.config.AsyncConfig;
+import com.pma.util.StartupTimeline;
+
+/**
+ * Làm nóng dữ liệu tham chiếu (khoa, bệnh, trang thuốc đầu tiên) ngay sau khi
+ * Spring context sẵn sàng, song song với việc hiển thị màn hình đăng nhập. Việc
+ * này mở sẵn các kết nối trong pool, khởi tạo metadata/truy vấn của Hibernate
+ * và nạp dữ liệu vào cache, để màn hình đầu tiên sau đăng nhập không phải chịu
+ * các chi phí đó.
+ */
+@Service
+public class ReferenceDataWarmer {
+
+    private static final Logger log = LoggerFactory.getLogger(ReferenceDataWarmer.class);
+
+    /**
+     * Kích thước trang thuốc được làm nóng (bằng kích thước trang của màn hình
+     * quản lý thuốc).
+     */
+    private static final int MEDICINE_PAGE_SIZE = 20;
+
+    private final DepartmentService departmentService;
+    private final DiseaseService diseaseService;
+    private final MedicineService medicineService;
+    private final Executor executor;
+
+    @Autowired
+    public ReferenceDataWarmer(DepartmentService departmentService,
+            DiseaseService diseaseService,
+            MedicineService medicineService,
+            @Qualifier(AsyncConfig.DEFAULT_EXECUTOR) Executor executor) {
+        this.departmentService = departmentService;
+        this.diseaseService = diseaseService;
+        this.medicineService = medicineService;
+        this.executor = executor;
+    }
+
+    /**
+     * Bắt đầu làm nóng các nhóm dữ liệu song song.
+     *
+     * @param timeline Timeline khởi động để ghi mốc hoàn thành của từng nhóm.
+     * @return Future hoàn thành khi mọi nhóm đã xong (lỗi chỉ được ghi log,
+     * không làm future thất bại).
+     */
+    public CompletableFuture<Void> warmUpAsync(StartupTimeline timeline) {
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        tasks.add(warm("departments", timeline, () -> departmentService.getAllDepartments().size()));
+        tasks.add(warm("diseases", timeline, () -> diseaseService.getAllDiseases().size()));
+        tasks.add(warm("medicines", timeline,
+                () -> medicineService.getAllMedicines(PageRequest.of(0, MEDICINE_PAGE_SIZE)).getNumberOfElements()));
+        return CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new));
+    }
+
+    private CompletableFuture<Void> warm(String name, StartupTimeline timeline, IntSupplier loader) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                int count = loader.getAsInt();
+                timeline.mark("warm " + name);
+                log.debug("Warmed {} {}", count, name);
+            } catch (RuntimeException e) {
+                log.warn("Could not warm {}: {}", name, e.getMessage());
+            }
+        }, executor);
+    }
+}
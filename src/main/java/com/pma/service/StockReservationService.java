@@ -0,0 +1,264 @@
+package com.pma.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.pma.model.entity.Medicine;
+import com.pma.model.entity.Prescription;
+import com.pma.model.entity.PrescriptionDetail;
+import com.pma.model.entity.StockReservation;
+import com.pma.model.enums.PrescriptionStatus;
+import com.pma.model.enums.ReservationStatus;
+import com.pma.repository.MedicineRepository;
+import com.pma.repository.StockReservationRepository;
+
+/**
+ * Giữ tồn kho thuốc cho các đơn thuốc chưa xuất.
+ * <p>
+ * Lượng giữ của mỗi thuốc được cộng dồn vào Medicine.reservedQuantity, nên tồn
+ * kho khả dụng (stockQuantity - reservedQuantity) đọc được bằng một cột, không
+ * cần cộng các bản ghi StockReservation. Mọi thay đổi tồn kho của một đơn thuốc
+ * được gom thành một câu lệnh UPDATE có điều kiện cho tất cả các thuốc.
+ * <p>
+ * Theo trạng thái đơn thuốc: Active giữ đúng số lượng trong các chi tiết;
+ * chuyển sang Dispensed thì xuất phần đã giữ (và trừ thẳng tồn kho phần chưa
+ * giữ, ví dụ khi lượng giữ đã hết hạn); Active chuyển sang Cancelled hoặc
+ * Completed thì trả lại phần đang giữ. Khi xuất, số lượng xuất được phân bổ
+ * vào các lô thuốc theo hạn dùng (MedicineLotService). Lượng giữ hết hạn sau
+ * pma.stock.reservation-ttl (mặc định 72 giờ) và được StockReservationSweeper
+ * trả lại.
+ */
+@Service
+public class StockReservationService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockReservationService.class);
+
+    private final StockReservationRepository reservationRepository;
+    private final MedicineRepository medicineRepository;
+    private final LowStockAlertService lowStockAlertService;
+    private final MedicineLotService medicineLotService;
+    private final Duration reservationTtl;
+
+    @Autowired
+    public StockReservationService(StockReservationRepository reservationRepository,
+            MedicineRepository medicineRepository,
+            LowStockAlertService lowStockAlertService,
+            MedicineLotService medicineLotService,
+            @Value("${pma.stock.reservation-ttl:72h}") Duration reservationTtl) {
+        if (reservationTtl.isZero() || reservationTtl.isNegative()) {
+            throw new IllegalArgumentException("pma.stock.reservation-ttl must be positive: " + reservationTtl);
+        }
+        this.reservationRepository = reservationRepository;
+        this.medicineRepository = medicineRepository;
+        this.lowStockAlertService = lowStockAlertService;
+        this.medicineLotService = medicineLotService;
+        this.reservationTtl = reservationTtl;
+    }
+
+    /**
+     * Đồng bộ tồn kho với trạng thái và chi tiết hiện tại của một đơn thuốc, sau
+     * khi đơn được tạo hoặc sửa.
+     *
+     * @param prescription Đơn thuốc (managed) đã có ID.
+     * @param previousStatus Trạng thái trước khi sửa, null nếu đơn vừa được tạo.
+     * @throws IllegalArgumentException nếu không đủ tồn kho khả dụng để giữ hoặc
+     * xuất.
+     */
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
+    public void syncPrescription(Prescription prescription, PrescriptionStatus previousStatus) {
+        PrescriptionStatus status = prescription.getStatus();
+        if (status == PrescriptionStatus.Active) {
+            reserve(prescription);
+        } else if (status == PrescriptionStatus.Dispensed && previousStatus != PrescriptionStatus.Dispensed) {
+            dispense(prescription);
+        } else if (previousStatus == PrescriptionStatus.Active) {
+            release(prescription.getPrescriptionId());
+        } else if (previousStatus == PrescriptionStatus.Dispensed && status != PrescriptionStatus.Dispensed) {
+            // Thuốc đã ra khỏi kho; nhập lại (nếu có) phải làm qua điều chỉnh tồn kho
+            log.warn("Prescription {} moved from Dispensed to {}; stock is not returned automatically.",
+                    prescription.getPrescriptionId(), status);
+        }
+    }
+
+    /**
+     * Trả lại phần đang giữ và xóa mọi bản ghi giữ hàng và xuất lô của một đơn
+     * thuốc, trước khi đơn bị xóa.
+     *
+     * @param prescriptionId ID của đơn thuốc.
+     */
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
+    public void removePrescription(UUID prescriptionId) {
+        release(prescriptionId);
+        reservationRepository.deleteByPrescriptionId(prescriptionId);
+        medicineLotService.removePrescription(prescriptionId);
+    }
+
+    /**
+     * Trả lại tồn kho của tối đa {@code limit} lượng giữ đã hết hạn (hết hạn sớm
+     * nhất trước) và đánh dấu chúng EXPIRED.
+     *
+     * @param limit Số lượng giữ tối đa xử lý trong một transaction.
+     * @return Số lượng giữ đã được xử lý.
+     */
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
+    public int expireDueReservations(int limit) {
+        List<StockReservation> expired = reservationRepository.findExpired(ReservationStatus.ACTIVE,
+                LocalDateTime.now(), Limit.of(limit));
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        Map<UUID, Integer> quantities = new HashMap<>();
+        for (StockReservation reservation : expired) {
+            quantities.merge(reservation.getMedicine().getMedicineId(), reservation.getQuantity(), Integer::sum);
+            reservation.setStatus(ReservationStatus.EXPIRED);
+        }
+        releaseReserved(quantities);
+        log.info("Released {} expired stock reservation(s) for {} medicine(s)", expired.size(), quantities.size());
+        return expired.size();
+    }
+
+    /**
+     * Đưa lượng giữ của đơn về đúng số lượng trong các chi tiết: giữ thêm phần
+     * tăng, trả lại phần giảm, và gia hạn các lượng giữ còn lại.
+     */
+    private void reserve(Prescription prescription) {
+        Map<UUID, StockReservation> reservations = activeReservations(prescription.getPrescriptionId());
+        Map<UUID, Integer> wanted = quantitiesByMedicine(prescription);
+
+        Map<UUID, Integer> increases = new HashMap<>();
+        Map<UUID, Integer> decreases = new HashMap<>();
+        LocalDateTime expiresAt = LocalDateTime.now().plus(reservationTtl);
+        for (Map.Entry<UUID, Integer> entry : wanted.entrySet()) {
+            StockReservation reservation = reservations.remove(entry.getKey());
+            int held = reservation != null ? reservation.getQuantity() : 0;
+            if (entry.getValue() > held) {
+                increases.put(entry.getKey(), entry.getValue() - held);
+            } else if (entry.getValue() < held) {
+                decreases.put(entry.getKey(), held - entry.getValue());
+            }
+            if (reservation == null) {
+                reservation = new StockReservation();
+                reservation.setPrescription(prescription);
+                reservation.setMedicine(medicineRepository.getReferenceById(entry.getKey()));
+            }
+            reservation.setQuantity(entry.getValue());
+            reservation.setExpiresAt(expiresAt);
+            if (reservation.getReservationId() == null) {
+                reservationRepository.save(reservation);
+            }
+        }
+        // Thuốc không còn trong đơn
+        for (StockReservation reservation : reservations.values()) {
+            decreases.put(reservation.getMedicine().getMedicineId(), reservation.getQuantity());
+            reservation.setStatus(ReservationStatus.RELEASED);
+        }
+
+        if (!increases.isEmpty() && medicineRepository.reserveStockBatch(increases) != increases.size()) {
+            log.warn("Stock reservation failed for prescription {}: not enough available stock.",
+                    prescription.getPrescriptionId());
+            throw new IllegalArgumentException("Not enough available stock for one or more medicines in the prescription.");
+        }
+        releaseReserved(decreases);
+        lowStockAlertService.checkAfterDecrease(increases);
+        log.debug("Prescription {} stock reservations synced: {} increased, {} decreased",
+                prescription.getPrescriptionId(), increases.size(), decreases.size());
+    }
+
+    /**
+     * Xuất thuốc cho đơn: dùng phần đã giữ trước, trừ thẳng tồn kho khả dụng
+     * phần còn thiếu, trả lại phần giữ dư và phân bổ số lượng xuất vào các lô.
+     */
+    private void dispense(Prescription prescription) {
+        Map<UUID, StockReservation> reservations = activeReservations(prescription.getPrescriptionId());
+        Map<UUID, Integer> wanted = quantitiesByMedicine(prescription);
+
+        Map<UUID, Integer> consumed = new HashMap<>();
+        Map<UUID, Integer> unreserved = new HashMap<>();
+        Map<UUID, Integer> surplus = new HashMap<>();
+        for (Map.Entry<UUID, Integer> entry : wanted.entrySet()) {
+            StockReservation reservation = reservations.remove(entry.getKey());
+            int held = reservation != null ? reservation.getQuantity() : 0;
+            if (held > 0) {
+                consumed.put(entry.getKey(), Math.min(held, entry.getValue()));
+                reservation.setStatus(ReservationStatus.CONSUMED);
+            }
+            if (entry.getValue() > held) {
+                unreserved.put(entry.getKey(), held - entry.getValue()); // số âm: trừ tồn kho
+            } else if (held > entry.getValue()) {
+                surplus.put(entry.getKey(), held - entry.getValue());
+            }
+        }
+        for (StockReservation reservation : reservations.values()) {
+            surplus.put(reservation.getMedicine().getMedicineId(), reservation.getQuantity());
+            reservation.setStatus(ReservationStatus.RELEASED);
+        }
+
+        if (!consumed.isEmpty() && medicineRepository.consumeReservedBatch(consumed) != consumed.size()) {
+            throw new IllegalStateException("Reserved stock of prescription " + prescription.getPrescriptionId()
+                    + " is out of sync with medicine stock.");
+        }
+        if (!unreserved.isEmpty() && medicineRepository.adjustStockBatch(unreserved) != unreserved.size()) {
+            log.warn("Dispensing failed for prescription {}: not enough available stock.",
+                    prescription.getPrescriptionId());
+            throw new IllegalArgumentException("Not enough available stock to dispense the prescription.");
+        }
+        releaseReserved(surplus);
+        medicineLotService.allocate(prescription, wanted);
+        unreserved.replaceAll((_, change) -> -change);
+        lowStockAlertService.checkAfterDecrease(unreserved);
+        log.info("Dispensed prescription {}: {} medicine(s) from reservations, {} from available stock",
+                prescription.getPrescriptionId(), consumed.size(), unreserved.size());
+    }
+
+    private void release(UUID prescriptionId) {
+        Map<UUID, Integer> quantities = new HashMap<>();
+        for (StockReservation reservation : activeReservations(prescriptionId).values()) {
+            quantities.put(reservation.getMedicine().getMedicineId(), reservation.getQuantity());
+            reservation.setStatus(ReservationStatus.RELEASED);
+        }
+        releaseReserved(quantities);
+        if (!quantities.isEmpty()) {
+            log.info("Released stock reservations of prescription {} for {} medicine(s)", prescriptionId,
+                    quantities.size());
+        }
+    }
+
+    private void releaseReserved(Map<UUID, Integer> quantities) {
+        if (!quantities.isEmpty() && medicineRepository.releaseReservedBatch(quantities) != quantities.size()) {
+            // Không chặn thao tác của người dùng: lượng giữ chỉ bị trả thiếu, không làm mất tồn kho
+            log.warn("Reserved quantity was lower than expected for medicines {}", quantities.keySet());
+        }
+    }
+
+    private Map<UUID, StockReservation> activeReservations(UUID prescriptionId) {
+        Map<UUID, StockReservation> reservations = new HashMap<>();
+        for (StockReservation reservation : reservationRepository.findWithMedicineByPrescriptionAndStatus(
+                prescriptionId, ReservationStatus.ACTIVE)) {
+            reservations.put(reservation.getMedicine().getMedicineId(), reservation);
+        }
+        return reservations;
+    }
+
+    private static Map<UUID, Integer> quantitiesByMedicine(Prescription prescription) {
+        Map<UUID, Integer> quantities = new HashMap<>();
+        for (PrescriptionDetail detail : prescription.getPrescriptionDetails()) {
+            Medicine medicine = detail.getMedicine();
+            quantities.merge(medicine.getMedicineId(), detail.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+}
@@ -0,0 +1,83 @@
+package com.pma.service;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Định kỳ trả lại tồn kho của các lượng giữ hàng đã hết hạn (cấu hình
+ * pma.stock.reservation-sweep-interval, mặc định 5 phút, 0 để tắt). Mỗi
+ * transaction xử lý một lô; lô bị xung đột với việc sửa đơn thuốc cùng lúc sẽ
+ * được xử lý lại ở lần quét sau.
+ */
+@Service
+public class StockReservationSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(StockReservationSweeper.class);
+
+    /**
+     * Số lượng giữ tối đa xử lý trong một transaction.
+     */
+    private static final int BATCH_SIZE = 200;
+
+    private final StockReservationService reservationService;
+    private final Duration sweepInterval;
+
+    private ScheduledExecutorService sweeper;
+
+    @Autowired
+    public StockReservationSweeper(StockReservationService reservationService,
+            @Value("${pma.stock.reservation-sweep-interval:5m}") Duration sweepInterval) {
+        this.reservationService = reservationService;
+        this.sweepInterval = sweepInterval;
+    }
+
+    /**
+     * Bắt đầu quét định kỳ sau khi ứng dụng sẵn sàng.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (sweeper != null || sweepInterval.isZero() || sweepInterval.isNegative()) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stock-reservation-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, 0, sweepInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    private void sweep() {
+        try {
+            int released;
+            do {
+                released = reservationService.expireDueReservations(BATCH_SIZE);
+            } while (released == BATCH_SIZE && !Thread.currentThread().isInterrupted());
+        } catch (OptimisticLockingFailureException e) {
+            log.debug("Expired reservation changed concurrently, retrying on next sweep: {}", e.getMessage());
+        } catch (Exception e) {
+            // Không để ngoại lệ làm dừng luồng định kỳ
+            log.error("Error while releasing expired stock reservations", e);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.pma.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.pma.model.entity.Appointment;
+import com.pma.model.entity.Doctor;
+import com.pma.model.entity.Patient;
+import com.pma.model.entity.WaitlistEntry;
+import com.pma.model.enums.WaitlistStatus;
+import com.pma.repository.DoctorRepository;
+import com.pma.repository.PatientRepository;
+import com.pma.repository.WaitlistEntryRepository;
+
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Lớp Service quản lý danh sách chờ lịch hẹn. Bệnh nhân đăng ký chờ một bác sĩ
+ * trong một khoảng ngày; khi một lịch hẹn bị hủy, khung giờ được giải phóng sẽ
+ * được đặt tự động cho ứng viên phù hợp nhất và bệnh nhân nhận email xác nhận.
+ * <p>
+ * Ứng viên được tìm trực tiếp trong CSDL mỗi khi có lịch bị hủy (không giữ bản
+ * sao trong bộ nhớ), nên yêu cầu được đăng ký từ bất kỳ máy nào cũng được xét.
+ * Truy vấn chỉ đọc các yêu cầu đang chờ của một bác sĩ qua index
+ * IX_WaitlistEntries_doctor_status và khóa ứng viên được chọn, nên chi phí
+ * không phụ thuộc vào tổng số yêu cầu trong danh sách chờ.
+ */
+@Service
+public class WaitlistService {
+
+    private static final Logger log = LoggerFactory.getLogger(WaitlistService.class);
+
+    /**
+     * Độ dài tối đa (số ngày) của khoảng ngày chờ.
+     */
+    public static final int MAX_WAITLIST_RANGE_DAYS = 31;
+
+    /**
+     * Số ứng viên tối đa được thử cho một khung giờ vừa trống (các ứng viên
+     * không còn hợp lệ bị hủy và bỏ qua).
+     */
+    private static final int MAX_CANDIDATES_PER_SLOT = 10;
+
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final PatientRepository patientRepository;
+    private final DoctorRepository doctorRepository;
+    private final AppointmentService appointmentService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public WaitlistService(WaitlistEntryRepository waitlistEntryRepository,
+            PatientRepository patientRepository,
+            DoctorRepository doctorRepository,
+            AppointmentService appointmentService,
+            PlatformTransactionManager transactionManager) {
+        this.waitlistEntryRepository = waitlistEntryRepository;
+        this.patientRepository = patientRepository;
+        this.doctorRepository = doctorRepository;
+        this.appointmentService = appointmentService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+    }
+    /**
+     * Đăng ký bệnh nhân vào danh sách chờ của một bác sĩ.
+     *
+     * @param patientId ID của bệnh nhân.
+     * @param doctorId ID của bác sĩ.
+     * @param earliestDate Ngày sớm nhất (bao gồm).
+     * @param latestDate Ngày muộn nhất (bao gồm).
+     * @param priority Độ ưu tiên (lớn hơn được xét trước).
+     * @param reason Lý do khám.
+     * @param appointmentType Loại cuộc hẹn.
+     * @return WaitlistEntry đã được lưu.
+     * @throws EntityNotFoundException nếu không tìm thấy bệnh nhân hoặc bác sĩ.
+     * @throws IllegalArgumentException nếu khoảng ngày không hợp lệ.
+     */
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
+    public WaitlistEntry addToWaitlist(UUID patientId, UUID doctorId, LocalDate earliestDate, LocalDate latestDate,
+            int priority, String reason, String appointmentType) {
+        log.info("Adding patient {} to waitlist of doctor {} from {} to {}", patientId, doctorId, earliestDate, latestDate);
+
+        if (earliestDate == null || latestDate == null || latestDate.isBefore(earliestDate)) {
+            throw new IllegalArgumentException("Khoảng ngày chờ không hợp lệ.");
+        }
+        if (latestDate.isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("Khoảng ngày chờ phải ở tương lai.");
+        }
+        if (ChronoUnit.DAYS.between(earliestDate, latestDate) >= MAX_WAITLIST_RANGE_DAYS) {
+            throw new IllegalArgumentException("Khoảng ngày chờ không được vượt quá " + MAX_WAITLIST_RANGE_DAYS + " ngày.");
+        }
+
+        Patient patient = patientRepository.findById(patientId)
+                .orElseThrow(() -> new EntityNotFoundException("Patient not found with id: " + patientId));
+        Doctor doctor = doctorRepository.findById(doctorId)
+                .orElseThrow(() -> new EntityNotFoundException("Doctor not found with id: " + doctorId));
+
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setPatient(patient);
+        entry.setDoctor(doctor);
+        entry.setEarliestDate(earliestDate);
+        entry.setLatestDate(latestDate);
+        entry.setPriority(priority);
+        entry.setReason(reason);
+        entry.setAppointmentType(appointmentType);
+        entry.setStatus(WaitlistStatus.WAITING);
+        WaitlistEntry savedEntry = waitlistEntryRepository.saveAndFlush(entry);
+        log.info("Waitlist entry {} created for patient {}", savedEntry.getWaitlistEntryId(), patientId);
+        return savedEntry;
+    }
+
+    /**
+     * Hủy một yêu cầu chờ.
+     *
+     * @param waitlistEntryId ID của yêu cầu.
+     * @throws EntityNotFoundException nếu không tìm thấy.
+     */
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
+    public void cancelWaitlistEntry(UUID waitlistEntryId) {
+        log.info("Cancelling waitlist entry {}", waitlistEntryId);
+        WaitlistEntry entry = waitlistEntryRepository.findById(waitlistEntryId)
+                .orElseThrow(() -> new EntityNotFoundException("Waitlist entry not found with id: " + waitlistEntryId));
+        if (entry.getStatus() == WaitlistStatus.WAITING) {
+            entry.setStatus(WaitlistStatus.CANCELLED);
+        }
+    }
+
+    /**
+     * Lấy các yêu cầu đang chờ của một bệnh nhân.
+     *
+     * @param patientId ID của bệnh nhân.
+     * @return Danh sách WaitlistEntry đang chờ.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<WaitlistEntry> getWaitingEntriesForPatient(UUID patientId) {
+        return waitlistEntryRepository.findByPatient_PatientIdAndStatus(patientId, WaitlistStatus.WAITING);
+    }
+
+    /**
+     * Xử lý khi một lịch hẹn bị hủy: lấy ứng viên tốt nhất cho (bác sĩ, ngày)
+     * và đặt lịch vào khung giờ vừa trống. Chạy bất đồng bộ sau khi
+     * transaction hủy lịch đã commit. Mỗi lần thử chọn ứng viên, đặt lịch và
+     * đánh dấu FILLED trong cùng một transaction; nếu đặt lịch thất bại thì cả
+     * transaction rollback và yêu cầu vẫn ở trạng thái chờ.
+     *
+     * @param event Sự kiện hủy lịch.
+     */
+    @Async
+    @TransactionalEventListener
+    public void onAppointmentCancelled(AppointmentCancelledEvent event) {
+        LocalDateTime slot = event.appointmentDatetime();
+        if (slot == null || slot.isBefore(LocalDateTime.now())) {
+            return;
+        }
+        log.info("Slot {} of doctor {} freed by cancellation of appointment {}. Looking for waitlist candidates.",
+                slot, event.doctorId(), event.appointmentId());
+        expireOverdueEntries();
+
+        for (int attempt = 0; attempt < MAX_CANDIDATES_PER_SLOT; attempt++) {
+            FillAttempt result = transactionTemplate.execute(status -> fillSlot(status, event.doctorId(), slot));
+            switch (result.outcome()) {
+                case NO_CANDIDATE -> {
+                    log.debug("No waitlist candidate for doctor {} on {}", event.doctorId(), slot.toLocalDate());
+                    return;
+                }
+                case FILLED -> {
+                    log.info("Waitlist entry {} filled with appointment {} at {}", result.entryId(),
+                            result.appointmentId(), slot);
+                    return;
+                }
+                case SLOT_TAKEN -> {
+                    // Khung giờ đã bị người khác lấy: ứng viên vẫn chờ lần hủy sau
+                    log.info("Freed slot {} of doctor {} is no longer available: {}", slot, event.doctorId(),
+                            result.message());
+                    return;
+                }
+                case CANDIDATE_INVALID -> {
+                    log.warn("Dropping waitlist entry {}: {}", result.entryId(), result.message());
+                    updateEntryStatus(result.entryId(), WaitlistStatus.CANCELLED);
+                }
+            }
+        }
+        log.warn("Gave up filling slot {} of doctor {} after {} invalid waitlist entries", slot, event.doctorId(),
+                MAX_CANDIDATES_PER_SLOT);
+    }
+
+    /**
+     * Một lần thử lấp khung giờ, trong transaction do transactionTemplate mở.
+     * Khi đặt lịch thất bại, transaction được đánh dấu rollback (bỏ cả lịch hẹn
+     * lẫn email xác nhận đã xếp hàng) và kết quả cho biết lý do.
+     */
+    private FillAttempt fillSlot(TransactionStatus status, UUID doctorId, LocalDateTime slot) {
+        List<WaitlistEntry> candidates = waitlistEntryRepository.findCandidatesForUpdate(doctorId,
+                WaitlistStatus.WAITING, slot.toLocalDate(), Limit.of(1));
+        if (candidates.isEmpty()) {
+            return new FillAttempt(FillOutcome.NO_CANDIDATE, null, null, null);
+        }
+        WaitlistEntry entry = candidates.get(0);
+        try {
+            Appointment appointment = new Appointment();
+            appointment.setAppointmentDatetime(slot);
+            appointment.setReason(entry.getReason());
+            appointment.setAppointmentType(entry.getAppointmentType());
+            Appointment booked = appointmentService.scheduleAppointment(appointment,
+                    entry.getPatient().getPatientId(), doctorId);
+            entry.setStatus(WaitlistStatus.FILLED);
+            entry.setFilledAppointment(booked);
+            return new FillAttempt(FillOutcome.FILLED, entry.getWaitlistEntryId(), booked.getAppointmentId(), null);
+        } catch (EntityNotFoundException e) {
+            status.setRollbackOnly();
+            return new FillAttempt(FillOutcome.CANDIDATE_INVALID, entry.getWaitlistEntryId(), null, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            status.setRollbackOnly();
+            return new FillAttempt(FillOutcome.SLOT_TAKEN, entry.getWaitlistEntryId(), null, e.getMessage());
+        }
+    }
+
+    /**
+     * Đánh dấu EXPIRED các yêu cầu đang chờ đã qua ngày muộn nhất.
+     */
+    private void expireOverdueEntries() {
+        try {
+            Integer expired = transactionTemplate.execute(_ -> waitlistEntryRepository.updateStatusForLatestDateBefore(
+                    WaitlistStatus.WAITING, WaitlistStatus.EXPIRED, LocalDate.now()));
+            if (expired != null && expired > 0) {
+                log.info("Expired {} overdue waitlist entries", expired);
+            }
+        } catch (Exception e) {
+            log.error("Failed to expire overdue waitlist entries", e);
+        }
+    }
+
+    private void updateEntryStatus(UUID waitlistEntryId, WaitlistStatus status) {
+        try {
+            waitlistEntryRepository.findById(waitlistEntryId).ifPresent(entry -> {
+                entry.setStatus(status);
+                waitlistEntryRepository.save(entry);
+            });
+        } catch (Exception e) {
+            log.error("Failed to update waitlist entry {} to status {}", waitlistEntryId, status, e);
+        }
+    }
+
+    private enum FillOutcome {
+        NO_CANDIDATE, FILLED, SLOT_TAKEN, CANDIDATE_INVALID
+    }
+
+    /**
+     * Kết quả một lần thử lấp khung giờ.
+     */
+    private record FillAttempt(FillOutcome outcome, UUID entryId, UUID appointmentId, String message) {
+    }
+}
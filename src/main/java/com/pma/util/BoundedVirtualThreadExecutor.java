@@ -0,0 +1,188 @@
+package com.pma.util;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+/**
+ * Executor chạy mỗi tác vụ trên một virtual thread, giới hạn số tác vụ chạy
+ * đồng thời bằng một Semaphore. Tác vụ vượt giới hạn chờ (trên virtual thread
+ * của chính nó, không chiếm luồng hệ điều hành) cho tới khi có chỗ; khi số tác
+ * vụ đang chờ đạt maxQueued, tác vụ mới bị từ chối bằng TaskRejectedException.
+ * <p>
+ * Mỗi executor ứng với một nhóm công việc (ví dụ: gửi OTP) để một đợt tải lớn
+ * của nhóm này không chiếm hết tài nguyên của các nhóm khác.
+ * <p>
+ * Khi ứng dụng tắt, shutdown() ngừng nhận tác vụ mới, chờ các tác vụ đã nhận
+ * chạy xong trong một khoảng thời gian giới hạn rồi ngắt các tác vụ còn lại.
+ */
+public final class BoundedVirtualThreadExecutor implements AsyncTaskExecutor {
+
+    /**
+     * Ảnh chụp các chỉ số của executor.
+     *
+     * @param name Tên nhóm công việc.
+     * @param maxConcurrency Số tác vụ chạy đồng thời tối đa.
+     * @param active Số tác vụ đang chạy.
+     * @param queued Số tác vụ đang chờ.
+     * @param completed Tổng số tác vụ đã chạy xong.
+     * @param rejected Tổng số tác vụ bị từ chối.
+     * @param averageQueueWait Thời gian chờ trung bình trước khi được chạy.
+     * @param maxQueueWait Thời gian chờ lâu nhất trước khi được chạy.
+     */
+    public record Metrics(String name, int maxConcurrency, int active, int queued, long completed, long rejected,
+            Duration averageQueueWait, Duration maxQueueWait) {
+    }
+
+    /**
+     * Thời gian shutdown() chờ các tác vụ đã nhận chạy xong.
+     */
+    public static final Duration DEFAULT_SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final String name;
+    private final int maxConcurrency;
+    private final int maxQueued;
+    private final Semaphore permits;
+    private final ThreadFactory threadFactory;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final AtomicLong rejected = new AtomicLong();
+    private final LongAdder totalQueueWaitNanos = new LongAdder();
+    private final LongAdder startedCount = new LongAdder();
+    private final LongAccumulator maxQueueWaitNanos = new LongAccumulator(Math::max, 0);
+
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    private volatile boolean shutdown;
+
+    /**
+     * @param name Tên nhóm công việc, dùng làm tiền tố tên luồng.
+     * @param maxConcurrency Số tác vụ chạy đồng thời tối đa.
+     * @param maxQueued Số tác vụ chờ tối đa trước khi từ chối.
+     */
+    public BoundedVirtualThreadExecutor(String name, int maxConcurrency, int maxQueued) {
+        if (maxConcurrency <= 0 || maxQueued < 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive and maxQueued must not be negative.");
+        }
+        this.name = name;
+        this.maxConcurrency = maxConcurrency;
+        this.maxQueued = maxQueued;
+        this.permits = new Semaphore(maxConcurrency);
+        this.threadFactory = Thread.ofVirtual().name(name + "-", 0).factory();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (shutdown) {
+            rejected.incrementAndGet();
+            throw new TaskRejectedException("Executor '" + name + "' has been shut down.");
+        }
+        // Tác vụ sẽ lấy được permit ngay không tính vào giới hạn hàng chờ
+        if (queued.incrementAndGet() > maxQueued + permits.availablePermits()) {
+            queued.decrementAndGet();
+            rejected.incrementAndGet();
+            throw new TaskRejectedException("Executor '" + name + "' is saturated (" + maxQueued + " tasks queued).");
+        }
+        long enqueuedAt = System.nanoTime();
+        Thread thread = threadFactory.newThread(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                queued.decrementAndGet();
+                threads.remove(Thread.currentThread());
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queued.decrementAndGet();
+            long waited = System.nanoTime() - enqueuedAt;
+            totalQueueWaitNanos.add(waited);
+            startedCount.increment();
+            maxQueueWaitNanos.accumulate(waited);
+            active.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                active.decrementAndGet();
+                completed.increment();
+                permits.release();
+                threads.remove(Thread.currentThread());
+            }
+        });
+        threads.add(thread);
+        thread.start();
+    }
+
+    /**
+     * Ngừng nhận tác vụ mới và chờ tối đa {@link #DEFAULT_SHUTDOWN_TIMEOUT} cho
+     * các tác vụ đã nhận chạy xong.
+     *
+     * @see #shutdown(Duration)
+     */
+    public void shutdown() {
+        shutdown(DEFAULT_SHUTDOWN_TIMEOUT);
+    }
+
+    /**
+     * Ngừng nhận tác vụ mới và chờ các tác vụ đã nhận (đang chạy hoặc đang chờ)
+     * chạy xong. Tác vụ chưa xong sau thời gian chờ bị ngắt (interrupt).
+     *
+     * @param timeout Thời gian chờ tối đa.
+     * @return true nếu mọi tác vụ đã xong trước khi hết thời gian chờ.
+     */
+    public boolean shutdown(Duration timeout) {
+        shutdown = true;
+        long deadline = System.nanoTime() + timeout.toNanos();
+        boolean interrupted = false;
+        try {
+            for (Thread thread : threads) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                try {
+                    thread.join(Duration.ofNanos(remaining));
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    break;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (threads.isEmpty()) {
+            return true;
+        }
+        threads.forEach(Thread::interrupt);
+        return false;
+    }
+
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * Lấy ảnh chụp các chỉ số hiện tại.
+     */
+    public Metrics metrics() {
+        long started = startedCount.sum();
+        long averageNanos = started == 0 ? 0 : totalQueueWaitNanos.sum() / started;
+        return new Metrics(name, maxConcurrency, active.get(), Math.max(0, queued.get()), completed.sum(),
+                rejected.get(), Duration.ofNanos(averageNanos), Duration.ofNanos(maxQueueWaitNanos.get()));
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,34 @@
+package com.pma.util;
+
+import java.io.IOException;
+import java.net.URL;
+
+import javafx.scene.Parent;
+
+/**
+ * Màn hình được sinh mã Java từ file FXML lúc build (xem
+ * src/build/java/FxmlCompiler.java). Tạo cùng cây node như FXMLLoader, gán các
+ * trường fx:id và event handler cho controller rồi gọi initialize(), nhưng
+ * không phải phân tích XML hay tra cứu thuộc tính bằng reflection lúc chạy.
+ * <p>
+ * Mỗi đối tượng chỉ dùng cho một lần {@link #load(Object, URL)}.
+ */
+public interface CompiledView {
+
+    /**
+     * Lớp controller (fx:controller) của màn hình.
+     */
+    Class<?> controllerType();
+
+    /**
+     * Tạo cây node của màn hình và khởi tạo controller.
+     *
+     * @param controller Controller (thường là Spring bean) kiểu
+     * {@link #controllerType()}.
+     * @param location URL của file FXML gốc, truyền cho initialize().
+     * @return Root node của màn hình.
+     * @throws IOException nếu tạo màn hình hoặc khởi tạo controller thất bại
+     * (javafx.fxml.LoadException, giống FXMLLoader).
+     */
+    Parent load(Object controller, URL location) throws IOException;
+}
@@ -0,0 +1,202 @@
+package com.pma.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javafx.event.Event;
+
+/**
+ * Tra cứu các màn hình đã được biên dịch từ FXML ({@link CompiledView}) và các
+ * hàm hỗ trợ mà mã sinh ra sử dụng.
+ * <p>
+ * Quy ước tên lớp sinh ra (phải khớp với FxmlCompiler): tên file FXML bỏ phần
+ * mở rộng, tách theo '_' hoặc '-', viết hoa chữ cái đầu mỗi phần, thêm hậu tố
+ * "Fxml", trong package {@value #VIEW_PACKAGE}. Ví dụ admin_manage_doctors.fxml
+ * → com.pma.view.AdminManageDoctorsFxml.
+ */
+public final class CompiledViews {
+
+    private static final Logger log = LoggerFactory.getLogger(CompiledViews.class);
+
+    public static final String VIEW_PACKAGE = "com.pma.view";
+
+    /**
+     * Constructor của lớp sinh ra theo đường dẫn FXML; rỗng nếu không có lớp
+     * sinh ra hoặc lớp đã bị vô hiệu hóa sau lỗi.
+     */
+    private static final Map<String, Optional<Constructor<? extends CompiledView>>> VIEWS = new ConcurrentHashMap<>();
+
+    private CompiledViews() {
+    }
+
+    /**
+     * Tạo đối tượng màn hình đã biên dịch cho một file FXML.
+     *
+     * @param fxmlPath Đường dẫn FXML trong classpath, ví dụ
+     * /com/pma/fxml/login.fxml.
+     * @return Đối tượng mới, hoặc null nếu không có lớp sinh ra (dùng
+     * FXMLLoader).
+     */
+    public static CompiledView find(String fxmlPath) {
+        Optional<Constructor<? extends CompiledView>> constructor = VIEWS.computeIfAbsent(fxmlPath, CompiledViews::lookup);
+        if (constructor.isEmpty()) {
+            return null;
+        }
+        try {
+            return constructor.get().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            log.warn("Cannot instantiate compiled view for {}, falling back to FXMLLoader: {}", fxmlPath, e.toString());
+            disable(fxmlPath);
+            return null;
+        }
+    }
+
+    /**
+     * Không dùng lớp sinh ra cho file FXML này nữa (ví dụ lớp sinh ra không
+     * còn khớp với controller).
+     */
+    public static void disable(String fxmlPath) {
+        VIEWS.put(fxmlPath, Optional.empty());
+    }
+
+    /**
+     * Tên đầy đủ của lớp sinh ra cho một file FXML.
+     */
+    public static String className(String fxmlPath) {
+        String fileName = fxmlPath.substring(fxmlPath.lastIndexOf('/') + 1);
+        int dot = fileName.lastIndexOf('.');
+        String baseName = dot >= 0 ? fileName.substring(0, dot) : fileName;
+        StringBuilder sb = new StringBuilder(VIEW_PACKAGE).append('.');
+        for (String part : baseName.split("[_\\-]")) {
+            if (!part.isEmpty()) {
+                sb.append(Character.toUpperCase(part.charAt(0))).append(part, 1, part.length());
+            }
+        }
+        return sb.append("Fxml").toString();
+    }
+
+    private static Optional<Constructor<? extends CompiledView>> lookup(String fxmlPath) {
+        String className = className(fxmlPath);
+        try {
+            Class<?> type = Class.forName(className, false, CompiledViews.class.getClassLoader());
+            if (!CompiledView.class.isAssignableFrom(type)) {
+                log.warn("{} does not implement CompiledView, ignoring it.", className);
+                return Optional.empty();
+            }
+            log.debug("Using compiled view {} for {}", className, fxmlPath);
+            return Optional.of(type.asSubclass(CompiledView.class).getConstructor());
+        } catch (ClassNotFoundException e) {
+            log.debug("No compiled view for {}, using FXMLLoader.", fxmlPath);
+            return Optional.empty();
+        } catch (NoSuchMethodException | LinkageError e) {
+            log.warn("Compiled view {} is unusable: {}", className, e.toString());
+            return Optional.empty();
+        }
+    }
+
+    // ----- Hàm hỗ trợ cho mã sinh ra -----
+    /**
+     * Lấy VarHandle cho trường fx:id của controller (tìm cả ở lớp cha, kể cả
+     * trường private).
+     */
+    public static VarHandle field(Class<?> controllerType, String name) {
+        for (Class<?> type = controllerType; type != null && type != Object.class; type = type.getSuperclass()) {
+            try {
+                Field field = type.getDeclaredField(name);
+                return MethodHandles.privateLookupIn(type, MethodHandles.lookup()).unreflectVarHandle(field);
+            } catch (NoSuchFieldException e) {
+                // Tìm tiếp ở lớp cha
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot access field " + name + " of " + controllerType.getName(), e);
+            }
+        }
+        throw new IllegalStateException("Field " + name + " not found in " + controllerType.getName());
+    }
+
+    /**
+     * Lấy MethodHandle cho một phương thức của controller không có tham số
+     * hoặc có một tham số kiểu Event (event handler, initialize()).
+     */
+    public static MethodHandle method(Class<?> controllerType, String name) {
+        for (Class<?> type = controllerType; type != null && type != Object.class; type = type.getSuperclass()) {
+            Method noArgMethod = null;
+            for (Method method : type.getDeclaredMethods()) {
+                if (!method.getName().equals(name)) {
+                    continue;
+                }
+                if (method.getParameterCount() == 1 && Event.class.isAssignableFrom(method.getParameterTypes()[0])) {
+                    return unreflect(type, method);
+                }
+                if (method.getParameterCount() == 0) {
+                    noArgMethod = method;
+                }
+            }
+            if (noArgMethod != null) {
+                return unreflect(type, noArgMethod);
+            }
+        }
+        throw new IllegalStateException("Method " + name + " not found in " + controllerType.getName());
+    }
+
+    private static MethodHandle unreflect(Class<?> type, Method method) {
+        try {
+            return MethodHandles.privateLookupIn(type, MethodHandles.lookup()).unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access method " + method, e);
+        }
+    }
+
+    /**
+     * Gọi event handler của controller, truyền event nếu phương thức nhận
+     * tham số.
+     */
+    public static void invokeHandler(MethodHandle handler, Object controller, Event event) {
+        try {
+            if (handler.type().parameterCount() == 2) {
+                handler.invoke(controller, event);
+            } else {
+                handler.invoke(controller);
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Event handler failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gọi initialize() không tham số của controller.
+     */
+    public static void invoke(MethodHandle method, Object controller) {
+        try {
+            method.invoke(controller);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Controller method failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lấy URL (dạng chuỗi) của một tài nguyên trong classpath, dùng cho các giá
+     * trị "@..." trong FXML.
+     */
+    public static String resource(Class<?> viewType, String path) {
+        URL url = viewType.getResource(path);
+        if (url == null) {
+            throw new IllegalStateException("Resource not found: " + path);
+        }
+        return url.toExternalForm();
+    }
+}
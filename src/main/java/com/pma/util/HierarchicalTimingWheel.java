@@ -0,0 +1,127 @@
+package com.pma.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bánh xe thời gian phân tầng (hierarchical timing wheel) dùng để lên lịch một
+ * số lượng lớn công việc theo thời điểm hết hạn với chi phí thêm/hết hạn O(1).
+ * Tầng thấp nhất có độ phân giải tickMillis; các phần tử ở quá xa được đưa lên
+ * tầng tràn (mỗi tầng có tick bằng cả vòng của tầng dưới) và được hạ dần xuống
+ * khi thời gian tiến gần.
+ * <p>
+ * Lớp này không an toàn luồng; nơi sử dụng chịu trách nhiệm đồng bộ hóa.
+ *
+ * @param <T> Kiểu phần tử được lên lịch.
+ */
+public final class HierarchicalTimingWheel<T> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long intervalMillis;
+    private final List<ArrayDeque<T>> buckets;
+    private final ToLongFunction<T> deadlineOf;
+    private final HierarchicalTimingWheel<T> root;
+    private HierarchicalTimingWheel<T> overflowWheel;
+    private long currentTime;
+    private int size;
+
+    /**
+     * Tạo bánh xe gốc.
+     *
+     * @param tickMillis Độ phân giải của tầng thấp nhất (ms).
+     * @param wheelSize Số ô trên mỗi tầng.
+     * @param startMillis Thời điểm bắt đầu (epoch ms).
+     * @param deadlineOf Hàm lấy thời điểm hết hạn (epoch ms) của phần tử.
+     */
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, long startMillis, ToLongFunction<T> deadlineOf) {
+        this(tickMillis, wheelSize, startMillis, deadlineOf, null);
+    }
+
+    private HierarchicalTimingWheel(long tickMillis, int wheelSize, long startMillis, ToLongFunction<T> deadlineOf,
+            HierarchicalTimingWheel<T> root) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tickMillis and wheelSize must be positive.");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.intervalMillis = tickMillis * wheelSize;
+        this.deadlineOf = deadlineOf;
+        this.root = root != null ? root : this;
+        this.currentTime = startMillis - (startMillis % tickMillis);
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Thêm một phần tử vào bánh xe.
+     *
+     * @param item Phần tử cần thêm.
+     * @return false nếu phần tử đã đến hạn (thời điểm hết hạn nằm trong tick
+     * hiện tại hoặc đã qua); khi đó phần tử không được thêm.
+     */
+    public boolean add(T item) {
+        boolean added = root.insert(item);
+        if (added) {
+            root.size++;
+        }
+        return added;
+    }
+
+    private boolean insert(T item) {
+        long deadline = deadlineOf.applyAsLong(item);
+        if (deadline < currentTime + tickMillis) {
+            return false;
+        }
+        if (deadline < currentTime + intervalMillis) {
+            buckets.get((int) ((deadline / tickMillis) % wheelSize)).add(item);
+            return true;
+        }
+        if (overflowWheel == null) {
+            overflowWheel = new HierarchicalTimingWheel<>(intervalMillis, wheelSize, currentTime, deadlineOf, root);
+        }
+        return overflowWheel.insert(item);
+    }
+
+    /**
+     * Đẩy đồng hồ tới thời điểm nowMillis và trả về các phần tử đã đến hạn,
+     * theo thứ tự tick.
+     *
+     * @param nowMillis Thời điểm hiện tại (epoch ms).
+     * @return Danh sách phần tử đến hạn (có thể rỗng).
+     */
+    public List<T> advanceClock(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        advance(nowMillis, expired);
+        return expired;
+    }
+
+    /**
+     * Số phần tử đang chờ trong toàn bộ các tầng.
+     */
+    public int size() {
+        return size;
+    }
+
+    private void advance(long nowMillis, List<T> expired) {
+        while (currentTime + tickMillis <= nowMillis) {
+            currentTime += tickMillis;
+            ArrayDeque<T> bucket = buckets.get((int) ((currentTime / tickMillis) % wheelSize));
+            T item;
+            while ((item = bucket.poll()) != null) {
+                // Tầng gốc: phần tử đến hạn. Tầng tràn: hạ xuống tầng gốc, nếu đã đến hạn thì trả về ngay
+                if (this == root || !root.insert(item)) {
+                    root.size--;
+                    expired.add(item);
+                }
+            }
+        }
+        if (overflowWheel != null) {
+            overflowWheel.advance(nowMillis, expired);
+        }
+    }
+}
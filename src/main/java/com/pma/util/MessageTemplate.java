@@ -0,0 +1,202 @@
+package com.pma.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mẫu văn bản được biên dịch sẵn với các chỗ giữ chỗ dạng {{ten}}. Mẫu chỉ được
+ * phân tích một lần thành danh sách đoạn (văn bản cố định và chỗ giữ chỗ); mỗi
+ * lần hiển thị chỉ nối các đoạn vào một StringBuilder, không phải phân tích
+ * chuỗi định dạng như String.format.
+ * <p>
+ * {@link Renderer#render()} dùng một StringBuilder cục bộ có kích thước đủ cho
+ * các lần hiển thị trước của mẫu, nên thường không phải mở rộng bộ đệm; nơi
+ * hiển thị nhiều mẫu liên tiếp có thể truyền bộ đệm của mình vào
+ * {@link Renderer#render(StringBuilder)} để dùng lại. Không dùng ThreadLocal
+ * vì email được tạo trên virtual thread, mỗi tác vụ một luồng mới.
+ * <p>
+ * Mẫu HTML (tạo bằng {@link #compileHtml(String)}) tự động escape các giá trị
+ * được chèn vào.
+ * <p>
+ * Đối tượng MessageTemplate an toàn luồng; Renderer thì không.
+ */
+public final class MessageTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    /**
+     * Kích thước bộ đệm ban đầu tối đa, để một lần hiển thị bất thường không
+     * làm mọi lần sau cấp phát bộ đệm lớn.
+     */
+    private static final int MAX_LENGTH_HINT = 16 * 1024;
+
+    /**
+     * Các đoạn văn bản cố định; literals[i] đứng trước chỗ giữ chỗ thứ i, phần
+     * tử cuối cùng đứng sau chỗ giữ chỗ cuối cùng.
+     */
+    private final String[] literals;
+
+    /**
+     * Chỉ số tham số của từng chỗ giữ chỗ theo thứ tự xuất hiện.
+     */
+    private final int[] slots;
+
+    private final Map<String, Integer> parameterIndexes;
+    private final boolean html;
+
+    /**
+     * Kích thước bộ đệm ban đầu cho render(): ước lượng từ độ dài văn bản cố
+     * định, tăng lên theo độ dài lớn nhất đã hiển thị (tối đa MAX_LENGTH_HINT).
+     * Ghi đua giữa các luồng chỉ làm lệch ước lượng, không ảnh hưởng kết quả.
+     */
+    private volatile int lengthHint;
+
+    private MessageTemplate(String[] literals, int[] slots, Map<String, Integer> parameterIndexes, boolean html) {
+        this.literals = literals;
+        this.slots = slots;
+        this.parameterIndexes = parameterIndexes;
+        this.html = html;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.lengthHint = Math.min(length + slots.length * 16, MAX_LENGTH_HINT);
+    }
+
+    /**
+     * Biên dịch một mẫu văn bản thuần.
+     *
+     * @param source Nội dung mẫu.
+     * @return Mẫu đã biên dịch.
+     * @throws IllegalArgumentException nếu mẫu có chỗ giữ chỗ không đóng hoặc
+     * rỗng.
+     */
+    public static MessageTemplate compile(String source) {
+        return parse(source, false);
+    }
+
+    /**
+     * Biên dịch một mẫu HTML; giá trị chèn vào được escape.
+     *
+     * @param source Nội dung mẫu.
+     * @return Mẫu đã biên dịch.
+     * @throws IllegalArgumentException nếu mẫu có chỗ giữ chỗ không đóng hoặc
+     * rỗng.
+     */
+    public static MessageTemplate compileHtml(String source) {
+        return parse(source, true);
+    }
+
+    private static MessageTemplate parse(String source, boolean html) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        Map<String, Integer> parameterIndexes = new HashMap<>();
+        int position = 0;
+        int open;
+        while ((open = source.indexOf(OPEN, position)) >= 0) {
+            int close = source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at index " + open + " in template.");
+            }
+            String name = source.substring(open + OPEN.length(), close).trim();
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("Empty placeholder at index " + open + " in template.");
+            }
+            literals.add(source.substring(position, open));
+            slots.add(parameterIndexes.computeIfAbsent(name, _ -> parameterIndexes.size()));
+            position = close + CLOSE.length();
+        }
+        literals.add(source.substring(position));
+        return new MessageTemplate(literals.toArray(String[]::new),
+                slots.stream().mapToInt(Integer::intValue).toArray(), Map.copyOf(parameterIndexes), html);
+    }
+
+    /**
+     * Tạo một Renderer mới để gán giá trị cho các chỗ giữ chỗ.
+     */
+    public Renderer renderer() {
+        return new Renderer();
+    }
+
+    /**
+     * Bộ gán giá trị cho một lần hiển thị mẫu. Có thể gọi {@link #render()}
+     * nhiều lần và gán lại giá trị giữa các lần.
+     */
+    public final class Renderer {
+
+        private final Object[] values = new Object[parameterIndexes.size()];
+
+        private Renderer() {
+        }
+
+        /**
+         * Gán giá trị cho một chỗ giữ chỗ. Giá trị null được hiển thị là chuỗi
+         * rỗng.
+         *
+         * @param name Tên chỗ giữ chỗ.
+         * @param value Giá trị.
+         * @return Renderer này.
+         * @throws IllegalArgumentException nếu mẫu không có chỗ giữ chỗ này.
+         */
+        public Renderer set(String name, Object value) {
+            Integer index = parameterIndexes.get(name);
+            if (index == null) {
+                throw new IllegalArgumentException("Template has no placeholder named '" + name + "'.");
+            }
+            values[index] = value;
+            return this;
+        }
+
+        /**
+         * Hiển thị mẫu với các giá trị đã gán.
+         */
+        public String render() {
+            StringBuilder sb = new StringBuilder(lengthHint);
+            render(sb);
+            int length = sb.length();
+            if (length > lengthHint && length <= MAX_LENGTH_HINT) {
+                lengthHint = length;
+            }
+            return sb.toString();
+        }
+
+        /**
+         * Nối nội dung mẫu với các giá trị đã gán vào cuối một bộ đệm của người
+         * gọi, để dùng lại bộ đệm đó qua nhiều lần hiển thị.
+         *
+         * @param target Bộ đệm nhận nội dung.
+         * @return target.
+         */
+        public StringBuilder render(StringBuilder target) {
+            for (int i = 0; i < slots.length; i++) {
+                target.append(literals[i]);
+                Object value = values[slots[i]];
+                if (value != null) {
+                    if (html) {
+                        appendEscaped(target, value.toString());
+                    } else {
+                        target.append(value);
+                    }
+                }
+            }
+            return target.append(literals[slots.length]);
+        }
+    }
+
+    private static void appendEscaped(StringBuilder sb, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> sb.append("&lt;");
+                case '>' -> sb.append("&gt;");
+                case '&' -> sb.append("&amp;");
+                case '"' -> sb.append("&quot;");
+                case '\'' -> sb.append("&#39;");
+                default -> sb.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.pma.util;
+
+/**
+ * Controller của màn hình có thể được UIManager giữ lại trong bộ nhớ đệm màn
+ * hình. Khi màn hình được hiển thị lại từ bộ nhớ đệm, FXML không được tải lại
+ * và initialize() không chạy lại; thay vào đó UIManager gọi
+ * {@link #onViewShown()} để controller làm mới dữ liệu trên các control sẵn có.
+ * <p>
+ * Controller không triển khai interface này luôn được tải lại từ FXML như cũ.
+ */
+public interface RefreshableView {
+
+    /**
+     * Được gọi trên luồng JavaFX mỗi khi màn hình đã lưu được hiển thị lại.
+     */
+    void onViewShown();
+}
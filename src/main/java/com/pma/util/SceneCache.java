@@ -0,0 +1,125 @@
+package com.pma.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javafx.scene.Node;
+import javafx.scene.Parent;
+
+/**
+ * Bộ nhớ đệm LRU cho các màn hình FXML đã tải (root node và controller), theo
+ * đường dẫn FXML. Ngoài giới hạn số màn hình, bộ nhớ đệm có ngân sách bộ nhớ
+ * tính theo tổng số node trong các scene graph đã lưu; khi vượt ngân sách, màn
+ * hình ít được dùng gần đây nhất bị loại trước.
+ * <p>
+ * Chỉ dùng trên luồng JavaFX.
+ */
+public final class SceneCache {
+
+    /**
+     * Một màn hình đã tải.
+     *
+     * @param root Root node của màn hình.
+     * @param controller Controller của màn hình.
+     * @param nodeCount Số node trong scene graph khi được lưu.
+     */
+    public record CachedView(Parent root, Object controller, int nodeCount) {
+    }
+
+    private final int maxEntries;
+    private final int maxNodes;
+    private final LinkedHashMap<String, CachedView> views = new LinkedHashMap<>(16, 0.75f, true);
+    private int totalNodes;
+
+    /**
+     * @param maxEntries Số màn hình được lưu tối đa.
+     * @param maxNodes Tổng số node tối đa của các màn hình được lưu.
+     */
+    public SceneCache(int maxEntries, int maxNodes) {
+        if (maxEntries < 0 || maxNodes < 0) {
+            throw new IllegalArgumentException("maxEntries and maxNodes must not be negative.");
+        }
+        this.maxEntries = maxEntries;
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Lấy màn hình đã lưu và đánh dấu là vừa được dùng.
+     *
+     * @return Màn hình đã lưu, hoặc null nếu không có.
+     */
+    public CachedView get(String fxmlPath) {
+        return views.get(fxmlPath);
+    }
+
+    /**
+     * Lưu một màn hình rồi loại bớt các màn hình cũ nhất nếu vượt giới hạn. Màn
+     * hình vừa lưu không bao giờ bị loại ngay (nó đang được hiển thị), kể cả
+     * khi một mình nó đã vượt ngân sách.
+     */
+    public void put(String fxmlPath, Parent root, Object controller) {
+        if (maxEntries == 0) {
+            return;
+        }
+        CachedView previous = views.remove(fxmlPath);
+        if (previous != null) {
+            totalNodes -= previous.nodeCount();
+        }
+        CachedView view = new CachedView(root, controller, countNodes(root));
+        views.put(fxmlPath, view);
+        totalNodes += view.nodeCount();
+
+        Iterator<Map.Entry<String, CachedView>> eldest = views.entrySet().iterator();
+        while (views.size() > 1 && (views.size() > maxEntries || totalNodes > maxNodes)) {
+            CachedView evicted = eldest.next().getValue();
+            eldest.remove();
+            totalNodes -= evicted.nodeCount();
+        }
+    }
+
+    /**
+     * Xóa một màn hình khỏi bộ nhớ đệm.
+     */
+    public void remove(String fxmlPath) {
+        CachedView removed = views.remove(fxmlPath);
+        if (removed != null) {
+            totalNodes -= removed.nodeCount();
+        }
+    }
+
+    /**
+     * Xóa toàn bộ màn hình đã lưu (ví dụ khi đăng xuất, để dữ liệu của phiên
+     * trước không còn trong bộ nhớ).
+     */
+    public void clear() {
+        views.clear();
+        totalNodes = 0;
+    }
+
+    public int size() {
+        return views.size();
+    }
+
+    public int totalNodes() {
+        return totalNodes;
+    }
+
+    private static int countNodes(Parent root) {
+        int count = 0;
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            count++;
+            if (node instanceof Parent parent) {
+                for (Node child : parent.getChildrenUnmodifiable()) {
+                    pending.push(child);
+                }
+            }
+        }
+        return count;
+    }
+}
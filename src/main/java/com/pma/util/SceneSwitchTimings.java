@@ -0,0 +1,73 @@
+package com.pma.util;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Thống kê thời gian chuyển màn hình theo từng file FXML, tách lần tải mới
+ * (phân tích FXML, chạy initialize()) và lần dùng lại từ {@link SceneCache}
+ * (chỉ onViewShown()). UIManager ghi lại mỗi lần chuyển và ghi log bảng tổng
+ * hợp khi đăng xuất và khi đóng ứng dụng, để so sánh độ trễ có và không có bộ
+ * nhớ đệm trên máy thật.
+ * <p>
+ * Ghi trên luồng JavaFX, đọc được từ luồng đóng ứng dụng nên các phương thức
+ * được đồng bộ.
+ */
+public final class SceneSwitchTimings {
+
+    private final Map<String, Stats[]> statsByView = new TreeMap<>();
+
+    /**
+     * Ghi lại một lần chuyển màn hình.
+     *
+     * @param fxmlPath Đường dẫn FXML của màn hình.
+     * @param cached Màn hình được lấy từ bộ nhớ đệm hay tải mới.
+     * @param nanos Thời gian chuyển (ns).
+     */
+    public synchronized void record(String fxmlPath, boolean cached, long nanos) {
+        Stats[] stats = statsByView.computeIfAbsent(fxmlPath, _ -> new Stats[] {new Stats(), new Stats()});
+        stats[cached ? 1 : 0].add(nanos);
+    }
+
+    public synchronized boolean isEmpty() {
+        return statsByView.isEmpty();
+    }
+
+    /**
+     * Bảng tổng hợp, mỗi màn hình một dòng: số lần, trung bình và nhỏ nhất
+     * (ms) của lần tải mới và lần dùng lại.
+     */
+    public synchronized String summary() {
+        StringBuilder sb = new StringBuilder("view | uncached: n, mean ms, min ms | cached: n, mean ms, min ms");
+        statsByView.forEach((fxmlPath, stats) -> {
+            sb.append('\n').append(fxmlPath).append(" | ");
+            stats[0].appendTo(sb);
+            sb.append(" | ");
+            stats[1].appendTo(sb);
+        });
+        return sb.toString();
+    }
+
+    private static final class Stats {
+
+        private int count;
+        private long totalNanos;
+        private long minNanos = Long.MAX_VALUE;
+
+        private void add(long nanos) {
+            count++;
+            totalNanos += nanos;
+            minNanos = Math.min(minNanos, nanos);
+        }
+
+        private void appendTo(StringBuilder sb) {
+            if (count == 0) {
+                sb.append("0, -, -");
+                return;
+            }
+            sb.append(count).append(", ").append(String.format(Locale.ROOT, "%.1f", totalNanos / 1e6 / count))
+                    .append(", ").append(String.format(Locale.ROOT, "%.1f", minNanos / 1e6));
+        }
+    }
+}
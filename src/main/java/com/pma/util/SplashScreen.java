@@ -0,0 +1,73 @@
+package com.pma.util;
+
+import java.io.InputStream;
+import java.net.URL;
+
+import com.pma.App;
+
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.image.Image;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+import javafx.stage.StageStyle;
+
+/**
+ * Cửa sổ chờ hiển thị ngay khi ứng dụng khởi động, trong lúc Spring context và
+ * Hibernate được khởi tạo ở luồng nền. Được dựng bằng code (không dùng FXML,
+ * không cần Spring) để có thể hiện ra trước mọi thứ khác.
+ * <p>
+ * Mọi phương thức phải được gọi trên luồng JavaFX.
+ */
+public final class SplashScreen {
+
+    private final Stage stage = new Stage(StageStyle.UNDECORATED);
+    private final Label statusLabel = new Label("Đang khởi động...");
+    private final ProgressBar progressBar = new ProgressBar(ProgressBar.INDETERMINATE_PROGRESS);
+
+    public SplashScreen() {
+        Label titleLabel = new Label("Patient Management");
+        titleLabel.getStyleClass().add("title-label");
+        progressBar.setPrefWidth(320);
+
+        VBox root = new VBox(16, titleLabel, progressBar, statusLabel);
+        root.setAlignment(Pos.CENTER);
+        root.setPadding(new Insets(32));
+        root.getStyleClass().add("card");
+
+        Scene scene = new Scene(root, 420, 220);
+        URL stylesheet = App.class.getResource("/com/pma/css/modern-style.css");
+        if (stylesheet != null) {
+            scene.getStylesheets().add(stylesheet.toExternalForm());
+        }
+        stage.setScene(scene);
+        stage.setTitle("PMA");
+        InputStream icon = App.class.getResourceAsStream("/com/pma/img/app_icon.png");
+        if (icon != null) {
+            stage.getIcons().add(new Image(icon));
+        }
+    }
+
+    public void show() {
+        stage.centerOnScreen();
+        stage.show();
+    }
+
+    /**
+     * Cập nhật dòng trạng thái.
+     *
+     * @param status Mô tả bước đang thực hiện.
+     * @param progress Tiến độ từ 0 đến 1, hoặc số âm nếu không xác định.
+     */
+    public void update(String status, double progress) {
+        statusLabel.setText(status);
+        progressBar.setProgress(progress < 0 ? ProgressBar.INDETERMINATE_PROGRESS : progress);
+    }
+
+    public void close() {
+        stage.close();
+    }
+}
@@ -0,0 +1,100 @@
+package com.pma.util;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Ghi lại các mốc thời gian trong quá trình khởi động ứng dụng, tính từ lúc
+ * tiến trình JVM bắt đầu (hoặc lúc tạo timeline nếu hệ điều hành không cung cấp
+ * thời điểm đó). An toàn luồng: các mốc có thể được ghi từ luồng JavaFX, luồng
+ * khởi động Spring và các luồng làm nóng dữ liệu.
+ */
+public final class StartupTimeline {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupTimeline.class);
+
+    /**
+     * Một mốc thời gian.
+     *
+     * @param name Tên mốc.
+     * @param sinceStart Thời gian từ lúc tiến trình bắt đầu.
+     * @param thread Tên luồng ghi mốc.
+     */
+    public record Mark(String name, Duration sinceStart, String thread) {
+    }
+
+    private final long originNanos;
+    private final List<Mark> marks = new ArrayList<>();
+
+    private StartupTimeline(long originNanos) {
+        this.originNanos = originNanos;
+    }
+
+    /**
+     * Tạo timeline với gốc thời gian là lúc tiến trình JVM bắt đầu.
+     */
+    public static StartupTimeline sinceProcessStart() {
+        long now = System.nanoTime();
+        Duration processAge = ProcessHandle.current().info().startInstant()
+                .map(start -> Duration.between(start, Instant.now()))
+                .filter(age -> !age.isNegative())
+                .orElse(Duration.ZERO);
+        return new StartupTimeline(now - processAge.toNanos());
+    }
+
+    /**
+     * Ghi một mốc tại thời điểm hiện tại.
+     *
+     * @return Thời gian từ lúc tiến trình bắt đầu tới mốc này.
+     */
+    public Duration mark(String name) {
+        Duration sinceStart = Duration.ofNanos(System.nanoTime() - originNanos);
+        synchronized (marks) {
+            marks.add(new Mark(name, sinceStart, Thread.currentThread().getName()));
+        }
+        log.debug("Startup mark '{}' at {} ms", name, sinceStart.toMillis());
+        return sinceStart;
+    }
+
+    /**
+     * Lấy mốc theo tên.
+     *
+     * @return Mốc đầu tiên có tên này, hoặc null nếu chưa có.
+     */
+    public Mark get(String name) {
+        synchronized (marks) {
+            return marks.stream().filter(mark -> mark.name().equals(name)).findFirst().orElse(null);
+        }
+    }
+
+    /**
+     * Lấy danh sách các mốc theo thứ tự thời gian.
+     */
+    public List<Mark> marks() {
+        synchronized (marks) {
+            List<Mark> copy = new ArrayList<>(marks);
+            copy.sort((a, b) -> a.sinceStart().compareTo(b.sinceStart()));
+            return copy;
+        }
+    }
+
+    /**
+     * Ghi log bảng các mốc, kèm thời gian của từng pha (khoảng cách tới mốc
+     * trước).
+     */
+    public void logSummary() {
+        StringBuilder sb = new StringBuilder("Startup timeline:");
+        Duration previous = Duration.ZERO;
+        for (Mark mark : marks()) {
+            sb.append(String.format("%n  %-32s %7d ms  (+%5d ms)  [%s]", mark.name(), mark.sinceStart().toMillis(),
+                    mark.sinceStart().minus(previous).toMillis(), mark.thread()));
+            previous = mark.sinceStart();
+        }
+        log.info(sb.toString());
+    }
+}
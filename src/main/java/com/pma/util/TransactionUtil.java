@@ -0,0 +1,59 @@
+package com.pma.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Lớp tiện ích cho các thao tác gắn với vòng đời transaction của Spring.
+ */
+public final class TransactionUtil {
+
+    // Private constructor để ngăn chặn việc tạo instance
+    private TransactionUtil() {
+    }
+
+    /**
+     * Chạy action sau khi transaction hiện tại commit thành công; nếu
+     * transaction rollback thì action bị bỏ qua. Nếu không có transaction đang
+     * hoạt động, action được chạy ngay.
+     *
+     * @param action Công việc cần chạy.
+     */
+    public static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Chạy onCommit sau khi transaction hiện tại commit thành công, hoặc
+     * onRollback nếu transaction rollback. Nếu không có transaction đang hoạt
+     * động, onCommit được chạy ngay.
+     *
+     * @param onCommit Công việc khi commit.
+     * @param onRollback Công việc khi rollback.
+     */
+    public static void runAfterCompletion(Runnable onCommit, Runnable onRollback) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        onCommit.run();
+                    } else {
+                        onRollback.run();
+                    }
+                }
+            });
+        } else {
+            onCommit.run();
+        }
+    }
+}
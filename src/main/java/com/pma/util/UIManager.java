@@ -9,6 +9,7 @@ import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory; // Để đặt icon cho cửa sổ
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
@@ -29,6 +30,8 @@ import javafx.stage.Stage;
 import javafx.stage.StageStyle;
 import javafx.util.Duration;
 
+import jakarta.annotation.PreDestroy;
+
 /**
  * Quản lý việc tải và chuyển đổi giữa các màn hình (Scenes) trong ứng dụng
  * JavaFX. Tích hợp với Spring Context để tạo Controller là Spring Beans.
@@ -40,9 +43,57 @@ public class UIManager {
     private Stage primaryStage;
     private Scene mainScene; // Có thể giữ tham chiếu đến scene chính để thay đổi root
 
+    private Object currentController; // Controller của màn hình đang hiển thị
+
     @Autowired
     private ApplicationContext springContext; // Spring Application Context
 
+    @Autowired
+    private UiTaskService uiTaskService; // Hủy công việc nền của màn hình cũ khi chuyển màn hình
+
+    /**
+     * Bộ nhớ đệm các màn hình đã tải, chỉ gồm màn hình có controller triển khai
+     * {@link RefreshableView}.
+     */
+    private final SceneCache sceneCache;
+
+    /**
+     * Thời gian chuyển màn hình, tách lần tải mới và lần dùng lại từ
+     * sceneCache.
+     */
+    private final SceneSwitchTimings switchTimings = new SceneSwitchTimings();
+
+    /**
+     * Dùng các màn hình đã biên dịch từ FXML lúc build ({@link CompiledView})
+     * khi có, thay cho FXMLLoader.
+     */
+    private final boolean compiledViewsEnabled;
+
+    /**
+     * Màn hình vừa được tải: root node và controller.
+     */
+    private record LoadedView(Parent root, Object controller) {
+
+    }
+
+    public UIManager(@Value("${pma.ui.scene-cache.max-entries:6}") int sceneCacheMaxEntries,
+            @Value("${pma.ui.scene-cache.max-nodes:20000}") int sceneCacheMaxNodes,
+            @Value("${pma.ui.compiled-views.enabled:true}") boolean compiledViewsEnabled) {
+        this.sceneCache = new SceneCache(sceneCacheMaxEntries, sceneCacheMaxNodes);
+        this.compiledViewsEnabled = compiledViewsEnabled;
+    }
+
+    /**
+     * Ghi log bảng thời gian chuyển màn hình của phiên (xem
+     * {@link SceneSwitchTimings}).
+     */
+    @PreDestroy
+    public void logSwitchTimings() {
+        if (!switchTimings.isEmpty()) {
+            log.info("Scene switch timings:\n{}", switchTimings.summary());
+        }
+    }
+
     /**
      * Thiết lập Stage chính cho UIManager. Nên được gọi một lần từ phương thức
      * start() của lớp Application.
@@ -64,6 +115,9 @@ public class UIManager {
      */
     public void switchToLoginScreen() {
         log.info("Switching to Login Screen");
+        logSwitchTimings();
+        // Không giữ màn hình (và dữ liệu) của phiên đăng nhập trước
+        sceneCache.clear();
         // Login screen should not be maximized by default.
         loadAndSetScene("/com/pma/fxml/login.fxml", "PMA - Login", 600, 450, false, (Consumer<Object>) null, false);
     }
@@ -178,6 +232,7 @@ public class UIManager {
         setSceneAndMaximize("/com/pma/fxml/admin_manage_diseases.fxml", "PMA - Admin Manage Diseases", 1200, 800, true, null);
     }
 
+    @SuppressWarnings("unchecked")
     public <T> T openModalDialog(String fxmlPath, String title, Stage owner) {
         log.info("Opening modal dialog: {} with title: {}", fxmlPath, title);
         if (springContext == null) {
@@ -195,10 +250,8 @@ public class UIManager {
                 return null;
             }
 
-            FXMLLoader loader = new FXMLLoader(fxmlUrl);
-            loader.setControllerFactory(springContext::getBean);
-
-            Parent dialogRoot = loader.load();
+            LoadedView loadedView = loadView(fxmlPath, fxmlUrl);
+            Parent dialogRoot = loadedView.root();
 
             Stage dialogStage = new Stage();
             dialogStage.setTitle(title);
@@ -213,7 +266,7 @@ public class UIManager {
                 dialogStage.getIcons().add(primaryStage.getIcons().get(0));
             }
 
-            T controller = loader.getController();
+            T controller = (T) loadedView.controller();
             if (controller == null && !fxmlPath.contains("some_controllerless_dialog.fxml")) {
                 log.warn("Controller for modal dialog FXML {} was null after loading.", fxmlPath);
             }
@@ -243,6 +296,14 @@ public class UIManager {
         loadAndSetScene(fxmlPath, title, preferredWidth, preferredHeight, resizable, (Consumer<Object>) null, false);
     }
 
+    /**
+     * Hiển thị màn hình FXML trên Stage chính. Màn hình có controller triển
+     * khai {@link RefreshableView} được lấy từ bộ nhớ đệm nếu có (không phân
+     * tích lại FXML, không chạy lại initialize()) và được làm mới qua
+     * {@link RefreshableView#onViewShown()}; các màn hình khác luôn được tải
+     * lại.
+     */
+    @SuppressWarnings("unchecked")
     private <T> void loadAndSetScene(String fxmlPath, String title, double preferredWidth, double preferredHeight, boolean resizable, Consumer<T> controllerInitializer, boolean attemptMaximize) {
         if (primaryStage == null) {
             log.error("Primary stage is not initialized in UIManager.");
@@ -254,30 +315,47 @@ public class UIManager {
             return;
         }
 
+        long startedAt = System.nanoTime();
         URL fxmlUrl = null;
         try {
-            fxmlUrl = App.class.getResource(fxmlPath);
-            if (fxmlUrl == null) {
-                log.error("FXML file not found at path: {}", fxmlPath);
-                DialogUtil.showErrorAlert("Configuration Error", "Cannot find FXML: " + fxmlPath);
-                return;
-            }
-            log.info("Loading FXML from: {}", fxmlUrl);
-
-            FXMLLoader loader = new FXMLLoader(fxmlUrl);
-            loader.setControllerFactory(springContext::getBean);
+            Parent rootNode;
+            Object newController;
+            SceneCache.CachedView cachedView = sceneCache.get(fxmlPath);
+            if (cachedView != null) {
+                log.info("Reusing cached scene for: {}", fxmlPath);
+                rootNode = cachedView.root();
+                newController = cachedView.controller();
+            } else {
+                fxmlUrl = App.class.getResource(fxmlPath);
+                if (fxmlUrl == null) {
+                    log.error("FXML file not found at path: {}", fxmlPath);
+                    DialogUtil.showErrorAlert("Configuration Error", "Cannot find FXML: " + fxmlPath);
+                    return;
+                }
+                log.info("Loading FXML from: {}", fxmlUrl);
 
-            Parent rootNode = loader.load();
+                LoadedView loadedView = loadView(fxmlPath, fxmlUrl);
+                rootNode = loadedView.root();
+                newController = loadedView.controller();
+                if (newController instanceof RefreshableView) {
+                    sceneCache.put(fxmlPath, rootNode, newController);
+                }
+            }
 
             if (controllerInitializer != null) {
-                T controller = loader.getController();
-                if (controller != null) {
-                    controllerInitializer.accept(controller);
+                if (newController != null) {
+                    controllerInitializer.accept((T) newController);
                 } else {
                     log.warn("Controller not found for FXML: {} while trying to initialize.", fxmlPath);
                 }
             }
 
+            // Hủy các công việc nền của màn hình cũ; kết quả của chúng không còn nơi hiển thị
+            if (currentController != null && currentController != newController) {
+                uiTaskService.cancelAll(currentController);
+            }
+            currentController = newController;
+
             if (mainScene == null) {
                 mainScene = new Scene(rootNode, preferredWidth, preferredHeight);
                 primaryStage.setScene(mainScene);
@@ -311,13 +389,50 @@ public class UIManager {
                 primaryStage.setHeight(preferredHeight);
                 primaryStage.centerOnScreen();
             }
-            log.info("Scene switched to: {} with title: {}", fxmlPath, title);
+            if (cachedView != null && newController instanceof RefreshableView refreshableView) {
+                refreshableView.onViewShown();
+            }
+            long elapsed = System.nanoTime() - startedAt;
+            switchTimings.record(fxmlPath, cachedView != null, elapsed);
+            log.info("Scene switched to: {} with title: {} in {} ms (cached: {}, cache size: {}, cached nodes: {})",
+                    fxmlPath, title, elapsed / 1_000_000, cachedView != null,
+                    sceneCache.size(), sceneCache.totalNodes());
         } catch (IOException | IllegalStateException e) {
             log.error("Failed to load or set FXML scene: " + fxmlPath, e);
+            sceneCache.remove(fxmlPath); // Không dùng lại màn hình có thể đang ở trạng thái lỗi
             DialogUtil.showExceptionDialog("UI Load Error", "Could not load the screen.", "FXML: " + fxmlPath, e);
         }
     }
 
+    /**
+     * Tải một màn hình: dùng lớp sinh sẵn từ FXML lúc build nếu có, nếu không
+     * thì dùng FXMLLoader. Controller luôn được lấy từ Spring context.
+     *
+     * @param fxmlPath Đường dẫn FXML trong classpath.
+     * @param fxmlUrl URL của file FXML.
+     * @return Root node và controller của màn hình.
+     * @throws IOException nếu tải màn hình thất bại.
+     */
+    private LoadedView loadView(String fxmlPath, URL fxmlUrl) throws IOException {
+        if (compiledViewsEnabled) {
+            CompiledView compiledView = CompiledViews.find(fxmlPath);
+            if (compiledView != null) {
+                try {
+                    Object controller = springContext.getBean(compiledView.controllerType());
+                    return new LoadedView(compiledView.load(controller, fxmlUrl), controller);
+                } catch (LinkageError e) {
+                    // Lớp sinh ra không còn khớp với controller (ví dụ build cũ): dùng FXMLLoader từ nay
+                    log.warn("Compiled view for {} is unusable, falling back to FXMLLoader: {}", fxmlPath, e.toString());
+                    CompiledViews.disable(fxmlPath);
+                }
+            }
+        }
+        FXMLLoader loader = new FXMLLoader(fxmlUrl);
+        loader.setControllerFactory(springContext::getBean);
+        Parent root = loader.load();
+        return new LoadedView(root, loader.getController());
+    }
+
     public void switchToTwoFactorAuthScreen(String username, Authentication preAuthToken, String infoMessage) {
         log.info("Switching to Two-Factor Authentication Screen for user: {}", username);
         if (primaryStage == null || springContext == null) {
@@ -335,11 +450,7 @@ public class UIManager {
         }
 
         try {
-            FXMLLoader loader = new FXMLLoader(fxmlUrl);
-            loader.setControllerFactory(springContext::getBean);
-            Parent rootNode = loader.load();
-
-            TwoFactorAuthController controller = loader.getController();
+            TwoFactorAuthController controller = (TwoFactorAuthController) loadView(fxmlPathForAuth, fxmlUrl).controller();
             if (controller == null) {
                 log.error("Failed to get controller for 2FA FXML: {}", fxmlPathForAuth);
                 DialogUtil.showErrorAlert("UI Load Error", "Could not initialize 2FA screen controller.");
@@ -401,11 +512,9 @@ public class UIManager {
         }
 
         try {
-            FXMLLoader loader = new FXMLLoader(fxmlUrl);
-            loader.setControllerFactory(springContext::getBean);
-
-            Parent dialogRoot = loader.load();
-            TwoFactorSetupController controller = loader.getController();
+            LoadedView loadedView = loadView(fxmlPath, fxmlUrl);
+            Parent dialogRoot = loadedView.root();
+            TwoFactorSetupController controller = (TwoFactorSetupController) loadedView.controller();
             if (controller == null) {
                 log.error("Failed to get controller for FXML: {}", fxmlPath);
                 DialogUtil.showErrorAlert("UI Error", "Could not initialize 2FA setup screen controller.");
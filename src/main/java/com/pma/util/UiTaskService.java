@@ -0,0 +1,239 @@
+package com.pma.util;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Dịch vụ chạy công việc nền cho các màn hình JavaFX. Mọi công việc chạy trên
+ * một executor virtual thread dùng chung có giới hạn số tác vụ đồng thời (không
+ * tạo luồng không giới hạn khi người dùng bấm liên tục), kết quả và lỗi được
+ * đưa về luồng JavaFX, và các công việc của một màn hình bị hủy khi người dùng
+ * chuyển sang màn hình khác (UIManager gọi {@link #cancelAll(Object)}).
+ * <p>
+ * Các phương thức submit/run nên được gọi từ luồng JavaFX.
+ */
+@Component
+public class UiTaskService {
+
+    private static final Logger log = LoggerFactory.getLogger(UiTaskService.class);
+
+    /**
+     * Số công việc nền chạy đồng thời tối đa.
+     */
+    private static final int MAX_CONCURRENT_TASKS = 8;
+
+    /**
+     * Số công việc chờ tối đa trước khi từ chối.
+     */
+    private static final int MAX_QUEUED_TASKS = 64;
+
+    /**
+     * Công việc nền có báo cáo tiến độ.
+     *
+     * @param <T> Kiểu kết quả.
+     */
+    @FunctionalInterface
+    public interface ProgressWork<T> {
+
+        T run(Progress progress) throws Exception;
+    }
+
+    /**
+     * Kênh báo cáo tiến độ cho công việc nền. Giá trị được gộp và đưa về luồng
+     * JavaFX qua progressProperty()/messageProperty() của Task.
+     */
+    public interface Progress {
+
+        void update(double done, double total);
+
+        void message(String message);
+
+        boolean isCancelled();
+    }
+
+    private final BoundedVirtualThreadExecutor executor
+            = new BoundedVirtualThreadExecutor("ui-task", MAX_CONCURRENT_TASKS, MAX_QUEUED_TASKS);
+
+    /**
+     * Các công việc đang chạy theo màn hình sở hữu (so sánh theo định danh).
+     */
+    private final Map<Object, Set<Task<?>>> tasksByOwner = new IdentityHashMap<>();
+
+    /**
+     * Chạy một công việc nền và nhận kết quả trên luồng JavaFX.
+     *
+     * @param owner Màn hình (controller) sở hữu công việc.
+     * @param work Công việc chạy nền.
+     * @param onSuccess Xử lý kết quả (trên luồng JavaFX).
+     * @param onFailure Xử lý lỗi (trên luồng JavaFX).
+     * @return Task đã gửi, có thể dùng để hủy.
+     */
+    public <T> Task<T> submit(Object owner, Callable<T> work, Consumer<? super T> onSuccess,
+            Consumer<Throwable> onFailure) {
+        return submitWithProgress(owner, _ -> work.call(), onSuccess, onFailure);
+    }
+
+    /**
+     * Chạy một công việc nền có báo cáo tiến độ. Có thể gắn progressProperty()
+     * của Task trả về vào ProgressBar/ProgressIndicator.
+     *
+     * @param owner Màn hình (controller) sở hữu công việc.
+     * @param work Công việc chạy nền.
+     * @param onSuccess Xử lý kết quả (trên luồng JavaFX).
+     * @param onFailure Xử lý lỗi (trên luồng JavaFX).
+     * @return Task đã gửi, có thể dùng để hủy.
+     */
+    public <T> Task<T> submitWithProgress(Object owner, ProgressWork<T> work, Consumer<? super T> onSuccess,
+            Consumer<Throwable> onFailure) {
+        Task<T> task = new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                Task<T> self = this;
+                return work.run(new Progress() {
+                    @Override
+                    public void update(double done, double total) {
+                        updateProgress(done, total);
+                    }
+
+                    @Override
+                    public void message(String message) {
+                        updateMessage(message);
+                    }
+
+                    @Override
+                    public boolean isCancelled() {
+                        return self.isCancelled();
+                    }
+                });
+            }
+        };
+        task.setOnSucceeded(_ -> {
+            unregister(owner, task);
+            if (onSuccess != null) {
+                onSuccess.accept(task.getValue());
+            }
+        });
+        task.setOnFailed(_ -> {
+            unregister(owner, task);
+            Throwable error = task.getException();
+            log.warn("Background task of {} failed: {}", owner.getClass().getSimpleName(),
+                    error != null ? error.getMessage() : "unknown error");
+            if (onFailure != null) {
+                onFailure.accept(error);
+            }
+        });
+        task.setOnCancelled(_ -> unregister(owner, task));
+        register(owner, task);
+        try {
+            executor.execute(task);
+        } catch (TaskRejectedException e) {
+            unregister(owner, task);
+            log.warn("Background task of {} rejected: {}", owner.getClass().getSimpleName(), e.getMessage());
+            if (onFailure != null) {
+                runOnFxThread(() -> onFailure.accept(e));
+            }
+        }
+        return task;
+    }
+
+    /**
+     * Chạy một công việc nền không có kết quả. Công việc tự đưa cập nhật giao
+     * diện về luồng JavaFX (ví dụ qua {@link #runOnFxThread(Runnable)}); lỗi
+     * không được bắt bên trong công việc sẽ chỉ được ghi log.
+     *
+     * @param owner Màn hình (controller) sở hữu công việc.
+     * @param work Công việc chạy nền.
+     * @return Task đã gửi, có thể dùng để hủy.
+     */
+    public Task<Void> run(Object owner, Runnable work) {
+        return submit(owner, () -> {
+            work.run();
+            return null;
+        }, null, null);
+    }
+
+    /**
+     * Hủy (ngắt) tất cả công việc nền đang chạy của một màn hình. Callback của
+     * công việc bị hủy không được gọi.
+     *
+     * @param owner Màn hình (controller) sở hữu.
+     */
+    public void cancelAll(Object owner) {
+        if (owner == null) {
+            return;
+        }
+        List<Task<?>> tasks;
+        synchronized (tasksByOwner) {
+            Set<Task<?>> owned = tasksByOwner.remove(owner);
+            if (owned == null) {
+                return;
+            }
+            tasks = List.copyOf(owned);
+        }
+        log.debug("Cancelling {} background task(s) of {}", tasks.size(), owner.getClass().getSimpleName());
+        tasks.forEach(task -> task.cancel(true));
+    }
+
+    /**
+     * Chạy action trên luồng JavaFX (ngay lập tức nếu đang ở luồng JavaFX).
+     *
+     * @param action Công việc cập nhật giao diện.
+     */
+    public void runOnFxThread(Runnable action) {
+        if (Platform.isFxApplicationThread()) {
+            action.run();
+        } else {
+            Platform.runLater(action);
+        }
+    }
+
+    /**
+     * Lấy chỉ số của executor dùng chung.
+     */
+    public BoundedVirtualThreadExecutor.Metrics metrics() {
+        return executor.metrics();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        List<Object> owners;
+        synchronized (tasksByOwner) {
+            owners = List.copyOf(tasksByOwner.keySet());
+        }
+        owners.forEach(this::cancelAll);
+        executor.shutdown();
+    }
+
+    private void register(Object owner, Task<?> task) {
+        synchronized (tasksByOwner) {
+            tasksByOwner.computeIfAbsent(owner, _ -> Collections.newSetFromMap(new IdentityHashMap<>())).add(task);
+        }
+    }
+
+    private void unregister(Object owner, Task<?> task) {
+        synchronized (tasksByOwner) {
+            Set<Task<?>> owned = tasksByOwner.get(owner);
+            if (owned != null) {
+                owned.remove(task);
+                if (owned.isEmpty()) {
+                    tasksByOwner.remove(owner);
+                }
+            }
+        }
+    }
+}
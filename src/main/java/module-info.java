@@ -1,9 +1,11 @@
 module com.pma {
     // === Core Java & Jakarta EE APIs ===
     requires java.sql;
+    requires java.naming; // SessionFactory của Hibernate kế thừa javax.naming.Referenceable
     requires jakarta.persistence;
     requires static lombok; // Chỉ cần lúc biên dịch
     requires jakarta.validation; // THÊM DÒNG NÀY ĐỂ SỬ DỤNG VALIDATION ANNOTATIONS
+    requires jakarta.annotation; // Cho @PreDestroy
 
     // === Logging Facade ===
     requires org.slf4j;
@@ -58,6 +60,7 @@ module com.pma {
     exports com.pma;
     exports com.pma.model.entity;
     exports com.pma.model.enums;
+    exports com.pma.model.id; // Generator khóa chính, Hibernate khởi tạo qua reflection
     exports com.pma.service;
     exports com.pma.repository;
     exports com.pma.util;
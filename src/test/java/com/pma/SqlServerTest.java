@@ -0,0 +1,45 @@
+package com.pma;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import com.pma.config.HibernateConfig;
+
+/**
+ * Test tầng dữ liệu chạy trên SQL Server thật. Các câu lệnh native (UPDATE ...
+ * FROM (VALUES ...), khóa UPDLOCK/HOLDLOCK, ràng buộc UNIQUE coi NULL là trùng)
+ * không mô phỏng được bằng cơ sở dữ liệu nhúng, nên các test này chỉ chạy khi
+ * có biến môi trường PMA_TEST_DB_URL trỏ tới một cơ sở dữ liệu dành riêng cho
+ * test (lược đồ bị tạo lại và xóa khi chạy):
+ * <pre>
+ * PMA_TEST_DB_URL="jdbc:sqlserver://localhost;databaseName=pma_test;encrypt=false" \
+ * PMA_TEST_DB_USERNAME=sa PMA_TEST_DB_PASSWORD=... mvn test
+ * </pre>
+ * Chỉ các repository và entity được nạp (@DataJpaTest) cùng cấu hình Hibernate
+ * của ứng dụng (JDBC batching, thống kê); service cần test được @Import ở từng
+ * lớp test.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(HibernateConfig.class)
+@EnabledIfEnvironmentVariable(named = "PMA_TEST_DB_URL", matches = ".+")
+@TestPropertySource(properties = {
+    "spring.datasource.url=${PMA_TEST_DB_URL}",
+    "spring.datasource.username=${PMA_TEST_DB_USERNAME:sa}",
+    "spring.datasource.password=${PMA_TEST_DB_PASSWORD:}",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+public @interface SqlServerTest {
+}
@@ -0,0 +1,80 @@
+package com.pma;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.pma.model.entity.Department;
+import com.pma.model.entity.Disease;
+import com.pma.model.entity.Doctor;
+import com.pma.model.entity.Medicine;
+import com.pma.model.entity.Patient;
+import com.pma.model.enums.Gender;
+
+/**
+ * Tạo các entity hợp lệ (đủ cột bắt buộc, giá trị unique khác nhau) cho test.
+ * Các entity chưa được lưu.
+ */
+public final class TestEntities {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong(System.nanoTime() % 1_000_000);
+
+    private TestEntities() {
+    }
+
+    public static Department department() {
+        Department department = new Department();
+        department.setDepartmentName("Khoa " + next());
+        return department;
+    }
+
+    public static Disease disease() {
+        long n = next();
+        Disease disease = new Disease();
+        disease.setDiseaseCode("T" + n);
+        disease.setDiseaseName("Bệnh " + n);
+        return disease;
+    }
+
+    public static Doctor doctor(Department department) {
+        long n = next();
+        Doctor doctor = new Doctor();
+        doctor.setFullName("Bác sĩ " + n);
+        doctor.setDateOfBirth(LocalDate.of(1980, 1, 1));
+        doctor.setGender(Gender.FEMALE);
+        doctor.setPhone(phone(n));
+        doctor.setEmail("doctor" + n + "@pma.test");
+        doctor.setSpecialty("Nội tổng quát");
+        doctor.setMedicalLicense("GP-" + n);
+        doctor.setDepartment(department);
+        return doctor;
+    }
+
+    public static Patient patient() {
+        long n = next();
+        Patient patient = new Patient();
+        patient.setFullName("Bệnh nhân " + n);
+        patient.setDateOfBirth(LocalDate.of(1990, 1, 1));
+        patient.setGender(Gender.MALE);
+        patient.setPhone(phone(n));
+        patient.setEmail("patient" + n + "@pma.test");
+        return patient;
+    }
+
+    public static Medicine medicine(int stockQuantity) {
+        Medicine medicine = new Medicine();
+        medicine.setMedicineName("Thuốc " + next());
+        medicine.setUnit("viên");
+        medicine.setPrice(new BigDecimal("1500.00"));
+        medicine.setStockQuantity(stockQuantity);
+        return medicine;
+    }
+
+    private static long next() {
+        return SEQUENCE.incrementAndGet();
+    }
+
+    private static String phone(long n) {
+        return String.format("09%08d", n % 100_000_000);
+    }
+}
@@ -0,0 +1,149 @@
+package com.pma.model.id;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Kiểm tra UUID tăng dần theo thứ tự so sánh uniqueidentifier của SQL Server,
+ * với đồng hồ do test điều khiển: qua ranh giới mili giây, khi hết số thứ tự
+ * trong một mili giây, cùng version/variant và việc đọc lại thời điểm sinh.
+ */
+class SequentialUuidsTest {
+
+    private static final long T = 1_760_000_000_000L;
+    private static final int SEQUENCES_PER_MILLI = 1 << 14;
+
+    /**
+     * Thứ tự byte (theo bố cục RFC 9562 của UUID) mà SQL Server dùng khi so
+     * sánh uniqueidentifier: nhóm cuối (byte 10-15), rồi nhóm thứ tư (byte
+     * 8-9), rồi ba nhóm đầu được lưu little-endian.
+     */
+    private static final int[] SQL_SERVER_BYTE_ORDER = {10, 11, 12, 13, 14, 15, 8, 9, 6, 7, 4, 5, 3, 2, 1, 0};
+
+    private static final Comparator<UUID> SQL_SERVER_ORDER = (a, b) -> {
+        byte[] left = bytes(a);
+        byte[] right = bytes(b);
+        for (int i : SQL_SERVER_BYTE_ORDER) {
+            int cmp = Integer.compare(left[i] & 0xFF, right[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    };
+
+    @Test
+    void staysOrderedAcrossMillisecondRollover() {
+        AtomicLong clock = new AtomicLong(T);
+        SequentialUuids generator = new SequentialUuids(clock::get);
+
+        List<UUID> generated = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            generated.add(generator.generate());
+        }
+        clock.set(T + 1);
+        for (int i = 0; i < 3; i++) {
+            generated.add(generator.generate());
+        }
+
+        // Số thứ tự (byte 8-9) về 0 ở mili giây mới, nhưng byte 10-15 đã tăng
+        assertThat(sequenceOf(generated.get(2))).isEqualTo(2);
+        assertThat(sequenceOf(generated.get(3))).isZero();
+        assertThat(generated).extracting(SequentialUuids::timestampOf)
+                .containsExactly(T, T, T, T + 1, T + 1, T + 1);
+        assertStrictlyIncreasing(generated);
+    }
+
+    @Test
+    void exhaustedSequenceBorrowsTheNextMillisecond() {
+        AtomicLong clock = new AtomicLong(T);
+        SequentialUuids generator = new SequentialUuids(clock::get);
+
+        List<UUID> generated = new ArrayList<>();
+        for (int i = 0; i <= SEQUENCES_PER_MILLI; i++) {
+            generated.add(generator.generate());
+        }
+
+        UUID lastOfT = generated.get(SEQUENCES_PER_MILLI - 1);
+        UUID borrowed = generated.get(SEQUENCES_PER_MILLI);
+        assertThat(SequentialUuids.timestampOf(lastOfT)).isEqualTo(T);
+        assertThat(sequenceOf(lastOfT)).isEqualTo(SEQUENCES_PER_MILLI - 1);
+        assertThat(SequentialUuids.timestampOf(borrowed)).isEqualTo(T + 1);
+        assertThat(sequenceOf(borrowed)).isZero();
+
+        // Khi đồng hồ bắt kịp, mili giây đã mượn được dùng tiếp
+        clock.set(T + 1);
+        UUID afterCatchUp = generator.generate();
+        assertThat(SequentialUuids.timestampOf(afterCatchUp)).isEqualTo(T + 1);
+        assertThat(sequenceOf(afterCatchUp)).isEqualTo(1);
+
+        generated.add(afterCatchUp);
+        assertStrictlyIncreasing(generated);
+    }
+
+    @Test
+    void clockGoingBackwardsDoesNotBreakOrdering() {
+        AtomicLong clock = new AtomicLong(T);
+        SequentialUuids generator = new SequentialUuids(clock::get);
+
+        UUID first = generator.generate();
+        clock.set(T - 1_000);
+        UUID second = generator.generate();
+
+        assertThat(SequentialUuids.timestampOf(second)).isEqualTo(T);
+        assertStrictlyIncreasing(List.of(first, second));
+    }
+
+    @Test
+    void hasVersion8AndRfcVariant() {
+        for (int i = 0; i < 100; i++) {
+            UUID uuid = SequentialUuids.next();
+            assertThat(uuid.version()).isEqualTo(8);
+            assertThat(uuid.variant()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void timestampRoundTrips() {
+        SequentialUuids generator = new SequentialUuids(() -> T);
+        assertThat(SequentialUuids.timestampOf(generator.generate())).isEqualTo(T);
+
+        long before = System.currentTimeMillis();
+        long timestamp = SequentialUuids.timestampOf(SequentialUuids.next());
+        assertThat(timestamp).isBetween(before, System.currentTimeMillis() + 1);
+    }
+
+    @Test
+    void timestampOfRejectsOtherUuids() {
+        assertThatThrownBy(() -> SequentialUuids.timestampOf(UUID.randomUUID()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void assertStrictlyIncreasing(List<UUID> uuids) {
+        for (int i = 1; i < uuids.size(); i++) {
+            assertThat(SQL_SERVER_ORDER.compare(uuids.get(i - 1), uuids.get(i)))
+                    .as("uuid %d (%s) sorts after uuid %d (%s)", i, uuids.get(i), i - 1, uuids.get(i - 1))
+                    .isNegative();
+        }
+    }
+
+    private static int sequenceOf(UUID uuid) {
+        return (int) ((uuid.getLeastSignificantBits() >>> 48) & (SEQUENCES_PER_MILLI - 1));
+    }
+
+    private static byte[] bytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+}
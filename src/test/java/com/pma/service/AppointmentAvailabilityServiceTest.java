@@ -0,0 +1,111 @@
+package com.pma.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.pma.model.entity.Appointment;
+import com.pma.model.entity.Doctor;
+import com.pma.model.enums.AppointmentStatus;
+import com.pma.repository.AppointmentRepository;
+
+/**
+ * Kiểm tra bitmap khung giờ trống: tra cứu không truy vấn CSDL, ngày đã nạp
+ * hết hiệu lực sau TTL và được nạp lại.
+ */
+class AppointmentAvailabilityServiceTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(7);
+
+    private AppointmentRepository appointmentRepository;
+    private Doctor doctor;
+
+    @BeforeEach
+    void setUp() {
+        appointmentRepository = mock(AppointmentRepository.class);
+        doctor = new Doctor();
+        doctor.setDoctorId(UUID.randomUUID());
+        Appointment booked = new Appointment();
+        booked.setAppointmentId(UUID.randomUUID());
+        booked.setDoctor(doctor);
+        booked.setStatus(AppointmentStatus.Scheduled);
+        booked.setAppointmentDatetime(DAY.atTime(9, 0));
+        when(appointmentRepository.findByDoctor_DoctorIdAndStatusAndAppointmentDatetimeBetween(
+                eq(doctor.getDoctorId()), eq(AppointmentStatus.Scheduled), any(LocalDateTime.class),
+                any(LocalDateTime.class))).thenReturn(List.of(booked));
+    }
+
+    @Test
+    void preloadedAppointmentBlocksOverlappingStarts() {
+        AppointmentAvailabilityService service = new AppointmentAvailabilityService(appointmentRepository,
+                Duration.ofMinutes(2));
+        service.preload(doctor.getDoctorId(), DAY, DAY);
+
+        assertThat(service.isSlotAvailable(doctor.getDoctorId(), DAY.atTime(9, 0))).isFalse();
+        // Cuộc hẹn dài 60 phút: bắt đầu 8:15 sẽ chồng lên 9:00
+        assertThat(service.isSlotAvailable(doctor.getDoctorId(), DAY.atTime(8, 15))).isFalse();
+        assertThat(service.isSlotAvailable(doctor.getDoctorId(), DAY.atTime(8, 0))).isTrue();
+        assertThat(service.isSlotAvailable(doctor.getDoctorId(), DAY.atTime(10, 0))).isTrue();
+        assertThat(service.isHourFullyBooked(doctor.getDoctorId(), DAY, 9)).isTrue();
+        assertThat(service.isDayFullyBooked(doctor.getDoctorId(), DAY)).isFalse();
+    }
+
+    @Test
+    void lookupsNeverQueryTheDatabase() {
+        AppointmentAvailabilityService service = new AppointmentAvailabilityService(appointmentRepository,
+                Duration.ofMinutes(2));
+
+        // Ngày chưa nạp: không biết, nên gợi ý là còn trống
+        assertThat(service.isSlotAvailable(doctor.getDoctorId(), DAY.atTime(9, 0))).isTrue();
+        assertThat(service.isDayFullyBooked(doctor.getDoctorId(), DAY)).isFalse();
+        verifyNoInteractions(appointmentRepository);
+    }
+
+    @Test
+    void expiredDaysAreIgnoredAndReloaded() throws InterruptedException {
+        AppointmentAvailabilityService service = new AppointmentAvailabilityService(appointmentRepository,
+                Duration.ofMillis(20));
+        service.preload(doctor.getDoctorId(), DAY, DAY);
+        assertThat(service.isSlotAvailable(doctor.getDoctorId(), DAY.atTime(9, 0))).isFalse();
+
+        Thread.sleep(50);
+        assertThat(service.isSlotAvailable(doctor.getDoctorId(), DAY.atTime(9, 0))).isTrue();
+
+        service.preload(doctor.getDoctorId(), DAY, DAY);
+        assertThat(service.isSlotAvailable(doctor.getDoctorId(), DAY.atTime(9, 0))).isFalse();
+        verify(appointmentRepository, times(2)).findByDoctor_DoctorIdAndStatusAndAppointmentDatetimeBetween(
+                eq(doctor.getDoctorId()), eq(AppointmentStatus.Scheduled), any(LocalDateTime.class),
+                any(LocalDateTime.class));
+    }
+
+    @Test
+    void invalidatedDayIsReloadedOnNextPreload() {
+        AppointmentAvailabilityService service = new AppointmentAvailabilityService(appointmentRepository,
+                Duration.ofMinutes(2));
+        service.preload(doctor.getDoctorId(), DAY, DAY);
+        service.preload(doctor.getDoctorId(), DAY, DAY); // Còn hiệu lực: không đọc lại
+
+        service.invalidate(doctor.getDoctorId(), DAY);
+        assertThat(service.isSlotAvailable(doctor.getDoctorId(), DAY.atTime(9, 0))).isTrue();
+        service.preload(doctor.getDoctorId(), DAY, DAY);
+
+        assertThat(service.isSlotAvailable(doctor.getDoctorId(), DAY.atTime(9, 0))).isFalse();
+        verify(appointmentRepository, times(2)).findByDoctor_DoctorIdAndStatusAndAppointmentDatetimeBetween(
+                eq(doctor.getDoctorId()), eq(AppointmentStatus.Scheduled), any(LocalDateTime.class),
+                any(LocalDateTime.class));
+    }
+}
@@ -0,0 +1,158 @@
+package com.pma.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.pma.SqlServerTest;
+import com.pma.TestEntities;
+import com.pma.model.entity.Appointment;
+import com.pma.model.entity.Department;
+import com.pma.model.entity.Doctor;
+import com.pma.model.entity.Patient;
+import com.pma.model.enums.AppointmentStatus;
+import com.pma.repository.AppointmentRepository;
+import com.pma.repository.DepartmentRepository;
+import com.pma.repository.DoctorRepository;
+import com.pma.repository.PatientRepository;
+
+/**
+ * Nhiều luồng cùng đặt lịch vào một tập nhỏ khung giờ của vài bác sĩ (như
+ * nhiều quầy lễ tân đặt cùng lúc). Mỗi lần đặt là một transaction riêng được
+ * commit. Sau khi chạy, mỗi bác sĩ không được có hai lịch "Scheduled" chồng
+ * nhau, mọi lần đặt bị từ chối phải là lỗi chồng chéo (không phải deadlock hay
+ * lỗi khác), và số lịch trong CSDL phải bằng số lần đặt thành công. Thông lượng
+ * và tỷ lệ xung đột được ghi log.
+ */
+@SqlServerTest
+@Import({AppointmentService.class, DoctorBookingLocks.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AppointmentBookingStressTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentBookingStressTest.class);
+
+    private static final int DOCTORS = 4;
+    private static final int THREADS = 32;
+    private static final int ATTEMPTS_PER_THREAD = 40;
+    /**
+     * Các giờ bắt đầu cách nhau 30 phút trong khi một cuộc hẹn dài 60 phút, nên
+     * có cả xung đột trùng giờ (ràng buộc UNIQUE) lẫn chồng lấn lệch giờ (truy
+     * vấn chồng chéo).
+     */
+    private static final int SLOTS = 12;
+    private static final Duration SLOT_STEP = Duration.ofMinutes(30);
+
+    @MockitoBean
+    private EmailService emailService;
+    @MockitoBean
+    private AppointmentAvailabilityService availabilityService;
+    @MockitoBean
+    private AppointmentReminderScheduler reminderScheduler;
+
+    @Autowired
+    private AppointmentService appointmentService;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private DepartmentRepository departmentRepository;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Test
+    void contestedSlotsNeverOverlap() throws InterruptedException {
+        Department department = departmentRepository.save(TestEntities.department());
+        List<UUID> doctorIds = new ArrayList<>();
+        for (int i = 0; i < DOCTORS; i++) {
+            doctorIds.add(doctorRepository.save(TestEntities.doctor(department)).getDoctorId());
+        }
+        List<UUID> patientIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            patientIds.add(patientRepository.save(TestEntities.patient()).getPatientId());
+        }
+        LocalDateTime firstSlot = LocalDate.now().plusDays(3).atTime(8, 0);
+
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+        CountDownLatch startSignal = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            UUID patientId = patientIds.get(t);
+            pool.execute(() -> {
+                try {
+                    startSignal.await();
+                    for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        Appointment appointment = new Appointment();
+                        appointment.setAppointmentDatetime(firstSlot.plus(SLOT_STEP.multipliedBy(random.nextInt(SLOTS))));
+                        appointment.setReason("Stress test");
+                        appointment.setAppointmentType("Khám lần đầu");
+                        try {
+                            appointmentService.scheduleAppointment(appointment, patientId,
+                                    doctorIds.get(random.nextInt(DOCTORS)));
+                            booked.incrementAndGet();
+                        } catch (IllegalArgumentException e) {
+                            conflicts.incrementAndGet();
+                        }
+                    }
+                } catch (Throwable e) {
+                    unexpected.add(e);
+                }
+            });
+        }
+        long startedAt = System.nanoTime();
+        startSignal.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+
+        int attempts = THREADS * ATTEMPTS_PER_THREAD;
+        log.info("Booking stress: attempts={} booked={} conflicts={} ({}%) time={}s throughput={} bookings/s",
+                attempts, booked.get(), conflicts.get(), String.format("%.1f", 100.0 * conflicts.get() / attempts),
+                String.format("%.2f", seconds), Math.round(attempts / seconds));
+
+        assertThat(unexpected).isEmpty();
+        assertThat(booked.get() + conflicts.get()).isEqualTo(attempts);
+        int scheduledRows = 0;
+        for (UUID doctorId : doctorIds) {
+            List<Appointment> scheduled = new ArrayList<>(
+                    appointmentRepository.findByDoctor_DoctorIdAndStatus(doctorId, AppointmentStatus.Scheduled));
+            scheduled.sort(Comparator.comparing(Appointment::getAppointmentDatetime));
+            for (int i = 1; i < scheduled.size(); i++) {
+                LocalDateTime previousEnd = scheduled.get(i - 1).getAppointmentDatetime()
+                        .plusMinutes(AppointmentService.DEFAULT_APPOINTMENT_DURATION_MINUTES);
+                assertThat(scheduled.get(i).getAppointmentDatetime())
+                        .as("appointments of doctor %s overlap", doctorId)
+                        .isAfterOrEqualTo(previousEnd);
+            }
+            scheduledRows += scheduled.size();
+        }
+        assertThat(scheduledRows).isEqualTo(booked.get());
+        // Mỗi bác sĩ có đủ chỗ cho ít nhất SLOTS / 2 lịch không chồng nhau
+        assertThat(booked.get()).isGreaterThanOrEqualTo(DOCTORS * SLOTS / 2);
+    }
+}
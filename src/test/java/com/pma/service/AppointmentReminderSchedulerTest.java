@@ -0,0 +1,186 @@
+package com.pma.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.pma.model.entity.Appointment;
+import com.pma.model.enums.AppointmentStatus;
+import com.pma.repository.AppointmentRepository;
+
+/**
+ * Kiểm tra việc gửi nhắc lịch khi nhiều máy trạm cùng chạy bộ lập lịch: mỗi lời
+ * nhắc chỉ được gửi bởi máy giành được quyền trong CSDL (claimReminder được giả
+ * lập như câu lệnh UPDATE có điều kiện), lời nhắc bị lỡ khi không có máy nào
+ * chạy được gửi bù lúc khởi động, và lịch hẹn được commit trong lúc một khối
+ * đang được nạp không bị mất lời nhắc.
+ */
+class AppointmentReminderSchedulerTest {
+
+    private AppointmentRepository appointmentRepository;
+    private EmailService emailService;
+    private PlatformTransactionManager transactionManager;
+    private final List<Appointment> appointments = new ArrayList<>();
+    /**
+     * Các cặp (lịch hẹn, khoảng nhắc) đã được giành quyền, như cột
+     * reminder_sent_lead_minutes.
+     */
+    private final Set<String> claimed = ConcurrentHashMap.newKeySet();
+    private final List<AppointmentReminderScheduler> schedulers = new ArrayList<>();
+    /**
+     * Chạy một lần ngay sau khi truy vấn nạp khối đọc dữ liệu, trước khi kết
+     * quả được đưa vào bánh xe: mô phỏng một transaction commit giữa hai bước.
+     */
+    private volatile Runnable commitDuringLoad;
+
+    @BeforeEach
+    void setUp() {
+        appointmentRepository = mock(AppointmentRepository.class);
+        emailService = mock(EmailService.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(_ -> new SimpleTransactionStatus());
+        when(appointmentRepository.findByStatusAndAppointmentDatetimeBetweenOrderByAppointmentDatetimeAsc(
+                eq(AppointmentStatus.Scheduled), any(LocalDateTime.class), any(LocalDateTime.class), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    LocalDateTime from = invocation.getArgument(1);
+                    LocalDateTime to = invocation.getArgument(2);
+                    // Bản sao: kết quả truy vấn không thấy thay đổi commit sau đó
+                    List<Appointment> window = appointments.stream()
+                            .filter(a -> !a.getAppointmentDatetime().isBefore(from)
+                            && !a.getAppointmentDatetime().isAfter(to))
+                            .map(AppointmentReminderSchedulerTest::copy)
+                            .toList();
+                    Runnable commit = commitDuringLoad;
+                    commitDuringLoad = null;
+                    if (commit != null) {
+                        commit.run();
+                    }
+                    return new SliceImpl<>(window, invocation.getArgument(3), false);
+                });
+        when(appointmentRepository.findByAppointmentIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<UUID> ids = invocation.getArgument(0);
+            return appointments.stream().filter(a -> ids.contains(a.getAppointmentId())).toList();
+        });
+        when(appointmentRepository.claimReminder(any(UUID.class), eq(AppointmentStatus.Scheduled),
+                any(LocalDateTime.class), anyInt()))
+                .thenAnswer(invocation -> claimed.add(invocation.getArgument(0) + "/" + invocation.getArgument(3)) ? 1 : 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        schedulers.forEach(AppointmentReminderScheduler::stop);
+    }
+
+    @Test
+    void reminderIsSentOnceAcrossWorkstations() {
+        Appointment appointment = appointment(LocalDateTime.now().plusSeconds(4), LocalDateTime.now().minusDays(1));
+
+        startScheduler("3s");
+        startScheduler("3s");
+        startScheduler("3s");
+
+        verify(emailService, timeout(5_000)).sendAppointmentReminder(eq(appointment), eq(Duration.ofSeconds(3)));
+        verify(emailService, after(1_500).times(1)).sendAppointmentReminder(any(), any());
+    }
+
+    @Test
+    void missedReminderIsSentWhenFirstWorkstationStarts() {
+        // Lời nhắc 24 giờ đến hạn từ hôm qua, khi chưa có máy nào chạy
+        Appointment appointment = appointment(LocalDateTime.now().plusHours(3), LocalDateTime.now().minusDays(3));
+
+        startScheduler("24h,2h");
+
+        verify(emailService, timeout(3_000)).sendAppointmentReminder(eq(appointment), eq(Duration.ofHours(24)));
+    }
+
+    @Test
+    void appointmentBookedAfterReminderTimeGetsNoCatchUp() {
+        // Đặt gấp 3 giờ trước giờ hẹn: lời nhắc 24 giờ không có ý nghĩa
+        appointment(LocalDateTime.now().plusHours(3), LocalDateTime.now().minusMinutes(5));
+
+        startScheduler("24h,2h");
+
+        verify(emailService, after(1_500).never()).sendAppointmentReminder(any(), any());
+    }
+
+    @Test
+    void bookingCommittedWhileChunkIsLoadingGetsReminder() {
+        AppointmentReminderScheduler scheduler = newScheduler("3s");
+        commitDuringLoad = () -> scheduler.onAppointmentSaved(
+                appointment(LocalDateTime.now().plusSeconds(4), LocalDateTime.now()));
+
+        scheduler.start();
+
+        verify(emailService, timeout(5_000)).sendAppointmentReminder(any(), eq(Duration.ofSeconds(3)));
+    }
+
+    @Test
+    void rescheduleCommittedWhileChunkIsLoadingWinsOverStaleRow() {
+        Appointment appointment = appointment(LocalDateTime.now().plusHours(1), LocalDateTime.now().minusDays(1));
+        AppointmentReminderScheduler scheduler = newScheduler("3s");
+        // Truy vấn đã đọc giờ hẹn cũ; việc dời lịch commit trước khi kết quả được áp dụng
+        commitDuringLoad = () -> {
+            appointment.setAppointmentDatetime(LocalDateTime.now().plusSeconds(4).withNano(0));
+            scheduler.onAppointmentSaved(appointment);
+        };
+
+        scheduler.start();
+
+        verify(emailService, timeout(5_000)).sendAppointmentReminder(eq(appointment), eq(Duration.ofSeconds(3)));
+    }
+
+    private AppointmentReminderScheduler startScheduler(String leadTimes) {
+        AppointmentReminderScheduler scheduler = newScheduler(leadTimes);
+        scheduler.start();
+        return scheduler;
+    }
+
+    private AppointmentReminderScheduler newScheduler(String leadTimes) {
+        AppointmentReminderScheduler scheduler = new AppointmentReminderScheduler(appointmentRepository,
+                emailService, transactionManager, leadTimes);
+        schedulers.add(scheduler);
+        return scheduler;
+    }
+
+    private Appointment appointment(LocalDateTime start, LocalDateTime createdAt) {
+        Appointment appointment = new Appointment();
+        appointment.setAppointmentId(UUID.randomUUID());
+        appointment.setAppointmentDatetime(start.withNano(0));
+        appointment.setStatus(AppointmentStatus.Scheduled);
+        appointment.setCreatedAt(createdAt);
+        appointments.add(appointment);
+        return appointment;
+    }
+
+    private static Appointment copy(Appointment appointment) {
+        Appointment copy = new Appointment();
+        copy.setAppointmentId(appointment.getAppointmentId());
+        copy.setAppointmentDatetime(appointment.getAppointmentDatetime());
+        copy.setStatus(appointment.getStatus());
+        copy.setCreatedAt(appointment.getCreatedAt());
+        return copy;
+    }
+}
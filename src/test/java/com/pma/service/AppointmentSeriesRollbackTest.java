@@ -0,0 +1,80 @@
+package com.pma.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.pma.SqlServerTest;
+import com.pma.TestEntities;
+import com.pma.model.entity.Appointment;
+import com.pma.model.entity.Department;
+import com.pma.model.enums.AppointmentStatus;
+import com.pma.repository.AppointmentRepository;
+import com.pma.repository.DepartmentRepository;
+import com.pma.repository.DoctorRepository;
+import com.pma.repository.PatientRepository;
+
+/**
+ * Chuỗi lịch hẹn có một lần bị trùng với lịch đã có phải rollback toàn bộ: sau
+ * khi transaction của scheduleSeries kết thúc, bác sĩ chỉ còn lịch có sẵn.
+ */
+@SqlServerTest
+@Import({AppointmentService.class, DoctorBookingLocks.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AppointmentSeriesRollbackTest {
+
+    @MockitoBean
+    private EmailService emailService;
+    @MockitoBean
+    private AppointmentAvailabilityService availabilityService;
+    @MockitoBean
+    private AppointmentReminderScheduler reminderScheduler;
+
+    @Autowired
+    private AppointmentService appointmentService;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private DepartmentRepository departmentRepository;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Test
+    void conflictingOccurrenceRollsBackWholeSeries() {
+        Department department = departmentRepository.save(TestEntities.department());
+        UUID doctorId = doctorRepository.save(TestEntities.doctor(department)).getDoctorId();
+        UUID patientId = patientRepository.save(TestEntities.patient()).getPatientId();
+        LocalDateTime first = LocalDate.now().plusDays(7).atTime(14, 0);
+
+        Appointment existing = new Appointment();
+        existing.setAppointmentDatetime(first.plusWeeks(3));
+        existing.setReason("Lịch có sẵn");
+        existing.setAppointmentType("Tư vấn");
+        appointmentService.scheduleAppointment(existing, patientId, doctorId);
+
+        Appointment template = new Appointment();
+        template.setAppointmentDatetime(first);
+        template.setReason("Tái khám");
+        template.setAppointmentType("Tái khám");
+        assertThatThrownBy(() -> appointmentService.scheduleSeries(template, patientId, doctorId,
+                Period.ofWeeks(1), 6))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(appointmentRepository.findByDoctor_DoctorIdAndStatus(doctorId, AppointmentStatus.Scheduled))
+                .extracting(Appointment::getAppointmentDatetime)
+                .containsExactly(first.plusWeeks(3));
+    }
+}
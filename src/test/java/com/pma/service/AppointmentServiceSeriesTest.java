@@ -0,0 +1,173 @@
+package com.pma.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.pma.model.entity.Appointment;
+import com.pma.model.entity.Doctor;
+import com.pma.model.entity.Patient;
+import com.pma.model.enums.AppointmentStatus;
+import com.pma.repository.AppointmentRepository;
+import com.pma.repository.DoctorRepository;
+import com.pma.repository.PatientRepository;
+
+/**
+ * Kiểm tra đặt chuỗi lịch hẹn định kỳ: chuỗi hợp lệ được lưu trong một lần
+ * saveAll; khi một lần hẹn bị chồng chéo (với lịch có sẵn, với chính chuỗi, hoặc
+ * bị ràng buộc slot_guard từ chối lúc flush) thì cả chuỗi bị từ chối bằng
+ * IllegalArgumentException để transaction rollback, và không có bitmap, lịch
+ * nhắc hay email nào được cập nhật cho các lần hẹn chưa được lưu.
+ */
+class AppointmentServiceSeriesTest {
+
+    private static final LocalDateTime FIRST = LocalDate.now().plusDays(7).atTime(9, 0);
+
+    private AppointmentRepository appointmentRepository;
+    private EmailService emailService;
+    private AppointmentAvailabilityService availabilityService;
+    private AppointmentReminderScheduler reminderScheduler;
+    private AppointmentService appointmentService;
+    private UUID patientId;
+    private UUID doctorId;
+
+    @BeforeEach
+    void setUp() {
+        appointmentRepository = mock(AppointmentRepository.class);
+        PatientRepository patientRepository = mock(PatientRepository.class);
+        DoctorRepository doctorRepository = mock(DoctorRepository.class);
+        emailService = mock(EmailService.class);
+        availabilityService = mock(AppointmentAvailabilityService.class);
+        reminderScheduler = mock(AppointmentReminderScheduler.class);
+        appointmentService = new AppointmentService(appointmentRepository, patientRepository, doctorRepository,
+                emailService, availabilityService, mock(DoctorBookingLocks.class),
+                mock(ApplicationEventPublisher.class), reminderScheduler);
+
+        Patient patient = new Patient();
+        patientId = UUID.randomUUID();
+        patient.setPatientId(patientId);
+        Doctor doctor = new Doctor();
+        doctorId = UUID.randomUUID();
+        doctor.setDoctorId(doctorId);
+        when(patientRepository.findById(patientId)).thenReturn(Optional.of(patient));
+        when(doctorRepository.findById(doctorId)).thenReturn(Optional.of(doctor));
+        when(appointmentRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void weeklySeriesIsSavedInOneBatch() {
+        givenExistingAppointments();
+
+        List<Appointment> saved = appointmentService.scheduleSeries(template(), patientId, doctorId,
+                Period.ofWeeks(1), 12);
+
+        assertThat(saved).hasSize(12);
+        assertThat(saved).extracting(Appointment::getAppointmentDatetime)
+                .containsExactlyElementsOf(List.of(FIRST, FIRST.plusWeeks(1), FIRST.plusWeeks(2), FIRST.plusWeeks(3),
+                        FIRST.plusWeeks(4), FIRST.plusWeeks(5), FIRST.plusWeeks(6), FIRST.plusWeeks(7),
+                        FIRST.plusWeeks(8), FIRST.plusWeeks(9), FIRST.plusWeeks(10), FIRST.plusWeeks(11)));
+        assertThat(saved).allSatisfy(appointment -> {
+            assertThat(appointment.getStatus()).isEqualTo(AppointmentStatus.Scheduled);
+            assertThat(appointment.getReason()).isEqualTo("Tái khám huyết áp");
+        });
+        verify(appointmentRepository).saveAll(anyList());
+        verify(emailService).sendSeriesSchedulingConfirmation(saved);
+    }
+
+    @Test
+    void occurrenceOverlappingExistingAppointmentRejectsWholeSeries() {
+        // Lần hẹn thứ 3 (tuần thứ 2) trùng nửa giờ với một lịch có sẵn
+        givenExistingAppointments(FIRST.plusWeeks(2).plusMinutes(30));
+
+        assertThatThrownBy(() -> appointmentService.scheduleSeries(template(), patientId, doctorId,
+                Period.ofWeeks(1), 4))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(FIRST.plusWeeks(2).toString())
+                .hasMessageContaining("Không có lịch hẹn nào được tạo");
+
+        verify(appointmentRepository, never()).saveAll(anyList());
+        verifyNoSideEffects();
+    }
+
+    @Test
+    void overlappingOccurrencesWithinSeriesAreRejected() {
+        givenExistingAppointments();
+        Appointment first = occurrence(FIRST);
+        Appointment overlapping = occurrence(FIRST.plusMinutes(45));
+
+        assertThatThrownBy(() -> appointmentService.scheduleBatch(List.of(first, overlapping), patientId, doctorId))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        verify(appointmentRepository, never()).saveAll(anyList());
+        verifyNoSideEffects();
+    }
+
+    @Test
+    void constraintViolationOnFlushIsReportedAsConflict() {
+        // Một máy khác đã ghi cùng giờ bắt đầu sau lần kiểm tra: ràng buộc UNIQUE từ chối khi flush
+        givenExistingAppointments();
+        when(appointmentRepository.saveAll(anyList()))
+                .thenThrow(new DataIntegrityViolationException("UQ_Appointments_doctor_slot"));
+
+        assertThatThrownBy(() -> appointmentService.scheduleSeries(template(), patientId, doctorId,
+                Period.ofWeeks(1), 3))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasCauseInstanceOf(DataIntegrityViolationException.class);
+
+        verifyNoSideEffects();
+    }
+
+    @Test
+    void invalidSeriesParametersAreRejectedBeforeAnyQuery() {
+        assertThatThrownBy(() -> appointmentService.scheduleSeries(template(), patientId, doctorId, Period.ZERO, 4))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> appointmentService.scheduleSeries(template(), patientId, doctorId,
+                Period.ofWeeks(1), AppointmentService.MAX_BATCH_APPOINTMENTS + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        verifyNoInteractions(appointmentRepository);
+    }
+
+    private void givenExistingAppointments(LocalDateTime... starts) {
+        List<Appointment> existing = Arrays.stream(starts).map(this::occurrence).toList();
+        when(appointmentRepository.findConflictingAppointments(eq(doctorId), eq(AppointmentStatus.Scheduled),
+                any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(existing);
+    }
+
+    private void verifyNoSideEffects() {
+        verifyNoInteractions(availabilityService, reminderScheduler, emailService);
+    }
+
+    private Appointment template() {
+        Appointment template = occurrence(FIRST);
+        template.setReason("Tái khám huyết áp");
+        return template;
+    }
+
+    private Appointment occurrence(LocalDateTime start) {
+        Appointment appointment = new Appointment();
+        appointment.setAppointmentDatetime(start);
+        appointment.setAppointmentType("Tái khám");
+        return appointment;
+    }
+}
@@ -0,0 +1,191 @@
+package com.pma.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.pma.SqlServerTest;
+import com.pma.model.entity.Bill;
+import com.pma.model.entity.Prescription;
+import com.pma.model.entity.PrescriptionDetail;
+import com.pma.model.enums.BillItemType;
+import com.pma.model.enums.PrescriptionStatus;
+import com.pma.repository.BillRepository;
+import com.pma.service.BillService.BillItemDTO;
+import com.pma.service.PrescriptionService.PrescriptionDetailDTO;
+
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Số câu lệnh SQL (Hibernate Statistics.getPrepareStatementCount(), gồm cả lần
+ * flush lúc commit) khi tạo, sửa đơn thuốc và tạo hóa đơn không tăng theo số
+ * dòng chi tiết: các PrescriptionDetail, StockReservation và BillItem được
+ * INSERT theo lô (xem HibernateConfig), thuốc và chi tiết đơn được tham chiếu
+ * được nạp bằng một truy vấn cho cả danh sách; các ID không tồn tại được báo
+ * cùng lúc trước khi có gì được ghi.
+ */
+@SqlServerTest
+class BatchedWriteStatementCountTest extends PrescriptionDataTestSupport {
+
+    private static final int FEW = 3;
+    private static final int MANY = 30;
+
+    @Autowired
+    private BillRepository billRepository;
+
+    private final List<UUID> medicineIds = new ArrayList<>();
+
+    @BeforeEach
+    void createMedicines() {
+        for (int i = 0; i < MANY; i++) {
+            medicineIds.add(saveMedicine(10_000));
+        }
+    }
+
+    @Test
+    void prescriptionStatementsDoNotGrowWithDetailLines() {
+        createPrescription(FEW); // Làm nóng: lần đầu có thể nạp thêm dữ liệu tham chiếu
+
+        long few = statementsFor(() -> createPrescription(FEW));
+        long insertsBefore = statistics.getEntityInsertCount();
+        long many = statementsFor(() -> createPrescription(MANY));
+
+        assertThat(many).isEqualTo(few);
+        // Đơn thuốc, hồ sơ bệnh án tự tạo, MANY chi tiết và MANY lượng giữ hàng
+        assertThat(statistics.getEntityInsertCount() - insertsBefore).isEqualTo(2 + 2L * MANY);
+    }
+
+    @Test
+    void billStatementsDoNotGrowWithItems() {
+        createBill(FEW);
+
+        long few = statementsFor(() -> createBill(FEW));
+        long insertsBefore = statistics.getEntityInsertCount();
+        long many = statementsFor(() -> createBill(MANY));
+
+        assertThat(many).isEqualTo(few);
+        assertThat(statistics.getEntityInsertCount() - insertsBefore).isEqualTo(1 + MANY);
+    }
+
+    @Test
+    void updatePrescriptionStatementsDoNotGrowWithDetailLines() {
+        updatePrescription(createPrescription(1), FEW); // Làm nóng
+
+        UUID few = createPrescription(1);
+        UUID many = createPrescription(1);
+        long fewStatements = statementsFor(() -> updatePrescription(few, FEW));
+        long manyStatements = statementsFor(() -> updatePrescription(many, MANY));
+
+        assertThat(manyStatements).isEqualTo(fewStatements);
+        assertThat(prescriptionService.getPrescriptionByIdWithDetails(many).orElseThrow().getPrescriptionDetails())
+                .hasSize(MANY);
+    }
+
+    @Test
+    void billStatementsDoNotGrowWithPrescriptionDetailItems() {
+        billService.createBill(new Bill(), patientId, null, billItems(createPrescription(FEW)));
+
+        List<BillItemDTO> few = billItems(createPrescription(FEW));
+        List<BillItemDTO> many = billItems(createPrescription(MANY));
+        long fewStatements = statementsFor(() -> billService.createBill(new Bill(), patientId, null, few));
+        long manyStatements = statementsFor(() -> billService.createBill(new Bill(), patientId, null, many));
+
+        assertThat(manyStatements).isEqualTo(fewStatements);
+    }
+
+    @Test
+    void missingMedicinesAreReportedTogetherAndNothingIsWritten() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        List<PrescriptionDetailDTO> details = new ArrayList<>(details(FEW));
+        details.add(detail(first, 1));
+        details.add(detail(second, 1));
+        long prescriptionsBefore = prescriptionRepository.count();
+
+        assertThatThrownBy(() -> createPrescription(details))
+                .isInstanceOf(EntityNotFoundException.class)
+                .hasMessageContaining(first.toString())
+                .hasMessageContaining(second.toString());
+        assertThat(prescriptionRepository.count()).isEqualTo(prescriptionsBefore);
+    }
+
+    @Test
+    void missingPrescriptionDetailsAreReportedTogetherAndNothingIsWritten() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        List<BillItemDTO> items = new ArrayList<>(billItems(createPrescription(FEW)));
+        items.add(billItem(first));
+        items.add(billItem(second));
+        long billsBefore = billRepository.count();
+
+        assertThatThrownBy(() -> billService.createBill(new Bill(), patientId, null, items))
+                .isInstanceOf(EntityNotFoundException.class)
+                .hasMessageContaining(first.toString())
+                .hasMessageContaining(second.toString());
+        assertThat(billRepository.count()).isEqualTo(billsBefore);
+    }
+
+    private UUID createPrescription(int lines) {
+        return createPrescription(details(lines));
+    }
+
+    /**
+     * Giữ dòng đầu của đơn và thêm các thuốc tiếp theo cho đủ {@code lines}
+     * dòng.
+     */
+    private void updatePrescription(UUID prescriptionId, int lines) {
+        Prescription data = new Prescription();
+        data.setPrescriptionDate(LocalDate.now());
+        data.setStatus(PrescriptionStatus.Active);
+        prescriptionService.updatePrescription(prescriptionId, data, details(lines));
+    }
+
+    private List<PrescriptionDetailDTO> details(int lines) {
+        List<PrescriptionDetailDTO> details = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            details.add(detail(medicineIds.get(i), 1));
+        }
+        return details;
+    }
+
+    private Bill createBill(int items) {
+        List<BillItemDTO> dtos = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            BillItemDTO dto = new BillItemDTO();
+            dto.setItemDescription("Dịch vụ " + i);
+            dto.setItemType(BillItemType.CONSULTATION);
+            dto.setQuantity(1);
+            dto.setUnitPrice(new BigDecimal("50000.00"));
+            dtos.add(dto);
+        }
+        return billService.createBill(new Bill(), patientId, null, dtos);
+    }
+
+    private List<BillItemDTO> billItems(UUID prescriptionId) {
+        List<BillItemDTO> items = new ArrayList<>();
+        for (PrescriptionDetail detail : prescriptionService.getPrescriptionByIdWithDetails(prescriptionId)
+                .orElseThrow().getPrescriptionDetails()) {
+            items.add(billItem(detail.getPrescriptionDetailId()));
+        }
+        return items;
+    }
+
+    private static BillItemDTO billItem(UUID prescriptionDetailId) {
+        BillItemDTO dto = new BillItemDTO();
+        dto.setItemDescription("Thuốc theo đơn");
+        dto.setItemType(BillItemType.MEDICINE);
+        dto.setQuantity(1);
+        dto.setUnitPrice(new BigDecimal("15000.00"));
+        dto.setPrescriptionDetailId(prescriptionDetailId);
+        return dto;
+    }
+}
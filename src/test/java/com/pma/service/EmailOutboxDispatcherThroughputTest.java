@@ -0,0 +1,236 @@
+package com.pma.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import com.pma.model.entity.EmailOutboxMessage;
+
+/**
+ * Đo thông lượng gửi của EmailOutboxDispatcher qua một máy chủ SMTP giả lập
+ * chạy trong test (mỗi email mất thêm {@link #SMTP_LATENCY_MILLIS} ms như một
+ * máy chủ thật qua mạng). Hàng đợi EmailOutbox được giả lập bằng
+ * EmailOutboxService mock. Kiểm tra mọi email được gửi đúng một lần và được
+ * ghi nhận là đã gửi, và mỗi lô được chia cho đúng số kết nối SMTP đồng thời
+ * đã cấu hình. Thông lượng chỉ được ghi log để so sánh, không dùng để kiểm
+ * tra (phụ thuộc tải của máy chạy test).
+ */
+class EmailOutboxDispatcherThroughputTest {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxDispatcherThroughputTest.class);
+
+    private static final int MESSAGES = 400;
+    private static final int BATCH_SIZE = 50;
+    private static final long SMTP_LATENCY_MILLIS = 5;
+
+    private FakeSmtpServer smtpServer;
+    private EmailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        smtpServer = new FakeSmtpServer(SMTP_LATENCY_MILLIS);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+        smtpServer.close();
+    }
+
+    @Test
+    void deliversEveryMessageOnceOverTheConfiguredConnections() throws InterruptedException {
+        double sequential = run(1);
+        assertThat(smtpServer.peakSessions.get()).isEqualTo(1);
+
+        double parallel = run(4);
+        assertThat(smtpServer.peakSessions.get()).isEqualTo(4);
+
+        log.info("Email outbox throughput over fake SMTP ({} ms/message): 1 connection {} msg/s,"
+                + " 4 connections {} msg/s", SMTP_LATENCY_MILLIS, Math.round(sequential), Math.round(parallel));
+    }
+
+    /**
+     * Gửi MESSAGES email với số kết nối cho trước.
+     *
+     * @return Thông lượng (email/giây).
+     */
+    private double run(int concurrency) throws InterruptedException {
+        smtpServer.received.clear();
+        smtpServer.peakSessions.set(0);
+        Queue<EmailOutboxMessage> pending = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < MESSAGES; i++) {
+            EmailOutboxMessage message = new EmailOutboxMessage();
+            message.setMessageId(UUID.randomUUID());
+            message.setRecipient("patient" + i + "@pma.test");
+            message.setSubject("Outbox " + concurrency + "-" + i);
+            message.setBody("Body " + i);
+            message.setNextAttemptAt(LocalDateTime.now());
+            pending.add(message);
+        }
+        Set<UUID> sent = ConcurrentHashMap.newKeySet();
+        Set<UUID> failed = ConcurrentHashMap.newKeySet();
+        EmailOutboxService outboxService = mock(EmailOutboxService.class);
+        when(outboxService.claimDueBatch(anyInt(), any(Duration.class))).thenAnswer(invocation -> {
+            int size = invocation.getArgument(0);
+            List<EmailOutboxMessage> batch = new ArrayList<>(size);
+            EmailOutboxMessage message;
+            while (batch.size() < size && (message = pending.poll()) != null) {
+                batch.add(message);
+            }
+            return batch;
+        });
+        doAnswer(invocation -> {
+            Collection<UUID> sentIds = invocation.getArgument(0);
+            Map<UUID, String> failures = invocation.getArgument(1);
+            sent.addAll(sentIds);
+            failed.addAll(failures.keySet());
+            return null;
+        }).when(outboxService).recordResults(any(), any());
+
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtpServer.port());
+        dispatcher = new EmailOutboxDispatcher(outboxService, mailSender, "pma@pma.test", BATCH_SIZE, concurrency,
+                Duration.ofMillis(20), Duration.ofDays(7));
+
+        long startedAt = System.nanoTime();
+        dispatcher.start();
+        long deadline = startedAt + TimeUnit.SECONDS.toNanos(60);
+        while (sent.size() + failed.size() < MESSAGES && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        dispatcher.stop();
+        dispatcher = null;
+
+        assertThat(failed).isEmpty();
+        assertThat(sent).hasSize(MESSAGES);
+        assertThat(smtpServer.received).hasSize(MESSAGES);
+        assertThat(smtpServer.received.values()).allMatch(count -> count.get() == 1);
+        return MESSAGES / seconds;
+    }
+
+    /**
+     * Máy chủ SMTP tối giản: chấp nhận mọi lệnh, đếm số lần nhận mỗi tiêu đề và
+     * số phiên SMTP đồng thời lớn nhất.
+     */
+    private static final class FakeSmtpServer implements AutoCloseable {
+
+        private final ServerSocket serverSocket;
+        private final ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+        private final long latencyMillis;
+        private final Map<String, AtomicInteger> received = new ConcurrentHashMap<>();
+        private final AtomicInteger activeSessions = new AtomicInteger();
+        private final AtomicInteger peakSessions = new AtomicInteger();
+
+        FakeSmtpServer(long latencyMillis) throws IOException {
+            this.latencyMillis = latencyMillis;
+            this.serverSocket = new ServerSocket(0);
+            connections.execute(this::acceptLoop);
+        }
+
+        int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        private void acceptLoop() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    connections.execute(() -> serve(socket));
+                } catch (IOException e) {
+                    return; // Máy chủ đã đóng
+                }
+            }
+        }
+
+        private void serve(Socket socket) {
+            peakSessions.accumulateAndGet(activeSessions.incrementAndGet(), Math::max);
+            boolean ended = false;
+            try (socket;
+                    BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                            StandardCharsets.UTF_8));
+                    PrintWriter out = new PrintWriter(socket.getOutputStream(), false, StandardCharsets.UTF_8)) {
+                reply(out, "220 localhost fake SMTP");
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                    switch (command) {
+                        case "DATA" -> {
+                            reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                            String subject = null;
+                            while ((line = in.readLine()) != null && !line.equals(".")) {
+                                if (subject == null && line.startsWith("Subject: ")) {
+                                    subject = line.substring("Subject: ".length());
+                                }
+                            }
+                            Thread.sleep(latencyMillis);
+                            received.computeIfAbsent(String.valueOf(subject), _ -> new AtomicInteger()).incrementAndGet();
+                            reply(out, "250 OK");
+                        }
+                        case "QUIT" -> {
+                            // Kết thúc phiên trước khi trả lời: máy khách có thể mở kết nối mới ngay sau đó
+                            ended = true;
+                            activeSessions.decrementAndGet();
+                            reply(out, "221 Bye");
+                            return;
+                        }
+                        default -> reply(out, "250 OK");
+                    }
+                }
+            } catch (IOException | InterruptedException e) {
+                // Kết nối bị đóng
+            } finally {
+                if (!ended) {
+                    activeSessions.decrementAndGet();
+                }
+            }
+        }
+
+        private static void reply(PrintWriter out, String response) {
+            out.print(response + "\r\n");
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+            connections.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.pma.service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * So sánh chi phí tạo nội dung email xác nhận lịch hẹn bằng String.format
+ * (cách cũ của EmailService) với mẫu biên dịch sẵn
+ * EmailTemplates.SCHEDULING_CONFIRMATION (MessageTemplate), ở một luồng và
+ * nhiều luồng, và khi mẫu được hiển thị vào một bộ đệm dùng lại. Không phải test; chạy bằng:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/test-classpath.txt
+ * java -cp target/test-classes:target/classes:$(cat target/test-classpath.txt) \
+ *     com.pma.service.EmailTemplateBenchmark
+ * </pre>
+ * Kết quả (ns/op và B/op với -prof gc) được in ra khi kết thúc.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EmailTemplateBenchmark {
+
+    private static final DateTimeFormatter EMAIL_DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm 'ngày' dd/MM/yyyy");
+
+    /**
+     * Nội dung mẫu trước khi chuyển sang MessageTemplate.
+     */
+    private static final String LEGACY_FORMAT = """
+            Dear %s,
+
+            Your appointment has been successfully scheduled.
+
+            Appointment Details:
+            - Appointment ID: %s
+            - Doctor: %s
+            - Date & Time: %s
+
+            Please arrive on time.
+
+            Best regards,
+            PMA System""";
+
+    private String patientName;
+    private UUID appointmentId;
+    private String doctorName;
+    private LocalDateTime dateTime;
+
+    @Setup
+    public void setUp() {
+        patientName = "Nguyễn Văn An";
+        appointmentId = UUID.randomUUID();
+        doctorName = "Trần Thị Bình";
+        dateTime = LocalDateTime.of(2026, 3, 14, 9, 30);
+        String legacy = stringFormat();
+        String template = precompiledTemplate();
+        if (!legacy.equals(template)) {
+            throw new IllegalStateException("Template output differs from String.format:\n" + legacy + "\n---\n" + template);
+        }
+    }
+
+    @Benchmark
+    public String stringFormat() {
+        return String.format(LEGACY_FORMAT, patientName, appointmentId, doctorName,
+                dateTime.format(EMAIL_DATE_TIME_FORMATTER));
+    }
+
+    @Benchmark
+    public String precompiledTemplate() {
+        return EmailTemplates.SCHEDULING_CONFIRMATION.renderer()
+                .set("patientName", patientName)
+                .set("appointmentId", appointmentId)
+                .set("doctorName", doctorName)
+                .set("dateTime", dateTime.format(EMAIL_DATE_TIME_FORMATTER))
+                .render();
+    }
+
+    /**
+     * Bộ đệm dùng lại của mỗi luồng benchmark.
+     */
+    @State(Scope.Thread)
+    public static class Buffer {
+
+        private final StringBuilder builder = new StringBuilder(1024);
+    }
+
+    @Benchmark
+    public int precompiledTemplateReusedBuilder(Buffer buffer) {
+        StringBuilder sb = buffer.builder;
+        sb.setLength(0);
+        EmailTemplates.SCHEDULING_CONFIRMATION.renderer()
+                .set("patientName", patientName)
+                .set("appointmentId", appointmentId)
+                .set("doctorName", doctorName)
+                .set("dateTime", dateTime.format(EMAIL_DATE_TIME_FORMATTER))
+                .render(sb);
+        return sb.length();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String stringFormatContended() {
+        return stringFormat();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String precompiledTemplateContended() {
+        return precompiledTemplate();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EmailTemplateBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
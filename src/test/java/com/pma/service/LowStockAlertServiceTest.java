@@ -0,0 +1,171 @@
+package com.pma.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.pma.model.entity.LowStockAlert;
+import com.pma.model.entity.Medicine;
+import com.pma.repository.LowStockAlertRepository;
+import com.pma.repository.MedicineRepository;
+
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Kiểm tra việc phát hiện thuốc vượt xuống ngưỡng đặt hàng lại: chỉ lần giảm
+ * đưa tồn kho khả dụng từ trên ngưỡng xuống bằng hoặc dưới ngưỡng mới tạo cảnh
+ * báo (kèm sự kiện LowStockEvent), các lần giảm khi đã dưới ngưỡng thì không;
+ * và việc xác nhận cảnh báo.
+ */
+class LowStockAlertServiceTest {
+
+    private static final int DEFAULT_THRESHOLD = 5;
+
+    private LowStockAlertRepository alertRepository;
+    private MedicineRepository medicineRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private LowStockAlertService lowStockAlertService;
+
+    @BeforeEach
+    void setUp() {
+        alertRepository = mock(LowStockAlertRepository.class);
+        medicineRepository = mock(MedicineRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        when(medicineRepository.getReferenceById(any())).thenAnswer(invocation -> {
+            Medicine medicine = new Medicine();
+            medicine.setMedicineId(invocation.getArgument(0));
+            return medicine;
+        });
+        lowStockAlertService = new LowStockAlertService(alertRepository, medicineRepository,
+                mock(EmailService.class), eventPublisher, DEFAULT_THRESHOLD);
+    }
+
+    @Test
+    void decreaseCrossingThresholdCreatesAlertAndEvent() {
+        UUID medicineId = UUID.randomUUID();
+        // Tồn khả dụng 12 -> 8, ngưỡng 10
+        givenAtOrBelowThreshold(row(medicineId, "Paracetamol", 8, 10));
+
+        lowStockAlertService.checkAfterDecrease(Map.of(medicineId, 4));
+
+        ArgumentCaptor<LowStockAlert> alert = ArgumentCaptor.forClass(LowStockAlert.class);
+        verify(alertRepository).save(alert.capture());
+        assertThat(alert.getValue().getMedicine().getMedicineId()).isEqualTo(medicineId);
+        assertThat(alert.getValue().getAvailableQuantity()).isEqualTo(8);
+        assertThat(alert.getValue().getReorderThreshold()).isEqualTo(10);
+        ArgumentCaptor<LowStockEvent> event = ArgumentCaptor.forClass(LowStockEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().medicineId()).isEqualTo(medicineId);
+        assertThat(event.getValue().medicineName()).isEqualTo("Paracetamol");
+    }
+
+    @Test
+    void decreaseLandingExactlyOnThresholdCreatesAlert() {
+        UUID medicineId = UUID.randomUUID();
+        // 11 -> 10, ngưỡng 10
+        givenAtOrBelowThreshold(row(medicineId, "Amoxicillin", 10, 10));
+
+        lowStockAlertService.checkAfterDecrease(Map.of(medicineId, 1));
+
+        verify(alertRepository).save(any(LowStockAlert.class));
+    }
+
+    @Test
+    void decreaseWhileAlreadyBelowThresholdDoesNotRepeatAlert() {
+        UUID medicineId = UUID.randomUUID();
+        // 10 -> 7, ngưỡng 10: đã ở ngưỡng từ trước
+        givenAtOrBelowThreshold(row(medicineId, "Ibuprofen", 7, 10));
+
+        lowStockAlertService.checkAfterDecrease(Map.of(medicineId, 3));
+
+        verify(alertRepository, never()).save(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void onlyMedicinesThatCrossedAreAlertedInOneQuery() {
+        UUID crossed = UUID.randomUUID();
+        UUID alreadyLow = UUID.randomUUID();
+        UUID stillAbove = UUID.randomUUID();
+        // stillAbove không được truy vấn trả về vì vẫn trên ngưỡng
+        givenAtOrBelowThreshold(row(crossed, "A", 3, DEFAULT_THRESHOLD), row(alreadyLow, "B", 1, DEFAULT_THRESHOLD));
+
+        lowStockAlertService.checkAfterDecrease(Map.of(crossed, 5, alreadyLow, 2, stillAbove, 1));
+
+        ArgumentCaptor<Collection<UUID>> ids = captureQueriedIds();
+        assertThat(ids.getValue()).containsExactlyInAnyOrder(crossed, alreadyLow, stillAbove);
+        ArgumentCaptor<LowStockAlert> alert = ArgumentCaptor.forClass(LowStockAlert.class);
+        verify(alertRepository).save(alert.capture());
+        assertThat(alert.getValue().getMedicine().getMedicineId()).isEqualTo(crossed);
+    }
+
+    @Test
+    void increasesAreNotChecked() {
+        lowStockAlertService.checkAfterDecrease(Map.of(UUID.randomUUID(), 0, UUID.randomUUID(), -4));
+
+        verifyNoInteractions(medicineRepository, alertRepository, eventPublisher);
+    }
+
+    @Test
+    void acknowledgeStampsOnlyOnce() {
+        LowStockAlert alert = new LowStockAlert();
+        alert.setAlertId(UUID.randomUUID());
+        when(alertRepository.findById(alert.getAlertId())).thenReturn(Optional.of(alert));
+
+        lowStockAlertService.acknowledge(alert.getAlertId());
+        LocalDateTime first = alert.getAcknowledgedAt();
+        lowStockAlertService.acknowledge(alert.getAlertId());
+
+        assertThat(first).isNotNull();
+        assertThat(alert.getAcknowledgedAt()).isSameAs(first);
+    }
+
+    @Test
+    void acknowledgeUnknownAlertFails() {
+        UUID alertId = UUID.randomUUID();
+        when(alertRepository.findById(alertId)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> lowStockAlertService.acknowledge(alertId))
+                .isInstanceOf(EntityNotFoundException.class);
+    }
+
+    private void givenAtOrBelowThreshold(Object[]... rows) {
+        List<Object[]> result = new ArrayList<>(List.of(rows));
+        when(medicineRepository.findAtOrBelowReorderThreshold(anyCollection(), anyInt())).thenReturn(result);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ArgumentCaptor<Collection<UUID>> captureQueriedIds() {
+        ArgumentCaptor<Collection<UUID>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(medicineRepository).findAtOrBelowReorderThreshold(ids.capture(), eq(DEFAULT_THRESHOLD));
+        return ids;
+    }
+
+    /**
+     * Một dòng của MedicineRepository.findAtOrBelowReorderThreshold.
+     */
+    private static Object[] row(UUID medicineId, String name, int available, int threshold) {
+        return new Object[] {medicineId, name, available, threshold};
+    }
+}
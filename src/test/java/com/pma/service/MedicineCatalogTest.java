@@ -0,0 +1,168 @@
+package com.pma.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.pma.model.entity.Medicine;
+import com.pma.repository.MedicineRepository;
+
+/**
+ * Kiểm tra danh mục thuốc trong bộ nhớ: so khớp theo đầu tên, đầu từ và nhà
+ * sản xuất (không phân biệt hoa thường, dấu tiếng Việt), cập nhật tăng dần sau
+ * khi sửa/xóa thuốc, và thời gian gợi ý top-N dưới 1 ms với 50.000 thuốc.
+ */
+class MedicineCatalogTest {
+
+    private static final Logger log = LoggerFactory.getLogger(MedicineCatalogTest.class);
+
+    private static final int PRODUCTS = 50_000;
+    private static final int TOP_N = 10;
+
+    private static final String[] BASES = {"Paracetamol", "Amoxicillin", "Ibuprofen", "Cefuroxim", "Metformin",
+        "Omeprazol", "Loratadin", "Vitamin C", "Hoạt huyết dưỡng não", "Siro ho Bảo Thanh", "Đại tràng hoàn",
+        "Berberin", "Azithromycin", "Salbutamol", "Clorpheniramin", "Kẽm gluconat"};
+    private static final String[] STRENGTHS = {"100mg", "250mg", "500mg", "1g", "5ml", "10mg"};
+    private static final String[] MANUFACTURERS = {"Dược Hậu Giang", "Traphaco", "Imexpharm", "Pymepharco",
+        "Domesco", "Sanofi", "Stada", "Mekophar", "OPC", "Bidiphar"};
+
+    private MedicineRepository medicineRepository;
+    private MedicineCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        medicineRepository = mock(MedicineRepository.class);
+        catalog = new MedicineCatalog(medicineRepository, Duration.ZERO);
+    }
+
+    @Test
+    void matchesNamePrefixIgnoringCaseAndDiacritics() {
+        givenCatalogue(row("Paracetamol 500mg", "Dược Hậu Giang"), row("Đại tràng hoàn", "Traphaco"),
+                row("Amoxicillin 250mg", "Imexpharm"));
+
+        assertThat(names(catalog.suggest("PARA", TOP_N))).containsExactly("Paracetamol 500mg");
+        assertThat(names(catalog.suggest("dai trang", TOP_N))).containsExactly("Đại tràng hoàn");
+        assertThat(names(catalog.suggest("đại  tràng", TOP_N))).containsExactly("Đại tràng hoàn");
+    }
+
+    @Test
+    void matchesWordsInNameAndManufacturerAfterNamePrefixMatches() {
+        givenCatalogue(row("Paracetamol 500mg", "Dược Hậu Giang"), row("Hapacol 500", "Dược Hậu Giang"),
+                row("Haloperidol", "Sanofi"));
+
+        // Khớp theo đầu tên trước, sau đó thuốc của "Dược Hậu Giang" khớp theo từ "hậu"
+        assertThat(names(catalog.suggest("ha", TOP_N))).containsExactly("Haloperidol", "Hapacol 500",
+                "Paracetamol 500mg");
+        assertThat(names(catalog.suggest("500", TOP_N))).containsExactlyInAnyOrder("Paracetamol 500mg",
+                "Hapacol 500");
+        assertThat(names(catalog.suggest("hau giang", TOP_N))).containsExactlyInAnyOrder("Paracetamol 500mg",
+                "Hapacol 500");
+        assertThat(catalog.suggest("cetamol", TOP_N)).isEmpty(); // Giữa từ, không phải tiền tố
+    }
+
+    @Test
+    void returnsEachMedicineOnceUpToLimit() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            rows.add(row("Vitamin C " + i + " Vitamin", "Vitamin Pharma"));
+        }
+        givenCatalogue(rows.toArray(Object[][]::new));
+
+        List<MedicineSummary> suggestions = catalog.suggest("vitamin", TOP_N);
+
+        assertThat(suggestions).hasSize(TOP_N);
+        assertThat(suggestions).extracting(MedicineSummary::medicineId).doesNotHaveDuplicates();
+        assertThat(catalog.suggest("vitamin", 0)).isEmpty();
+    }
+
+    @Test
+    void writesAreAppliedIncrementally() {
+        givenCatalogue(row("Paracetamol 500mg", "Dược Hậu Giang"));
+        catalog.reload();
+        Medicine medicine = new Medicine();
+        medicine.setMedicineId(UUID.randomUUID());
+        medicine.setMedicineName("Panadol Extra");
+        medicine.setManufacturer("GSK");
+        medicine.setUnit("viên");
+        medicine.setPrice(new BigDecimal("2000.00"));
+
+        catalog.upsertAfterCommit(medicine); // Không có transaction: áp dụng ngay
+        assertThat(names(catalog.suggest("pa", TOP_N))).containsExactly("Panadol Extra", "Paracetamol 500mg");
+
+        medicine.setMedicineName("Efferalgan");
+        catalog.upsertAfterCommit(medicine);
+        assertThat(names(catalog.suggest("pa", TOP_N))).containsExactly("Paracetamol 500mg");
+        assertThat(names(catalog.suggest("gsk", TOP_N))).containsExactly("Efferalgan");
+
+        catalog.removeAfterCommit(medicine.getMedicineId());
+        assertThat(catalog.suggest("eff", TOP_N)).isEmpty();
+        assertThat(catalog.suggest("gsk", TOP_N)).isEmpty();
+    }
+
+    @Test
+    void topNSuggestionTakesUnderOneMillisecondWithFiftyThousandProducts() {
+        Random random = new Random(42);
+        List<Object[]> rows = new ArrayList<>(PRODUCTS);
+        for (int i = 0; i < PRODUCTS; i++) {
+            String name = BASES[random.nextInt(BASES.length)] + " " + STRENGTHS[random.nextInt(STRENGTHS.length)]
+                    + " " + Integer.toString(i, 36);
+            rows.add(row(name, MANUFACTURERS[random.nextInt(MANUFACTURERS.length)]));
+        }
+        givenCatalogue(rows.toArray(Object[][]::new));
+        assertThat(catalog.reload()).isEqualTo(PRODUCTS);
+
+        // Các chuỗi gõ dần như trong ô gợi ý, kể cả chuỗi không khớp và khớp theo nhà sản xuất
+        String[] queries = {"p", "pa", "par", "para", "paracetamol 5", "a", "amox", "hoat huyet", "siro",
+            "đại", "500", "500mg", "tra", "traphaco", "duoc hau", "sanofi", "vit", "vitamin c 1", "kem g", "zzz"};
+        for (int i = 0; i < 20_000; i++) { // Làm nóng JIT
+            catalog.suggest(queries[i % queries.length], TOP_N);
+        }
+
+        int runs = 50_000;
+        long[] nanos = new long[runs];
+        int found = 0;
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            found += catalog.suggest(queries[i % queries.length], TOP_N).size();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        double meanMicros = Arrays.stream(nanos).average().orElseThrow() / 1_000;
+        double medianMicros = nanos[runs / 2] / 1_000.0;
+        log.info("MedicineCatalog.suggest ({} products, top {}): mean {} us, median {} us, p99 {} us", PRODUCTS,
+                TOP_N, String.format("%.1f", meanMicros), String.format("%.1f", medianMicros),
+                String.format("%.1f", nanos[runs * 99 / 100] / 1_000.0));
+
+        assertThat(found).isPositive();
+        assertThat(meanMicros).isLessThan(1_000);
+        assertThat(medianMicros).isLessThan(1_000);
+    }
+
+    private void givenCatalogue(Object[]... rows) {
+        when(medicineRepository.findCatalogueRows()).thenReturn(new ArrayList<>(List.of(rows)));
+    }
+
+    /**
+     * Một dòng của MedicineRepository.findCatalogueRows.
+     */
+    private static Object[] row(String name, String manufacturer) {
+        return new Object[] {UUID.randomUUID(), name, manufacturer, "viên", new BigDecimal("1500.00")};
+    }
+
+    private static List<String> names(List<MedicineSummary> suggestions) {
+        return suggestions.stream().map(MedicineSummary::medicineName).toList();
+    }
+}
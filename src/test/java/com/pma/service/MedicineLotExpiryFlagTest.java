@@ -0,0 +1,87 @@
+package com.pma.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.pma.SqlServerTest;
+import com.pma.TestEntities;
+import com.pma.model.entity.Medicine;
+import com.pma.model.entity.MedicineLot;
+import com.pma.repository.MedicineLotRepository;
+import com.pma.repository.MedicineRepository;
+
+/**
+ * Việc đánh dấu lô sắp hết hạn hằng đêm trên cơ sở dữ liệu thật: chỉ lô còn
+ * hàng có hạn dùng trong pma.stock.expiry-warning-days ngày tới (kể cả lô đã
+ * hết hạn) được đánh dấu, mỗi lô một lần, và cùng các lô đó hiện trong danh
+ * sách lô sắp hết hạn.
+ */
+@SqlServerTest
+@Import(MedicineLotService.class)
+@TestPropertySource(properties = "pma.stock.expiry-warning-days=30")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MedicineLotExpiryFlagTest {
+
+    @MockitoBean
+    private MedicineService medicineService;
+
+    @Autowired
+    private MedicineLotService medicineLotService;
+    @Autowired
+    private MedicineLotRepository lotRepository;
+    @Autowired
+    private MedicineRepository medicineRepository;
+
+    private Medicine medicine;
+
+    @BeforeEach
+    void setUp() {
+        medicine = medicineRepository.save(TestEntities.medicine(100));
+    }
+
+    @Test
+    void lotsInsideTheWarningWindowAreFlaggedOnce() {
+        UUID expired = lot("EXPIRED", LocalDate.now().minusDays(1), 5);
+        UUID soon = lot("SOON", LocalDate.now().plusDays(30), 5);
+        UUID later = lot("LATER", LocalDate.now().plusDays(31), 5);
+        UUID empty = lot("EMPTY", LocalDate.now().plusDays(5), 0);
+
+        medicineLotService.flagNearExpiryLots();
+
+        assertThat(flagged(expired)).isTrue();
+        assertThat(flagged(soon)).isTrue();
+        assertThat(flagged(later)).isFalse();
+        assertThat(flagged(empty)).isFalse();
+        // Đêm sau: các lô đã đánh dấu không bị đánh dấu lại
+        assertThat(lotRepository.flagNearExpiry(LocalDate.now().plusDays(30), LocalDateTime.now()))
+                .isZero();
+        assertThat(medicineLotService.getNearExpiryLots()).extracting(MedicineLot::getLotId)
+                .contains(expired, soon)
+                .doesNotContain(later, empty);
+    }
+
+    private UUID lot(String prefix, LocalDate expiryDate, int quantity) {
+        MedicineLot lot = new MedicineLot();
+        lot.setMedicine(medicine);
+        lot.setLotNumber(prefix + "-" + UUID.randomUUID().toString().substring(0, 8));
+        lot.setExpiryDate(expiryDate);
+        lot.setQuantity(quantity);
+        return lotRepository.save(lot).getLotId();
+    }
+
+    private boolean flagged(UUID lotId) {
+        return lotRepository.findById(lotId).orElseThrow().getNearExpiryFlaggedAt() != null;
+    }
+}
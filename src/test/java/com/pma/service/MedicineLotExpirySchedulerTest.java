@@ -0,0 +1,56 @@
+package com.pma.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+/**
+ * Kiểm tra lịch đánh dấu lô sắp hết hạn hằng đêm: lần chạy đầu rơi vào giờ
+ * kiểm tra kế tiếp (hôm nay hoặc ngày mai), mỗi lần chạy gọi
+ * MedicineLotService.flagNearExpiryLots và lỗi của một đêm không làm dừng lịch.
+ */
+class MedicineLotExpirySchedulerTest {
+
+    private static final LocalTime CHECK_TIME = LocalTime.of(2, 0);
+
+    @Test
+    void firstRunIsLaterTodayWhenCheckTimeIsAhead() {
+        LocalDateTime now = LocalDateTime.of(2026, 3, 10, 1, 30);
+
+        assertThat(MedicineLotExpiryScheduler.delayUntilNextRun(now, CHECK_TIME)).isEqualTo(Duration.ofMinutes(30));
+    }
+
+    @Test
+    void firstRunIsTomorrowWhenCheckTimeHasPassed() {
+        LocalDateTime now = LocalDateTime.of(2026, 3, 10, 14, 0);
+
+        assertThat(MedicineLotExpiryScheduler.delayUntilNextRun(now, CHECK_TIME)).isEqualTo(Duration.ofHours(12));
+        // Đúng giờ kiểm tra: lần chạy của hôm nay coi như đã qua
+        assertThat(MedicineLotExpiryScheduler.delayUntilNextRun(LocalDateTime.of(2026, 3, 10, 2, 0), CHECK_TIME))
+                .isEqualTo(Duration.ofDays(1));
+    }
+
+    @Test
+    void eachRunFlagsLotsAndFailuresDoNotStopTheSchedule() {
+        MedicineLotService lotService = mock(MedicineLotService.class);
+        when(lotService.flagNearExpiryLots()).thenReturn(4).thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(0);
+        MedicineLotExpiryScheduler scheduler = new MedicineLotExpiryScheduler(lotService, "02:00");
+
+        scheduler.checkExpiry();
+        assertThatCode(scheduler::checkExpiry).doesNotThrowAnyException();
+        scheduler.checkExpiry();
+
+        verify(lotService, times(3)).flagNearExpiryLots();
+    }
+}
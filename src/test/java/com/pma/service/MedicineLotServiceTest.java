@@ -0,0 +1,195 @@
+package com.pma.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.pma.model.entity.DispensedLot;
+import com.pma.model.entity.Medicine;
+import com.pma.model.entity.MedicineLot;
+import com.pma.model.entity.Prescription;
+import com.pma.repository.DispensedLotRepository;
+import com.pma.repository.MedicineLotRepository;
+import com.pma.repository.MedicineRepository;
+
+/**
+ * Kiểm tra việc phân bổ số lượng xuất vào các lô theo hạn dùng (FEFO): lô hết
+ * hạn sớm nhất được lấy trước, cùng hạn thì lô nhập trước; một lần xuất được
+ * chia qua nhiều lô và mọi bản ghi xuất lô được lưu bằng một lần saveAll; phần
+ * không có lô được trả về cho người gọi. Cùng với việc đánh dấu lô sắp hết hạn
+ * và tính tồn kho không theo lô.
+ */
+class MedicineLotServiceTest {
+
+    private static final int WARNING_DAYS = 90;
+
+    private MedicineLotRepository lotRepository;
+    private DispensedLotRepository dispensedLotRepository;
+    private MedicineRepository medicineRepository;
+    private MedicineLotService medicineLotService;
+    private Prescription prescription;
+    private final List<MedicineLot> allocatable = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        lotRepository = mock(MedicineLotRepository.class);
+        dispensedLotRepository = mock(DispensedLotRepository.class);
+        medicineRepository = mock(MedicineRepository.class);
+        when(lotRepository.findAllocatableForUpdate(anyCollection(), any(LocalDate.class)))
+                .thenAnswer(invocation -> {
+                    Collection<UUID> ids = invocation.getArgument(0);
+                    return allocatable.stream().filter(l -> ids.contains(l.getMedicine().getMedicineId())).toList();
+                });
+        medicineLotService = new MedicineLotService(lotRepository, dispensedLotRepository, medicineRepository,
+                mock(MedicineService.class), WARNING_DAYS);
+        prescription = new Prescription();
+        prescription.setPrescriptionId(UUID.randomUUID());
+    }
+
+    @Test
+    void dispenseIsSplitAcrossLotsEarliestExpiryFirstInOneBatchedWrite() {
+        Medicine medicine = medicine();
+        MedicineLot late = lot(medicine, "L-LATE", 90, 10, 1);
+        MedicineLot early = lot(medicine, "L-EARLY", 30, 3, 2);
+        MedicineLot middle = lot(medicine, "L-MID", 60, 5, 3);
+
+        LotAllocation allocation = medicineLotService.allocate(prescription, Map.of(medicine.getMedicineId(), 10));
+
+        assertThat(allocation.lots()).extracting(d -> d.getLot().getLotNumber(), DispensedLot::getQuantity)
+                .containsExactly(tuple("L-EARLY", 3), tuple("L-MID", 5), tuple("L-LATE", 2));
+        assertThat(allocation.lots()).allSatisfy(d -> assertThat(d.getPrescription()).isSameAs(prescription));
+        assertThat(allocation.untracked()).isEmpty();
+        assertThat(early.getQuantity()).isZero();
+        assertThat(middle.getQuantity()).isZero();
+        assertThat(late.getQuantity()).isEqualTo(8);
+        verify(lotRepository, times(1)).findAllocatableForUpdate(anyCollection(), eq(LocalDate.now()));
+        verify(dispensedLotRepository, times(1)).saveAll(allocation.lots());
+    }
+
+    @Test
+    void lotsWithSameExpiryAreTakenInReceivingOrder() {
+        Medicine medicine = medicine();
+        MedicineLot newer = lot(medicine, "B-NEW", 30, 5, 10);
+        MedicineLot older = lot(medicine, "A-OLD", 30, 5, 1);
+
+        LotAllocation allocation = medicineLotService.allocate(prescription, Map.of(medicine.getMedicineId(), 4));
+
+        assertThat(allocation.lots()).singleElement().satisfies(d -> assertThat(d.getLot()).isSameAs(older));
+        assertThat(older.getQuantity()).isEqualTo(1);
+        assertThat(newer.getQuantity()).isEqualTo(5);
+    }
+
+    @Test
+    void severalMedicinesAreAllocatedFromOneLockedQuery() {
+        Medicine first = medicine();
+        Medicine second = medicine();
+        lot(first, "F-1", 40, 6, 1);
+        lot(second, "S-1", 20, 2, 1);
+        lot(second, "S-2", 50, 9, 2);
+        Map<UUID, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(first.getMedicineId(), 4);
+        quantities.put(second.getMedicineId(), 7);
+
+        LotAllocation allocation = medicineLotService.allocate(prescription, quantities);
+
+        assertThat(allocation.lots()).extracting(d -> d.getLot().getLotNumber())
+                .containsExactly("F-1", "S-1", "S-2");
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<UUID>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(lotRepository, times(1)).findAllocatableForUpdate(ids.capture(), any(LocalDate.class));
+        assertThat(ids.getValue()).containsExactlyInAnyOrder(first.getMedicineId(), second.getMedicineId());
+        verify(dispensedLotRepository, times(1)).saveAll(anyIterable());
+    }
+
+    @Test
+    void quantityNotCoveredByLotsIsReturnedAsUntracked() {
+        Medicine covered = medicine();
+        Medicine withoutLots = medicine();
+        lot(covered, "C-1", 30, 8, 1);
+        Map<UUID, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(covered.getMedicineId(), 20);
+        quantities.put(withoutLots.getMedicineId(), 5);
+
+        LotAllocation allocation = medicineLotService.allocate(prescription, quantities);
+
+        assertThat(allocation.lots()).singleElement().satisfies(d -> assertThat(d.getQuantity()).isEqualTo(8));
+        assertThat(allocation.untracked()).containsOnly(Map.entry(covered.getMedicineId(), 12),
+                Map.entry(withoutLots.getMedicineId(), 5));
+    }
+
+    @Test
+    void emptyDispenseDoesNotTouchLots() {
+        assertThat(medicineLotService.allocate(prescription, Map.of())).isEqualTo(LotAllocation.EMPTY);
+
+        verify(lotRepository, never()).findAllocatableForUpdate(anyCollection(), any());
+        verify(dispensedLotRepository, never()).saveAll(anyIterable());
+    }
+
+    @Test
+    void flaggingUsesTheConfiguredWarningWindow() {
+        when(lotRepository.flagNearExpiry(any(LocalDate.class), any(LocalDateTime.class))).thenReturn(3);
+
+        assertThat(medicineLotService.flagNearExpiryLots()).isEqualTo(3);
+
+        verify(lotRepository).flagNearExpiry(eq(LocalDate.now().plusDays(WARNING_DAYS)), any(LocalDateTime.class));
+    }
+
+    @Test
+    void untrackedQuantityIsStockNotCoveredByUnexpiredLots() {
+        Medicine medicine = medicine();
+        medicine.setStockQuantity(50);
+        when(medicineRepository.findById(medicine.getMedicineId())).thenReturn(Optional.of(medicine));
+        when(lotRepository.sumAllocatableQuantity(medicine.getMedicineId(), LocalDate.now())).thenReturn(30L);
+
+        assertThat(medicineLotService.getUntrackedQuantity(medicine.getMedicineId())).isEqualTo(20);
+
+        when(lotRepository.sumAllocatableQuantity(medicine.getMedicineId(), LocalDate.now())).thenReturn(70L);
+        assertThat(medicineLotService.getUntrackedQuantity(medicine.getMedicineId())).isZero();
+    }
+
+    private static Medicine medicine() {
+        Medicine medicine = new Medicine();
+        medicine.setMedicineId(UUID.randomUUID());
+        return medicine;
+    }
+
+    /**
+     * Tạo một lô còn hạn, có thể phân bổ.
+     *
+     * @param expiresInDays Số ngày tới hạn dùng.
+     * @param receivedOrder Thứ tự nhập (lô nhập trước có số nhỏ hơn).
+     */
+    private MedicineLot lot(Medicine medicine, String lotNumber, int expiresInDays, int quantity, int receivedOrder) {
+        MedicineLot lot = new MedicineLot();
+        lot.setLotId(UUID.randomUUID());
+        lot.setMedicine(medicine);
+        lot.setLotNumber(lotNumber);
+        lot.setExpiryDate(LocalDate.now().plusDays(expiresInDays));
+        lot.setQuantity(quantity);
+        lot.setCreatedAt(LocalDateTime.now().minusDays(100).plusMinutes(receivedOrder));
+        allocatable.add(lot);
+        return lot;
+    }
+}
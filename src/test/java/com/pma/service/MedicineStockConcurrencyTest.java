@@ -0,0 +1,169 @@
+package com.pma.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.pma.SqlServerTest;
+import com.pma.TestEntities;
+import com.pma.model.entity.Medicine;
+import com.pma.model.enums.MedicineStatus;
+import com.pma.repository.MedicineRepository;
+
+/**
+ * 64 luồng cùng trừ tồn kho của cùng các loại thuốc qua MedicineService, mỗi
+ * lần trừ là một transaction riêng được commit, với tổng số lần thử nhiều hơn
+ * tồn kho. Sau khi chạy, tồn kho phải bằng tồn kho ban đầu trừ số lần trừ được
+ * chấp nhận (không mất lượt nào), mọi lần bị từ chối phải là lỗi thiếu tồn kho,
+ * tồn kho đọc được trong lúc chạy không bao giờ âm, và thuốc hết hàng phải
+ * chuyển sang OUT_OF_STOCK. Thông lượng được ghi log.
+ */
+@SqlServerTest
+@Import({MedicineService.class, ReferenceDataCache.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MedicineStockConcurrencyTest {
+
+    private static final Logger log = LoggerFactory.getLogger(MedicineStockConcurrencyTest.class);
+
+    private static final int THREADS = 64;
+    private static final int ATTEMPTS_PER_THREAD = 25;
+    /**
+     * Ít hơn tổng số lần thử, nên thuốc phải hết hàng giữa chừng.
+     */
+    private static final int STOCK = 1_000;
+
+    @MockitoBean
+    private LowStockAlertService lowStockAlertService;
+    @MockitoBean
+    private MedicineCatalog medicineCatalog;
+
+    @Autowired
+    private MedicineService medicineService;
+    @Autowired
+    private MedicineRepository medicineRepository;
+
+    @Test
+    void concurrentSingleDecrementsNeverOversell() throws InterruptedException {
+        UUID medicineId = medicineRepository.save(TestEntities.medicine(STOCK)).getMedicineId();
+
+        Outcome outcome = run("updateStockQuantity", List.of(medicineId),
+                () -> medicineService.updateStockQuantity(medicineId, -1));
+
+        assertThat(outcome.accepted()).isEqualTo(STOCK);
+        assertThat(outcome.lowestStock()).isNotNegative();
+        Medicine medicine = medicineRepository.findById(medicineId).orElseThrow();
+        assertThat(medicine.getStockQuantity()).isEqualTo(STOCK - outcome.accepted());
+        assertThat(medicine.getStatus()).isEqualTo(MedicineStatus.OUT_OF_STOCK);
+    }
+
+    @Test
+    void concurrentBatchDecrementsAreAllOrNothing() throws InterruptedException {
+        int scarceStock = STOCK / 2;
+        UUID scarce = medicineRepository.save(TestEntities.medicine(scarceStock)).getMedicineId();
+        UUID plentiful = medicineRepository.save(TestEntities.medicine(STOCK)).getMedicineId();
+        Map<UUID, Integer> changes = Map.of(scarce, -1, plentiful, -1);
+
+        Outcome outcome = run("updateStockQuantities", List.of(scarce, plentiful),
+                () -> medicineService.updateStockQuantities(changes));
+
+        // Khi thuốc khan hiếm hết, cả lô bị từ chối và thuốc còn lại không bị trừ
+        assertThat(outcome.accepted()).isEqualTo(scarceStock);
+        assertThat(outcome.lowestStock()).isNotNegative();
+        Medicine scarceAfter = medicineRepository.findById(scarce).orElseThrow();
+        Medicine plentifulAfter = medicineRepository.findById(plentiful).orElseThrow();
+        assertThat(scarceAfter.getStockQuantity()).isEqualTo(scarceStock - outcome.accepted());
+        assertThat(plentifulAfter.getStockQuantity()).isEqualTo(STOCK - outcome.accepted());
+        assertThat(scarceAfter.getStatus()).isEqualTo(MedicineStatus.OUT_OF_STOCK);
+        assertThat(plentifulAfter.getStatus()).isEqualTo(MedicineStatus.AVAILABLE);
+    }
+
+    /**
+     * Số lần trừ được chấp nhận và tồn kho thấp nhất đọc được trong lúc chạy.
+     */
+    private record Outcome(int accepted, int lowestStock) {
+    }
+
+    /**
+     * Chạy {@code decrement} THREADS × ATTEMPTS_PER_THREAD lần trên THREADS
+     * luồng, trong khi một luồng khác liên tục đọc tồn kho của
+     * {@code medicineIds} từ cơ sở dữ liệu.
+     */
+    private Outcome run(String operation, List<UUID> medicineIds, Runnable decrement) throws InterruptedException {
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger lowestStock = new AtomicInteger(Integer.MAX_VALUE);
+        AtomicBoolean running = new AtomicBoolean(true);
+        ConcurrentLinkedQueue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+        CountDownLatch startSignal = new CountDownLatch(1);
+
+        Thread monitor = new Thread(() -> {
+            try {
+                while (running.get()) {
+                    // Không có lượng giữ, nên tồn kho khả dụng bằng tồn kho
+                    for (int stock : medicineService.getAvailableQuantities(medicineIds).values()) {
+                        lowestStock.accumulateAndGet(stock, Math::min);
+                    }
+                }
+            } catch (Throwable e) {
+                unexpected.add(e);
+            }
+        }, "stock-monitor");
+        monitor.start();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            pool.execute(() -> {
+                try {
+                    startSignal.await();
+                    for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                        try {
+                            decrement.run();
+                            accepted.incrementAndGet();
+                        } catch (IllegalArgumentException e) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                } catch (Throwable e) {
+                    unexpected.add(e);
+                }
+            });
+        }
+        long startedAt = System.nanoTime();
+        startSignal.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        running.set(false);
+        monitor.join();
+
+        int attempts = THREADS * ATTEMPTS_PER_THREAD;
+        log.info("Stock concurrency ({}): attempts={} accepted={} rejected={} time={}s throughput={} calls/s",
+                operation, attempts, accepted.get(), rejected.get(), String.format("%.2f", seconds),
+                Math.round(attempts / seconds));
+
+        assertThat(unexpected).isEmpty();
+        assertThat(accepted.get() + rejected.get()).isEqualTo(attempts);
+        for (int stock : medicineService.getAvailableQuantities(medicineIds).values()) {
+            lowestStock.accumulateAndGet(stock, Math::min);
+        }
+        return new Outcome(accepted.get(), lowestStock.get());
+    }
+}
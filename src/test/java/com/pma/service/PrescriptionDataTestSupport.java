@@ -0,0 +1,99 @@
+package com.pma.service;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.pma.TestEntities;
+import com.pma.model.entity.Prescription;
+import com.pma.repository.DepartmentRepository;
+import com.pma.repository.DoctorRepository;
+import com.pma.repository.MedicineRepository;
+import com.pma.repository.PatientRepository;
+import com.pma.repository.PrescriptionRepository;
+import com.pma.service.PrescriptionService.PrescriptionDetailDTO;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Dữ liệu dùng chung cho các test đơn thuốc trên SQL Server (lớp con gắn
+ * {@link com.pma.SqlServerTest}): nạp PrescriptionService, BillService và
+ * StockReservationService (LowStockAlertService, MedicineLotService được
+ * mock), tạo sẵn một bác sĩ, một bệnh nhân và bật Hibernate Statistics để đếm
+ * câu lệnh SQL. Mỗi test tự commit dữ liệu của mình (không có transaction bao
+ * quanh test).
+ */
+@Import({PrescriptionService.class, BillService.class, StockReservationService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+abstract class PrescriptionDataTestSupport {
+
+    @MockitoBean
+    protected LowStockAlertService lowStockAlertService;
+    @MockitoBean
+    protected MedicineLotService medicineLotService;
+
+    @Autowired
+    protected PrescriptionService prescriptionService;
+    @Autowired
+    protected BillService billService;
+    @Autowired
+    protected MedicineRepository medicineRepository;
+    @Autowired
+    protected PrescriptionRepository prescriptionRepository;
+    @Autowired
+    private DepartmentRepository departmentRepository;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    protected Statistics statistics;
+    protected UUID patientId;
+    protected UUID doctorId;
+
+    @BeforeEach
+    void createDoctorAndPatient() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        doctorId = doctorRepository.save(TestEntities.doctor(departmentRepository.save(TestEntities.department())))
+                .getDoctorId();
+        patientId = patientRepository.save(TestEntities.patient()).getPatientId();
+    }
+
+    protected UUID saveMedicine(int stockQuantity) {
+        return medicineRepository.save(TestEntities.medicine(stockQuantity)).getMedicineId();
+    }
+
+    /**
+     * Số câu lệnh SQL được chuẩn bị khi chạy {@code work}, gồm cả lần flush
+     * lúc commit.
+     */
+    protected long statementsFor(Runnable work) {
+        long before = statistics.getPrepareStatementCount();
+        work.run();
+        return statistics.getPrepareStatementCount() - before;
+    }
+
+    protected UUID createPrescription(List<PrescriptionDetailDTO> details) {
+        return prescriptionService.createPrescription(new Prescription(), patientId, doctorId, null, details)
+                .getPrescriptionId();
+    }
+
+    protected static PrescriptionDetailDTO detail(UUID medicineId, int quantity) {
+        PrescriptionDetailDTO dto = new PrescriptionDetailDTO();
+        dto.setMedicineId(medicineId);
+        dto.setQuantity(quantity);
+        dto.setDosage("1 viên x 2 lần/ngày");
+        return dto;
+    }
+}
@@ -0,0 +1,179 @@
+package com.pma.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.hibernate.stat.EntityStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.pma.SqlServerTest;
+import com.pma.model.entity.Bill;
+import com.pma.model.entity.Prescription;
+import com.pma.model.entity.PrescriptionDetail;
+import com.pma.model.enums.BillItemType;
+import com.pma.service.BillService.BillItemDTO;
+import com.pma.service.PrescriptionService.PrescriptionDetailDTO;
+
+/**
+ * updatePrescription chỉ ghi phần chênh lệch của chi tiết đơn thuốc: dòng giữ
+ * nguyên không phát sinh câu lệnh, dòng sửa được UPDATE tại chỗ (giữ ID), dòng
+ * thêm/bỏ được INSERT/DELETE. Số câu lệnh trên bảng chi tiết được đếm bằng
+ * Hibernate Statistics của riêng entity PrescriptionDetail (lượng giữ tồn kho
+ * vẫn được gia hạn ở mỗi lần cập nhật).
+ */
+@SqlServerTest
+class PrescriptionDetailChangesTest extends PrescriptionDataTestSupport {
+
+    private UUID first;
+    private UUID second;
+    private UUID third;
+
+    @BeforeEach
+    void createMedicines() {
+        first = saveMedicine(1_000);
+        second = saveMedicine(1_000);
+        third = saveMedicine(1_000);
+    }
+
+    @Test
+    void unchangedLinesWriteNothing() {
+        UUID prescriptionId = createPrescription(List.of(detail(first, 2), detail(second, 1)));
+        Map<UUID, UUID> idsBefore = detailIdsByMedicine(prescriptionId);
+
+        DetailWrites writes = detailWritesFor(() -> update(prescriptionId,
+                List.of(detail(second, 1), detail(first, 2))));
+
+        assertThat(writes).isEqualTo(new DetailWrites(0, 0, 0));
+        assertThat(detailIdsByMedicine(prescriptionId)).isEqualTo(idsBefore);
+    }
+
+    @Test
+    void dosageEditIsOneUpdateKeepingTheDetailId() {
+        UUID prescriptionId = createPrescription(List.of(detail(first, 2), detail(second, 1)));
+        Map<UUID, UUID> idsBefore = detailIdsByMedicine(prescriptionId);
+        PrescriptionDetailDTO edited = detail(first, 2);
+        edited.setDosage("1 viên x 3 lần/ngày");
+
+        DetailWrites writes = detailWritesFor(() -> update(prescriptionId, List.of(edited, detail(second, 1))));
+
+        assertThat(writes).isEqualTo(new DetailWrites(0, 1, 0));
+        assertThat(detailIdsByMedicine(prescriptionId)).isEqualTo(idsBefore);
+        assertThat(details(prescriptionId))
+                .filteredOn(d -> d.getMedicine().getMedicineId().equals(first))
+                .singleElement()
+                .satisfies(d -> assertThat(d.getDosage()).isEqualTo("1 viên x 3 lần/ngày"));
+    }
+
+    @Test
+    void duplicateLinesOfOneMedicineAreMatchedOneToOne() {
+        UUID prescriptionId = createPrescription(List.of(detail(first, 1), detail(first, 2)));
+        List<UUID> idsBefore = details(prescriptionId).stream().map(PrescriptionDetail::getPrescriptionDetailId)
+                .toList();
+
+        // Dòng số lượng 2 giữ nguyên, dòng số lượng 1 được sửa thành 3
+        DetailWrites edit = detailWritesFor(() -> update(prescriptionId, List.of(detail(first, 2),
+                detail(first, 3))));
+
+        assertThat(edit).isEqualTo(new DetailWrites(0, 1, 0));
+        assertThat(details(prescriptionId))
+                .extracting(PrescriptionDetail::getPrescriptionDetailId)
+                .containsExactlyInAnyOrderElementsOf(idsBefore);
+        assertThat(details(prescriptionId)).extracting(PrescriptionDetail::getQuantity)
+                .containsExactlyInAnyOrder(2, 3);
+
+        // Bỏ bớt một dòng trùng: chỉ xóa dòng không còn khớp
+        DetailWrites shrink = detailWritesFor(() -> update(prescriptionId, List.of(detail(first, 3))));
+
+        assertThat(shrink).isEqualTo(new DetailWrites(0, 0, 1));
+        assertThat(details(prescriptionId)).singleElement()
+                .satisfies(d -> assertThat(d.getQuantity()).isEqualTo(3));
+    }
+
+    @Test
+    void addAndRemoveInOneEdit() {
+        UUID prescriptionId = createPrescription(List.of(detail(first, 2), detail(second, 1)));
+        UUID keptId = detailIdsByMedicine(prescriptionId).get(first);
+
+        DetailWrites writes = detailWritesFor(() -> update(prescriptionId, List.of(detail(first, 2),
+                detail(third, 4))));
+
+        assertThat(writes).isEqualTo(new DetailWrites(1, 0, 1));
+        Map<UUID, UUID> idsAfter = detailIdsByMedicine(prescriptionId);
+        assertThat(idsAfter).containsOnlyKeys(first, third);
+        assertThat(idsAfter.get(first)).isEqualTo(keptId);
+    }
+
+    @Test
+    void removingBilledLineIsRejectedBeforeFlush() {
+        UUID prescriptionId = createPrescription(List.of(detail(first, 2), detail(second, 1)));
+        UUID billedId = detailIdsByMedicine(prescriptionId).get(second);
+        billService.createBill(new Bill(), patientId, null, List.of(billItem(billedId)));
+
+        assertThatThrownBy(() -> update(prescriptionId, List.of(detail(first, 2))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(billedId.toString());
+
+        assertThat(detailIdsByMedicine(prescriptionId)).containsOnlyKeys(first, second);
+    }
+
+    /**
+     * Số câu lệnh INSERT, UPDATE, DELETE trên bảng chi tiết đơn thuốc.
+     */
+    private record DetailWrites(long inserts, long updates, long deletes) {
+    }
+
+    private DetailWrites detailWritesFor(Runnable work) {
+        DetailWrites before = detailWrites();
+        work.run();
+        DetailWrites after = detailWrites();
+        return new DetailWrites(after.inserts() - before.inserts(), after.updates() - before.updates(),
+                after.deletes() - before.deletes());
+    }
+
+    private DetailWrites detailWrites() {
+        EntityStatistics stats = statistics.getEntityStatistics(PrescriptionDetail.class.getName());
+        return new DetailWrites(stats.getInsertCount(), stats.getUpdateCount(), stats.getDeleteCount());
+    }
+
+    /**
+     * Cập nhật chi tiết, giữ nguyên ngày, ghi chú và trạng thái của đơn.
+     */
+    private void update(UUID prescriptionId, List<PrescriptionDetailDTO> details) {
+        Prescription current = prescriptionService.getPrescriptionByIdWithDetails(prescriptionId).orElseThrow();
+        Prescription data = new Prescription();
+        data.setPrescriptionDate(current.getPrescriptionDate());
+        data.setNotes(current.getNotes());
+        data.setStatus(current.getStatus());
+        prescriptionService.updatePrescription(prescriptionId, data, details);
+    }
+
+    private List<PrescriptionDetail> details(UUID prescriptionId) {
+        return List.copyOf(prescriptionService.getPrescriptionByIdWithDetails(prescriptionId).orElseThrow()
+                .getPrescriptionDetails());
+    }
+
+    /**
+     * ID chi tiết theo thuốc, cho các đơn mỗi thuốc chỉ có một dòng.
+     */
+    private Map<UUID, UUID> detailIdsByMedicine(UUID prescriptionId) {
+        return details(prescriptionId).stream().collect(Collectors.toMap(d -> d.getMedicine().getMedicineId(),
+                PrescriptionDetail::getPrescriptionDetailId));
+    }
+
+    private static BillItemDTO billItem(UUID prescriptionDetailId) {
+        BillItemDTO dto = new BillItemDTO();
+        dto.setItemDescription("Thuốc theo đơn");
+        dto.setItemType(BillItemType.MEDICINE);
+        dto.setQuantity(1);
+        dto.setUnitPrice(new BigDecimal("15000.00"));
+        dto.setPrescriptionDetailId(prescriptionDetailId);
+        return dto;
+    }
+}
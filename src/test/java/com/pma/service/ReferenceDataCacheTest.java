@@ -0,0 +1,156 @@
+package com.pma.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.pma.SqlServerTest;
+import com.pma.TestEntities;
+import com.pma.model.entity.Department;
+import com.pma.model.entity.Disease;
+import com.pma.model.entity.Medicine;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Danh sách khoa, loại bệnh và thuốc được phục vụ từ query cache và
+ * second-level cache: lần đọc thứ hai không chạy câu lệnh SQL nào (Hibernate
+ * Statistics), còn sau mỗi thao tác tạo/sửa/xóa qua service, lần đọc tiếp theo
+ * phải truy vấn lại cơ sở dữ liệu và thấy thay đổi.
+ */
+@SqlServerTest
+@Import({DepartmentService.class, DiseaseService.class, MedicineService.class, ReferenceDataCache.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReferenceDataCacheTest {
+
+    @MockitoBean
+    private LowStockAlertService lowStockAlertService;
+    @MockitoBean
+    private MedicineCatalog medicineCatalog;
+
+    @Autowired
+    private DepartmentService departmentService;
+    @Autowired
+    private DiseaseService diseaseService;
+    @Autowired
+    private MedicineService medicineService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        // Mỗi danh sách có ít nhất một phần tử cần nạp từ cache
+        departmentService.createDepartment(TestEntities.department());
+        diseaseService.createDisease(TestEntities.disease());
+        medicineService.createMedicine(TestEntities.medicine(10));
+    }
+
+    @Test
+    void secondRoundOfReferenceReadsRunsNoStatement() {
+        readReferenceData(); // Làm nóng cache
+
+        long queriesBefore = statistics.getQueryExecutionCount();
+        long queryCacheHitsBefore = statistics.getQueryCacheHitCount();
+        long statementsBefore = statistics.getPrepareStatementCount();
+        readReferenceData();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statementsBefore);
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(queriesBefore);
+        assertThat(statistics.getQueryCacheHitCount() - queryCacheHitsBefore).isEqualTo(3);
+    }
+
+    @Test
+    void departmentChangesInvalidateTheCachedList() {
+        departmentNames();
+        Department created = departmentService.createDepartment(TestEntities.department());
+        assertThat(readFromDatabase(this::departmentNames)).contains(created.getDepartmentName());
+
+        Department renamed = new Department();
+        renamed.setDepartmentName(created.getDepartmentName() + " mới");
+        departmentService.updateDepartment(created.getDepartmentId(), renamed);
+        assertThat(readFromDatabase(this::departmentNames))
+                .contains(renamed.getDepartmentName())
+                .doesNotContain(created.getDepartmentName());
+
+        departmentService.deleteDepartment(created.getDepartmentId());
+        assertThat(readFromDatabase(this::departmentNames)).doesNotContain(renamed.getDepartmentName());
+    }
+
+    @Test
+    void diseaseChangesInvalidateTheCachedList() {
+        diseaseNames();
+        Disease created = diseaseService.createDisease(TestEntities.disease());
+        assertThat(readFromDatabase(this::diseaseNames)).contains(created.getDiseaseName());
+
+        Disease renamed = new Disease();
+        renamed.setDiseaseName(created.getDiseaseName() + " mới");
+        diseaseService.updateDisease(created.getDiseaseCode(), renamed);
+        assertThat(readFromDatabase(this::diseaseNames))
+                .contains(renamed.getDiseaseName())
+                .doesNotContain(created.getDiseaseName());
+
+        diseaseService.deleteDisease(created.getDiseaseCode());
+        assertThat(readFromDatabase(this::diseaseNames)).doesNotContain(renamed.getDiseaseName());
+    }
+
+    @Test
+    void medicineChangesInvalidateTheCachedSearch() {
+        medicineNames();
+        Medicine created = medicineService.createMedicine(TestEntities.medicine(10));
+        assertThat(readFromDatabase(this::medicineNames)).contains(created.getMedicineName());
+
+        Medicine renamed = new Medicine();
+        renamed.setMedicineName(created.getMedicineName() + " mới");
+        medicineService.updateMedicine(created.getMedicineId(), renamed);
+        assertThat(readFromDatabase(this::medicineNames))
+                .contains(renamed.getMedicineName())
+                .doesNotContain(created.getMedicineName());
+
+        medicineService.deleteMedicine(created.getMedicineId());
+        assertThat(readFromDatabase(this::medicineNames)).doesNotContain(renamed.getMedicineName());
+    }
+
+    private void readReferenceData() {
+        departmentService.getAllDepartments();
+        diseaseService.getAllDiseases();
+        medicineService.searchMedicinesByName("");
+    }
+
+    /**
+     * Đọc lại và kiểm tra lần đọc đã truy vấn cơ sở dữ liệu thay vì trả kết quả
+     * cũ từ query cache.
+     */
+    private <T> T readFromDatabase(Supplier<T> read) {
+        long queriesBefore = statistics.getQueryExecutionCount();
+        T result = read.get();
+        assertThat(statistics.getQueryExecutionCount()).as("query executed").isGreaterThan(queriesBefore);
+        return result;
+    }
+
+    private List<String> departmentNames() {
+        return departmentService.getAllDepartments().stream().map(Department::getDepartmentName).toList();
+    }
+
+    private List<String> diseaseNames() {
+        return diseaseService.getAllDiseases().stream().map(Disease::getDiseaseName).toList();
+    }
+
+    private List<String> medicineNames() {
+        return medicineService.searchMedicinesByName("").stream().map(Medicine::getMedicineName).toList();
+    }
+}
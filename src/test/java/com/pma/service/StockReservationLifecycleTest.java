@@ -0,0 +1,135 @@
+package com.pma.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.pma.SqlServerTest;
+import com.pma.model.entity.Medicine;
+import com.pma.model.entity.StockReservation;
+import com.pma.model.enums.PrescriptionStatus;
+import com.pma.model.enums.ReservationStatus;
+import com.pma.repository.StockReservationRepository;
+
+/**
+ * Vòng đời lượng giữ tồn kho của một đơn thuốc trên cơ sở dữ liệu thật: tạo đơn
+ * giữ hàng (và từ chối khi không đủ tồn kho khả dụng), lượng giữ quá hạn được
+ * trả lại và đánh dấu EXPIRED, xuất đơn dùng phần đã giữ hoặc trừ thẳng tồn
+ * kho khi lượng giữ đã hết hạn.
+ */
+@SqlServerTest
+class StockReservationLifecycleTest extends PrescriptionDataTestSupport {
+
+    private static final int STOCK = 20;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    private UUID medicineId;
+
+    @BeforeEach
+    void createMedicine() {
+        medicineId = saveMedicine(STOCK);
+    }
+
+    @Test
+    void creatingPrescriptionReservesStock() {
+        UUID prescriptionId = createPrescription(8);
+
+        Medicine medicine = medicine();
+        assertThat(medicine.getStockQuantity()).isEqualTo(STOCK);
+        assertThat(medicine.getReservedQuantity()).isEqualTo(8);
+        assertThat(medicine.getAvailableQuantity()).isEqualTo(STOCK - 8);
+        assertThat(reservations(prescriptionId, ReservationStatus.ACTIVE))
+                .singleElement()
+                .satisfies(r -> assertThat(r.getQuantity()).isEqualTo(8));
+    }
+
+    @Test
+    void prescriptionBeyondAvailableStockIsRejectedWithoutWriting() {
+        createPrescription(15);
+        long prescriptionsBefore = prescriptionRepository.count();
+
+        assertThatThrownBy(() -> createPrescription(6)).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(prescriptionRepository.count()).isEqualTo(prescriptionsBefore);
+        assertThat(medicine().getReservedQuantity()).isEqualTo(15);
+    }
+
+    @Test
+    void expiredReservationsAreReleasedAndMarkedExpired() {
+        UUID prescriptionId = createPrescription(8);
+        expireReservations(prescriptionId);
+
+        assertThat(stockReservationService.expireDueReservations(1_000)).isGreaterThanOrEqualTo(1);
+
+        assertThat(medicine().getReservedQuantity()).isZero();
+        assertThat(medicine().getStockQuantity()).isEqualTo(STOCK);
+        assertThat(reservations(prescriptionId, ReservationStatus.ACTIVE)).isEmpty();
+        assertThat(reservations(prescriptionId, ReservationStatus.EXPIRED)).hasSize(1);
+    }
+
+    @Test
+    void dispensingConsumesTheReservation() {
+        UUID prescriptionId = createPrescription(8);
+
+        prescriptionService.updatePrescriptionStatus(prescriptionId, PrescriptionStatus.Dispensed);
+
+        assertThat(medicine().getStockQuantity()).isEqualTo(STOCK - 8);
+        assertThat(medicine().getReservedQuantity()).isZero();
+        assertThat(reservations(prescriptionId, ReservationStatus.CONSUMED)).hasSize(1);
+    }
+
+    @Test
+    void dispensingAfterExpiryTakesFromAvailableStock() {
+        UUID prescriptionId = createPrescription(8);
+        expireReservations(prescriptionId);
+        stockReservationService.expireDueReservations(1_000);
+
+        prescriptionService.updatePrescriptionStatus(prescriptionId, PrescriptionStatus.Dispensed);
+
+        assertThat(medicine().getStockQuantity()).isEqualTo(STOCK - 8);
+        assertThat(medicine().getReservedQuantity()).isZero();
+    }
+
+    @Test
+    void cancellingReleasesTheReservation() {
+        UUID prescriptionId = createPrescription(8);
+
+        prescriptionService.updatePrescriptionStatus(prescriptionId, PrescriptionStatus.Cancelled);
+
+        assertThat(medicine().getStockQuantity()).isEqualTo(STOCK);
+        assertThat(medicine().getReservedQuantity()).isZero();
+        assertThat(reservations(prescriptionId, ReservationStatus.RELEASED)).hasSize(1);
+    }
+
+    private UUID createPrescription(int quantity) {
+        return createPrescription(List.of(detail(medicineId, quantity)));
+    }
+
+    /**
+     * Đưa hạn của các lượng giữ đang hiệu lực của đơn về quá khứ.
+     */
+    private void expireReservations(UUID prescriptionId) {
+        for (StockReservation reservation : reservations(prescriptionId, ReservationStatus.ACTIVE)) {
+            reservation.setExpiresAt(reservation.getCreatedAt().minusMinutes(1));
+            reservationRepository.save(reservation);
+        }
+    }
+
+    private List<StockReservation> reservations(UUID prescriptionId, ReservationStatus status) {
+        return reservationRepository.findWithMedicineByPrescriptionAndStatus(prescriptionId, status);
+    }
+
+    private Medicine medicine() {
+        return medicineRepository.findById(medicineId).orElseThrow();
+    }
+}
@@ -0,0 +1,145 @@
+package com.pma.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.pma.model.entity.Appointment;
+import com.pma.model.entity.Doctor;
+import com.pma.model.entity.Patient;
+import com.pma.model.entity.WaitlistEntry;
+import com.pma.model.enums.WaitlistStatus;
+import com.pma.repository.DoctorRepository;
+import com.pma.repository.PatientRepository;
+import com.pma.repository.WaitlistEntryRepository;
+
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Kiểm tra việc lấp khung giờ vừa bị hủy từ danh sách chờ: ứng viên được tìm
+ * trong CSDL ở mỗi lần hủy (kể cả yêu cầu được đăng ký từ máy khác), được đánh
+ * dấu FILLED cùng transaction với lịch hẹn, và transaction bị rollback khi đặt
+ * lịch thất bại.
+ */
+class WaitlistServiceTest {
+
+    private static final LocalDateTime SLOT = LocalDate.now().plusDays(3).atTime(10, 0);
+
+    private WaitlistEntryRepository waitlistEntryRepository;
+    private AppointmentService appointmentService;
+    private PlatformTransactionManager transactionManager;
+    private WaitlistService waitlistService;
+    private UUID doctorId;
+
+    @BeforeEach
+    void setUp() {
+        waitlistEntryRepository = mock(WaitlistEntryRepository.class);
+        appointmentService = mock(AppointmentService.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(_ -> new SimpleTransactionStatus());
+        waitlistService = new WaitlistService(waitlistEntryRepository, mock(PatientRepository.class),
+                mock(DoctorRepository.class), appointmentService, transactionManager);
+        doctorId = UUID.randomUUID();
+    }
+
+    @Test
+    void entryRegisteredElsewhereFillsFreedSlot() {
+        // Yêu cầu chỉ có trong CSDL (đăng ký từ máy khác), không qua addToWaitlist của service này
+        WaitlistEntry entry = entry();
+        givenCandidates(List.of(entry));
+        Appointment booked = new Appointment();
+        booked.setAppointmentId(UUID.randomUUID());
+        when(appointmentService.scheduleAppointment(any(Appointment.class), eq(entry.getPatient().getPatientId()),
+                eq(doctorId))).thenReturn(booked);
+
+        waitlistService.onAppointmentCancelled(new AppointmentCancelledEvent(UUID.randomUUID(), doctorId, SLOT));
+
+        assertThat(entry.getStatus()).isEqualTo(WaitlistStatus.FILLED);
+        assertThat(entry.getFilledAppointment()).isSameAs(booked);
+        verify(waitlistEntryRepository).updateStatusForLatestDateBefore(WaitlistStatus.WAITING,
+                WaitlistStatus.EXPIRED, LocalDate.now());
+    }
+
+    @Test
+    void slotTakenRollsBackAndKeepsEntryWaiting() {
+        WaitlistEntry entry = entry();
+        givenCandidates(List.of(entry));
+        when(appointmentService.scheduleAppointment(any(Appointment.class), any(UUID.class), eq(doctorId)))
+                .thenThrow(new IllegalArgumentException("Bác sĩ không rảnh"));
+
+        waitlistService.onAppointmentCancelled(new AppointmentCancelledEvent(UUID.randomUUID(), doctorId, SLOT));
+
+        assertThat(entry.getStatus()).isEqualTo(WaitlistStatus.WAITING);
+        // Transaction của lần thử được đánh dấu rollback: lịch hẹn và email xếp hàng bị bỏ
+        ArgumentCaptor<TransactionStatus> statuses = ArgumentCaptor.forClass(TransactionStatus.class);
+        verify(transactionManager, times(2)).commit(statuses.capture());
+        assertThat(statuses.getAllValues().get(1).isRollbackOnly()).isTrue();
+    }
+
+    @Test
+    void invalidCandidateIsCancelledAndNextCandidateTried() {
+        WaitlistEntry invalid = entry();
+        WaitlistEntry next = entry();
+        givenCandidates(List.of(invalid), List.of(next));
+        when(waitlistEntryRepository.findById(invalid.getWaitlistEntryId())).thenReturn(Optional.of(invalid));
+        when(appointmentService.scheduleAppointment(any(Appointment.class), eq(invalid.getPatient().getPatientId()),
+                eq(doctorId))).thenThrow(new EntityNotFoundException("Patient not found"));
+        when(appointmentService.scheduleAppointment(any(Appointment.class), eq(next.getPatient().getPatientId()),
+                eq(doctorId))).thenReturn(new Appointment());
+
+        waitlistService.onAppointmentCancelled(new AppointmentCancelledEvent(UUID.randomUUID(), doctorId, SLOT));
+
+        assertThat(invalid.getStatus()).isEqualTo(WaitlistStatus.CANCELLED);
+        assertThat(next.getStatus()).isEqualTo(WaitlistStatus.FILLED);
+    }
+
+    @Test
+    void pastSlotIsIgnored() {
+        waitlistService.onAppointmentCancelled(new AppointmentCancelledEvent(UUID.randomUUID(), doctorId,
+                LocalDateTime.now().minusHours(1)));
+
+        verify(waitlistEntryRepository, never()).findCandidatesForUpdate(any(), any(), any(), any());
+    }
+
+    @SafeVarargs
+    private void givenCandidates(List<WaitlistEntry> first, List<WaitlistEntry>... rest) {
+        when(waitlistEntryRepository.findCandidatesForUpdate(doctorId, WaitlistStatus.WAITING, SLOT.toLocalDate(),
+                Limit.of(1))).thenReturn(first, rest);
+    }
+
+    private WaitlistEntry entry() {
+        Patient patient = new Patient();
+        patient.setPatientId(UUID.randomUUID());
+        Doctor doctor = new Doctor();
+        doctor.setDoctorId(doctorId);
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setWaitlistEntryId(UUID.randomUUID());
+        entry.setPatient(patient);
+        entry.setDoctor(doctor);
+        entry.setEarliestDate(SLOT.toLocalDate().minusDays(1));
+        entry.setLatestDate(SLOT.toLocalDate().plusDays(1));
+        entry.setReason("Đau đầu");
+        entry.setAppointmentType("Khám lần đầu");
+        entry.setStatus(WaitlistStatus.WAITING);
+        return entry;
+    }
+}
@@ -0,0 +1,73 @@
+package com.pma.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+/**
+ * Kiểm tra việc tắt BoundedVirtualThreadExecutor khi ứng dụng đóng: tác vụ đã
+ * nhận (kể cả đang chờ) được chạy xong, tác vụ mới bị từ chối, và tác vụ chạy
+ * quá thời gian chờ bị ngắt.
+ */
+class BoundedVirtualThreadExecutorTest {
+
+    @Test
+    void shutdownDrainsAcceptedTasksAndRejectsNewOnes() throws InterruptedException {
+        BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("test", 2, 10);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger finished = new AtomicInteger();
+        for (int i = 0; i < 6; i++) {
+            executor.execute(() -> {
+                try {
+                    release.await();
+                    finished.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            release.countDown();
+        });
+
+        assertThat(executor.shutdown(Duration.ofSeconds(5))).isTrue();
+        assertThat(finished).hasValue(6);
+        assertThat(executor.metrics().completed()).isEqualTo(6);
+        assertThatThrownBy(() -> executor.execute(() -> { })).isInstanceOf(TaskRejectedException.class);
+    }
+
+    @Test
+    void tasksStillRunningAfterTimeoutAreInterrupted() throws InterruptedException {
+        BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("test", 1, 10);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch stopped = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(Duration.ofMinutes(1));
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+            stopped.countDown();
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(executor.shutdown(Duration.ofMillis(50))).isFalse();
+        assertThat(stopped.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(interrupted).isTrue();
+    }
+}
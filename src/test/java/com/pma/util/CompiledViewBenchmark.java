@@ -0,0 +1,119 @@
+package com.pma.util;
+
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.pma.controller.admin.AdminManageDoctorsController;
+import com.pma.service.DepartmentService;
+import com.pma.service.DoctorService;
+
+import javafx.application.Platform;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+
+/**
+ * So sánh thời gian dựng màn hình admin_manage_doctors.fxml bằng FXMLLoader và
+ * bằng lớp sinh sẵn lúc build (AdminManageDoctorsFxml, xem CompiledView). Mỗi
+ * lần đo tạo controller mới (các service là mock, dữ liệu được nạp nền nên
+ * không tính vào thời gian dựng) và gọi initialize() như khi chuyển màn hình.
+ * Không phải test; cần build với profile sinh màn hình (mvn -Pfxml-views
+ * test-compile) và một màn hình (hoặc Monocle headless), rồi chạy bằng:
+ * <pre>
+ * mvn -q -Pfxml-views test-compile dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/test-classpath.txt
+ * java -cp target/test-classes:target/classes:$(cat target/test-classpath.txt) \
+ *     com.pma.util.CompiledViewBenchmark
+ * </pre>
+ * Thêm "-bm ss -f 20 -wi 0 -i 1" (qua org.openjdk.jmh.Main) để đo một lần dựng
+ * trong JVM mới, gần với lần mở màn hình đầu tiên của người dùng (Setup đã dựng
+ * mỗi cách một lần để so số node, nên đây là lần dựng thứ hai).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class CompiledViewBenchmark {
+
+    private static final String FXML_PATH = "/com/pma/fxml/admin_manage_doctors.fxml";
+
+    private URL fxmlUrl;
+    private UIManager uiManager;
+    private DoctorService doctorService;
+    private DepartmentService departmentService;
+    private UiTaskService uiTaskService;
+
+    @Setup
+    public void setUp() throws IOException {
+        try {
+            Platform.startup(() -> { });
+        } catch (IllegalStateException alreadyStarted) {
+            // Toolkit đã chạy
+        }
+        fxmlUrl = CompiledViewBenchmark.class.getResource(FXML_PATH);
+        uiManager = mock(UIManager.class);
+        doctorService = mock(DoctorService.class);
+        departmentService = mock(DepartmentService.class);
+        uiTaskService = mock(UiTaskService.class);
+        if (CompiledViews.find(FXML_PATH) == null) {
+            throw new IllegalStateException("No compiled view for " + FXML_PATH
+                    + "; build with -Pfxml-views.");
+        }
+        int loaderNodes = countNodes(fxmlLoader());
+        int compiledNodes = countNodes(compiledView());
+        if (loaderNodes != compiledNodes) {
+            throw new IllegalStateException("Compiled view builds " + compiledNodes + " nodes, FXMLLoader builds "
+                    + loaderNodes + ".");
+        }
+    }
+
+    @Benchmark
+    public Parent fxmlLoader() throws IOException {
+        FXMLLoader loader = new FXMLLoader(fxmlUrl);
+        loader.setControllerFactory(_ -> newController());
+        return loader.load();
+    }
+
+    @Benchmark
+    public Parent compiledView() throws IOException {
+        return CompiledViews.find(FXML_PATH).load(newController(), fxmlUrl);
+    }
+
+    private AdminManageDoctorsController newController() {
+        return new AdminManageDoctorsController(uiManager, doctorService, departmentService, uiTaskService);
+    }
+
+    private static int countNodes(Node node) {
+        int count = 1;
+        if (node instanceof Parent parent) {
+            for (Node child : parent.getChildrenUnmodifiable()) {
+                count += countNodes(child);
+            }
+        }
+        return count;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CompiledViewBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
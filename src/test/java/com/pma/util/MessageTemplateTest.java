@@ -0,0 +1,81 @@
+package com.pma.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Kiểm tra mẫu văn bản biên dịch sẵn: thay chỗ giữ chỗ (kể cả lặp lại và giá
+ * trị null), báo lỗi mẫu sai, escape giá trị trong mẫu HTML nhưng không đụng
+ * đến văn bản cố định, và hiển thị vào bộ đệm của người gọi.
+ */
+class MessageTemplateTest {
+
+    @Test
+    void rendersPlaceholdersInOrderIncludingRepeats() {
+        MessageTemplate template = MessageTemplate.compile("Dear {{name}},\nID: {{ id }}\nBye {{name}}");
+
+        String text = template.renderer().set("name", "An").set("id", 42).render();
+
+        assertThat(text).isEqualTo("Dear An,\nID: 42\nBye An");
+    }
+
+    @Test
+    void nullValueRendersEmptyAndRendererCanBeReused() {
+        MessageTemplate.Renderer renderer = MessageTemplate.compile("[{{a}}|{{b}}]").renderer();
+
+        assertThat(renderer.set("a", "x").render()).isEqualTo("[x|]");
+        assertThat(renderer.set("b", "y").render()).isEqualTo("[x|y]");
+    }
+
+    @Test
+    void malformedTemplatesAndUnknownPlaceholdersAreRejected() {
+        assertThatThrownBy(() -> MessageTemplate.compile("Hi {{name"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MessageTemplate.compile("Hi {{ }}"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MessageTemplate.compile("Hi {{name}}").renderer().set("other", 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void plainTemplateDoesNotEscape() {
+        String text = MessageTemplate.compile("Note: {{note}}").renderer().set("note", "<b>&'\"").render();
+
+        assertThat(text).isEqualTo("Note: <b>&'\"");
+    }
+
+    @Test
+    void htmlTemplateEscapesValuesButNotMarkup() {
+        MessageTemplate template = MessageTemplate.compileHtml("<p title=\"{{title}}\">{{body}}</p>");
+
+        String html = template.renderer()
+                .set("title", "Tom's \"quote\"")
+                .set("body", "<script>alert(1)</script> & co")
+                .render();
+
+        assertThat(html).isEqualTo("<p title=\"Tom&#39;s &quot;quote&quot;\">"
+                + "&lt;script&gt;alert(1)&lt;/script&gt; &amp; co</p>");
+    }
+
+    @Test
+    void rendersIntoCallerBuilderAppendingToExistingContent() {
+        MessageTemplate line = MessageTemplate.compile("- {{name}}: {{qty}}\n");
+        StringBuilder buffer = new StringBuilder("Items:\n");
+
+        line.renderer().set("name", "Paracetamol").set("qty", 3).render(buffer);
+        line.renderer().set("name", "Amoxicillin").set("qty", 1).render(buffer);
+
+        assertThat(buffer).hasToString("Items:\n- Paracetamol: 3\n- Amoxicillin: 1\n");
+    }
+
+    @Test
+    void valuesLongerThanTheEstimateRenderCompletely() {
+        MessageTemplate template = MessageTemplate.compile("<{{v}}>");
+        String longValue = "x".repeat(40_000);
+
+        assertThat(template.renderer().set("v", longValue).render()).hasSize(40_002);
+        assertThat(template.renderer().set("v", "short").render()).isEqualTo("<short>");
+    }
+}
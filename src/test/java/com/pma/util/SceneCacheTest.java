@@ -0,0 +1,118 @@
+package com.pma.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+import javafx.scene.Group;
+import javafx.scene.Parent;
+
+/**
+ * Kiểm tra bộ nhớ đệm LRU của các màn hình: loại theo số màn hình và theo ngân
+ * sách số node (màn hình ít dùng gần đây nhất trước), không bao giờ loại màn
+ * hình vừa lưu, và tổng số node luôn khớp với các màn hình còn lại sau
+ * put/remove/clear. Dùng Group làm root nên không cần khởi động JavaFX.
+ */
+class SceneCacheTest {
+
+    private final Object controller = new Object();
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondMaxEntries() {
+        SceneCache cache = new SceneCache(2, 1_000);
+        cache.put("a.fxml", root(3), controller);
+        cache.put("b.fxml", root(3), controller);
+        cache.get("a.fxml"); // a vừa được dùng, b thành cũ nhất
+
+        cache.put("c.fxml", root(3), controller);
+
+        assertThat(cache.get("b.fxml")).isNull();
+        assertThat(cache.get("a.fxml")).isNotNull();
+        assertThat(cache.get("c.fxml")).isNotNull();
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.totalNodes()).isEqualTo(8);
+    }
+
+    @Test
+    void evictsOldestUntilWithinNodeBudget() {
+        SceneCache cache = new SceneCache(10, 20);
+        cache.put("a.fxml", root(5), controller); // 6 node
+        cache.put("b.fxml", root(5), controller); // 6 node
+        cache.put("c.fxml", root(5), controller); // 6 node, tổng 18
+
+        cache.put("d.fxml", root(9), controller); // 10 node: phải loại a và b
+
+        assertThat(cache.get("a.fxml")).isNull();
+        assertThat(cache.get("b.fxml")).isNull();
+        assertThat(cache.get("c.fxml")).isNotNull();
+        assertThat(cache.totalNodes()).isEqualTo(16);
+    }
+
+    @Test
+    void newestEntryIsKeptEvenWhenItAloneExceedsTheBudget() {
+        SceneCache cache = new SceneCache(3, 10);
+        cache.put("small.fxml", root(2), controller);
+
+        Parent huge = root(50);
+        cache.put("huge.fxml", huge, controller);
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get("huge.fxml").root()).isSameAs(huge);
+        assertThat(cache.get("huge.fxml").nodeCount()).isEqualTo(51);
+        assertThat(cache.totalNodes()).isEqualTo(51);
+    }
+
+    @Test
+    void nestedNodesAreCountedAndReplacingAnEntryDoesNotDoubleCount() {
+        SceneCache cache = new SceneCache(5, 1_000);
+        Group nested = new Group(new Group(new Group(), new Group()), new Group());
+        cache.put("a.fxml", nested, controller);
+        assertThat(cache.totalNodes()).isEqualTo(5);
+
+        cache.put("a.fxml", root(1), controller);
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.totalNodes()).isEqualTo(2);
+    }
+
+    @Test
+    void removeAndClearKeepNodeTotalInStep() {
+        SceneCache cache = new SceneCache(5, 1_000);
+        cache.put("a.fxml", root(4), controller);
+        cache.put("b.fxml", root(2), controller);
+
+        cache.remove("a.fxml");
+        assertThat(cache.totalNodes()).isEqualTo(3);
+        cache.remove("missing.fxml");
+        assertThat(cache.totalNodes()).isEqualTo(3);
+
+        cache.clear();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.totalNodes()).isZero();
+        cache.put("c.fxml", root(1), controller);
+        assertThat(cache.totalNodes()).isEqualTo(2);
+    }
+
+    @Test
+    void zeroEntriesDisablesCaching() {
+        SceneCache cache = new SceneCache(0, 1_000);
+
+        cache.put("a.fxml", root(1), controller);
+
+        assertThat(cache.get("a.fxml")).isNull();
+        assertThat(cache.totalNodes()).isZero();
+        assertThatThrownBy(() -> new SceneCache(-1, 10)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Root có {@code children} node con, tức {@code children + 1} node.
+     */
+    private static Parent root(int children) {
+        Group root = new Group();
+        for (int i = 0; i < children; i++) {
+            root.getChildren().add(new Group());
+        }
+        return root;
+    }
+}
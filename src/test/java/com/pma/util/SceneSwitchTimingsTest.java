@@ -0,0 +1,28 @@
+package com.pma.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Kiểm tra bảng tổng hợp thời gian chuyển màn hình: mỗi màn hình một dòng theo
+ * thứ tự đường dẫn, lần tải mới và lần dùng lại được thống kê riêng.
+ */
+class SceneSwitchTimingsTest {
+
+    @Test
+    void summarisesUncachedAndCachedSwitchesPerView() {
+        SceneSwitchTimings timings = new SceneSwitchTimings();
+        assertThat(timings.isEmpty()).isTrue();
+
+        timings.record("/com/pma/fxml/b.fxml", false, 120_000_000);
+        timings.record("/com/pma/fxml/a.fxml", false, 80_000_000);
+        timings.record("/com/pma/fxml/a.fxml", true, 4_000_000);
+        timings.record("/com/pma/fxml/a.fxml", true, 2_000_000);
+
+        String[] lines = timings.summary().split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(lines[1]).isEqualTo("/com/pma/fxml/a.fxml | 1, 80.0, 80.0 | 2, 3.0, 2.0");
+        assertThat(lines[2]).isEqualTo("/com/pma/fxml/b.fxml | 1, 120.0, 120.0 | 0, -, -");
+    }
+}
@@ -0,0 +1,179 @@
+package com.pma.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+import javafx.application.Platform;
+
+/**
+ * Kiểm tra UiTaskService: công việc chạy trên virtual thread của executor dùng
+ * chung, kết quả được đưa về luồng JavaFX, số công việc chạy đồng thời và số
+ * công việc chờ có giới hạn (không tạo luồng hệ điều hành mới khi bấm liên
+ * tục), và cancelAll chỉ hủy công việc của đúng màn hình.
+ * <p>
+ * Cần JavaFX toolkit; bị bỏ qua khi không khởi động được (máy không có màn
+ * hình).
+ */
+class UiTaskServiceTest {
+
+    private static final int MAX_CONCURRENT_TASKS = 8;
+    private static final int MAX_QUEUED_TASKS = 64;
+
+    private static boolean toolkitAvailable;
+
+    private UiTaskService uiTaskService;
+
+    @BeforeAll
+    static void startToolkit() {
+        try {
+            Platform.startup(() -> { });
+            Platform.setImplicitExit(false);
+            toolkitAvailable = true;
+        } catch (IllegalStateException alreadyStarted) {
+            toolkitAvailable = true;
+        } catch (RuntimeException | Error e) {
+            toolkitAvailable = false;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(toolkitAvailable, "JavaFX toolkit is not available");
+        uiTaskService = new UiTaskService();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (uiTaskService != null) {
+            uiTaskService.shutdown();
+        }
+    }
+
+    @Test
+    void workRunsOnVirtualThreadAndResultArrivesOnFxThread() throws InterruptedException {
+        Object owner = new Object();
+        AtomicBoolean ranOnVirtualThread = new AtomicBoolean();
+        AtomicBoolean callbackOnFxThread = new AtomicBoolean();
+        AtomicReference<String> result = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        uiTaskService.submit(owner, () -> {
+            ranOnVirtualThread.set(Thread.currentThread().isVirtual());
+            return "ok";
+        }, value -> {
+            callbackOnFxThread.set(Platform.isFxApplicationThread());
+            result.set(value);
+            done.countDown();
+        }, _ -> done.countDown());
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(result).hasValue("ok");
+        assertThat(ranOnVirtualThread).isTrue();
+        assertThat(callbackOnFxThread).isTrue();
+    }
+
+    @Test
+    void burstOfSubmissionsIsBoundedAndOverflowIsRejected() throws InterruptedException {
+        Object owner = new Object();
+        int accepted = MAX_CONCURRENT_TASKS + MAX_QUEUED_TASKS;
+        int overflow = 20;
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch succeeded = new CountDownLatch(accepted);
+        CountDownLatch rejected = new CountDownLatch(overflow);
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        int platformThreadsBefore = Thread.getAllStackTraces().size();
+
+        // Gửi từ luồng JavaFX như khi người dùng bấm liên tục
+        CountDownLatch submitted = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            for (int i = 0; i < accepted + overflow; i++) {
+                uiTaskService.submit(owner, () -> {
+                    peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        release.await();
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                    return null;
+                }, _ -> succeeded.countDown(), error -> {
+                    failures.add(error);
+                    rejected.countDown();
+                });
+            }
+            submitted.countDown();
+        });
+        assertThat(submitted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(rejected.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(failures).hasSize(overflow).allMatch(TaskRejectedException.class::isInstance);
+        assertThat(Thread.getAllStackTraces().size() - platformThreadsBefore)
+                .isLessThan(MAX_CONCURRENT_TASKS);
+
+        release.countDown();
+        assertThat(succeeded.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(peak.get()).isEqualTo(MAX_CONCURRENT_TASKS);
+        assertThat(uiTaskService.metrics().completed()).isEqualTo(accepted);
+        assertThat(uiTaskService.metrics().rejected()).isEqualTo(overflow);
+    }
+
+    @Test
+    void cancelAllInterruptsOnlyTheOwnersTasks() throws InterruptedException {
+        Object leavingScreen = new Object();
+        Object otherScreen = new Object();
+        CountDownLatch started = new CountDownLatch(3);
+        CountDownLatch interrupted = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch otherDone = new CountDownLatch(1);
+        AtomicInteger leavingCallbacks = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            uiTaskService.submit(leavingScreen, () -> {
+                started.countDown();
+                try {
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw e;
+                }
+                return null;
+            }, _ -> leavingCallbacks.incrementAndGet(), _ -> leavingCallbacks.incrementAndGet());
+        }
+        uiTaskService.submit(otherScreen, () -> {
+            started.countDown();
+            release.await();
+            return "other";
+        }, _ -> otherDone.countDown(), _ -> { });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CountDownLatch cancelled = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            uiTaskService.cancelAll(leavingScreen);
+            cancelled.countDown();
+        });
+        assertThat(cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        release.countDown();
+        assertThat(otherDone.await(5, TimeUnit.SECONDS)).isTrue();
+        // Đợi các callback còn lại trên luồng JavaFX (nếu có) được xử lý
+        CountDownLatch drained = new CountDownLatch(1);
+        Platform.runLater(drained::countDown);
+        assertThat(drained.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(leavingCallbacks).hasValue(0);
+    }
+}